@@ -21,7 +21,13 @@ package wtf.hmg.pki.csc;
 
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import wtf.hmg.pki.csc.model.AdminJob;
+import wtf.hmg.pki.csc.model.CryptSession;
+import wtf.hmg.pki.csc.model.WorkspaceOperation;
+import wtf.hmg.pki.csc.service.AdminJobService;
 import wtf.hmg.pki.csc.service.CertificateService;
+import wtf.hmg.pki.csc.service.CryptService;
 import wtf.hmg.pki.csc.util.AuditLog;
 
 import java.io.IOException;
@@ -30,16 +36,39 @@ public abstract class AbstractCertificateController {
 	@Autowired
 	protected CertificateService certificateService;
 	@Autowired
+	protected CryptService cryptService;
+	@Autowired
 	protected AuditLog auditLog;
+	@Autowired
+	protected AdminJobService adminJobService;
+	
+	/**
+	 * Queues the task behind all other operations on the cert-repo; the page polls the state of the job by its id.
+	 */
+	protected AdminJob queueJob(final String description, final String operatingUser,
+								final RedirectAttributes redirectAttributes, final AdminJobService.AdminTask task) {
+		AdminJob job = adminJobService.submit(description, operatingUser, task);
+		redirectAttributes.addFlashAttribute("jobId", job.getId());
+		return job;
+	}
 	
-	protected void prepareWorkspace(final String cryptPassword) throws IOException, GitAPIException {
-		certificateService.cleanupWorkingFiles();
-		certificateService.cloneCertificateRepository();
-		certificateService.decryptWorkingFiles(cryptPassword);
+	/**
+	 * @return the session used to decrypt the working files; to be passed to {@link #finishWorkspace} and closed afterwards
+	 */
+	protected CryptSession prepareWorkspace(final String cryptPassword, final WorkspaceOperation operation) throws IOException, GitAPIException {
+		certificateService.prepareCertificateRepository();
+		CryptSession cryptSession = cryptService.openSession(cryptPassword);
+		try {
+			certificateService.decryptWorkingFiles(cryptSession, operation);
+		} catch (IOException | RuntimeException e) {
+			cryptSession.close();
+			throw e;
+		}
+		return cryptSession;
 	}
 	
-	protected void finishWorkspace(final String cryptPassword, final String operatingUser, final String operation) throws IOException, GitAPIException {
-		certificateService.encryptWorkingFiles(cryptPassword);
+	protected void finishWorkspace(final CryptSession cryptSession, final String operatingUser, final String operation) throws IOException, GitAPIException {
+		certificateService.encryptWorkingFiles(cryptSession);
 		certificateService.commitAndPushChanges(operatingUser, operation);
 	}
 	
@@ -47,7 +76,15 @@ public abstract class AbstractCertificateController {
 		this.certificateService = certificateService;
 	}
 	
+	public void setCryptService(final CryptService cryptService) {
+		this.cryptService = cryptService;
+	}
+	
 	public void setAuditLog(final AuditLog auditLog) {
 		this.auditLog = auditLog;
 	}
+	
+	public void setAdminJobService(final AdminJobService adminJobService) {
+		this.adminJobService = adminJobService;
+	}
 }
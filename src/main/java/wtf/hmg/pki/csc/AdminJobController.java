@@ -0,0 +1,53 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseBody;
+import wtf.hmg.pki.csc.model.AdminJob;
+import wtf.hmg.pki.csc.service.AdminJobService;
+
+@Controller
+public class AdminJobController {
+
+    @Autowired
+    private AdminJobService adminJobService;
+
+    @GetMapping("/jobs/{jobId}")
+    @ResponseBody
+    @PreAuthorize("hasRole('DevOps')")
+    public ResponseEntity<AdminJob> jobStatus(@PathVariable final String jobId) {
+        AdminJob job = adminJobService.findJob(jobId);
+        if(job == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(job);
+    }
+
+    public void setAdminJobService(final AdminJobService adminJobService) {
+        this.adminJobService = adminJobService;
+    }
+}
@@ -19,6 +19,7 @@
 */
 package wtf.hmg.pki.csc;
 
+import org.apache.commons.lang3.StringUtils;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,20 +28,28 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import wtf.hmg.pki.csc.model.CSR;
 import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.CryptSession;
+import wtf.hmg.pki.csc.model.JobResult;
+import wtf.hmg.pki.csc.model.ListingPage;
+import wtf.hmg.pki.csc.model.ListingQuery;
+import wtf.hmg.pki.csc.model.SignResult;
+import wtf.hmg.pki.csc.model.WorkspaceOperation;
 import wtf.hmg.pki.csc.service.AdminDataService;
-import wtf.hmg.pki.csc.service.CryptService;
 import wtf.hmg.pki.csc.util.CscUtils;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Map;
 
 @Controller
 public class AdminUIController extends AbstractCertificateController {
@@ -49,21 +58,36 @@ public class AdminUIController extends AbstractCertificateController {
 
     @Autowired
     private AdminDataService adminDataService;
-    @Autowired
-    private CryptService cryptService;
-
-    private static ReentrantLock lock = new ReentrantLock();
 
     @GetMapping("/admin")
     @PreAuthorize("hasRole('DevOps')")
-    public String adminPage(final Model model, final OAuth2AuthenticationToken auth) {
-        List<CSR> pendingRequests = adminDataService.findPendingCertificateRequests();
-        List<CSR> signedRequests = adminDataService.findSignedCertificateRequests();
-        List<CertInfo> revokedCerts = adminDataService.findRevokedCertificates();
-
-        model.addAttribute("pendingRequests", pendingRequests);
-        model.addAttribute("signedRequests", signedRequests);
-        model.addAttribute("revokedCerts", revokedCerts);
+    public String adminPage(@RequestParam(value = "pendingPage", defaultValue = "0") final int pendingPage,
+                            @RequestParam(value = "signedPage", defaultValue = "0") final int signedPage,
+                            @RequestParam(value = "revokedPage", defaultValue = "0") final int revokedPage,
+                            @RequestParam(value = "size", defaultValue = "" + ListingQuery.DEFAULT_PAGE_SIZE) final int size,
+                            @RequestParam(value = "sort", defaultValue = "lastModified") final String sort,
+                            @RequestParam(value = "order", defaultValue = "desc") final String order,
+                            @RequestParam(value = "user", required = false) final String user,
+                            @RequestParam(value = "subject", required = false) final String subject,
+                            final Model model, final OAuth2AuthenticationToken auth) {
+        ListingQuery query = new ListingQuery.Builder()
+                .size(size)
+                .sort(ListingQuery.SortField.fromParam(sort))
+                .descending(!"asc".equalsIgnoreCase(order))
+                .user(user)
+                .subject(subject)
+                .build();
+        ListingPage<CSR> pendingRequests = adminDataService.findPendingCertificateRequests(query.withPage(pendingPage));
+        ListingPage<CSR> signedRequests = adminDataService.findSignedCertificateRequests(query.withPage(signedPage));
+        ListingPage<CertInfo> revokedCerts = adminDataService.findRevokedCertificates(query.withPage(revokedPage));
+
+        model.addAttribute("pendingRequests", pendingRequests.getItems());
+        model.addAttribute("signedRequests", signedRequests.getItems());
+        model.addAttribute("revokedCerts", revokedCerts.getItems());
+        model.addAttribute("pendingPage", pendingRequests);
+        model.addAttribute("signedPage", signedRequests);
+        model.addAttribute("revokedPage", revokedCerts);
+        model.addAttribute("query", query);
         model.addAttribute("user", auth.getPrincipal());
 
         return "adminPage";
@@ -94,68 +118,138 @@ public class AdminUIController extends AbstractCertificateController {
                           @RequestParam("keyPassword") final String keyPassword,
                           final RedirectAttributes redirectAttributes, final OAuth2AuthenticationToken auth) {
         String operatingUser = auth.getPrincipal().getName();
-        if(!lock.tryLock()) {
-            redirectAttributes.addFlashAttribute("errorMessage", "Concurrent access prevented! Try again in a minute.");
-            return "redirect:/admin";
-        }
-        try {
+        queueJob("sign-operation", operatingUser, redirectAttributes, () -> {
             signCertificateRequest(CscUtils.normalizeUserName(userName), fileName, cryptPassword, keyPassword, operatingUser);
-            redirectAttributes.addFlashAttribute("message", "Certificate has been signed successfully!");
             auditLog.logSignedCSR(operatingUser, fileName, userName);
-        } catch (GitAPIException|IOException|IllegalStateException e) {
-            log.error("Unable to sign CSR!", e);
-            redirectAttributes.addFlashAttribute("errorMessage", "Something went horribly wrong! Unable to execute sign-operation! Error was: " + e.getMessage());
-        } finally {
-            lock.unlock();
-        }
+            return new JobResult.Builder().message("Certificate has been signed successfully!").build();
+        });
 
         return "redirect:/admin";
     }
 
     private void signCertificateRequest(final String userName, final String fileName, final String cryptPassword,
                                         final String keyPassword, final String operatingUser) throws IOException, GitAPIException {
-        prepareWorkspace(cryptPassword);
-        Path csrFile = certificateService.copyUserCSRToRepository(userName,fileName);
-        Path certFile = cryptService.signCertificateRequest(csrFile, keyPassword);
-        certificateService.copyCertificateToUserDirectory(userName, certFile);
-        finishWorkspace(cryptPassword, operatingUser, "Signed User-Certificate");
+        try (CryptSession cryptSession = prepareWorkspace(cryptPassword, WorkspaceOperation.SIGN)) {
+            Path csrFile = certificateService.copyUserCSRToRepository(userName,fileName);
+            Path certFile = cryptService.signCertificateRequest(csrFile, keyPassword);
+            certificateService.copyCertificateToUserDirectory(userName, certFile);
+            finishWorkspace(cryptSession, operatingUser, "Signed User-Certificate");
+        }
         adminDataService.acceptUserCSR(userName, fileName);
     }
-    
-    @PostMapping("/renewCert")
+
+    @PostMapping("/signCSRs")
     @PreAuthorize("hasRole('DevOps')")
-    public String renewCert(final String userName, final String fileName, final String cryptPassword,
-                            final String keyPassword, final RedirectAttributes redirectAttributes, final OAuth2AuthenticationToken auth) {
+    public String signCSRs(@RequestParam(value = "csr", required = false) final List<String> csrs,
+                           @RequestParam("cryptPassword") final String cryptPassword,
+                           @RequestParam("keyPassword") final String keyPassword,
+                           final RedirectAttributes redirectAttributes, final OAuth2AuthenticationToken auth) {
         String operatingUser = auth.getPrincipal().getName();
-        if(!lock.tryLock()) {
-            redirectAttributes.addFlashAttribute("errorMessage", "Concurrent access prevented! Try again in a minute.");
+        if(CollectionUtils.isEmpty(csrs)) {
+            redirectAttributes.addFlashAttribute("errorMessage", "No certificate-requests selected!");
             return "redirect:/admin";
         }
-        
+
+        queueJob("sign-operation", operatingUser, redirectAttributes, () -> {
+            List<SignResult> results = signCertificateRequests(csrs, cryptPassword, keyPassword, operatingUser);
+            long signed = results.stream().filter(SignResult::isSuccess).count();
+            JobResult.Builder result = new JobResult.Builder().signResults(results);
+            if(signed == results.size()) {
+                return result.message(signed + " certificates have been signed successfully!").build();
+            }
+            return result.errorMessage("Only " + signed + " of " + results.size() + " certificates have been signed!").build();
+        });
+
+        return "redirect:/admin";
+    }
+
+    /**
+     * Signs all given CSRs (as "userName/fileName") within one workspace cycle. A CSR that can not be signed is
+     * removed from the workspace again and does not abort the others. Handing out the certificates happens after
+     * all CSRs have been signed; if that fails, the whole batch is discarded, because the CA would otherwise keep
+     * certificates the users never received. The changes are committed and pushed once if at least one CSR was signed.
+     */
+    private List<SignResult> signCertificateRequests(final List<String> csrs, final String cryptPassword, final String keyPassword,
+                                                     final String operatingUser) throws IOException, GitAPIException {
+        List<SignResult> results = new ArrayList<>();
+        Map<SignResult, Path> certFiles = new LinkedHashMap<>();
+        try (CryptSession cryptSession = prepareWorkspace(cryptPassword, WorkspaceOperation.SIGN)) {
+            for(String csr : csrs) {
+                String userName = CscUtils.normalizeUserName(StringUtils.substringBefore(csr, "/"));
+                String fileName = StringUtils.substringAfter(csr, "/");
+                SignResult.Builder result = new SignResult.Builder().userName(userName).fileName(fileName);
+                try {
+                    Path csrFile = certificateService.copyUserCSRToRepository(userName, fileName);
+                    Path certFile = cryptService.signCertificateRequest(csrFile, keyPassword);
+                    SignResult signed = result.success(true).build();
+                    certFiles.put(signed, certFile);
+                    results.add(signed);
+                } catch (IOException | IllegalStateException e) {
+                    log.error("Unable to sign CSR {} of user {}!", fileName, userName, e);
+                    auditLog.logFailedSignCSR(operatingUser, fileName, userName, e.getMessage());
+                    certificateService.removeCSRFromRepository(fileName);
+                    results.add(result.success(false).message(e.getMessage()).build());
+                }
+            }
+
+            if(certFiles.isEmpty()) {
+                certificateService.cleanupWorkingFiles();
+                return results;
+            }
+            copyCertificatesToUserDirectories(certFiles);
+            finishWorkspace(cryptSession, operatingUser, "Signed User-Certificates");
+        }
+
+        for(SignResult result : certFiles.keySet()) {
+            adminDataService.acceptUserCSR(result.getUserName(), result.getFileName());
+            auditLog.logSignedCSR(operatingUser, result.getFileName(), result.getUserName());
+        }
+        return results;
+    }
+
+    private void copyCertificatesToUserDirectories(final Map<SignResult, Path> certFiles) throws IOException {
+        List<SignResult> copied = new ArrayList<>();
         try {
-            prepareWorkspace(cryptPassword);
-            
-            String user = CscUtils.normalizeUserName(userName);
-            Path cert = findUserCertForRequest(user, fileName);
-            cryptService.revokeCertificate(cert, keyPassword);
-            adminDataService.flagRevokedUserCert(user, fileName);
-            
-            Path csr = adminDataService.findAcceptedCSR(user, fileName);
-            Path certFile = cryptService.signCertificateRequest(csr, keyPassword);
-            certificateService.copyCertificateToUserDirectory(user, certFile);
-            adminDataService.flagCSRasRenewed(csr);
-    
-            certificateService.encryptWorkingFiles(cryptPassword);
-            certificateService.commitAndPushChanges(operatingUser, "Renew User-Certificate");
+            for(Map.Entry<SignResult, Path> entry : certFiles.entrySet()) {
+                copied.add(entry.getKey());
+                certificateService.copyCertificateToUserDirectory(entry.getKey().getUserName(), entry.getValue());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to hand out signed certificates - discarding the whole batch!", e);
+            try {
+                for(SignResult result : copied) {
+                    certificateService.removeCertificateFromUserDirectory(result.getUserName(), certFiles.get(result));
+                }
+                certificateService.cleanupWorkingFiles();
+            } catch (IOException cleanupError) {
+                e.addSuppressed(cleanupError);
+            }
+            throw e;
+        }
+    }
     
-            redirectAttributes.addFlashAttribute("message", "Certificate has been successfully renewed!");
+    @PostMapping("/renewCert")
+    @PreAuthorize("hasRole('DevOps')")
+    public String renewCert(final String userName, final String fileName, final String cryptPassword,
+                            final String keyPassword, final RedirectAttributes redirectAttributes, final OAuth2AuthenticationToken auth) {
+        String operatingUser = auth.getPrincipal().getName();
+        queueJob("RENEW-operation", operatingUser, redirectAttributes, () -> {
+            try (CryptSession cryptSession = prepareWorkspace(cryptPassword, WorkspaceOperation.RENEW)) {
+                String user = CscUtils.normalizeUserName(userName);
+                Path cert = findUserCertForRequest(user, fileName);
+                cryptService.revokeCertificate(cert, keyPassword);
+                adminDataService.flagRevokedUserCert(user, fileName);
+
+                Path csr = adminDataService.findAcceptedCSR(user, fileName);
+                Path certFile = cryptService.signCertificateRequest(csr, keyPassword);
+                certificateService.copyCertificateToUserDirectory(user, certFile);
+                adminDataService.flagCSRasRenewed(csr);
+
+                finishWorkspace(cryptSession, operatingUser, "Renew User-Certificate");
+            }
             auditLog.logRenewedCert(operatingUser, fileName, userName);
-        } catch (GitAPIException | IOException | IllegalStateException e) {
-            log.error("Unable to renew certificate!", e);
-            redirectAttributes.addFlashAttribute("errorMessage", "Something went horribly wrong! Unable to execute RENEW-operation! Error was: " + e.getMessage());
-        } finally {
-            lock.unlock();
-        }
+            return new JobResult.Builder().message("Certificate has been successfully renewed!").build();
+        });
     
         return "redirect:/admin";
     }
@@ -165,25 +259,16 @@ public class AdminUIController extends AbstractCertificateController {
     public String revokeCert(final String userName, final String fileName, final String cryptPassword,
                              final String keyPassword, final RedirectAttributes redirectAttributes, final OAuth2AuthenticationToken auth) {
         String operatingUser = auth.getPrincipal().getName();
-        if(!lock.tryLock()) {
-            redirectAttributes.addFlashAttribute("errorMessage", "Concurrent access prevented! Try again in a minute.");
-            return "redirect:/admin";
-        }
-
-        try {
-            prepareWorkspace(cryptPassword);
-            Path cert = findUserCertForRequest(CscUtils.normalizeUserName(userName), fileName);
-            cryptService.revokeCertificate(cert, keyPassword);
-            adminDataService.flagRevokedUserCertAndCSR(CscUtils.normalizeUserName(userName), fileName);
-            finishWorkspace(cryptPassword, operatingUser, "Revoked User-Certificate");
-            redirectAttributes.addFlashAttribute("message", "Certificate has been successfully revoked!");
+        queueJob("REVOKE-operation", operatingUser, redirectAttributes, () -> {
+            try (CryptSession cryptSession = prepareWorkspace(cryptPassword, WorkspaceOperation.REVOKE)) {
+                Path cert = findUserCertForRequest(CscUtils.normalizeUserName(userName), fileName);
+                cryptService.revokeCertificate(cert, keyPassword);
+                adminDataService.flagRevokedUserCertAndCSR(CscUtils.normalizeUserName(userName), fileName);
+                finishWorkspace(cryptSession, operatingUser, "Revoked User-Certificate");
+            }
             auditLog.logRevokedCert(operatingUser, fileName, userName);
-        } catch (GitAPIException | IOException | IllegalStateException e) {
-            log.error("Unable to revoke CSR!", e);
-            redirectAttributes.addFlashAttribute("errorMessage", "Something went horribly wrong! Unable to execute REVOKE-operation! Error was: " + e.getMessage());
-        } finally {
-            lock.unlock();
-        }
+            return new JobResult.Builder().message("Certificate has been successfully revoked!").build();
+        });
 
         return "redirect:/admin";
     }
@@ -200,12 +285,4 @@ public class AdminUIController extends AbstractCertificateController {
         this.adminDataService = adminDataService;
     }
 
-    protected static void setLock(final ReentrantLock lock) {
-        AdminUIController.lock = lock;
-    }
-
-    public void setCryptService(final CryptService cryptService) {
-        this.cryptService = cryptService;
-    }
-
 }
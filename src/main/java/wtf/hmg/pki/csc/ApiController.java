@@ -0,0 +1,174 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
+import wtf.hmg.pki.csc.model.CSR;
+import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.ListingPage;
+import wtf.hmg.pki.csc.model.ListingQuery;
+import wtf.hmg.pki.csc.model.SharedApp;
+import wtf.hmg.pki.csc.service.AdminDataService;
+import wtf.hmg.pki.csc.service.InventoryService;
+import wtf.hmg.pki.csc.service.SharedAppService;
+import wtf.hmg.pki.csc.service.UserDataService;
+import wtf.hmg.pki.csc.util.CscUtils;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * JSON variants of the listings of the admin-, shared-certs- and index-page.
+ * Every response carries an ETag derived from the inventory version, so a poll with a matching If-None-Match header
+ * is answered with 304 before any listing is assembled.
+ */
+@Controller
+@RequestMapping("/api")
+public class ApiController {
+
+    // the inventory version starts over with every restart
+    private final String instanceId = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    @Autowired
+    private AdminDataService adminDataService;
+    @Autowired
+    private SharedAppService sharedAppService;
+    @Autowired
+    private UserDataService userDataService;
+    @Autowired
+    private InventoryService inventoryService;
+
+    @GetMapping("/admin/pending")
+    @ResponseBody
+    @PreAuthorize("hasRole('DevOps')")
+    public ResponseEntity<ListingPage<CSR>> pendingRequests(@RequestParam(value = "page", defaultValue = "0") final int page,
+                                                            @RequestParam(value = "size", defaultValue = "" + ListingQuery.DEFAULT_PAGE_SIZE) final int size,
+                                                            @RequestParam(value = "sort", defaultValue = "lastModified") final String sort,
+                                                            @RequestParam(value = "order", defaultValue = "desc") final String order,
+                                                            @RequestParam(value = "user", required = false) final String user,
+                                                            @RequestParam(value = "subject", required = false) final String subject,
+                                                            final WebRequest request) {
+        ListingQuery query = query(page, size, sort, order, user, subject);
+        return conditional(request, etag(), () -> adminDataService.findPendingCertificateRequests(query));
+    }
+
+    @GetMapping("/admin/signed")
+    @ResponseBody
+    @PreAuthorize("hasRole('DevOps')")
+    public ResponseEntity<ListingPage<CSR>> signedRequests(@RequestParam(value = "page", defaultValue = "0") final int page,
+                                                           @RequestParam(value = "size", defaultValue = "" + ListingQuery.DEFAULT_PAGE_SIZE) final int size,
+                                                           @RequestParam(value = "sort", defaultValue = "lastModified") final String sort,
+                                                           @RequestParam(value = "order", defaultValue = "desc") final String order,
+                                                           @RequestParam(value = "user", required = false) final String user,
+                                                           @RequestParam(value = "subject", required = false) final String subject,
+                                                           final WebRequest request) {
+        ListingQuery query = query(page, size, sort, order, user, subject);
+        return conditional(request, etag(), () -> adminDataService.findSignedCertificateRequests(query));
+    }
+
+    @GetMapping("/admin/revoked")
+    @ResponseBody
+    @PreAuthorize("hasRole('DevOps')")
+    public ResponseEntity<ListingPage<CertInfo>> revokedCerts(@RequestParam(value = "page", defaultValue = "0") final int page,
+                                                              @RequestParam(value = "size", defaultValue = "" + ListingQuery.DEFAULT_PAGE_SIZE) final int size,
+                                                              @RequestParam(value = "sort", defaultValue = "lastModified") final String sort,
+                                                              @RequestParam(value = "order", defaultValue = "desc") final String order,
+                                                              @RequestParam(value = "user", required = false) final String user,
+                                                              @RequestParam(value = "subject", required = false) final String subject,
+                                                              final WebRequest request) {
+        ListingQuery query = query(page, size, sort, order, user, subject);
+        return conditional(request, etag(), () -> adminDataService.findRevokedCertificates(query));
+    }
+
+    @GetMapping("/shared-apps")
+    @ResponseBody
+    @PreAuthorize("hasRole('PKI-Shared-App')")
+    public ResponseEntity<List<SharedApp>> sharedApps(final WebRequest request) {
+        return conditional(request, etag(), sharedAppService::findSharedApps);
+    }
+
+    @GetMapping("/certs")
+    @ResponseBody
+    public ResponseEntity<List<CertInfo>> userCertificates(final OAuth2AuthenticationToken auth, final WebRequest request) {
+        String uid = CscUtils.normalizeUserName(StringUtils.lowerCase(auth.getPrincipal().getAttribute("email")));
+        // same URL for every user, so the user is part of the tag
+        String etag = etag() + "-" + Integer.toHexString(uid.hashCode());
+        return conditional(request, etag, () -> userDataService.findDashboardForUser(uid).getCertificates());
+    }
+
+    /**
+     * Reads the version before the listing is assembled, so a tag never claims a newer state than the body.
+     */
+    private String etag() {
+        return instanceId + "-" + inventoryService.getVersion();
+    }
+
+    /**
+     * Answers with 304 if the tag matches, otherwise with the body; the ETag header is set by the request in both cases.
+     */
+    private <T> ResponseEntity<T> conditional(final WebRequest request, final String etag, final Supplier<T> body) {
+        if(request.checkNotModified("\"" + etag + "\"")) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body.get());
+    }
+
+    private ListingQuery query(final int page, final int size, final String sort, final String order,
+                               final String user, final String subject) {
+        return new ListingQuery.Builder()
+                .page(page)
+                .size(size)
+                .sort(ListingQuery.SortField.fromParam(sort))
+                .descending(!"asc".equalsIgnoreCase(order))
+                .user(user)
+                .subject(subject)
+                .build();
+    }
+
+    public void setAdminDataService(final AdminDataService adminDataService) {
+        this.adminDataService = adminDataService;
+    }
+
+    public void setSharedAppService(final SharedAppService sharedAppService) {
+        this.sharedAppService = sharedAppService;
+    }
+
+    public void setUserDataService(final UserDataService userDataService) {
+        this.userDataService = userDataService;
+    }
+
+    public void setInventoryService(final InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.util.UriUtils;
+import wtf.hmg.pki.csc.model.OcspResult;
+import wtf.hmg.pki.csc.service.OcspService;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * OCSP over HTTP (RFC 6960, appendix A). Unsuccessful OCSP responses are sent with status 200 as well.
+ */
+@Controller
+public class OcspController {
+
+    private static final String OCSP_REQUEST = "application/ocsp-request";
+    private static final MediaType OCSP_RESPONSE = MediaType.parseMediaType("application/ocsp-response");
+
+    @Autowired
+    private OcspService ocspService;
+
+    @PostMapping(value = "/ocsp", consumes = OCSP_REQUEST)
+    @ResponseBody
+    public ResponseEntity<byte[]> ocspPost(@RequestBody final byte[] request) {
+        OcspResult result = ocspService.respond(request);
+        return ResponseEntity.ok()
+                .contentType(OCSP_RESPONSE)
+                .body(result.getEncoded());
+    }
+
+    /**
+     * The request is appended base64- and url-encoded, so it may contain further slashes.
+     * Successful responses may be cached until their next update (RFC 5019, section 6).
+     */
+    @GetMapping("/ocsp/**")
+    @ResponseBody
+    public ResponseEntity<byte[]> ocspGet(final HttpServletRequest request) {
+        String encoded = StringUtils.substringAfter(request.getRequestURI(), "/ocsp/");
+        byte[] der;
+        try {
+            der = Base64.getDecoder().decode(UriUtils.decode(encoded, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            der = new byte[0];
+        }
+
+        OcspResult result = ocspService.respond(der);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(OCSP_RESPONSE);
+        if(result.getNextUpdate() != null) {
+            Duration maxAge = Duration.between(Instant.now(), result.getNextUpdate());
+            response.cacheControl(CacheControl.maxAge(maxAge.isNegative() ? Duration.ZERO : maxAge).cachePublic().noTransform())
+                    .lastModified(result.getThisUpdate())
+                    .headers(h -> h.setExpires(result.getNextUpdate().toEpochMilli()));
+        }
+        return response.body(result.getEncoded());
+    }
+
+    public void setOcspService(final OcspService ocspService) {
+        this.ocspService = ocspService;
+    }
+}
@@ -20,7 +20,6 @@
 package wtf.hmg.pki.csc;
 
 import org.apache.commons.lang3.StringUtils;
-import org.eclipse.jgit.api.errors.GitAPIException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,7 +34,9 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
-import wtf.hmg.pki.csc.service.CryptService;
+import wtf.hmg.pki.csc.model.CryptSession;
+import wtf.hmg.pki.csc.model.JobResult;
+import wtf.hmg.pki.csc.model.WorkspaceOperation;
 import wtf.hmg.pki.csc.service.SharedAppService;
 import wtf.hmg.pki.csc.util.CscUtils;
 import wtf.hmg.pki.csc.util.SupportUtils;
@@ -43,7 +44,6 @@ import wtf.hmg.pki.csc.util.SupportUtils;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Locale;
-import java.util.concurrent.locks.ReentrantLock;
 
 @Controller
 public class SharedCertsController extends AbstractCertificateController {
@@ -56,10 +56,6 @@ public class SharedCertsController extends AbstractCertificateController {
 	private MessageSource messageSource;
 	@Autowired
 	private SharedAppService sharedAppService;
-	@Autowired
-	private CryptService cryptService;
-	
-	private static ReentrantLock lock = new ReentrantLock();
 	
 	@GetMapping("/shared-certs")
 	@PreAuthorize("hasRole('PKI-Shared-App')")
@@ -107,27 +103,17 @@ public class SharedCertsController extends AbstractCertificateController {
 	@PreAuthorize("hasRole('DevOps')")
 	public String signAppCSR(final String appName, final String csrFileName, final String cryptPassword, final String serverKeyPassword,
 							 final RedirectAttributes redirectAttributes, final OAuth2AuthenticationToken auth) {
-		if(!lock.tryLock()) {
-			redirectAttributes.addFlashAttribute("errorMessage", "Concurrent access prevented! Try again in a minute.");
-			return "redirect:/shared-certs";
-		}
-		
 		String operatingUser = auth.getPrincipal().getName();
-		try {
-			prepareWorkspace(cryptPassword);
-			Path csrFile = certificateService.copyAppCSRToRepository(appName, csrFileName);
-			Path certFile = cryptService.signCertificateRequest(csrFile, serverKeyPassword);
-			certificateService.copyCertificateToAppDirectory(appName, certFile);
-			finishWorkspace(cryptPassword, operatingUser, "Signed App-Certificate");
-			redirectAttributes.addFlashAttribute("message", "Certificate has been signed successfully!");
+		queueJob("sign-operation", operatingUser, redirectAttributes, () -> {
+			try (CryptSession cryptSession = prepareWorkspace(cryptPassword, WorkspaceOperation.SIGN)) {
+				Path csrFile = certificateService.copyAppCSRToRepository(appName, csrFileName);
+				Path certFile = cryptService.signCertificateRequest(csrFile, serverKeyPassword);
+				certificateService.copyCertificateToAppDirectory(appName, certFile);
+				finishWorkspace(cryptSession, operatingUser, "Signed App-Certificate");
+			}
 			auditLog.logSignedSharedAppCSR(operatingUser, appName);
-		} catch (GitAPIException|IOException|IllegalStateException e) {
-			log.error("Unable to sign App-CSR!", e);
-			redirectAttributes.addFlashAttribute("errorMessage", 
-					"Something went horribly wrong! Unable to execute sign-operation! Error was: " + e.getMessage());
-		} finally {
-			lock.unlock();
-		}
+			return new JobResult.Builder().message("Certificate has been signed successfully!").build();
+		});
 		
 		return "redirect:/shared-certs";
 	}
@@ -184,34 +170,23 @@ public class SharedCertsController extends AbstractCertificateController {
 	@PreAuthorize("hasRole('DevOps')")
 	public String renewAppCert(final String appName, final String crtFileName, final String cryptPassword, final String serverKeyPassword,
 								final RedirectAttributes redirectAttributes, final OAuth2AuthenticationToken auth) {
-		if(!lock.tryLock()) {
-			redirectAttributes.addFlashAttribute("errorMessage", "Concurrent access prevented! Try again in a minute.");
-			return "redirect:/shared-certs";
-		}
-		
 		String operatingUser = auth.getPrincipal().getName();
-		try {
-			prepareWorkspace(cryptPassword);
-			
-			Path cert = findAppFileForFilename(appName, crtFileName);
-			cryptService.revokeCertificate(cert, serverKeyPassword);
-			sharedAppService.deleteAppFile(appName, crtFileName);
-			
-			Path csr = findAppFileForFilename(appName, StringUtils.replace(crtFileName, "crt.pem", "csr.pem"));
-			Path certFile = cryptService.signCertificateRequest(csr, serverKeyPassword);
-			certificateService.copyCertificateToAppDirectory(appName, certFile);
-			sharedAppService.deleteAppFile(appName, crtFileName + ".reqrenew");
-			
-			finishWorkspace(cryptPassword, operatingUser, "Renewed App-Certificate");
-			redirectAttributes.addFlashAttribute("message", "Certificate has been successfully renewed!");
+		queueJob("renew-operation", operatingUser, redirectAttributes, () -> {
+			try (CryptSession cryptSession = prepareWorkspace(cryptPassword, WorkspaceOperation.RENEW)) {
+				Path cert = findAppFileForFilename(appName, crtFileName);
+				cryptService.revokeCertificate(cert, serverKeyPassword);
+				sharedAppService.deleteAppFile(appName, crtFileName);
+				
+				Path csr = findAppFileForFilename(appName, StringUtils.replace(crtFileName, "crt.pem", "csr.pem"));
+				Path certFile = cryptService.signCertificateRequest(csr, serverKeyPassword);
+				certificateService.copyCertificateToAppDirectory(appName, certFile);
+				sharedAppService.deleteAppFile(appName, crtFileName + ".reqrenew");
+				
+				finishWorkspace(cryptSession, operatingUser, "Renewed App-Certificate");
+			}
 			auditLog.logRenewedSharedAppCert(operatingUser, appName);
-		} catch (GitAPIException|IOException|IllegalStateException e) {
-			log.error("Unable to sign App-CSR!", e);
-			redirectAttributes.addFlashAttribute("errorMessage",
-					"Something went horribly wrong! Unable to execute renew-operation! Error was: " + e.getMessage());
-		} finally {
-			lock.unlock();
-		}
+			return new JobResult.Builder().message("Certificate has been successfully renewed!").build();
+		});
 		
 		return "redirect:/shared-certs";
 	}
@@ -220,28 +195,18 @@ public class SharedCertsController extends AbstractCertificateController {
 	@PreAuthorize("hasRole('DevOps')")
 	public String revokeAppCert(final String appName, final String crtFileName, final String cryptPassword, final String serverKeyPassword,
 								final RedirectAttributes redirectAttributes, final OAuth2AuthenticationToken auth) {
-		if(!lock.tryLock()) {
-			redirectAttributes.addFlashAttribute("errorMessage", "Concurrent access prevented! Try again in a minute.");
-			return "redirect:/shared-certs";
-		}
-		
 		String operatingUser = auth.getPrincipal().getName();
-		try {
-			prepareWorkspace(cryptPassword);
-			Path cert = findAppFileForFilename(appName, crtFileName);
-			cryptService.revokeCertificate(cert, serverKeyPassword);
-			sharedAppService.deleteAppFile(appName, crtFileName);
-			// TODO support deleting the whole app
-			finishWorkspace(cryptPassword, operatingUser, "Revoked App-Certificate");
-			redirectAttributes.addFlashAttribute("message", "Certificate has been successfully revoked!");
+		queueJob("revoke-operation", operatingUser, redirectAttributes, () -> {
+			try (CryptSession cryptSession = prepareWorkspace(cryptPassword, WorkspaceOperation.REVOKE)) {
+				Path cert = findAppFileForFilename(appName, crtFileName);
+				cryptService.revokeCertificate(cert, serverKeyPassword);
+				sharedAppService.deleteAppFile(appName, crtFileName);
+				// TODO support deleting the whole app
+				finishWorkspace(cryptSession, operatingUser, "Revoked App-Certificate");
+			}
 			auditLog.logRevokedSharedAppCert(operatingUser, appName);
-		} catch (GitAPIException|IOException|IllegalStateException e) {
-			log.error("Unable to sign App-CSR!", e);
-			redirectAttributes.addFlashAttribute("errorMessage",
-					"Something went horribly wrong! Unable to execute revoke-operation! Error was: " + e.getMessage());
-		} finally {
-			lock.unlock();
-		}
+			return new JobResult.Builder().message("Certificate has been successfully revoked!").build();
+		});
 		
 		return "redirect:/shared-certs";
 	}
@@ -258,10 +223,6 @@ public class SharedCertsController extends AbstractCertificateController {
 		return appName != null && appName.matches("[A-Za-z0-9_-]+");
 	}
 	
-	protected static void setLock(final ReentrantLock lock) {
-		SharedCertsController.lock = lock;
-	}
-	
 	public void setSupportUtils(final SupportUtils supportUtils) {
 		this.supportUtils = supportUtils;
 	}
@@ -273,8 +234,4 @@ public class SharedCertsController extends AbstractCertificateController {
 	public void setSharedAppService(final SharedAppService sharedAppService) {
 		this.sharedAppService = sharedAppService;
 	}
-	
-	public void setCryptService(final CryptService cryptService) {
-		this.cryptService = cryptService;
-	}
 }
@@ -19,13 +19,17 @@
 */
 package wtf.hmg.pki.csc;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
@@ -33,40 +37,53 @@ import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
-import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.PublishedFile;
+import wtf.hmg.pki.csc.model.UserDashboard;
+import wtf.hmg.pki.csc.service.CaFilesService;
 import wtf.hmg.pki.csc.service.NotificationService;
+import wtf.hmg.pki.csc.service.UploadLimitService;
 import wtf.hmg.pki.csc.service.UserDataService;
 import wtf.hmg.pki.csc.util.SupportUtils;
 import wtf.hmg.pki.csc.util.CscUtils;
 
 import java.io.IOException;
-import java.util.List;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Locale;
 
 @Controller
 public class UIController {
 
+    private static final MediaType PEM_FILE = MediaType.parseMediaType("application/x-pem-file");
+    private static final MediaType DER_CERT = MediaType.parseMediaType("application/pkix-cert");
+    private static final MediaType DER_CRL = MediaType.parseMediaType("application/pkix-crl");
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     @Autowired
     private UserDataService userDataService;
     @Autowired
+    private CaFilesService caFilesService;
+    @Autowired
+    private AppConfig appConfig;
+    @Autowired
     private MessageSource messageSource;
     @Autowired
     private SupportUtils supportUtils;
     @Autowired
     private NotificationService notificationService;
+    @Autowired
+    private UploadLimitService uploadLimitService;
 
     @GetMapping("/")
     public String indexPage(final Model model, final OAuth2AuthenticationToken auth) {
         OAuth2User user = auth.getPrincipal();
         String uid = determineUID(user);
-        List<String> userCSRList = userDataService.findCertificateRequestsForUser(uid);
-        List<String> userAcceptedCSRList = userDataService.findAcceptedCertificateRequestsForUser(uid);
-        List<String> userRejectedCSRList = userDataService.findRejectedCertificateRequestsForUser(uid);
-        List<CertInfo> userCertificates = userDataService.findCertificatesForUser(uid);
+        UserDashboard dashboard = userDataService.findDashboardForUser(uid);
 
         boolean isAdmin = supportUtils.isAdmin(user);
         boolean isSharedAppAdmin = supportUtils.isSharedAppAdmin(user);
@@ -74,10 +91,10 @@ public class UIController {
         model.addAttribute("isAdmin", isAdmin);
         model.addAttribute("isSharedAppAdmin", isSharedAppAdmin);
         model.addAttribute("user", user);
-        model.addAttribute("userCSRList", userCSRList);
-        model.addAttribute("userAcceptedCSRList", userAcceptedCSRList);
-        model.addAttribute("userRejectedCSRList", userRejectedCSRList);
-        model.addAttribute("userCertificates", userCertificates);
+        model.addAttribute("userCSRList", dashboard.getCsrs());
+        model.addAttribute("userAcceptedCSRList", dashboard.getAcceptedCsrs());
+        model.addAttribute("userRejectedCSRList", dashboard.getRejectedCsrs());
+        model.addAttribute("userCertificates", dashboard.getCertificates());
 
         return "indexPage";
     }
@@ -132,37 +149,158 @@ public class UIController {
 
     @GetMapping("/intermediate-ca.cert.pem")
     @ResponseBody
-    public ResponseEntity<Resource> downloadCaCert() {
-        Resource resource;
-        try {
-            resource = userDataService.caCertificateAsResource();
-        } catch (IOException e) {
-            log.error("Unable to serve ca-certificate!", e);
-            return ResponseEntity.status(500).build();
-        }
+    public ResponseEntity<byte[]> downloadCaCert(final WebRequest request) {
+        return download(caFilesService.findCaCertificate(), PublishedFile.Format.PEM, PEM_FILE,
+                "intermediate-ca.cert.pem", appConfig.getCaCertMaxAge(), request);
+    }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("application/x-pem-file"))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"intermediate-ca.cert.pem\"")
-                .body(resource);
+    @GetMapping("/intermediate-ca.cert.der")
+    @ResponseBody
+    public ResponseEntity<byte[]> downloadCaCertDer(final WebRequest request) {
+        return download(caFilesService.findCaCertificate(), PublishedFile.Format.DER, DER_CERT,
+                "intermediate-ca.cert.der", appConfig.getCaCertMaxAge(), request);
     }
 
+    /**
+     * PEM, unless the client asks for application/pkix-crl.
+     */
     @GetMapping("/list.crl")
     @ResponseBody
-    public ResponseEntity<Resource> downloadRevocationList() {
-        Resource resource;
+    public ResponseEntity<byte[]> downloadRevocationList(final WebRequest request) {
+        boolean der = acceptsDerCrl(request);
+        return download(caFilesService.findCertRevocationList(), der ? PublishedFile.Format.DER : PublishedFile.Format.PEM,
+                der ? DER_CRL : PEM_FILE, "list.crl", appConfig.getCrlMaxAge(), request, HttpHeaders.ACCEPT);
+    }
 
+    @GetMapping("/list.crl.pem")
+    @ResponseBody
+    public ResponseEntity<byte[]> downloadRevocationListPem(final WebRequest request) {
+        return download(caFilesService.findCertRevocationList(), PublishedFile.Format.PEM, PEM_FILE,
+                "list.crl.pem", appConfig.getCrlMaxAge(), request);
+    }
+
+    @GetMapping("/list.crl.der")
+    @ResponseBody
+    public ResponseEntity<byte[]> downloadRevocationListDer(final WebRequest request) {
+        return download(caFilesService.findCertRevocationList(), PublishedFile.Format.DER, DER_CRL,
+                "list.crl.der", appConfig.getCrlMaxAge(), request);
+    }
+
+    /**
+     * Same negotiation as for /list.crl; 404 if no delta CRLs are issued.
+     */
+    @GetMapping("/delta.crl")
+    @ResponseBody
+    public ResponseEntity<byte[]> downloadDeltaRevocationList(final WebRequest request) {
+        if(appConfig.getDeltaCrlPath() == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        boolean der = acceptsDerCrl(request);
+        return download(caFilesService.findDeltaCertRevocationList(), der ? PublishedFile.Format.DER : PublishedFile.Format.PEM,
+                der ? DER_CRL : PEM_FILE, "delta.crl", appConfig.getCrlMaxAge(), request, HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * A malformed Accept header falls back to PEM, as before the negotiation.
+     */
+    private boolean acceptsDerCrl(final WebRequest request) {
         try {
-            resource = userDataService.certRevocationListAsResource();
-        } catch (IOException e) {
-            log.error("Unable to serve revocation list!", e);
+            return MediaType.parseMediaTypes(request.getHeader(HttpHeaders.ACCEPT)).stream()
+                    .anyMatch(m -> DER_CRL.equalsTypeAndSubtype(m) && m.getQualityValue() > 0);
+        } catch (InvalidMediaTypeException e) {
+            log.debug("Invalid Accept header - serving PEM", e);
+            return false;
+        }
+    }
+
+    /**
+     * @return true if gzip (or any coding via <code>*</code>) is accepted with a q-value above 0; an explicit
+     * entry for gzip takes precedence over <code>*</code>
+     */
+    private boolean acceptsGzip(final WebRequest request) {
+        String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if(StringUtils.isBlank(header)) {
+            return false;
+        }
+
+        boolean wildcard = false;
+        for(String coding : StringUtils.split(header, ',')) {
+            String name = StringUtils.substringBefore(coding, ";").trim();
+            if("gzip".equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+                return qualityValue(coding) > 0;
+            }
+            if("*".equals(name)) {
+                wildcard = qualityValue(coding) > 0;
+            }
+        }
+        return wildcard;
+    }
+
+    /**
+     * @return the q-value of an entry like <code>gzip;q=0.5</code>, 1 if there is none, 0 if it is invalid
+     */
+    private double qualityValue(final String entry) {
+        String[] params = StringUtils.split(entry, ';');
+        for(int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if(StringUtils.startsWithIgnoreCase(param, "q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Serves the pre-encoded variant from memory, gzipped if the client accepts it.
+     * Unchanged files are answered with 304.
+     */
+    private ResponseEntity<byte[]> download(final PublishedFile file, final PublishedFile.Format format, final MediaType mediaType,
+                                            final String fileName, final Duration maxAge, final WebRequest request,
+                                            final String... varyBy) {
+        if(file == null) {
+            log.error("Unable to serve {}, it was never loaded!", fileName);
             return ResponseEntity.status(500).build();
         }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("application/x-pem-file"))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"list.crl\"")
-                .body(resource);
+        boolean gzipped = acceptsGzip(request);
+        CacheControl cacheControl = CacheControl.maxAge(limitToNextUpdate(maxAge, file)).cachePublic();
+        String[] vary = ArrayUtils.add(varyBy, HttpHeaders.ACCEPT_ENCODING);
+        if(request.checkNotModified(file.getETag(format, gzipped), file.getLastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(cacheControl)
+                    .varyBy(vary)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .cacheControl(cacheControl)
+                .varyBy(vary);
+        if(gzipped) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(file.getContent(format, gzipped));
+    }
+
+    /**
+     * @return the configured max-age, but never beyond the next update announced by a CRL
+     */
+    private Duration limitToNextUpdate(final Duration maxAge, final PublishedFile file) {
+        if(file.getNextUpdate() == null) {
+            return maxAge;
+        }
+
+        Duration untilNextUpdate = Duration.between(Instant.now(), file.getNextUpdate());
+        if(untilNextUpdate.isNegative()) {
+            return Duration.ZERO;
+        }
+        return untilNextUpdate.compareTo(maxAge) < 0 ? untilNextUpdate : maxAge;
     }
 
     @PostMapping("/csrFile")
@@ -179,7 +317,9 @@ public class UIController {
 
         String uid = determineUID(auth);
         try {
-            userDataService.saveUploadedCSR(uid, file);
+            if(isUploadRejected(uid, () -> userDataService.saveUploadedCSR(uid, file), locale, redirectAttributes)) {
+                return "redirect:/";
+            }
             redirectAttributes.addFlashAttribute("message",
                     messageSource.getMessage("user.request.file.success", null, locale));
             sendCsrNotification(uid);
@@ -206,7 +346,9 @@ public class UIController {
         String uid = determineUID(auth);
         String fileName = uid + ".csr.pem";
         try {
-            userDataService.saveUploadedCSR(uid, fileName, csrText);
+            if(isUploadRejected(uid, () -> userDataService.saveUploadedCSR(uid, fileName, csrText), locale, redirectAttributes)) {
+                return "redirect:/";
+            }
             redirectAttributes.addFlashAttribute("message",
                     messageSource.getMessage("user.request.text.success", null, locale));
             sendCsrNotification(uid);
@@ -219,6 +361,21 @@ public class UIController {
         return "redirect:/";
     }
 
+    private boolean isUploadRejected(final String uid, final UploadLimitService.Upload upload, final Locale locale,
+                                     final RedirectAttributes redirectAttributes) throws IOException {
+        UploadLimitService.Rejection rejection = uploadLimitService.tryUpload(uid, upload);
+        if(rejection == null) {
+            return false;
+        }
+
+        log.info("Rejected upload of user {}: {}", uid, rejection);
+        String message = rejection == UploadLimitService.Rejection.TOO_MANY_PENDING
+                ? messageSource.getMessage("user.request.pending.limit", new Object[]{appConfig.getUploadMaxPendingCsrs()}, locale)
+                : messageSource.getMessage("user.request.rate.limit", null, locale);
+        redirectAttributes.addFlashAttribute("errorMessage", message);
+        return true;
+    }
+
     private void sendCsrNotification(final String uid) {
         notificationService.sendNotificationAsync(
                 messageSource.getMessage("user.request.notification.subject", null, Locale.GERMAN),
@@ -249,4 +406,16 @@ public class UIController {
     public void setNotificationService(final NotificationService notificationService) {
         this.notificationService = notificationService;
     }
+
+    public void setCaFilesService(final CaFilesService caFilesService) {
+        this.caFilesService = caFilesService;
+    }
+
+    public void setAppConfig(final AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    public void setUploadLimitService(final UploadLimitService uploadLimitService) {
+        this.uploadLimitService = uploadLimitService;
+    }
 }
@@ -23,6 +23,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -33,12 +34,44 @@ public class AppConfig {
     private Path gitUserKeyfile;
     private String cryptSalt;
     private Path certRevocationListPath;
+    private Path deltaCrlPath;
+    private Path ocspSignerCertPath;
+    private Path ocspSignerKeyPath;
+    private String ocspSignerKeyPassword;
     private Path scriptsPath;
+    private boolean certRepoPersistent;
+    private String certRepoBranch;
+    private boolean certRepoShallow;
+    private CryptEngine cryptEngine = CryptEngine.OPENSSL;
+    private int cryptParallelism = 1;
+    private boolean cryptLazy;
+    private SigningEngine signingEngine = SigningEngine.OPENSSL;
+    private Duration inventoryRescanInterval = Duration.ofMinutes(10);
+    private int csrCacheSize = 10000;
+    private int certCacheSize = 10000;
+    private Duration crlMaxAge = Duration.ofHours(1);
+    private Duration caCertMaxAge = Duration.ofDays(1);
+    private Duration caFilesCheckInterval = Duration.ofSeconds(10);
+    private Duration ocspResponseValidity = Duration.ofHours(1);
+    private Duration ocspRefreshInterval = Duration.ofMinutes(1);
+    private int ocspCacheSize = 10000;
+    private int dashboardCacheSize = 1000;
+    private List<String> csrKeyAlgorithms = List.of("RSA", "EC");
+    private int csrMinRsaKeySize = 2048;
+    private int csrMinEcKeySize = 256;
+    private String csrSubjectPattern;
+    private boolean csrSubjectEmailMatchesUser;
+    private String csrSanPattern;
+    private int uploadBurst = 5;
+    private Duration uploadRefillInterval = Duration.ofMinutes(5);
+    private int uploadMaxPendingCsrs = 5;
+    private int uploadMaxTrackedUsers = 10000;
     
     private List<String> allowedMailSuffixes;
     private List<String> notificationRecipients;
     private String notificationSender;
     private boolean notificationsEnabled;
+    private Duration notificationDigestWindow = Duration.ofMinutes(5);
     
     public Path getStoragePath() {
         return storagePath;
@@ -88,6 +121,254 @@ public class AppConfig {
         this.scriptsPath = scriptsPath;
     }
     
+    public boolean isCertRepoPersistent() {
+        return certRepoPersistent;
+    }
+    
+    public void setCertRepoPersistent(final boolean certRepoPersistent) {
+        this.certRepoPersistent = certRepoPersistent;
+    }
+    
+    public String getCertRepoBranch() {
+        return certRepoBranch;
+    }
+    
+    public void setCertRepoBranch(final String certRepoBranch) {
+        this.certRepoBranch = certRepoBranch;
+    }
+    
+    public boolean isCertRepoShallow() {
+        return certRepoShallow;
+    }
+    
+    public void setCertRepoShallow(final boolean certRepoShallow) {
+        this.certRepoShallow = certRepoShallow;
+    }
+    
+    public CryptEngine getCryptEngine() {
+        return cryptEngine;
+    }
+    
+    public void setCryptEngine(final CryptEngine cryptEngine) {
+        this.cryptEngine = cryptEngine;
+    }
+    
+    public int getCryptParallelism() {
+        return cryptParallelism;
+    }
+    
+    public void setCryptParallelism(final int cryptParallelism) {
+        this.cryptParallelism = cryptParallelism;
+    }
+    
+    public boolean isCryptLazy() {
+        return cryptLazy;
+    }
+    
+    public void setCryptLazy(final boolean cryptLazy) {
+        this.cryptLazy = cryptLazy;
+    }
+    
+    public SigningEngine getSigningEngine() {
+        return signingEngine;
+    }
+    
+    public void setSigningEngine(final SigningEngine signingEngine) {
+        this.signingEngine = signingEngine;
+    }
+    
+    public Duration getInventoryRescanInterval() {
+        return inventoryRescanInterval;
+    }
+    
+    public void setInventoryRescanInterval(final Duration inventoryRescanInterval) {
+        this.inventoryRescanInterval = inventoryRescanInterval;
+    }
+    
+    public int getCsrCacheSize() {
+        return csrCacheSize;
+    }
+    
+    public void setCsrCacheSize(final int csrCacheSize) {
+        this.csrCacheSize = csrCacheSize;
+    }
+    
+    public int getCertCacheSize() {
+        return certCacheSize;
+    }
+    
+    public void setCertCacheSize(final int certCacheSize) {
+        this.certCacheSize = certCacheSize;
+    }
+    
+    public Duration getCrlMaxAge() {
+        return crlMaxAge;
+    }
+    
+    public void setCrlMaxAge(final Duration crlMaxAge) {
+        this.crlMaxAge = crlMaxAge;
+    }
+    
+    public Duration getCaCertMaxAge() {
+        return caCertMaxAge;
+    }
+    
+    public void setCaCertMaxAge(final Duration caCertMaxAge) {
+        this.caCertMaxAge = caCertMaxAge;
+    }
+    
+    public Duration getCaFilesCheckInterval() {
+        return caFilesCheckInterval;
+    }
+    
+    public void setCaFilesCheckInterval(final Duration caFilesCheckInterval) {
+        this.caFilesCheckInterval = caFilesCheckInterval;
+    }
+    
+    public Path getDeltaCrlPath() {
+        return deltaCrlPath;
+    }
+    
+    public void setDeltaCrlPath(final Path deltaCrlPath) {
+        this.deltaCrlPath = deltaCrlPath;
+    }
+    
+    public Path getOcspSignerCertPath() {
+        return ocspSignerCertPath;
+    }
+    
+    public void setOcspSignerCertPath(final Path ocspSignerCertPath) {
+        this.ocspSignerCertPath = ocspSignerCertPath;
+    }
+    
+    public Path getOcspSignerKeyPath() {
+        return ocspSignerKeyPath;
+    }
+    
+    public void setOcspSignerKeyPath(final Path ocspSignerKeyPath) {
+        this.ocspSignerKeyPath = ocspSignerKeyPath;
+    }
+    
+    public String getOcspSignerKeyPassword() {
+        return ocspSignerKeyPassword;
+    }
+    
+    public void setOcspSignerKeyPassword(final String ocspSignerKeyPassword) {
+        this.ocspSignerKeyPassword = ocspSignerKeyPassword;
+    }
+    
+    public Duration getOcspResponseValidity() {
+        return ocspResponseValidity;
+    }
+    
+    public void setOcspResponseValidity(final Duration ocspResponseValidity) {
+        this.ocspResponseValidity = ocspResponseValidity;
+    }
+    
+    public Duration getOcspRefreshInterval() {
+        return ocspRefreshInterval;
+    }
+    
+    public void setOcspRefreshInterval(final Duration ocspRefreshInterval) {
+        this.ocspRefreshInterval = ocspRefreshInterval;
+    }
+    
+    public int getOcspCacheSize() {
+        return ocspCacheSize;
+    }
+    
+    public void setOcspCacheSize(final int ocspCacheSize) {
+        this.ocspCacheSize = ocspCacheSize;
+    }
+    
+    public int getDashboardCacheSize() {
+        return dashboardCacheSize;
+    }
+    
+    public void setDashboardCacheSize(final int dashboardCacheSize) {
+        this.dashboardCacheSize = dashboardCacheSize;
+    }
+    
+    public List<String> getCsrKeyAlgorithms() {
+        return csrKeyAlgorithms;
+    }
+    
+    public void setCsrKeyAlgorithms(final List<String> csrKeyAlgorithms) {
+        this.csrKeyAlgorithms = csrKeyAlgorithms;
+    }
+    
+    public int getCsrMinRsaKeySize() {
+        return csrMinRsaKeySize;
+    }
+    
+    public void setCsrMinRsaKeySize(final int csrMinRsaKeySize) {
+        this.csrMinRsaKeySize = csrMinRsaKeySize;
+    }
+    
+    public int getCsrMinEcKeySize() {
+        return csrMinEcKeySize;
+    }
+    
+    public void setCsrMinEcKeySize(final int csrMinEcKeySize) {
+        this.csrMinEcKeySize = csrMinEcKeySize;
+    }
+    
+    public String getCsrSubjectPattern() {
+        return csrSubjectPattern;
+    }
+    
+    public void setCsrSubjectPattern(final String csrSubjectPattern) {
+        this.csrSubjectPattern = csrSubjectPattern;
+    }
+    
+    public boolean isCsrSubjectEmailMatchesUser() {
+        return csrSubjectEmailMatchesUser;
+    }
+    
+    public void setCsrSubjectEmailMatchesUser(final boolean csrSubjectEmailMatchesUser) {
+        this.csrSubjectEmailMatchesUser = csrSubjectEmailMatchesUser;
+    }
+    
+    public String getCsrSanPattern() {
+        return csrSanPattern;
+    }
+    
+    public void setCsrSanPattern(final String csrSanPattern) {
+        this.csrSanPattern = csrSanPattern;
+    }
+    
+    public int getUploadBurst() {
+        return uploadBurst;
+    }
+    
+    public void setUploadBurst(final int uploadBurst) {
+        this.uploadBurst = uploadBurst;
+    }
+    
+    public Duration getUploadRefillInterval() {
+        return uploadRefillInterval;
+    }
+    
+    public void setUploadRefillInterval(final Duration uploadRefillInterval) {
+        this.uploadRefillInterval = uploadRefillInterval;
+    }
+    
+    public int getUploadMaxPendingCsrs() {
+        return uploadMaxPendingCsrs;
+    }
+    
+    public void setUploadMaxPendingCsrs(final int uploadMaxPendingCsrs) {
+        this.uploadMaxPendingCsrs = uploadMaxPendingCsrs;
+    }
+
+    public int getUploadMaxTrackedUsers() {
+        return uploadMaxTrackedUsers;
+    }
+
+    public void setUploadMaxTrackedUsers(final int uploadMaxTrackedUsers) {
+        this.uploadMaxTrackedUsers = uploadMaxTrackedUsers;
+    }
+    
     public List<String> getAllowedMailSuffixes() {
         return allowedMailSuffixes;
     }
@@ -119,4 +400,20 @@ public class AppConfig {
     public void setNotificationsEnabled(final boolean notificationsEnabled) {
         this.notificationsEnabled = notificationsEnabled;
     }
+    
+    public Duration getNotificationDigestWindow() {
+        return notificationDigestWindow;
+    }
+    
+    public void setNotificationDigestWindow(final Duration notificationDigestWindow) {
+        this.notificationDigestWindow = notificationDigestWindow;
+    }
+
+    public enum CryptEngine {
+        OPENSSL, JAVA
+    }
+
+    public enum SigningEngine {
+        OPENSSL, JAVA
+    }
 }
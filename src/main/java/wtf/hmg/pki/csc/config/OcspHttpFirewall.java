@@ -0,0 +1,59 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.config;
+
+import org.springframework.security.web.firewall.FirewalledRequest;
+import org.springframework.security.web.firewall.HttpFirewall;
+import org.springframework.security.web.firewall.StrictHttpFirewall;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * {@link StrictHttpFirewall} that lets (url-encoded) slashes pass for OCSP GET requests only: their base64-encoded
+ * request may contain slashes, which clients send as <code>%2F</code> or unencoded, even as <code>//</code>.
+ */
+public class OcspHttpFirewall implements HttpFirewall {
+
+    private static final String OCSP_PATH = "/ocsp/";
+
+    private final StrictHttpFirewall strict = new StrictHttpFirewall();
+    private final StrictHttpFirewall ocsp = new StrictHttpFirewall();
+
+    public OcspHttpFirewall() {
+        ocsp.setAllowUrlEncodedSlash(true);
+        ocsp.setAllowUrlEncodedDoubleSlash(true);
+    }
+
+    @Override
+    public FirewalledRequest getFirewalledRequest(final HttpServletRequest request) {
+        return isOcspRequest(request) ? ocsp.getFirewalledRequest(request) : strict.getFirewalledRequest(request);
+    }
+
+    @Override
+    public HttpServletResponse getFirewalledResponse(final HttpServletResponse response) {
+        return strict.getFirewalledResponse(response);
+    }
+
+    private boolean isOcspRequest(final HttpServletRequest request) {
+        String contextPath = request.getContextPath() != null ? request.getContextPath() : "";
+        return request.getRequestURI() != null && request.getRequestURI().startsWith(contextPath + OCSP_PATH);
+    }
+}
@@ -20,10 +20,15 @@
 package wtf.hmg.pki.csc.config;
 
 import com.azure.spring.aad.webapp.AADWebSecurityConfigurerAdapter;
+import org.apache.tomcat.util.buf.EncodedSolidusHandling;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.web.firewall.HttpFirewall;
 
 @Configuration
 @EnableWebSecurity
@@ -34,8 +39,26 @@ public class WebclientSecurityConfig extends AADWebSecurityConfigurerAdapter {
     protected void configure(HttpSecurity http) throws Exception {
         super.configure(http);
         http.authorizeRequests()
-            .antMatchers("/check", "/list.crl", "/actuator/health").permitAll()
-            .anyRequest().authenticated();
+            .antMatchers("/check", "/list.crl", "/list.crl.pem", "/list.crl.der", "/delta.crl", "/ocsp", "/ocsp/**",
+                    "/actuator/health").permitAll()
+            .anyRequest().authenticated()
+            .and()
+            // OCSP clients post without a session
+            .csrf().ignoringAntMatchers("/ocsp");
+    }
+
+    @Bean
+    public HttpFirewall httpFirewall() {
+        return new OcspHttpFirewall();
+    }
+
+    /**
+     * Tomcat rejects <code>%2F</code> in the path by default; passed through, it is left to the {@link #httpFirewall()}.
+     */
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> encodedSlashCustomizer() {
+        return factory -> factory.addConnectorCustomizers(
+                connector -> connector.setEncodedSolidusHandling(EncodedSolidusHandling.PASS_THROUGH.getValue()));
     }
 
 }
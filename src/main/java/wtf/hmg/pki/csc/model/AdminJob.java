@@ -0,0 +1,157 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.model;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of a queued workspace operation; every state change creates a new instance.
+ */
+public class AdminJob {
+
+    private final String id;
+    private final String description;
+    private final String operatingUser;
+    private final Status status;
+    private final Instant submitted;
+    private final Instant started;
+    private final Instant finished;
+    private final JobResult result;
+
+    private AdminJob(final Builder b) {
+        id = b.id;
+        description = b.description;
+        operatingUser = b.operatingUser;
+        status = b.status;
+        submitted = b.submitted;
+        started = b.started;
+        finished = b.finished;
+        result = b.result;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getOperatingUser() {
+        return operatingUser;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getSubmitted() {
+        return submitted;
+    }
+
+    public Instant getStarted() {
+        return started;
+    }
+
+    public Instant getFinished() {
+        return finished;
+    }
+
+    public JobResult getResult() {
+        return result;
+    }
+
+    public boolean isDone() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    public static class Builder {
+        private String id;
+        private String description;
+        private String operatingUser;
+        private Status status = Status.QUEUED;
+        private Instant submitted;
+        private Instant started;
+        private Instant finished;
+        private JobResult result;
+
+        public Builder() {
+        }
+
+        public Builder(final AdminJob job) {
+            id = job.id;
+            description = job.description;
+            operatingUser = job.operatingUser;
+            status = job.status;
+            submitted = job.submitted;
+            started = job.started;
+            finished = job.finished;
+            result = job.result;
+        }
+
+        public AdminJob build() {
+            return new AdminJob(this);
+        }
+
+        public Builder id(final String id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder description(final String description) {
+            this.description = description;
+            return this;
+        }
+
+        public Builder operatingUser(final String operatingUser) {
+            this.operatingUser = operatingUser;
+            return this;
+        }
+
+        public Builder status(final Status status) {
+            this.status = status;
+            return this;
+        }
+
+        public Builder submitted(final Instant submitted) {
+            this.submitted = submitted;
+            return this;
+        }
+
+        public Builder started(final Instant started) {
+            this.started = started;
+            return this;
+        }
+
+        public Builder finished(final Instant finished) {
+            this.finished = finished;
+            return this;
+        }
+
+        public Builder result(final JobResult result) {
+            this.result = result;
+            return this;
+        }
+    }
+}
@@ -19,6 +19,8 @@
 */
 package wtf.hmg.pki.csc.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.nio.file.Path;
 import java.time.temporal.Temporal;
 
@@ -44,10 +46,15 @@ public class CSR {
         return userName;
     }
 
+    @JsonIgnore
     public Path getCsrFile() {
         return csrFile;
     }
 
+    public String getCsrFileName() {
+        return csrFile != null ? csrFile.getFileName().toString() : null;
+    }
+
     public String getCsrInfo() {
         return csrInfo;
     }
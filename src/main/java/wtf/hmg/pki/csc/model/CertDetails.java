@@ -0,0 +1,114 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.model;
+
+import java.time.temporal.Temporal;
+
+public class CertDetails {
+
+    private final String subject;
+    private final String issuer;
+    private final String serial;
+    private final Temporal notBefore;
+    private final Temporal notAfter;
+    private final String fingerprint;
+
+    private CertDetails(final Builder b) {
+        subject = b.subject;
+        issuer = b.issuer;
+        serial = b.serial;
+        notBefore = b.notBefore;
+        notAfter = b.notAfter;
+        fingerprint = b.fingerprint;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    /**
+     * @return the serial number as upper-case hex, like in the index.txt of openssl
+     */
+    public String getSerial() {
+        return serial;
+    }
+
+    public Temporal getNotBefore() {
+        return notBefore;
+    }
+
+    public Temporal getNotAfter() {
+        return notAfter;
+    }
+
+    /**
+     * @return the SHA-256 fingerprint of the DER-encoded certificate as upper-case hex
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public static class Builder {
+        private String subject;
+        private String issuer;
+        private String serial;
+        private Temporal notBefore;
+        private Temporal notAfter;
+        private String fingerprint;
+
+        public CertDetails build() {
+            return new CertDetails(this);
+        }
+
+        public Builder subject(final String subject) {
+            this.subject = subject;
+            return this;
+        }
+
+        public Builder issuer(final String issuer) {
+            this.issuer = issuer;
+            return this;
+        }
+
+        public Builder serial(final String serial) {
+            this.serial = serial;
+            return this;
+        }
+
+        public Builder notBefore(final Temporal notBefore) {
+            this.notBefore = notBefore;
+            return this;
+        }
+
+        public Builder notAfter(final Temporal notAfter) {
+            this.notAfter = notAfter;
+            return this;
+        }
+
+        public Builder fingerprint(final String fingerprint) {
+            this.fingerprint = fingerprint;
+            return this;
+        }
+    }
+}
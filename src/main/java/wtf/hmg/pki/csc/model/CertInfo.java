@@ -1,5 +1,7 @@
 package wtf.hmg.pki.csc.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.nio.file.Path;
 import java.time.temporal.Temporal;
 
@@ -10,6 +12,7 @@ public class CertInfo {
 	private final Temporal lastModified;
 	private final boolean renewalRequested;
 	private final boolean renewed;
+	private final Temporal validTo;
 	
 	private CertInfo(final Builder b) {
 		userName = b.userName;
@@ -17,12 +20,14 @@ public class CertInfo {
 		lastModified = b.lastModified;
 		renewalRequested = b.renewalRequested;
 		renewed = b.renewed;
+		validTo = b.validTo;
 	}
 	
 	public String getUserName() {
 		return userName;
 	}
 	
+	@JsonIgnore
 	public Path getCertFile() {
 		return certFile;
 	}
@@ -39,6 +44,10 @@ public class CertInfo {
 		return renewed;
 	}
 	
+	public Temporal getValidTo() {
+		return validTo;
+	}
+	
 	public String getCertFileName() {
 		return certFile.getFileName().toString();
 	}
@@ -49,6 +58,7 @@ public class CertInfo {
 		private Temporal lastModified;
 		private boolean renewalRequested;
 		private boolean renewed;
+		private Temporal validTo;
 		
 		public CertInfo build() {
 			return new CertInfo(this);
@@ -78,5 +88,10 @@ public class CertInfo {
 			this.renewed = renewed;
 			return this;
 		}
+		
+		public Builder validTo(final Temporal validTo) {
+			this.validTo = validTo;
+			return this;
+		}
 	}
 }
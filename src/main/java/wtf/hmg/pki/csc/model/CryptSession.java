@@ -0,0 +1,118 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.model;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Key-material for en-/decrypting the files of one workspace-operation.
+ * The key is derived only once and wiped on {@link #close()}.
+ * <p>
+ * Also keeps the original ciphertext of every decrypted file, so files that were not changed
+ * by the operation can be restored without encrypting them again, and the digest of every file
+ * that was left encrypted, so it is only encrypted if the operation replaced it.
+ */
+public class CryptSession implements AutoCloseable {
+
+    private final char[] password;
+    private final byte[] salt;
+    private final byte[] keyAndIv;
+    private final Map<Path, DecryptedFile> decryptedFiles = new ConcurrentHashMap<>();
+    private final Map<Path, byte[]> encryptedFiles = new ConcurrentHashMap<>();
+    private boolean closed;
+
+    public CryptSession(final char[] password, final byte[] salt, final byte[] keyAndIv) {
+        this.password = password;
+        this.salt = salt;
+        this.keyAndIv = keyAndIv;
+    }
+
+    public char[] getPassword() {
+        checkOpen();
+        return password;
+    }
+
+    public byte[] getSalt() {
+        return salt;
+    }
+
+    public byte[] getKeyAndIv() {
+        checkOpen();
+        return keyAndIv;
+    }
+
+    public void recordDecryptedFile(final Path file, final byte[] ciphertext, final byte[] plainDigest) {
+        decryptedFiles.put(file, new DecryptedFile(ciphertext, plainDigest));
+    }
+
+    /**
+     * @return the original ciphertext, if the file was decrypted in this session and its content is still the same
+     */
+    public byte[] findUnchangedCiphertext(final Path file, final byte[] plainDigest) {
+        DecryptedFile decrypted = decryptedFiles.get(file);
+        if(decrypted == null || !Arrays.equals(decrypted.plainDigest, plainDigest)) {
+            return null;
+        }
+        return decrypted.ciphertext;
+    }
+
+    public void recordEncryptedFile(final Path file, final byte[] digest) {
+        encryptedFiles.put(file, digest);
+    }
+
+    /**
+     * @return true, if the file was left encrypted in this session and still has the same content
+     */
+    public boolean isUntouchedEncryptedFile(final Path file, final byte[] digest) {
+        return Arrays.equals(encryptedFiles.get(file), digest);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void checkOpen() {
+        if(closed) {
+            throw new IllegalStateException("CryptSession already closed!");
+        }
+    }
+
+    @Override
+    public void close() {
+        Arrays.fill(password, '\0');
+        Arrays.fill(keyAndIv, (byte) 0);
+        decryptedFiles.clear();
+        encryptedFiles.clear();
+        closed = true;
+    }
+
+    private static class DecryptedFile {
+        private final byte[] ciphertext;
+        private final byte[] plainDigest;
+
+        private DecryptedFile(final byte[] ciphertext, final byte[] plainDigest) {
+            this.ciphertext = ciphertext;
+            this.plainDigest = plainDigest;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.model;
+
+import java.util.Collections;
+import java.util.List;
+
+public class CsrDetails {
+
+    private final String subject;
+    private final String keyAlgorithm;
+    private final int keySize;
+    private final List<String> subjectAlternativeNames;
+
+    private CsrDetails(final Builder b) {
+        subject = b.subject;
+        keyAlgorithm = b.keyAlgorithm;
+        keySize = b.keySize;
+        subjectAlternativeNames = Collections.unmodifiableList(b.subjectAlternativeNames);
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    public int getKeySize() {
+        return keySize;
+    }
+
+    public List<String> getSubjectAlternativeNames() {
+        return subjectAlternativeNames;
+    }
+
+    public static class Builder {
+        private String subject;
+        private String keyAlgorithm;
+        private int keySize;
+        private List<String> subjectAlternativeNames = Collections.emptyList();
+
+        public CsrDetails build() {
+            return new CsrDetails(this);
+        }
+
+        public Builder subject(final String subject) {
+            this.subject = subject;
+            return this;
+        }
+
+        public Builder keyAlgorithm(final String keyAlgorithm) {
+            this.keyAlgorithm = keyAlgorithm;
+            return this;
+        }
+
+        public Builder keySize(final int keySize) {
+            this.keySize = keySize;
+            return this;
+        }
+
+        public Builder subjectAlternativeNames(final List<String> subjectAlternativeNames) {
+            this.subjectAlternativeNames = subjectAlternativeNames;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.model;
+
+import java.util.Collections;
+import java.util.List;
+
+public class JobResult {
+
+    private final String message;
+    private final String errorMessage;
+    private final List<SignResult> signResults;
+
+    private JobResult(final Builder b) {
+        message = b.message;
+        errorMessage = b.errorMessage;
+        signResults = b.signResults;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public List<SignResult> getSignResults() {
+        return signResults;
+    }
+
+    public boolean isSuccess() {
+        return errorMessage == null;
+    }
+
+    public static class Builder {
+        private String message;
+        private String errorMessage;
+        private List<SignResult> signResults = Collections.emptyList();
+
+        public JobResult build() {
+            return new JobResult(this);
+        }
+
+        public Builder message(final String message) {
+            this.message = message;
+            return this;
+        }
+
+        public Builder errorMessage(final String errorMessage) {
+            this.errorMessage = errorMessage;
+            return this;
+        }
+
+        public Builder signResults(final List<SignResult> signResults) {
+            this.signResults = signResults;
+            return this;
+        }
+    }
+}
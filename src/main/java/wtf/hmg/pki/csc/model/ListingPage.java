@@ -0,0 +1,66 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.model;
+
+import java.util.Collections;
+import java.util.List;
+
+public class ListingPage<T> {
+
+    private final List<T> items;
+    private final int page;
+    private final int size;
+    private final int totalItems;
+
+    public ListingPage(final List<T> items, final int page, final int size, final int totalItems) {
+        this.items = Collections.unmodifiableList(items);
+        this.page = page;
+        this.size = size;
+        this.totalItems = totalItems;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public int getTotalPages() {
+        return Math.max((totalItems + size - 1) / size, 1);
+    }
+
+    public boolean hasPrevious() {
+        return page > 0;
+    }
+
+    public boolean hasNext() {
+        return page + 1 < getTotalPages();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.model;
+
+import org.apache.commons.lang3.StringUtils;
+
+public class ListingQuery {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final int page;
+    private final int size;
+    private final SortField sort;
+    private final boolean descending;
+    private final String user;
+    private final String subject;
+
+    private ListingQuery(final Builder b) {
+        page = Math.max(b.page, 0);
+        size = Math.min(Math.max(b.size, 1), MAX_PAGE_SIZE);
+        sort = b.sort;
+        descending = b.descending;
+        user = StringUtils.trimToNull(b.user);
+        subject = StringUtils.trimToNull(b.subject);
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public SortField getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * @return case-insensitive part of the user name to filter for, or null
+     */
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * @return case-insensitive part of the subject to filter for, or null
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    public boolean isFiltered() {
+        return user != null || subject != null;
+    }
+
+    public ListingQuery withPage(final int page) {
+        return new Builder(this).page(page).build();
+    }
+
+    public enum SortField {
+        LAST_MODIFIED("lastModified"), LAST_RENEWED("lastRenewed"), USER("user");
+
+        private final String param;
+
+        SortField(final String param) {
+            this.param = param;
+        }
+
+        public String getParam() {
+            return param;
+        }
+
+        public static SortField fromParam(final String param) {
+            for(SortField field : values()) {
+                if(field.param.equalsIgnoreCase(param)) {
+                    return field;
+                }
+            }
+            return LAST_MODIFIED;
+        }
+    }
+
+    public static class Builder {
+        private int page;
+        private int size = DEFAULT_PAGE_SIZE;
+        private SortField sort = SortField.LAST_MODIFIED;
+        private boolean descending = true;
+        private String user;
+        private String subject;
+
+        public Builder() {
+        }
+
+        public Builder(final ListingQuery query) {
+            page = query.page;
+            size = query.size;
+            sort = query.sort;
+            descending = query.descending;
+            user = query.user;
+            subject = query.subject;
+        }
+
+        public ListingQuery build() {
+            return new ListingQuery(this);
+        }
+
+        public Builder page(final int page) {
+            this.page = page;
+            return this;
+        }
+
+        public Builder size(final int size) {
+            this.size = size;
+            return this;
+        }
+
+        public Builder sort(final SortField sort) {
+            this.sort = sort;
+            return this;
+        }
+
+        public Builder descending(final boolean descending) {
+            this.descending = descending;
+            return this;
+        }
+
+        public Builder user(final String user) {
+            this.user = user;
+            return this;
+        }
+
+        public Builder subject(final String subject) {
+            this.subject = subject;
+            return this;
+        }
+    }
+}
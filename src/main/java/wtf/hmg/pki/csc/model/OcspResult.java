@@ -0,0 +1,81 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.model;
+
+import java.time.Instant;
+
+/**
+ * Encoded OCSP response, possibly shared between requests; the returned array must not be modified.
+ */
+public class OcspResult {
+
+    private final byte[] encoded;
+    private final Instant thisUpdate;
+    private final Instant nextUpdate;
+
+    private OcspResult(final Builder b) {
+        encoded = b.encoded;
+        thisUpdate = b.thisUpdate;
+        nextUpdate = b.nextUpdate;
+    }
+
+    public byte[] getEncoded() {
+        return encoded;
+    }
+
+    /**
+     * @return when the status was signed, or null for unsuccessful responses
+     */
+    public Instant getThisUpdate() {
+        return thisUpdate;
+    }
+
+    /**
+     * @return until when the response may be cached, or null for unsuccessful responses
+     */
+    public Instant getNextUpdate() {
+        return nextUpdate;
+    }
+
+    public static class Builder {
+        private byte[] encoded;
+        private Instant thisUpdate;
+        private Instant nextUpdate;
+
+        public OcspResult build() {
+            return new OcspResult(this);
+        }
+
+        public Builder encoded(final byte[] encoded) {
+            this.encoded = encoded;
+            return this;
+        }
+
+        public Builder thisUpdate(final Instant thisUpdate) {
+            this.thisUpdate = thisUpdate;
+            return this;
+        }
+
+        public Builder nextUpdate(final Instant nextUpdate) {
+            this.nextUpdate = nextUpdate;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.model;
+
+import java.time.Instant;
+
+/**
+ * A file published by the CA (certificate or CRL), held in memory in all variants it is served in.
+ * The returned arrays are shared between all requests and must not be modified.
+ */
+public class PublishedFile {
+
+    public enum Format {
+        PEM, DER
+    }
+
+    private final byte[] pem;
+    private final byte[] der;
+    private final byte[] gzippedPem;
+    private final byte[] gzippedDer;
+    private final String fingerprint;
+    private final long lastModified;
+    private final Instant nextUpdate;
+
+    private PublishedFile(final Builder b) {
+        pem = b.pem;
+        der = b.der;
+        gzippedPem = b.gzippedPem;
+        gzippedDer = b.gzippedDer;
+        fingerprint = b.fingerprint;
+        lastModified = b.lastModified;
+        nextUpdate = b.nextUpdate;
+    }
+
+    public byte[] getContent(final Format format, final boolean gzipped) {
+        if(format == Format.DER) {
+            return gzipped ? gzippedDer : der;
+        }
+        return gzipped ? gzippedPem : pem;
+    }
+
+    /**
+     * @return strong ETag of the variant; every variant has its own, as their bytes differ
+     */
+    public String getETag(final Format format, final boolean gzipped) {
+        return "\"" + fingerprint + "-" + format.name().toLowerCase() + (gzipped ? "-gz" : "") + "\"";
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return modification time of the file in milliseconds
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return the next update announced by a CRL, or null
+     */
+    public Instant getNextUpdate() {
+        return nextUpdate;
+    }
+
+    public static class Builder {
+        private byte[] pem;
+        private byte[] der;
+        private byte[] gzippedPem;
+        private byte[] gzippedDer;
+        private String fingerprint;
+        private long lastModified;
+        private Instant nextUpdate;
+
+        public PublishedFile build() {
+            return new PublishedFile(this);
+        }
+
+        public Builder pem(final byte[] pem) {
+            this.pem = pem;
+            return this;
+        }
+
+        public Builder der(final byte[] der) {
+            this.der = der;
+            return this;
+        }
+
+        public Builder gzippedPem(final byte[] gzippedPem) {
+            this.gzippedPem = gzippedPem;
+            return this;
+        }
+
+        public Builder gzippedDer(final byte[] gzippedDer) {
+            this.gzippedDer = gzippedDer;
+            return this;
+        }
+
+        public Builder fingerprint(final String fingerprint) {
+            this.fingerprint = fingerprint;
+            return this;
+        }
+
+        public Builder lastModified(final long lastModified) {
+            this.lastModified = lastModified;
+            return this;
+        }
+
+        public Builder nextUpdate(final Instant nextUpdate) {
+            this.nextUpdate = nextUpdate;
+            return this;
+        }
+    }
+}
@@ -19,6 +19,8 @@
 */
 package wtf.hmg.pki.csc.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.nio.file.Path;
 import java.time.temporal.Temporal;
 
@@ -72,18 +74,37 @@ public class SharedApp {
 		return certValidTo;
 	}
 	
+	@JsonIgnore
 	public Path getCertFile() {
 		return certFile;
 	}
 	
+	@JsonIgnore
 	public Path getKeyFile() {
 		return keyFile;
 	}
 	
+	@JsonIgnore
 	public Path getCsrFile() {
 		return csrFile;
 	}
 	
+	public String getCertFileName() {
+		return fileName(certFile);
+	}
+	
+	public String getKeyFileName() {
+		return fileName(keyFile);
+	}
+	
+	public String getCsrFileName() {
+		return fileName(csrFile);
+	}
+	
+	private static String fileName(final Path file) {
+		return file != null ? file.getFileName().toString() : null;
+	}
+	
 	public boolean isRenewalRequested() {
 		return renewalRequested;
 	}
@@ -0,0 +1,82 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.model;
+
+public class SignResult {
+
+    private final String userName;
+    private final String fileName;
+    private final boolean success;
+    private final String message;
+
+    private SignResult(final Builder b) {
+        userName = b.userName;
+        fileName = b.fileName;
+        success = b.success;
+        message = b.message;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public static class Builder {
+        private String userName;
+        private String fileName;
+        private boolean success;
+        private String message;
+
+        public SignResult build() {
+            return new SignResult(this);
+        }
+
+        public Builder userName(final String userName) {
+            this.userName = userName;
+            return this;
+        }
+
+        public Builder fileName(final String fileName) {
+            this.fileName = fileName;
+            return this;
+        }
+
+        public Builder success(final boolean success) {
+            this.success = success;
+            return this;
+        }
+
+        public Builder message(final String message) {
+            this.message = message;
+            return this;
+        }
+    }
+}
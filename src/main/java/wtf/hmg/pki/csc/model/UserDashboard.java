@@ -0,0 +1,88 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything shown to a user on the start page, read from the user folder at once.
+ */
+public class UserDashboard {
+
+    private final List<String> csrs;
+    private final List<String> acceptedCsrs;
+    private final List<String> rejectedCsrs;
+    private final List<CertInfo> certificates;
+
+    private UserDashboard(final Builder b) {
+        csrs = Collections.unmodifiableList(b.csrs);
+        acceptedCsrs = Collections.unmodifiableList(b.acceptedCsrs);
+        rejectedCsrs = Collections.unmodifiableList(b.rejectedCsrs);
+        certificates = Collections.unmodifiableList(b.certificates);
+    }
+
+    public List<String> getCsrs() {
+        return csrs;
+    }
+
+    public List<String> getAcceptedCsrs() {
+        return acceptedCsrs;
+    }
+
+    public List<String> getRejectedCsrs() {
+        return rejectedCsrs;
+    }
+
+    public List<CertInfo> getCertificates() {
+        return certificates;
+    }
+
+    public static class Builder {
+        private List<String> csrs = Collections.emptyList();
+        private List<String> acceptedCsrs = Collections.emptyList();
+        private List<String> rejectedCsrs = Collections.emptyList();
+        private List<CertInfo> certificates = Collections.emptyList();
+
+        public UserDashboard build() {
+            return new UserDashboard(this);
+        }
+
+        public Builder csrs(final List<String> csrs) {
+            this.csrs = csrs;
+            return this;
+        }
+
+        public Builder acceptedCsrs(final List<String> acceptedCsrs) {
+            this.acceptedCsrs = acceptedCsrs;
+            return this;
+        }
+
+        public Builder rejectedCsrs(final List<String> rejectedCsrs) {
+            this.rejectedCsrs = rejectedCsrs;
+            return this;
+        }
+
+        public Builder certificates(final List<CertInfo> certificates) {
+            this.certificates = certificates;
+            return this;
+        }
+    }
+}
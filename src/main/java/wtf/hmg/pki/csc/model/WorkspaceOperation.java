@@ -0,0 +1,43 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CA-operations on the cert-repo, with the keys of the openssl CA-section naming the (encrypted) files
+ * that <code>openssl ca</code> reads for them.
+ */
+public enum WorkspaceOperation {
+    SIGN("private_key", "certificate"),
+    REVOKE("private_key", "certificate"),
+    RENEW("private_key", "certificate");
+
+    private final List<String> requiredCaFiles;
+
+    WorkspaceOperation(final String... requiredCaFiles) {
+        this.requiredCaFiles = Arrays.asList(requiredCaFiles);
+    }
+
+    public List<String> getRequiredCaFiles() {
+        return requiredCaFiles;
+    }
+}
@@ -21,6 +21,8 @@ package wtf.hmg.pki.csc.service;
 
 import wtf.hmg.pki.csc.model.CSR;
 import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.ListingPage;
+import wtf.hmg.pki.csc.model.ListingQuery;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -33,6 +35,12 @@ public interface AdminDataService {
 	
 	List<CertInfo> findRevokedCertificates();
 	
+	ListingPage<CSR> findPendingCertificateRequests(ListingQuery query);
+	
+	ListingPage<CSR> findSignedCertificateRequests(ListingQuery query);
+	
+	ListingPage<CertInfo> findRevokedCertificates(ListingQuery query);
+	
 	Path findAcceptedCSR(String userName, String fileName);
 	
 	Path findUserCertForRequest(String userName, String fileName);
@@ -0,0 +1,39 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import wtf.hmg.pki.csc.model.AdminJob;
+import wtf.hmg.pki.csc.model.JobResult;
+
+import java.io.IOException;
+
+public interface AdminJobService {
+    AdminJob submit(String description, String operatingUser, AdminTask task);
+
+    AdminJob findJob(String jobId);
+
+    int getQueueDepth();
+
+    @FunctionalInterface
+    interface AdminTask {
+        JobResult execute() throws IOException, GitAPIException;
+    }
+}
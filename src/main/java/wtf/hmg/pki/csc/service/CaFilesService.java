@@ -0,0 +1,43 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service;
+
+import wtf.hmg.pki.csc.model.PublishedFile;
+
+public interface CaFilesService {
+    String CA_CERT_FILE = "intermediate.cert.pem";
+
+    /**
+     * @return the CA certificate, or null if it could never be loaded
+     */
+    PublishedFile findCaCertificate();
+
+    /**
+     * @return the CRL, or null if it could never be loaded
+     */
+    PublishedFile findCertRevocationList();
+
+    /**
+     * @return the delta CRL, or null if none is configured or it could never be loaded
+     */
+    PublishedFile findDeltaCertRevocationList();
+
+    void reload();
+}
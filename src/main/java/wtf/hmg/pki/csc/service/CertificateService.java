@@ -20,26 +20,36 @@
 package wtf.hmg.pki.csc.service;
 
 import org.eclipse.jgit.api.errors.GitAPIException;
+import wtf.hmg.pki.csc.model.CryptSession;
+import wtf.hmg.pki.csc.model.WorkspaceOperation;
 
 import java.io.IOException;
 import java.nio.file.Path;
 
 public interface CertificateService {
+    Path prepareCertificateRepository() throws IOException, GitAPIException;
+
     Path cloneCertificateRepository() throws GitAPIException;
 
+    Path updateCertificateRepository() throws IOException, GitAPIException;
+
     void commitAndPushChanges(String operatingUser, String message) throws IOException, GitAPIException;
 
     void cleanupWorkingFiles() throws IOException;
 
-    void decryptWorkingFiles(String password) throws IOException;
+    void decryptWorkingFiles(CryptSession cryptSession, WorkspaceOperation operation) throws IOException;
 
-    void encryptWorkingFiles(String password) throws IOException;
+    void encryptWorkingFiles(CryptSession cryptSession) throws IOException;
 
     Path copyUserCSRToRepository(String userName, String csrFileName) throws IOException;
 	
 	Path copyAppCSRToRepository(String appName, String csrFileName) throws IOException;
 	
 	void copyCertificateToUserDirectory(String userName, Path certFile) throws IOException;
+
+	void removeCSRFromRepository(String csrFileName) throws IOException;
+
+	void removeCertificateFromUserDirectory(String userName, Path certFile) throws IOException;
 	
 	void copyCertificateToAppDirectory(String appName, Path certFile) throws IOException;
 }
@@ -19,13 +19,19 @@
 */
 package wtf.hmg.pki.csc.service;
 
+import wtf.hmg.pki.csc.model.CryptSession;
+
 import java.io.IOException;
 import java.nio.file.Path;
 
 public interface CryptService {
-    void decryptFile(Path file, String password) throws IOException;
+    CryptSession openSession(String password) throws IOException;
+
+    void decryptFile(Path file, CryptSession cryptSession) throws IOException;
+
+    void encryptFile(Path file, CryptSession cryptSession) throws IOException;
 
-    void encryptFile(Path file, String password) throws IOException;
+    void keepEncrypted(Path file, CryptSession cryptSession) throws IOException;
 
     Path signCertificateRequest(Path csrFile, String keyPassword) throws IOException;
 
@@ -0,0 +1,35 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service;
+
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import wtf.hmg.pki.csc.model.CsrDetails;
+
+/**
+ * Policy for certificate requests uploaded by users. All rules are applied by the {@link CsrPolicyService} in the order
+ * given by their {@link org.springframework.core.annotation.Order}, so cheap checks should come first.
+ */
+public interface CsrRule {
+
+    /**
+     * @return reason why the request violates the rule, or null if it complies
+     */
+    String check(String userName, PKCS10CertificationRequest csr, CsrDetails details);
+}
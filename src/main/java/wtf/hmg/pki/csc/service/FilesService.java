@@ -22,7 +22,9 @@ package wtf.hmg.pki.csc.service;
 import java.io.IOException;
 import java.nio.file.CopyOption;
 import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitor;
 import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
@@ -42,6 +44,8 @@ public interface FilesService {
                       BiPredicate<Path, BasicFileAttributes> matcher,
                       FileVisitOption... options) throws IOException;
 
+    Path walkFileTree(Path start, int maxDepth, FileVisitor<? super Path> visitor) throws IOException;
+
     boolean deleteRecursively(Path root) throws IOException;
 	
 	boolean deleteIfExists(Path path) throws IOException;
@@ -57,4 +61,8 @@ public interface FilesService {
 	Path setLastModifiedTime(Path path, FileTime time) throws IOException;
 	
 	FileTime getLastModifiedTime(Path path, LinkOption... options) throws IOException;
+	
+	byte[] readAllBytes(Path path) throws IOException;
+	
+	Path write(Path path, byte[] bytes, OpenOption... options) throws IOException;
 }
@@ -0,0 +1,57 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service;
+
+import wtf.hmg.pki.csc.model.CSR;
+import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.ListingPage;
+import wtf.hmg.pki.csc.model.ListingQuery;
+
+import java.util.List;
+
+public interface InventoryService {
+    List<CSR> findPendingCertificateRequests();
+
+    List<CSR> findSignedCertificateRequests();
+
+    List<CertInfo> findRevokedCertificates();
+
+    ListingPage<CSR> findPendingCertificateRequests(ListingQuery query);
+
+    ListingPage<CSR> findSignedCertificateRequests(ListingQuery query);
+
+    ListingPage<CertInfo> findRevokedCertificates(ListingQuery query);
+
+    void refreshUser(String userName);
+
+    void refreshSharedApps();
+
+    void rescan();
+
+    /**
+     * @return counter, which changes whenever an entry of a user or a shared app changed
+     */
+    long getVersion();
+
+    /**
+     * @return counter, which changes whenever an entry of the given user changed; 0 for users without entries
+     */
+    long getVersion(String userName);
+}
@@ -0,0 +1,44 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service;
+
+import java.io.IOException;
+
+public interface UploadLimitService {
+
+    enum Rejection {
+        RATE_LIMITED, TOO_MANY_PENDING
+    }
+
+    interface Upload {
+        void save() throws IOException;
+    }
+
+    /**
+     * Takes a token from the upload bucket of the user and saves the request, if the user does not already have too
+     * many pending requests. Check and save run under a lock of the user, so concurrent uploads can not exceed the
+     * limit of pending requests. If saving fails, e.g. because the request is invalid or violates the policy, the
+     * token is given back.
+     *
+     * @return reason, why the user may not upload another request right now, or null if the request was saved
+     * @throws IOException if saving the request failed
+     */
+    Rejection tryUpload(String userName, Upload upload) throws IOException;
+}
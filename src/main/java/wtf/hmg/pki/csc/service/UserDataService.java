@@ -21,28 +21,21 @@ package wtf.hmg.pki.csc.service;
 
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
-import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.UserDashboard;
 
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.List;
 
 public interface UserDataService {
 
-    List<String> findCertificateRequestsForUser(String userName);
-
-    List<String> findAcceptedCertificateRequestsForUser(String userName);
-
-    List<String> findRejectedCertificateRequestsForUser(String userName);
-
-    List<CertInfo> findCertificatesForUser(String userName);
+    /**
+     * @return pending, accepted and rejected requests and the certificates of the user, read with a single traversal
+     * of the user folder and kept in memory until the folder changed
+     */
+    UserDashboard findDashboardForUser(String userName);
 
     Resource userCertificateFileAsResource(String userName, String filename) throws IOException;
 
-    Resource caCertificateAsResource() throws IOException;
-
-    Resource certRevocationListAsResource() throws IOException;
-
     void saveUploadedCSR(String userName, MultipartFile csrFile) throws IOException;
 
     void saveUploadedCSR(String userName, String fileName, String fileData) throws IOException;
@@ -0,0 +1,73 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.util.FileDetailsCache;
+
+import javax.annotation.PostConstruct;
+import java.nio.file.Path;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps the details of the most recently used files, so every file is only parsed once.
+ * An entry is parsed again as soon as size or modification time of the file changed.
+ *
+ * @param <T> type of the parsed details
+ */
+public abstract class AbstractFileDetailsService<T> {
+
+    @Autowired
+    private AppConfig appConfig;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final String name;
+    private final ToIntFunction<AppConfig> maxSize;
+    private final Function<Path, T> parser;
+    private FileDetailsCache<T> cache;
+
+    protected AbstractFileDetailsService(final String name, final ToIntFunction<AppConfig> maxSize,
+                                         final Function<Path, T> parser) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.parser = parser;
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = new FileDetailsCache<>(name, maxSize.applyAsInt(appConfig), parser, meterRegistry);
+    }
+
+    public T findDetails(final Path file) {
+        return cache.get(file);
+    }
+
+    public void setAppConfig(final AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    public void setMeterRegistry(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+}
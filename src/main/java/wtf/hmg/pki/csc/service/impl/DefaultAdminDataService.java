@@ -20,120 +20,61 @@
 package wtf.hmg.pki.csc.service.impl;
 
 import org.apache.commons.lang3.StringUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import wtf.hmg.pki.csc.config.AppConfig;
 import wtf.hmg.pki.csc.model.CSR;
 import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.ListingPage;
+import wtf.hmg.pki.csc.model.ListingQuery;
 import wtf.hmg.pki.csc.service.FilesService;
-import wtf.hmg.pki.csc.util.CscUtils;
-import wtf.hmg.pki.csc.util.SupportUtils;
+import wtf.hmg.pki.csc.service.InventoryService;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.FileTime;
-import java.time.temporal.Temporal;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class DefaultAdminDataService implements wtf.hmg.pki.csc.service.AdminDataService {
 
-    private final Logger log = LoggerFactory.getLogger(getClass());
-
     @Autowired
     private AppConfig appConfig;
     @Autowired
     private FilesService filesService;
     @Autowired
-    private SupportUtils supportUtils;
+    private InventoryService inventoryService;
 
     @Override
     public List<CSR> findPendingCertificateRequests() {
-        try {
-            return filesService.find(appConfig.getStoragePath().resolve("users"), 2, CscUtils::isValidCSRFile)
-                    .map(this::pathToCSR)
-                    .collect(Collectors.toList());
-        } catch (IOException|IllegalStateException e) {
-            log.warn("Unable to find pending csr", e);
-        }
-
-        return Collections.emptyList();
+        return inventoryService.findPendingCertificateRequests();
     }
 
     @Override
     public List<CSR> findSignedCertificateRequests() {
-        try {
-            return filesService.find(appConfig.getStoragePath().resolve("users"), 3, CscUtils::isSignedCSRFile)
-                    .map(this::pathToSignedCSR)
-                    .collect(Collectors.toList());
-        } catch (IOException|IllegalStateException e) {
-            log.warn("Unable to find pending csr", e);
-        }
-        return Collections.emptyList();
+        return inventoryService.findSignedCertificateRequests();
     }
     
     @Override
     public List<CertInfo> findRevokedCertificates() {
-        try {
-            return filesService.find(appConfig.getStoragePath().resolve("users"), 3, CscUtils::isRevokedCertFile)
-                    .map(this::pathToCertInfo)
-                    .collect(Collectors.toList());
-        } catch (IOException|IllegalStateException e) {
-            log.warn("Unable to find pending csr", e);
-        }
-        
-        return Collections.emptyList();
-    }
-
-    private CSR pathToCSR(final Path path) {
-        return pathToCSRAndUser(path, path.getParent());
-    }
-
-    private CSR pathToSignedCSR(final Path path) {
-        return pathToCSRAndUser(path, path.getParent().getParent());
-    }
-
-    private CSR pathToCSRAndUser(final Path path, final Path userFolder) {
-        String baseName = StringUtils.substringBefore(path.getFileName().toString(), ".csr");
-        Path certFile = userFolder.resolve("certs").resolve(baseName + ".crt.pem.reqrenew");
-        
-        CSR.Builder b = new CSR.Builder();
-        b.csrFile(path);
-        b.csrInfo(CscUtils.extractCSRInfo(path));
-        b.userName(userFolder.getFileName().toString());
-        b.lastModified(supportUtils.determineLastModified(path));
-        b.lastRenewed(determineLastRenewed(path));
-        b.renewalRequested(Files.isRegularFile(certFile));
-
-        return b.build();
+        return inventoryService.findRevokedCertificates();
     }
     
-    private CertInfo pathToCertInfo(final Path path) {
-        return pathToCertInfoAndUser(path, path.getParent().getParent());
+    @Override
+    public ListingPage<CSR> findPendingCertificateRequests(final ListingQuery query) {
+        return inventoryService.findPendingCertificateRequests(query);
     }
     
-    private CertInfo pathToCertInfoAndUser(final Path path, final Path userFolder) {
-        CertInfo.Builder b = new CertInfo.Builder();
-        b.certFile(path);
-        b.userName(userFolder.getFileName().toString());
-        b.lastModified(supportUtils.determineLastModified(path));
-        
-        return b.build();
+    @Override
+    public ListingPage<CSR> findSignedCertificateRequests(final ListingQuery query) {
+        return inventoryService.findSignedCertificateRequests(query);
     }
     
-    private Temporal determineLastRenewed(final Path path) {
-        Path renewPath = path.getParent().resolve(path.getFileName().toString() + ".renewed");
-        if(Files.isRegularFile(renewPath)) {
-            return supportUtils.determineLastModified(renewPath);
-        }
-        
-        return null;
+    @Override
+    public ListingPage<CertInfo> findRevokedCertificates(final ListingQuery query) {
+        return inventoryService.findRevokedCertificates(query);
     }
     
     @Override
@@ -157,6 +98,7 @@ public class DefaultAdminDataService implements wtf.hmg.pki.csc.service.AdminDat
         filesService.createDirectories(certRevokedPath.getParent());
         Path target = filesService.move(certFile, certRevokedPath, StandardCopyOption.REPLACE_EXISTING);
         filesService.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+        inventoryService.refreshUser(userName);
     }
     
     @Override
@@ -177,6 +119,7 @@ public class DefaultAdminDataService implements wtf.hmg.pki.csc.service.AdminDat
 
         filesService.createDirectories(target.getParent());
         filesService.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        inventoryService.refreshUser(userName);
     }
 
     @Override
@@ -186,6 +129,7 @@ public class DefaultAdminDataService implements wtf.hmg.pki.csc.service.AdminDat
 
         filesService.createDirectories(target.getParent());
         filesService.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        inventoryService.refreshUser(userName);
     }
     
     @Override
@@ -198,10 +142,12 @@ public class DefaultAdminDataService implements wtf.hmg.pki.csc.service.AdminDat
         }
     
         String baseName = StringUtils.substringBefore(csrFile.getFileName().toString(), ".csr");
-        Path certFile = csrFile.getParent().getParent().resolve("certs").resolve(baseName + ".crt.pem.reqrenew");
+        Path userFolder = csrFile.getParent().getParent();
+        Path certFile = userFolder.resolve("certs").resolve(baseName + ".crt.pem.reqrenew");
         if(Files.isRegularFile(certFile)) {
             filesService.deleteRecursively(certFile);
         }
+        inventoryService.refreshUser(userFolder.getFileName().toString());
     }
     
     public void setAppConfig(final AppConfig appConfig) {
@@ -212,7 +158,7 @@ public class DefaultAdminDataService implements wtf.hmg.pki.csc.service.AdminDat
         this.filesService = filesService;
     }
     
-    public void setSupportUtils(final SupportUtils supportUtils) {
-        this.supportUtils = supportUtils;
+    public void setInventoryService(final InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
     }
 }
@@ -0,0 +1,136 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import wtf.hmg.pki.csc.model.AdminJob;
+import wtf.hmg.pki.csc.model.JobResult;
+import wtf.hmg.pki.csc.service.AdminJobService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs all operations on the cert-repo one after another on a single worker thread.
+ * Finished jobs are kept for {@link #JOB_RETENTION} so the UI can fetch their result.
+ */
+@Service
+public class DefaultAdminJobService implements AdminJobService {
+
+    static final Duration JOB_RETENTION = Duration.ofHours(1);
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, AdminJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("admin-job-"));
+        Gauge.builder("pki.adminjobs.queue", queueDepth, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if(!executor.awaitTermination(5, TimeUnit.MINUTES)) {
+            log.warn("Admin jobs still running on shutdown!");
+        }
+    }
+
+    @Override
+    public AdminJob submit(final String description, final String operatingUser, final AdminTask task) {
+        removeExpiredJobs();
+
+        AdminJob job = new AdminJob.Builder()
+                .id(UUID.randomUUID().toString())
+                .description(description)
+                .operatingUser(operatingUser)
+                .submitted(Instant.now())
+                .build();
+        jobs.put(job.getId(), job);
+        queueDepth.incrementAndGet();
+        executor.execute(() -> run(job, task));
+
+        log.info("Queued job {} ({}) of {}", job.getId(), description, operatingUser);
+        return job;
+    }
+
+    private void run(final AdminJob job, final AdminTask task) {
+        queueDepth.decrementAndGet();
+        Instant started = Instant.now();
+        meterRegistry.timer("pki.adminjobs.wait").record(Duration.between(job.getSubmitted(), started));
+        jobs.put(job.getId(), new AdminJob.Builder(job).status(AdminJob.Status.RUNNING).started(started).build());
+
+        JobResult result;
+        try {
+            result = task.execute();
+        } catch (Exception e) {
+            log.error("Job {} ({}) failed!", job.getId(), job.getDescription(), e);
+            result = new JobResult.Builder().errorMessage("Something went horribly wrong! Unable to execute "
+                    + job.getDescription() + "! Error was: " + e.getMessage()).build();
+        }
+
+        jobs.put(job.getId(), new AdminJob.Builder(job)
+                .status(result.isSuccess() ? AdminJob.Status.SUCCEEDED : AdminJob.Status.FAILED)
+                .started(started)
+                .finished(Instant.now())
+                .result(result)
+                .build());
+    }
+
+    private void removeExpiredJobs() {
+        Instant expiry = Instant.now().minus(JOB_RETENTION);
+        jobs.values().removeIf(job -> job.isDone() && job.getFinished().isBefore(expiry));
+    }
+
+    @Override
+    public AdminJob findJob(final String jobId) {
+        return jobs.get(jobId);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public void setMeterRegistry(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+}
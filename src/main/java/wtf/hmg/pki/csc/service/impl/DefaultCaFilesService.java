@@ -0,0 +1,203 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.PublishedFile;
+import wtf.hmg.pki.csc.service.CaFilesService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds CA certificate, CRL and delta CRL in memory, so serving them does not touch the filesystem.
+ * All files are checked for changes periodically and are only read again after size or modification time changed.
+ * A file that can not be parsed (e.g. because it is just being written) does not replace the loaded version.
+ */
+@Service
+public class DefaultCaFilesService implements CaFilesService {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private AppConfig appConfig;
+
+    private volatile LoadedFile caCertificate;
+    private volatile LoadedFile certRevocationList;
+    private volatile LoadedFile deltaCertRevocationList;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        reload();
+
+        long interval = appConfig.getCaFilesCheckInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("ca-files-reload-"));
+        scheduler.scheduleWithFixedDelay(this::reload, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if(scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public PublishedFile findCaCertificate() {
+        LoadedFile loaded = caCertificate;
+        return loaded != null ? loaded.file : null;
+    }
+
+    @Override
+    public PublishedFile findCertRevocationList() {
+        LoadedFile loaded = certRevocationList;
+        return loaded != null ? loaded.file : null;
+    }
+
+    @Override
+    public PublishedFile findDeltaCertRevocationList() {
+        LoadedFile loaded = deltaCertRevocationList;
+        return loaded != null ? loaded.file : null;
+    }
+
+    @Override
+    public synchronized void reload() {
+        caCertificate = load(appConfig.getStoragePath().resolve(CA_CERT_FILE), caCertificate, this::readCertificate);
+        certRevocationList = load(appConfig.getCertRevocationListPath(), certRevocationList, this::readCertRevocationList);
+        if(appConfig.getDeltaCrlPath() != null) {
+            deltaCertRevocationList = load(appConfig.getDeltaCrlPath(), deltaCertRevocationList, this::readCertRevocationList);
+        }
+    }
+
+    private LoadedFile load(final Path path, final LoadedFile current, final Reader reader) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            log.debug("Unable to check {}", path, e);
+            return current;
+        }
+
+        if(current != null && current.matches(attributes)) {
+            return current;
+        }
+
+        PublishedFile previous = current != null ? current.file : null;
+        try {
+            PublishedFile file = reader.read(Files.readAllBytes(path), attributes.lastModifiedTime());
+            log.info("Loaded {}", path);
+            return new LoadedFile(attributes, file);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            log.warn("Unable to load {}, serving the previous version", path, e);
+            // remember the attributes anyway, so the broken file is not parsed again until it changes
+            return new LoadedFile(attributes, previous);
+        }
+    }
+
+    private PublishedFile readCertificate(final byte[] content, final FileTime lastModified) throws IOException, GeneralSecurityException {
+        X509Certificate cert = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(content));
+        return publish(cert.getEncoded(), "CERTIFICATE", lastModified).build();
+    }
+
+    private PublishedFile readCertRevocationList(final byte[] content, final FileTime lastModified) throws IOException, GeneralSecurityException {
+        X509CRL crl = (X509CRL) CertificateFactory.getInstance("X.509").generateCRL(new ByteArrayInputStream(content));
+        return publish(crl.getEncoded(), "X509 CRL", lastModified)
+                .nextUpdate(crl.getNextUpdate() != null ? crl.getNextUpdate().toInstant() : null)
+                .build();
+    }
+
+    private PublishedFile.Builder publish(final byte[] der, final String pemType, final FileTime lastModified)
+            throws IOException, GeneralSecurityException {
+        StringWriter pemWriter = new StringWriter();
+        try(PemWriter w = new PemWriter(pemWriter)) {
+            w.writeObject(new PemObject(pemType, der));
+        }
+        byte[] pem = pemWriter.toString().getBytes(StandardCharsets.US_ASCII);
+
+        return new PublishedFile.Builder()
+                .pem(pem)
+                .der(der)
+                .gzippedPem(gzip(pem))
+                .gzippedDer(gzip(der))
+                .fingerprint(Hex.toHexString(MessageDigest.getInstance("SHA-256").digest(der)))
+                .lastModified(lastModified.toMillis());
+    }
+
+    private static byte[] gzip(final byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+        try(GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    public void setAppConfig(final AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    @FunctionalInterface
+    private interface Reader {
+        PublishedFile read(byte[] content, FileTime lastModified) throws IOException, GeneralSecurityException;
+    }
+
+    private static class LoadedFile {
+        private final long size;
+        private final FileTime lastModified;
+        private final PublishedFile file;
+
+        LoadedFile(final BasicFileAttributes attributes, final PublishedFile file) {
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime();
+            this.file = file;
+        }
+
+        boolean matches(final BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+        }
+    }
+}
@@ -20,30 +20,52 @@
 package wtf.hmg.pki.csc.service.impl;
 
 import org.apache.commons.lang3.StringUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.eclipse.jgit.api.CloneCommand;
+import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
 import org.eclipse.jgit.api.TransportConfigCallback;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.JGitInternalException;
+import org.eclipse.jgit.lib.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CryptSession;
+import wtf.hmg.pki.csc.model.WorkspaceOperation;
 import wtf.hmg.pki.csc.service.CertificateService;
 import wtf.hmg.pki.csc.service.CryptService;
 import wtf.hmg.pki.csc.service.FilesService;
 import wtf.hmg.pki.csc.service.SharedAppService;
+import wtf.hmg.pki.csc.util.OpenSslCaConfig;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 public class DefaultCertificateService implements CertificateService {
 
+    private static final String OPENSSL_CONFIG = "intermediate/openssl.cnf";
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     @Autowired
@@ -54,6 +76,22 @@ public class DefaultCertificateService implements CertificateService {
     private FilesService filesService;
     @Autowired
     private CryptService cryptService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public Path prepareCertificateRepository() throws IOException, GitAPIException {
+        if(appConfig.isCertRepoPersistent() && filesService.exists(certRepo())) {
+            try {
+                return updateCertificateRepository();
+            } catch (IOException|GitAPIException|JGitInternalException e) {
+                log.warn("Unable to update persistent working copy - falling back to a fresh clone", e);
+            }
+        }
+
+        cleanupWorkingFiles();
+        return cloneCertificateRepository();
+    }
 
     @Override
     public Path cloneCertificateRepository() throws GitAPIException {
@@ -61,10 +99,52 @@ public class DefaultCertificateService implements CertificateService {
 
         log.debug("Clone from {} to {} using key {}", appConfig.getCertRepo(), targetPath, appConfig.getGitUserKeyfile());
 
-        cloneCommand().setURI(appConfig.getCertRepo())
+        CloneCommand clone = cloneCommand().setURI(appConfig.getCertRepo())
             .setDirectory(targetPath.toFile())
-            .setTransportConfigCallback(transportConfigCallback)
-        .call();
+            .setTransportConfigCallback(transportConfigCallback);
+        if(StringUtils.isNotBlank(appConfig.getCertRepoBranch())) {
+            String branchRef = Constants.R_HEADS + appConfig.getCertRepoBranch();
+            clone.setBranch(branchRef)
+                .setCloneAllBranches(false)
+                .setBranchesToClone(Collections.singletonList(branchRef));
+        }
+        if(appConfig.isCertRepoShallow()) {
+            clone.setDepth(1);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        clone.call();
+        long duration = sample.stop(meterRegistry.timer("pki.certrepo.clone", "shallow", String.valueOf(appConfig.isCertRepoShallow())));
+        log.info("Cloned certificate repository in {} ms", TimeUnit.NANOSECONDS.toMillis(duration));
+
+        return targetPath;
+    }
+
+    /**
+     * Brings an existing working copy to the state of the remote branch, discarding everything
+     * that has been left behind by previous (possibly failed) operations.
+     */
+    @Override
+    public Path updateCertificateRepository() throws IOException, GitAPIException {
+        Path targetPath = certRepo();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try(Git gitRepo = openRepository(targetPath)) {
+            String branch = gitRepo.getRepository().getBranch();
+            log.debug("Fetch {} into existing working copy {}", branch, targetPath);
+
+            FetchCommand fetch = gitRepo.fetch().setRemote("origin")
+                .setRemoveDeletedRefs(true)
+                .setTransportConfigCallback(transportConfigCallback);
+            if(appConfig.isCertRepoShallow()) {
+                fetch.setDepth(1);
+            }
+            fetch.call();
+            gitRepo.reset().setMode(ResetCommand.ResetType.HARD).setRef("refs/remotes/origin/" + branch).call();
+            gitRepo.clean().setCleanDirectories(true).setForce(true).call();
+        }
+        long duration = sample.stop(meterRegistry.timer("pki.certrepo.fetch"));
+        log.info("Updated certificate repository in {} ms", TimeUnit.NANOSECONDS.toMillis(duration));
 
         return targetPath;
     }
@@ -95,20 +175,122 @@ public class DefaultCertificateService implements CertificateService {
     }
 
     @Override
-    public void decryptWorkingFiles(final String password) throws IOException {
-        List<Path> files = filesService.find(certRepo(), 4, this::validFileForEncryption).collect(Collectors.toList());
+    public void decryptWorkingFiles(final CryptSession cryptSession, final WorkspaceOperation operation) throws IOException {
+        Set<Path> requiredFiles = appConfig.isCryptLazy() ? requiredFiles(operation) : Collections.emptySet();
+        if(requiredFiles.isEmpty()) {
+            processWorkingFiles("decrypt", cryptSession, cryptService::decryptFile);
+            return;
+        }
+
+        log.debug("Decrypting only {} for {}", requiredFiles, operation);
+        processWorkingFiles("decrypt", cryptSession, (file, session) -> {
+            if(requiredFiles.contains(file.normalize())) {
+                cryptService.decryptFile(file, session);
+            } else {
+                cryptService.keepEncrypted(file, session);
+            }
+        });
+    }
 
-        for(Path p : files) {
-            cryptService.decryptFile(p, password);
+    /**
+     * @return the encrypted files openssl reads for the given operation, according to the CA-section of the
+     * openssl.cnf; empty if they can not be determined
+     */
+    private Set<Path> requiredFiles(final WorkspaceOperation operation) throws IOException {
+        Path opensslConfig = certRepo().resolve(OPENSSL_CONFIG);
+        if(!filesService.exists(opensslConfig)) {
+            log.warn("No {} in cert-repo - decrypting all files", OPENSSL_CONFIG);
+            return Collections.emptySet();
         }
+
+        OpenSslCaConfig caConfig = OpenSslCaConfig.parse(new String(filesService.readAllBytes(opensslConfig), StandardCharsets.UTF_8));
+        Set<Path> result = new HashSet<>();
+        for(String key : operation.getRequiredCaFiles()) {
+            String file = caConfig.getCaValue(key);
+            if(StringUtils.isBlank(file)) {
+                log.warn("No {} configured in {} - decrypting all files", key, OPENSSL_CONFIG);
+                return Collections.emptySet();
+            }
+            result.add(certRepo().resolve(file).normalize());
+        }
+
+        return result;
     }
 
     @Override
-    public void encryptWorkingFiles(final String password) throws IOException {
+    public void encryptWorkingFiles(final CryptSession cryptSession) throws IOException {
+        processWorkingFiles("encrypt", cryptSession, cryptService::encryptFile);
+    }
+
+    /**
+     * All or nothing: if a single file fails, the working copy gets discarded, as it would otherwise contain
+     * a mix of en- and decrypted files. The next operation starts with a fresh clone then.
+     */
+    private void processWorkingFiles(final String operation, final CryptSession cryptSession,
+                                     final FileOperation fileOperation) throws IOException {
         List<Path> files = filesService.find(certRepo(), 4, this::validFileForEncryption).collect(Collectors.toList());
+        int parallelism = Math.min(appConfig.getCryptParallelism(), files.size());
+
+        try {
+            if(parallelism > 1) {
+                processInParallel(files, parallelism, cryptSession, fileOperation);
+            } else {
+                for(Path p : files) {
+                    fileOperation.process(p, cryptSession);
+                }
+            }
+        } catch (IOException|RuntimeException e) {
+            log.error("Unable to {} working files - discarding working copy", operation);
+            try {
+                cleanupWorkingFiles();
+            } catch (IOException cleanupError) {
+                e.addSuppressed(cleanupError);
+            }
+            throw e;
+        }
+    }
 
-        for(Path p : files) {
-            cryptService.encryptFile(p, password);
+    private void processInParallel(final List<Path> files, final int parallelism, final CryptSession cryptSession,
+                                   final FileOperation fileOperation) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("crypt-worker-"));
+        List<Future<Void>> results = new ArrayList<>(files.size());
+        try {
+            for(Path p : files) {
+                results.add(executor.submit(() -> {
+                    fileOperation.process(p, cryptSession);
+                    return null;
+                }));
+            }
+            for(Future<Void> result : results) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            results.forEach(r -> r.cancel(false));
+            if(e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new IOException("Unable to process file!", e.getCause());
+        } catch (InterruptedException e) {
+            results.forEach(r -> r.cancel(false));
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing files!", e);
+        } finally {
+            awaitTermination(executor);
+        }
+    }
+
+    // files still being processed must not be written after the working copy got discarded
+    private void awaitTermination(final ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if(!executor.awaitTermination(5, TimeUnit.MINUTES)) {
+                log.warn("crypt-workers did not terminate in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -143,6 +325,16 @@ public class DefaultCertificateService implements CertificateService {
         filesService.createDirectories(targetPath.getParent());
         filesService.copy(certFile, targetPath, StandardCopyOption.REPLACE_EXISTING); // FIXME: to replace or not to replace!?
     }
+
+    @Override
+    public void removeCSRFromRepository(final String csrFileName) throws IOException {
+        filesService.deleteIfExists(certRepo().resolve("intermediate/csr").resolve(csrFileName));
+    }
+
+    @Override
+    public void removeCertificateFromUserDirectory(final String userName, final Path certFile) throws IOException {
+        filesService.deleteIfExists(appConfig.getStoragePath().resolve("users").resolve(userName).resolve("certs").resolve(certFile.getFileName().toString()));
+    }
     
     @Override
     public void copyCertificateToAppDirectory(final String appName, final Path certFile) throws IOException {
@@ -169,5 +361,13 @@ public class DefaultCertificateService implements CertificateService {
     public void setCryptService(final CryptService cryptService) {
         this.cryptService = cryptService;
     }
-    
+
+    public void setMeterRegistry(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @FunctionalInterface
+    private interface FileOperation {
+        void process(Path file, CryptSession cryptSession) throws IOException;
+    }
 }
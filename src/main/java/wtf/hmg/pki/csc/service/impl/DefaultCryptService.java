@@ -20,22 +20,37 @@
 package wtf.hmg.pki.csc.service.impl;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.util.encoders.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CryptSession;
 import wtf.hmg.pki.csc.service.FilesService;
+import wtf.hmg.pki.csc.util.OpenSslCa;
+import wtf.hmg.pki.csc.util.OpenSslCipher;
 import wtf.hmg.pki.csc.util.SupportUtils;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 
 @Service
 public class DefaultCryptService implements wtf.hmg.pki.csc.service.CryptService {
 
+    private static final String OPENSSL_CONFIG = "intermediate/openssl.cnf";
+    private static final String CERTS_DIR = "intermediate/certs";
+    private static final int CERT_VALIDITY_DAYS = 730;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
     @Autowired
     private AppConfig appConfig;
     @Autowired
@@ -45,28 +60,94 @@ public class DefaultCryptService implements wtf.hmg.pki.csc.service.CryptService
     
 
     @Override
-    public void decryptFile(final Path file, final String password) throws IOException {
+    public CryptSession openSession(final String password) throws IOException {
+        byte[] salt = OpenSslCipher.parseSalt(appConfig.getCryptSalt());
+        char[] passwordChars = password.toCharArray();
+        return new CryptSession(passwordChars, salt, OpenSslCipher.deriveKeyAndIv(passwordChars, salt));
+    }
+
+    @Override
+    public void decryptFile(final Path file, final CryptSession cryptSession) throws IOException {
         Path output = file.getParent().resolve(file.getFileName().toString() + ".tmp");
-        supportUtils.runCommandLine( "Decrypting file",
-                "openssl", "enc", "-d", "-aes256", "-a", "-S", appConfig.getCryptSalt(), "-pbkdf2",
-                "-iter", "20000", "-pass", "pass:"+password, "-in", file.toString(), "-out", output.toString());
+        byte[] encrypted = filesService.readAllBytes(file);
+        byte[] plain;
+        if(isInProcessEngine()) {
+            plain = OpenSslCipher.decrypt(encrypted, cryptSession.getPassword(), cryptSession.getSalt(), cryptSession.getKeyAndIv());
+            filesService.write(output, plain);
+        } else if(OpenSslCipher.isSalted(encrypted)) {
+            // the key depends on the salt of the header then
+            supportUtils.runCommandLine("Decrypting file",
+                    "openssl", "enc", "-d", "-aes256", "-a", "-pbkdf2", "-iter", String.valueOf(OpenSslCipher.ITERATIONS),
+                    "-pass", "pass:" + new String(cryptSession.getPassword()), "-in", file.toString(), "-out", output.toString());
+            plain = filesService.readAllBytes(output);
+        } else {
+            byte[] keyAndIv = cryptSession.getKeyAndIv();
+            supportUtils.runCommandLine("Decrypting file",
+                    "openssl", "enc", "-d", "-aes256", "-a", "-K", keyHex(keyAndIv), "-iv", ivHex(keyAndIv),
+                    "-in", file.toString(), "-out", output.toString());
+            plain = filesService.readAllBytes(output);
+        }
 
+        cryptSession.recordDecryptedFile(file, encrypted, digest(plain));
         filesService.move(output, file, StandardCopyOption.REPLACE_EXISTING);
     }
 
     @Override
-    public void encryptFile(final Path file, final String password) throws IOException {
+    public void encryptFile(final Path file, final CryptSession cryptSession) throws IOException {
         Path output = file.getParent().resolve(file.getFileName().toString() + ".tmp");
-        supportUtils.runCommandLine( "Encrypting file",
-                "openssl", "enc", "-aes256", "-a", "-S", appConfig.getCryptSalt(), "-pbkdf2",
-                "-iter", "20000", "-pass", "pass:"+password, "-in", file.toString(), "-out", output.toString());
+        byte[] plain = filesService.readAllBytes(file);
+        byte[] plainDigest = digest(plain);
+        if(cryptSession.isUntouchedEncryptedFile(file, plainDigest)) {
+            return;
+        }
+
+        byte[] unchanged = cryptSession.findUnchangedCiphertext(file, plainDigest);
+        if(unchanged != null) {
+            filesService.write(output, unchanged);
+        } else if(isInProcessEngine()) {
+            filesService.write(output, OpenSslCipher.encrypt(plain, cryptSession.getKeyAndIv()));
+        } else {
+            byte[] keyAndIv = cryptSession.getKeyAndIv();
+            supportUtils.runCommandLine("Encrypting file",
+                    "openssl", "enc", "-aes256", "-a", "-K", keyHex(keyAndIv), "-iv", ivHex(keyAndIv),
+                    "-in", file.toString(), "-out", output.toString());
+        }
 
         filesService.move(output, file, StandardCopyOption.REPLACE_EXISTING);
     }
 
+    @Override
+    public void keepEncrypted(final Path file, final CryptSession cryptSession) throws IOException {
+        cryptSession.recordEncryptedFile(file, digest(filesService.readAllBytes(file)));
+    }
+
+    private byte[] digest(final byte[] data) throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available!", e);
+        }
+    }
+
+    private boolean isInProcessEngine() {
+        return appConfig.getCryptEngine() == AppConfig.CryptEngine.JAVA;
+    }
+
+    private String keyHex(final byte[] keyAndIv) {
+        return Hex.toHexString(keyAndIv, 0, OpenSslCipher.KEY_LENGTH);
+    }
+
+    private String ivHex(final byte[] keyAndIv) {
+        return Hex.toHexString(keyAndIv, OpenSslCipher.KEY_LENGTH, OpenSslCipher.IV_LENGTH);
+    }
+
     @Override
     public Path signCertificateRequest(final Path csrFile, final String keyPassword) throws IOException {
         Path repo = appConfig.getStoragePath().resolve("cert-repo");
+        if(appConfig.getSigningEngine() == AppConfig.SigningEngine.JAVA) {
+            return signInProcess(repo, csrFile, keyPassword);
+        }
+
         Process p = supportUtils.runCommandLine("Sign CSR",
                 repo.resolve("sign-csr.sh").toString(), repo.toString(), csrFile.toString(), keyPassword);
 
@@ -78,11 +159,43 @@ public class DefaultCryptService implements wtf.hmg.pki.csc.service.CryptService
         return repo.resolve(lines.get(lines.size()-1));
     }
 
+    private Path signInProcess(final Path repo, final Path csrFile, final String keyPassword) throws IOException {
+        // same naming as sign-csr.sh: "user.csr.pem" -> "user.crt.pem"
+        String csrName = StringUtils.substringBeforeLast(
+                StringUtils.substringBeforeLast(csrFile.getFileName().toString(), "."), ".");
+        Path certFile = repo.resolve(CERTS_DIR).resolve(csrName + ".crt.pem");
+
+        OpenSslCa.load(repo, OPENSSL_CONFIG).sign(repo.resolve(csrFile), certFile, keyPassword.toCharArray(), CERT_VALIDITY_DAYS);
+        return certFile;
+    }
+
     @Override
     public void revokeCertificate(final Path cert, final String keyPassword) throws IOException {
         Path repo = appConfig.getStoragePath().resolve("cert-repo");
         supportUtils.runCommandLine("Revoke Certificate",
                 repo.resolve("revoke-cert.sh").toString(), repo.toString(), cert.toString(), keyPassword);
+        publishDeltaCrl(repo, keyPassword);
+    }
+
+    /**
+     * A failing delta CRL does not fail the revocation: the certificate is listed on the next complete CRL anyway.
+     */
+    private void publishDeltaCrl(final Path repo, final String keyPassword) {
+        Path deltaCrl = appConfig.getDeltaCrlPath();
+        Path baseCrl = appConfig.getCertRevocationListPath();
+        if(deltaCrl == null) {
+            return;
+        }
+        if(baseCrl == null || !filesService.exists(baseCrl)) {
+            log.warn("No CRL at {} to issue a delta CRL against", baseCrl);
+            return;
+        }
+
+        try {
+            OpenSslCa.load(repo, OPENSSL_CONFIG).generateDeltaCrl(baseCrl, deltaCrl, keyPassword.toCharArray());
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to issue delta CRL {}", deltaCrl, e);
+        }
     }
 
     public void setAppConfig(final AppConfig appConfig) {
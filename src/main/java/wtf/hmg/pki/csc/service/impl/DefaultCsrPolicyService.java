@@ -0,0 +1,67 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import wtf.hmg.pki.csc.model.CsrDetails;
+import wtf.hmg.pki.csc.service.CsrPolicyService;
+import wtf.hmg.pki.csc.service.CsrRule;
+import wtf.hmg.pki.csc.util.CscUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+@Service
+public class DefaultCsrPolicyService implements CsrPolicyService {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Autowired(required = false)
+    private List<CsrRule> rules = Collections.emptyList();
+
+    @Override
+    public String findViolation(final String userName, final PKCS10CertificationRequest csr) {
+        CsrDetails details;
+        try {
+            details = CscUtils.extractCSRDetails(csr);
+        } catch (IOException | IllegalArgumentException e) {
+            log.debug("Unable to read public key of CSR from user {}", userName, e);
+            return "Unreadable public key";
+        }
+
+        for(CsrRule rule : rules) {
+            String violation = rule.check(userName, csr, details);
+            if(violation != null) {
+                log.info("CSR of user {} rejected: {}", userName, violation);
+                return violation;
+            }
+        }
+        return null;
+    }
+
+    public void setRules(final List<CsrRule> rules) {
+        this.rules = rules;
+    }
+}
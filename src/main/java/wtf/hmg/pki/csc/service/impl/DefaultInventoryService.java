@@ -0,0 +1,546 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CSR;
+import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.CsrDetails;
+import wtf.hmg.pki.csc.model.ListingPage;
+import wtf.hmg.pki.csc.model.ListingQuery;
+import wtf.hmg.pki.csc.service.CsrDetailsService;
+import wtf.hmg.pki.csc.service.FilesService;
+import wtf.hmg.pki.csc.service.InventoryService;
+import wtf.hmg.pki.csc.service.SharedAppService;
+import wtf.hmg.pki.csc.util.CscUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Keeps the pending, signed and revoked entries of all users in memory, so the admin page
+ * does not have to walk the whole users folder on every request.
+ * The users folder is read with a {@link StorageWalker}, the index is updated per user by a {@link WatchService} on the users folder and by the
+ * services writing into it. A periodic full rescan catches everything else.
+ * The shared apps are not indexed, only the modification times of their files are tracked to maintain the version.
+ */
+@Service
+public class DefaultInventoryService implements InventoryService {
+
+    private static final Comparator<CSR> CSR_BY_USER = Comparator.comparing(CSR::getUserName)
+            .thenComparing(CSR::getCsrFile);
+    private static final Comparator<CSR> CSR_BY_LAST_MODIFIED = Comparator.comparing(
+            (CSR c) -> toInstant(c.getLastModified()), Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CSR_BY_USER);
+    private static final Map<ListingQuery.SortField, Comparator<CSR>> CSR_ORDER = Map.of(
+            ListingQuery.SortField.LAST_MODIFIED, CSR_BY_LAST_MODIFIED,
+            ListingQuery.SortField.LAST_RENEWED, Comparator.comparing(
+                    (CSR c) -> toInstant(c.getLastRenewed()), Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(CSR_BY_LAST_MODIFIED),
+            ListingQuery.SortField.USER, CSR_BY_USER);
+    private static final BiPredicate<CSR, ListingQuery> CSR_FILTER = (c, q) ->
+            (q.getUser() == null || StringUtils.containsIgnoreCase(c.getUserName(), q.getUser()))
+            && (q.getSubject() == null || StringUtils.containsIgnoreCase(c.getCsrInfo(), q.getSubject()));
+
+    private static final Comparator<CertInfo> CERT_BY_USER = Comparator.comparing(CertInfo::getUserName)
+            .thenComparing(CertInfo::getCertFile);
+    private static final Comparator<CertInfo> CERT_BY_LAST_MODIFIED = Comparator.comparing(
+            (CertInfo c) -> toInstant(c.getLastModified()), Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CERT_BY_USER);
+    private static final Map<ListingQuery.SortField, Comparator<CertInfo>> CERT_ORDER = Map.of(
+            ListingQuery.SortField.LAST_MODIFIED, CERT_BY_LAST_MODIFIED,
+            ListingQuery.SortField.LAST_RENEWED, CERT_BY_LAST_MODIFIED,
+            ListingQuery.SortField.USER, CERT_BY_USER);
+    // revoked certificates have no parsed subject, so the subject filter matches the file name
+    private static final BiPredicate<CertInfo, ListingQuery> CERT_FILTER = (c, q) ->
+            (q.getUser() == null || StringUtils.containsIgnoreCase(c.getUserName(), q.getUser()))
+            && (q.getSubject() == null || StringUtils.containsIgnoreCase(c.getCertFileName(), q.getSubject()));
+
+    // user folders and their sub-folders are watched, for shared apps only the app folders
+    private static final int USER_SUBFOLDER_DEPTH = 2;
+    private static final int APP_FOLDER_DEPTH = 1;
+    private static final int SHARED_APPS_FOLDER_DEPTH = 2;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private AppConfig appConfig;
+    @Autowired
+    private FilesService filesService;
+    @Autowired
+    private CsrDetailsService csrDetailsService;
+
+    private final Map<String, UserInventory> index = new ConcurrentSkipListMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final Map<WatchKey, Path> watchKeys = new ConcurrentHashMap<>();
+    private volatile Listings listings;
+    private volatile Map<Path, FileTime> sharedApps = Collections.emptyMap();
+    private WatchService watchService;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        rescan();
+        startWatcher();
+
+        long interval = appConfig.getInventoryRescanInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("inventory-rescan-"));
+        scheduler.scheduleWithFixedDelay(this::rescan, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if(scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if(watchService != null) {
+            CscUtils.closeQuietly(watchService);
+        }
+    }
+
+    @Override
+    public List<CSR> findPendingCertificateRequests() {
+        return collect(UserInventory::getPending);
+    }
+
+    @Override
+    public List<CSR> findSignedCertificateRequests() {
+        return collect(UserInventory::getSigned);
+    }
+
+    @Override
+    public List<CertInfo> findRevokedCertificates() {
+        return collect(UserInventory::getRevoked);
+    }
+
+    private <T> List<T> collect(final Function<UserInventory, List<T>> entries) {
+        return index.values().stream()
+                .flatMap(i -> entries.apply(i).stream())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public ListingPage<CSR> findPendingCertificateRequests(final ListingQuery query) {
+        return listings().pending.page(query);
+    }
+
+    @Override
+    public ListingPage<CSR> findSignedCertificateRequests(final ListingQuery query) {
+        return listings().signed.page(query);
+    }
+
+    @Override
+    public ListingPage<CertInfo> findRevokedCertificates(final ListingQuery query) {
+        return listings().revoked.page(query);
+    }
+
+    /**
+     * @return the listings of the current inventory version; only rebuilt after the inventory changed
+     */
+    private Listings listings() {
+        long currentVersion = version.get();
+        Listings current = listings;
+        if(current == null || current.version != currentVersion) {
+            current = new Listings(currentVersion,
+                    new SortedListing<>(findPendingCertificateRequests(), CSR_ORDER, CSR_FILTER),
+                    new SortedListing<>(findSignedCertificateRequests(), CSR_ORDER, CSR_FILTER),
+                    new SortedListing<>(findRevokedCertificates(), CERT_ORDER, CERT_FILTER));
+            listings = current;
+        }
+        return current;
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public long getVersion(final String userName) {
+        UserInventory inventory = index.get(userName);
+        return inventory != null ? inventory.version : 0;
+    }
+
+    @Override
+    public void rescan() {
+        refreshSharedApps();
+
+        StorageWalker walker = new StorageWalker(usersFolder());
+        try {
+            filesService.walkFileTree(usersFolder(), StorageWalker.USERS_FOLDER_DEPTH, walker);
+        } catch (IOException e) {
+            log.warn("Unable to scan users folder", e);
+            return;
+        }
+
+        walker.getUsers().forEach(this::update);
+
+        for(String userName : index.keySet()) {
+            if(!walker.getUsers().containsKey(userName) && index.remove(userName) != null) {
+                version.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void refreshUser(final String userName) {
+        Path userFolder = usersFolder().resolve(userName);
+        if(!Files.isDirectory(userFolder)) {
+            if(index.remove(userName) != null) {
+                version.incrementAndGet();
+            }
+            return;
+        }
+
+        StorageWalker walker = new StorageWalker(usersFolder());
+        try {
+            filesService.walkFileTree(userFolder, StorageWalker.USER_FOLDER_DEPTH, walker);
+        } catch (IOException e) {
+            log.warn("Unable to scan folder of user {}", userName, e);
+            return;
+        }
+
+        update(userName, walker.getUser(userName));
+    }
+
+    @Override
+    public void refreshSharedApps() {
+        Path appsFolder = appsFolder();
+        Map<Path, FileTime> current = new TreeMap<>();
+        if(Files.isDirectory(appsFolder)) {
+            try {
+                filesService.walkFileTree(appsFolder, SHARED_APPS_FOLDER_DEPTH, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                        current.put(dir, attrs.lastModifiedTime());
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                        current.put(file, attrs.lastModifiedTime());
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                log.warn("Unable to scan shared apps folder", e);
+                return;
+            }
+        }
+
+        updateSharedApps(current);
+    }
+
+    private synchronized void updateSharedApps(final Map<Path, FileTime> current) {
+        if(!sharedApps.equals(current)) {
+            sharedApps = current;
+            version.incrementAndGet();
+        }
+    }
+
+    private synchronized void update(final String userName, final StorageWalker.UserFiles files) {
+        UserInventory previous = index.get(userName);
+        if(previous != null && previous.lastModified.equals(files.getLastModified())) {
+            return;
+        }
+
+        try {
+            UserInventory inventory = toInventory(userName, files);
+            inventory.version = version.incrementAndGet();
+            index.put(userName, inventory);
+        } catch (IllegalStateException e) {
+            log.warn("Unable to update inventory of user {}", userName, e);
+        }
+    }
+
+    private UserInventory toInventory(final String userName, final StorageWalker.UserFiles files) {
+        UserInventory inventory = new UserInventory(files.getLastModified());
+        files.getPending().forEach(p -> inventory.pending.add(pathToCSR(p, userName, inventory)));
+        files.getSigned().forEach(p -> inventory.signed.add(pathToCSR(p, userName, inventory)));
+        files.getRevoked().forEach(p -> inventory.revoked.add(pathToCertInfo(p, userName, inventory)));
+
+        return inventory;
+    }
+
+    private CSR pathToCSR(final Path path, final String userName, final UserInventory inventory) {
+        String baseName = StringUtils.substringBefore(path.getFileName().toString(), ".csr");
+        Path certFile = usersFolder().resolve(userName).resolve("certs").resolve(baseName + ".crt.pem.reqrenew");
+        Path renewPath = path.getParent().resolve(path.getFileName().toString() + ".renewed");
+
+        CSR.Builder b = new CSR.Builder();
+        b.csrFile(path);
+        CsrDetails details = csrDetailsService.findDetails(path);
+        b.csrInfo(details != null ? details.getSubject() : null);
+        b.userName(userName);
+        b.lastModified(inventory.lastModified(path));
+        b.lastRenewed(inventory.lastModified(renewPath));
+        b.renewalRequested(inventory.lastModified.containsKey(certFile));
+
+        return b.build();
+    }
+
+    private CertInfo pathToCertInfo(final Path path, final String userName, final UserInventory inventory) {
+        CertInfo.Builder b = new CertInfo.Builder();
+        b.certFile(path);
+        b.userName(userName);
+        b.lastModified(inventory.lastModified(path));
+
+        return b.build();
+    }
+
+    private void startWatcher() {
+        Path usersFolder = usersFolder();
+        try {
+            watchService = usersFolder.getFileSystem().newWatchService();
+            register(usersFolder, usersFolder, USER_SUBFOLDER_DEPTH);
+            if(Files.isDirectory(appsFolder())) {
+                register(appsFolder(), appsFolder(), APP_FOLDER_DEPTH);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to watch {}, only the periodic rescan will update the inventory", usersFolder, e);
+            if(watchService != null) {
+                CscUtils.closeQuietly(watchService);
+                watchService = null;
+            }
+            return;
+        }
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("inventory-watcher-");
+        threadFactory.setDaemon(true);
+        threadFactory.newThread(this::watch).start();
+    }
+
+    /**
+     * Registers the given folder and all its sub-folders down to the given depth below the root.
+     */
+    private void register(final Path root, final Path dir, final int maxDepth) throws IOException {
+        watchKeys.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+        if(depth(root, dir) >= maxDepth) {
+            return;
+        }
+
+        List<Path> subDirs;
+        try(Stream<Path> children = Files.list(dir)) {
+            subDirs = children.filter(Files::isDirectory).collect(Collectors.toList());
+        }
+        for(Path subDir : subDirs) {
+            register(root, subDir, maxDepth);
+        }
+    }
+
+    private int depth(final Path root, final Path dir) {
+        return dir.equals(root) ? 0 : root.relativize(dir).getNameCount();
+    }
+
+    private void watch() {
+        while(true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+
+            try {
+                handleEvents(key);
+            } catch (RuntimeException e) {
+                log.warn("Unable to update inventory", e);
+            }
+        }
+    }
+
+    private void handleEvents(final WatchKey key) {
+        Path dir = watchKeys.get(key);
+        if(dir != null && dir.startsWith(appsFolder())) {
+            handleSharedAppEvents(key, dir);
+            return;
+        }
+
+        Set<String> users = new TreeSet<>();
+        boolean overflow = dir == null;
+
+        for(WatchEvent<?> event : key.pollEvents()) {
+            if(event.kind() == OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+
+            Path child = dir.resolve((Path) event.context());
+            if(event.kind() == ENTRY_CREATE && Files.isDirectory(child) && depth(usersFolder(), child) <= USER_SUBFOLDER_DEPTH) {
+                try {
+                    register(usersFolder(), child, USER_SUBFOLDER_DEPTH);
+                } catch (IOException e) {
+                    log.warn("Unable to watch {}", child, e);
+                }
+            }
+            users.add(usersFolder().relativize(child).getName(0).toString());
+        }
+
+        if(!key.reset()) {
+            watchKeys.remove(key);
+        }
+
+        if(overflow) {
+            rescan();
+        } else {
+            users.forEach(this::refreshUser);
+        }
+    }
+
+    private void handleSharedAppEvents(final WatchKey key, final Path dir) {
+        for(WatchEvent<?> event : key.pollEvents()) {
+            if(event.kind() != ENTRY_CREATE || !dir.equals(appsFolder())) {
+                continue;
+            }
+
+            Path child = dir.resolve((Path) event.context());
+            if(Files.isDirectory(child)) {
+                try {
+                    register(appsFolder(), child, APP_FOLDER_DEPTH);
+                } catch (IOException e) {
+                    log.warn("Unable to watch {}", child, e);
+                }
+            }
+        }
+
+        if(!key.reset()) {
+            watchKeys.remove(key);
+        }
+        refreshSharedApps();
+    }
+
+    private static Instant toInstant(final Temporal temporal) {
+        return temporal != null ? Instant.from(temporal) : null;
+    }
+
+    private Path usersFolder() {
+        return appConfig.getStoragePath().resolve("users");
+    }
+
+    private Path appsFolder() {
+        return appConfig.getStoragePath().resolve(SharedAppService.SHARED_APPS_FOLDER);
+    }
+
+    public void setAppConfig(final AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    public void setFilesService(final FilesService filesService) {
+        this.filesService = filesService;
+    }
+
+    public void setCsrDetailsService(final CsrDetailsService csrDetailsService) {
+        this.csrDetailsService = csrDetailsService;
+    }
+
+    private static class Listings {
+        private final long version;
+        private final SortedListing<CSR> pending;
+        private final SortedListing<CSR> signed;
+        private final SortedListing<CertInfo> revoked;
+
+        Listings(final long version, final SortedListing<CSR> pending, final SortedListing<CSR> signed,
+                 final SortedListing<CertInfo> revoked) {
+            this.version = version;
+            this.pending = pending;
+            this.signed = signed;
+            this.revoked = revoked;
+        }
+    }
+
+    private static class UserInventory {
+        private final List<CSR> pending = new ArrayList<>();
+        private final List<CSR> signed = new ArrayList<>();
+        private final List<CertInfo> revoked = new ArrayList<>();
+        private final Map<Path, FileTime> lastModified;
+        private long version;
+
+        UserInventory(final Map<Path, FileTime> lastModified) {
+            this.lastModified = lastModified;
+        }
+
+        Temporal lastModified(final Path path) {
+            FileTime time = lastModified.get(path);
+            return time != null ? time.toInstant() : null;
+        }
+
+        List<CSR> getPending() {
+            return pending;
+        }
+
+        List<CSR> getSigned() {
+            return signed;
+        }
+
+        List<CertInfo> getRevoked() {
+            return revoked;
+        }
+    }
+}
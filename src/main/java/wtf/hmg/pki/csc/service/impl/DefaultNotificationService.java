@@ -19,17 +19,35 @@
 */
 package wtf.hmg.pki.csc.service.impl;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import wtf.hmg.pki.csc.config.AppConfig;
 import wtf.hmg.pki.csc.service.NotificationService;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+/**
+ * Asynchronous notifications are collected for the digest window, which starts with the first notification,
+ * and sent as a single mail afterwards. Notifications still pending on shutdown are sent right away.
+ */
 @Service
 public class DefaultNotificationService implements NotificationService {
 	
@@ -41,16 +59,82 @@ public class DefaultNotificationService implements NotificationService {
 	private JavaMailSender javaMailSender;
 	@Autowired
 	private ExecutorService executorService;
+	@Autowired
+	private MessageSource messageSource;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
+	private final List<Notification> pending = new ArrayList<>();
+	private ScheduledExecutorService scheduler;
+	private Counter events;
+	private Counter coalesced;
+	
+	@PostConstruct
+	public void init() {
+		events = meterRegistry.counter("pki.notification.events");
+		coalesced = meterRegistry.counter("pki.notification.coalesced");
+		
+		Duration window = appConfig.getNotificationDigestWindow();
+		if(window != null && !window.isZero()) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("notification-digest-"));
+		}
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		if(scheduler != null) {
+			scheduler.shutdownNow();
+		}
+		flush();
+	}
 	
 	@Override
 	public void sendNotificationAsync(final String subject, final String text) {
-		executorService.execute(() -> {
-			try {
-				sendNotification(subject, text);
-			} catch (Exception e) {
-				log.error("Sending async notification failed!", e);
+		events.increment();
+		if(scheduler == null) {
+			executorService.execute(() -> {
+				try {
+					sendNotification(subject, text);
+				} catch (Exception e) {
+					log.error("Sending async notification failed!", e);
+				}
+			});
+			return;
+		}
+		
+		synchronized(pending) {
+			pending.add(new Notification(subject, text));
+			if(pending.size() == 1 && !scheduler.isShutdown()) {
+				scheduler.schedule(this::flush, appConfig.getNotificationDigestWindow().toMillis(), TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+	
+	private void flush() {
+		List<Notification> batch;
+		synchronized(pending) {
+			batch = new ArrayList<>(pending);
+			pending.clear();
+		}
+		if(batch.isEmpty()) {
+			return;
+		}
+		
+		try {
+			if(batch.size() == 1) {
+				sendNotification(batch.get(0).subject, batch.get(0).text);
+				return;
 			}
-		});
+			
+			coalesced.increment(batch.size() - 1);
+			String subject = messageSource.getMessage("notification.digest.subject", new Object[]{batch.size()}, Locale.GERMAN);
+			String text = batch.stream()
+					.map(n -> n.subject + "\n\n" + n.text)
+					.collect(Collectors.joining("\n\n----------\n\n"));
+			sendNotification(subject, text);
+		} catch (Exception e) {
+			log.error("Sending digest of {} notifications failed!", batch.size(), e);
+		}
 	}
 	
 	@Override
@@ -81,4 +165,22 @@ public class DefaultNotificationService implements NotificationService {
 	public void setExecutorService(final ExecutorService executorService) {
 		this.executorService = executorService;
 	}
+	
+	public void setMessageSource(final MessageSource messageSource) {
+		this.messageSource = messageSource;
+	}
+	
+	public void setMeterRegistry(final MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+	
+	private static class Notification {
+		private final String subject;
+		private final String text;
+		
+		Notification(final String subject, final String text) {
+			this.subject = subject;
+			this.text = text;
+		}
+	}
 }
@@ -0,0 +1,529 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.X509CRLEntryHolder;
+import org.bouncycastle.cert.X509CRLHolder;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.UnknownStatus;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CertDetails;
+import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.OcspResult;
+import wtf.hmg.pki.csc.model.PublishedFile;
+import wtf.hmg.pki.csc.service.CaFilesService;
+import wtf.hmg.pki.csc.service.CertDetailsService;
+import wtf.hmg.pki.csc.service.InventoryService;
+import wtf.hmg.pki.csc.service.OcspService;
+import wtf.hmg.pki.csc.util.OpenSslCa;
+import wtf.hmg.pki.csc.util.OpenSslCaConfig;
+import wtf.hmg.pki.csc.util.OpenSslIndexEntry;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OCSP responder (RFC 6960, with the single-request profile of RFC 5019) for the certificates of the CA.
+ * <p>
+ * The status of every serial is looked up in an in-memory index, which is rebuilt periodically from the database
+ * (index.txt) of the cert-repo, the revoked folders of the users and the published (delta) CRL.
+ * If the working copy is gone, the database read last is kept. As long as no database has been read at all, only
+ * revoked serials are answered; for all others the responder answers tryLater, as it can not tell good from unknown.
+ * Signed responses are kept until half of their validity has passed or the status of the serial changed;
+ * responses for all serials of the index are signed in advance on each refresh.
+ * Nonces are not supported, as they would defeat the pre-signed responses.
+ */
+@Service
+public class DefaultOcspService implements OcspService {
+
+    private static final String OPENSSL_CONFIG = "cert-repo/intermediate/openssl.cnf";
+
+    private static final Provider PROVIDER = new BouncyCastleProvider();
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private AppConfig appConfig;
+    @Autowired
+    private CaFilesService caFilesService;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private CertDetailsService certDetailsService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile StatusIndex index = new StatusIndex(new HashMap<>(), null);
+    private Map<CertificateID, SignedResponse> responses;
+    private Signer signer;
+    private DigestCalculatorProvider digestCalculatorProvider;
+    private Counter hits;
+    private Counter misses;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        int maxSize = appConfig.getOcspCacheSize();
+        responses = new LinkedHashMap<CertificateID, SignedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<CertificateID, SignedResponse> eldest) {
+                return size() > maxSize;
+            }
+        };
+        hits = meterRegistry.counter("pki.ocspcache.hits");
+        misses = meterRegistry.counter("pki.ocspcache.misses");
+
+        if(appConfig.getOcspSignerCertPath() == null || appConfig.getOcspSignerKeyPath() == null) {
+            log.info("No OCSP signer configured - OCSP requests are answered as unauthorized");
+            return;
+        }
+
+        try {
+            digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().setProvider(PROVIDER).build();
+            signer = loadSigner();
+        } catch (IOException | OperatorCreationException | OCSPException | RuntimeException e) {
+            log.error("Unable to load OCSP signer - OCSP requests are answered as unauthorized", e);
+            return;
+        }
+
+        refresh();
+        long interval = appConfig.getOcspRefreshInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("ocsp-refresh-"));
+        scheduler.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if(scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private Signer loadSigner() throws IOException, OperatorCreationException, OCSPException {
+        X509CertificateHolder cert = OpenSslCa.readCertificate(appConfig.getOcspSignerCertPath());
+        String password = appConfig.getOcspSignerKeyPassword();
+        PrivateKey key = OpenSslCa.readPrivateKey(appConfig.getOcspSignerKeyPath(),
+                password != null ? password.toCharArray() : new char[0]);
+
+        ExtendedKeyUsage extendedKeyUsage = ExtendedKeyUsage.fromExtensions(cert.getExtensions());
+        X509CertificateHolder caCert = caCertificate();
+        boolean delegated = caCert == null || !caCert.equals(cert);
+        if(delegated && (extendedKeyUsage == null || !extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_OCSPSigning))) {
+            log.warn("OCSP signer {} is not the CA and has no OCSPSigning extended key usage - clients will reject its responses",
+                    cert.getSubject());
+        }
+
+        RespID responderId = new RespID(cert.getSubjectPublicKeyInfo(), digestCalculatorProvider.get(CertificateID.HASH_SHA1));
+        X509CertificateHolder[] chain = delegated ? new X509CertificateHolder[]{cert} : new X509CertificateHolder[0];
+        return new Signer(key, responderId, chain);
+    }
+
+    @Override
+    public OcspResult respond(final byte[] request) {
+        if(signer == null) {
+            return unsuccessful(OCSPRespBuilder.UNAUTHORIZED);
+        }
+
+        Req single;
+        try {
+            Req[] requests = new OCSPReq(request).getRequestList();
+            if(requests.length != 1) {
+                return unsuccessful(OCSPRespBuilder.MALFORMED_REQUEST);
+            }
+            single = requests[0];
+        } catch (IOException | RuntimeException e) {
+            log.debug("Invalid OCSP request", e);
+            return unsuccessful(OCSPRespBuilder.MALFORMED_REQUEST);
+        }
+
+        X509CertificateHolder caCert = caCertificate();
+        if(caCert == null) {
+            return unsuccessful(OCSPRespBuilder.TRY_LATER);
+        }
+
+        CertificateID id = single.getCertID();
+        try {
+            if(!id.matchesIssuer(caCert, digestCalculatorProvider)) {
+                return unsuccessful(OCSPRespBuilder.UNAUTHORIZED);
+            }
+
+            CertStatus status = index.find(id.getSerialNumber());
+            if(status == null) {
+                return unsuccessful(OCSPRespBuilder.TRY_LATER);
+            }
+            return find(id, status, Instant.now());
+        } catch (OCSPException | OperatorCreationException | IOException | RuntimeException e) {
+            log.error("Unable to answer OCSP request for serial {}", id.getSerialNumber(), e);
+            return unsuccessful(OCSPRespBuilder.INTERNAL_ERROR);
+        }
+    }
+
+    private OcspResult find(final CertificateID id, final CertStatus status, final Instant now)
+            throws OCSPException, OperatorCreationException, IOException {
+        if(status == CertStatus.UNKNOWN) {
+            // not cached, as anyone can ask for any serial
+            return sign(id, status, now).result;
+        }
+
+        synchronized(responses) {
+            SignedResponse cached = responses.get(id);
+            if(cached != null && cached.isCurrent(status, now)) {
+                hits.increment();
+                return cached.result;
+            }
+        }
+
+        misses.increment();
+        SignedResponse signed = sign(id, status, now);
+        synchronized(responses) {
+            responses.put(id, signed);
+        }
+        return signed.result;
+    }
+
+    @Override
+    public synchronized void refresh() {
+        X509CertificateHolder caCert = caCertificate();
+        if(signer == null || caCert == null) {
+            return;
+        }
+
+        StatusIndex current = buildIndex();
+        index = current;
+
+        Instant now = Instant.now();
+        int signed = 0;
+        try {
+            for(Map.Entry<BigInteger, CertStatus> entry : current.statuses.entrySet()) {
+                CertificateID id = new CertificateID(digestCalculatorProvider.get(CertificateID.HASH_SHA1), caCert, entry.getKey());
+                SignedResponse cached;
+                synchronized(responses) {
+                    cached = responses.get(id);
+                }
+                if(cached == null || !cached.isCurrent(entry.getValue(), now)) {
+                    SignedResponse response = sign(id, entry.getValue(), now);
+                    synchronized(responses) {
+                        responses.put(id, response);
+                    }
+                    signed++;
+                }
+            }
+        } catch (OCSPException | OperatorCreationException | IOException | RuntimeException e) {
+            log.error("Unable to pre-sign OCSP responses", e);
+        }
+        log.debug("OCSP index with {} serials, {} responses signed", current.statuses.size(), signed);
+    }
+
+    private StatusIndex buildIndex() {
+        Map<BigInteger, CertStatus> statuses = new HashMap<>();
+
+        // the revocation date is not known here, the certificate was moved to the folder when it was revoked
+        for(CertInfo revoked : inventoryService.findRevokedCertificates()) {
+            CertDetails details = certDetailsService.findDetails(revoked.getCertFile());
+            if(details != null && details.getSerial() != null && revoked.getLastModified() != null) {
+                statuses.put(new BigInteger(details.getSerial(), 16),
+                        CertStatus.revoked(Instant.from(revoked.getLastModified()), CRLReason.unspecified));
+            }
+        }
+
+        addRevocationList(statuses, caFilesService.findCertRevocationList());
+        addRevocationList(statuses, caFilesService.findDeltaCertRevocationList());
+
+        Map<BigInteger, CertStatus> database = readDatabase();
+        if(database == null) {
+            database = index.database;
+        }
+        if(database != null) {
+            for(Map.Entry<BigInteger, CertStatus> entry : database.entrySet()) {
+                if(entry.getValue().revoked) {
+                    statuses.put(entry.getKey(), entry.getValue());
+                } else {
+                    statuses.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        return new StatusIndex(statuses, database);
+    }
+
+    /**
+     * @return the status of every serial in the database of the cert-repo, null if there is no working copy
+     * or the database can not be read
+     */
+    private Map<BigInteger, CertStatus> readDatabase() {
+        Path database = findDatabase();
+        if(database == null) {
+            log.debug("No database in the cert-repo - keeping the one read last");
+            return null;
+        }
+
+        Map<BigInteger, CertStatus> result = new HashMap<>();
+        try {
+            for(String line : Files.readAllLines(database, StandardCharsets.UTF_8)) {
+                OpenSslIndexEntry entry = OpenSslIndexEntry.parse(line);
+                if(entry == null) {
+                    continue;
+                }
+                result.put(entry.getSerial(), entry.isRevoked() ?
+                        CertStatus.revoked(entry.getRevocationDate(), entry.getRevocationReason()) : CertStatus.GOOD);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read {} - keeping the database read last", database, e);
+            return null;
+        }
+        return result;
+    }
+
+    private void addRevocationList(final Map<BigInteger, CertStatus> statuses, final PublishedFile crl) {
+        if(crl == null) {
+            return;
+        }
+
+        try {
+            X509CRLHolder holder = new X509CRLHolder(crl.getContent(PublishedFile.Format.DER, false));
+            for(Object e : holder.getRevokedCertificates()) {
+                X509CRLEntryHolder entry = (X509CRLEntryHolder) e;
+                CRLReason reason = entry.getExtensions() != null ?
+                        CRLReason.getInstance(entry.getExtensions().getExtensionParsedValue(Extension.reasonCode)) : null;
+                statuses.put(entry.getSerialNumber(), CertStatus.revoked(entry.getRevocationDate().toInstant(),
+                        reason != null ? reason.getValue().intValue() : CRLReason.unspecified));
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read CRL", e);
+        }
+    }
+
+    /**
+     * @return the database of the cert-repo as named in its openssl.cnf, null if there is no working copy
+     */
+    private Path findDatabase() {
+        Path config = appConfig.getStoragePath().resolve(OPENSSL_CONFIG);
+        if(!Files.isRegularFile(config)) {
+            return null;
+        }
+
+        try {
+            String database = OpenSslCaConfig.parse(new String(Files.readAllBytes(config), StandardCharsets.UTF_8))
+                    .getCaValue("database");
+            Path result = database != null ? config.getParent().getParent().resolve(database) : null;
+            return result != null && Files.isRegularFile(result) ? result : null;
+        } catch (IOException e) {
+            log.warn("Unable to read {}", config, e);
+            return null;
+        }
+    }
+
+    private SignedResponse sign(final CertificateID id, final CertStatus status, final Instant now)
+            throws OCSPException, OperatorCreationException, IOException {
+        Instant thisUpdate = now.truncatedTo(ChronoUnit.SECONDS);
+        Instant nextUpdate = thisUpdate.plus(appConfig.getOcspResponseValidity());
+
+        BasicOCSPRespBuilder builder = new BasicOCSPRespBuilder(signer.responderId);
+        builder.addResponse(id, status.toCertificateStatus(), Date.from(thisUpdate), Date.from(nextUpdate), null);
+        String keyAlgorithm = "EC".equals(signer.key.getAlgorithm()) ? "ECDSA" : signer.key.getAlgorithm();
+        BasicOCSPResp response = builder.build(new JcaContentSignerBuilder("SHA256with" + keyAlgorithm)
+                .setProvider(PROVIDER).build(signer.key), signer.chain, Date.from(thisUpdate));
+
+        OcspResult result = new OcspResult.Builder()
+                .encoded(new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, response).getEncoded())
+                .thisUpdate(thisUpdate)
+                .nextUpdate(nextUpdate)
+                .build();
+        return new SignedResponse(status, result, thisUpdate.plus(appConfig.getOcspResponseValidity().dividedBy(2)));
+    }
+
+    private OcspResult unsuccessful(final int status) {
+        try {
+            return new OcspResult.Builder().encoded(new OCSPRespBuilder().build(status, null).getEncoded()).build();
+        } catch (OCSPException | IOException e) {
+            throw new IllegalStateException("Unable to encode OCSP response", e);
+        }
+    }
+
+    private X509CertificateHolder caCertificate() {
+        PublishedFile caCert = caFilesService.findCaCertificate();
+        if(caCert == null) {
+            return null;
+        }
+        try {
+            return new X509CertificateHolder(caCert.getContent(PublishedFile.Format.DER, false));
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid CA certificate", e);
+        }
+    }
+
+    public void setAppConfig(final AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    public void setCaFilesService(final CaFilesService caFilesService) {
+        this.caFilesService = caFilesService;
+    }
+
+    public void setInventoryService(final InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    public void setCertDetailsService(final CertDetailsService certDetailsService) {
+        this.certDetailsService = certDetailsService;
+    }
+
+    public void setMeterRegistry(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    private static class Signer {
+        private final PrivateKey key;
+        private final RespID responderId;
+        private final X509CertificateHolder[] chain;
+
+        Signer(final PrivateKey key, final RespID responderId, final X509CertificateHolder[] chain) {
+            this.key = key;
+            this.responderId = responderId;
+            this.chain = chain;
+        }
+    }
+
+    private static class StatusIndex {
+        private final Map<BigInteger, CertStatus> statuses;
+        private final Map<BigInteger, CertStatus> database;
+
+        StatusIndex(final Map<BigInteger, CertStatus> statuses, final Map<BigInteger, CertStatus> database) {
+            this.statuses = statuses;
+            this.database = database;
+        }
+
+        /**
+         * @return the status of the serial, null if it is not revoked and no database has been read yet
+         */
+        CertStatus find(final BigInteger serial) {
+            CertStatus status = statuses.get(serial);
+            if(status != null) {
+                return status;
+            }
+            return database != null ? CertStatus.UNKNOWN : null;
+        }
+    }
+
+    private static final class CertStatus {
+        private static final CertStatus GOOD = new CertStatus(false, null, CRLReason.unspecified);
+        private static final CertStatus UNKNOWN = new CertStatus(false, null, CRLReason.unspecified);
+
+        private final boolean revoked;
+        private final Instant revocationDate;
+        private final int reason;
+
+        private CertStatus(final boolean revoked, final Instant revocationDate, final int reason) {
+            this.revoked = revoked;
+            this.revocationDate = revocationDate;
+            this.reason = reason;
+        }
+
+        static CertStatus revoked(final Instant revocationDate, final int reason) {
+            return new CertStatus(true, revocationDate.truncatedTo(ChronoUnit.SECONDS), reason);
+        }
+
+        CertificateStatus toCertificateStatus() {
+            if(this == UNKNOWN) {
+                return new UnknownStatus();
+            }
+            if(!revoked) {
+                return CertificateStatus.GOOD;
+            }
+            return new RevokedStatus(Date.from(revocationDate), reason);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(o == null || getClass() != o.getClass() || this == UNKNOWN || o == UNKNOWN) {
+                return false;
+            }
+            CertStatus that = (CertStatus) o;
+            return revoked == that.revoked && reason == that.reason && Objects.equals(revocationDate, that.revocationDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(revoked, revocationDate, reason);
+        }
+    }
+
+    private static class SignedResponse {
+        private final CertStatus status;
+        private final OcspResult result;
+        private final Instant renewAt;
+
+        SignedResponse(final CertStatus status, final OcspResult result, final Instant renewAt) {
+            this.status = status;
+            this.result = result;
+            this.renewAt = renewAt;
+        }
+
+        boolean isCurrent(final CertStatus current, final Instant now) {
+            return status.equals(current) && now.isBefore(renewAt);
+        }
+    }
+}
@@ -28,10 +28,14 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CertDetails;
+import wtf.hmg.pki.csc.model.CsrDetails;
 import wtf.hmg.pki.csc.model.SharedApp;
+import wtf.hmg.pki.csc.service.CertDetailsService;
+import wtf.hmg.pki.csc.service.CsrDetailsService;
 import wtf.hmg.pki.csc.service.FilesService;
+import wtf.hmg.pki.csc.service.InventoryService;
 import wtf.hmg.pki.csc.service.SharedAppService;
-import wtf.hmg.pki.csc.util.CscUtils;
 import wtf.hmg.pki.csc.util.SupportUtils;
 
 import java.io.BufferedReader;
@@ -58,6 +62,12 @@ public class DefaultSharedAppService implements SharedAppService {
 	private AppConfig appConfig;
 	@Autowired
 	private FilesService filesService;
+	@Autowired
+	private CsrDetailsService csrDetailsService;
+	@Autowired
+	private CertDetailsService certDetailsService;
+	@Autowired
+	private InventoryService inventoryService;
 	
 	private boolean allowLocalAsTLD = true;
 	
@@ -77,6 +87,7 @@ public class DefaultSharedAppService implements SharedAppService {
 		
 		supportUtils.runCommandLine("Create application key", createKeyScript.toString(), 
 				appsFolder.toString(), appName, password);
+		inventoryService.refreshSharedApps();
 		
 		return password;
 	}
@@ -88,6 +99,7 @@ public class DefaultSharedAppService implements SharedAppService {
 		
 		supportUtils.runCommandLine("Create application CSR", createKeyScript.toString(),
 				appsFolder.toString(), appName, password);
+		inventoryService.refreshSharedApps();
 	}
 	
 	@Override
@@ -109,6 +121,7 @@ public class DefaultSharedAppService implements SharedAppService {
 		} catch (final IOException e) {
 			log.warn("Unable to write app-details", e);
 		}
+		inventoryService.refreshSharedApps();
 	}
 	
 	@Override
@@ -122,7 +135,9 @@ public class DefaultSharedAppService implements SharedAppService {
 	public boolean deleteAppFile(final String appName, final String fileName) throws IOException {
 		Path appFile = appConfig.getStoragePath().resolve(SHARED_APPS_FOLDER)
 				.resolve(supportUtils.normalizeFileName(appName)).resolve(supportUtils.normalizeFileName(fileName));
-		return filesService.deleteIfExists(appFile);
+		boolean deleted = filesService.deleteIfExists(appFile);
+		inventoryService.refreshSharedApps();
+		return deleted;
 	}
 	
 	@Override
@@ -146,6 +161,7 @@ public class DefaultSharedAppService implements SharedAppService {
 		} else {
 			filesService.createFile(reqFile);
 		}
+		inventoryService.refreshSharedApps();
 	}
 	
 	@Override
@@ -182,11 +198,13 @@ public class DefaultSharedAppService implements SharedAppService {
 		
 		if(cert != null) {
 			b.setCertLastModified(supportUtils.determineLastModified(cert));
-			b.setCertValidTo(CscUtils.extractCertValidToDate(cert));
+			CertDetails certDetails = certDetailsService.findDetails(cert);
+			b.setCertValidTo(certDetails != null ? certDetails.getNotAfter() : null);
 		}
 		if(csr != null) {
 			b.setCsrLastModified(supportUtils.determineLastModified(csr));
-			b.setCsrInfo(CscUtils.extractCSRInfo(csr));
+			CsrDetails csrDetails = csrDetailsService.findDetails(csr);
+			b.setCsrInfo(csrDetails != null ? csrDetails.getSubject() : null);
 		}
 		if(key != null) {
 			b.setKeyLastModified(supportUtils.determineLastModified(key));
@@ -230,4 +248,16 @@ public class DefaultSharedAppService implements SharedAppService {
 		this.filesService = filesService;
 	}
 	
+	public void setCsrDetailsService(final CsrDetailsService csrDetailsService) {
+		this.csrDetailsService = csrDetailsService;
+	}
+	
+	public void setCertDetailsService(final CertDetailsService certDetailsService) {
+		this.certDetailsService = certDetailsService;
+	}
+	
+	public void setInventoryService(final InventoryService inventoryService) {
+		this.inventoryService = inventoryService;
+	}
+	
 }
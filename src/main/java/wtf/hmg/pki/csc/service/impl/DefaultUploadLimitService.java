@@ -0,0 +1,207 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.service.UploadLimitService;
+import wtf.hmg.pki.csc.service.UserDataService;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token bucket per user: a user may upload a burst of requests at once, afterwards one request per refill interval.
+ * A bucket that has refilled completely gets dropped, as a new bucket starts full anyway. The number of buckets is
+ * capped by <code>data.upload-max-tracked-users</code>; beyond that, the least recently used bucket gets dropped
+ * even if it is not full yet, which gives its user a fresh burst.
+ * <p>
+ * Uploads of the same user are serialized (users share one of a fixed number of locks), so the number of pending
+ * requests read from the dashboard can not change between the check and the save.
+ */
+@Service
+public class DefaultUploadLimitService implements UploadLimitService {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private AppConfig appConfig;
+    @Autowired
+    private UserDataService userDataService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Clock clock = Clock.systemUTC();
+    private Map<String, TokenBucket> buckets;
+    private final Object[] userLocks = new Object[64];
+    private Counter rateLimited;
+    private Counter tooManyPending;
+
+    public DefaultUploadLimitService() {
+        for(int i = 0; i < userLocks.length; i++) {
+            userLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        int maxBuckets = appConfig.getUploadMaxTrackedUsers();
+        buckets = new LinkedHashMap<String, TokenBucket>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, TokenBucket> eldest) {
+                if(size() <= maxBuckets) {
+                    return false;
+                }
+                log.warn("More than {} users uploading - dropping the upload limit of {}", maxBuckets, eldest.getKey());
+                return true;
+            }
+        };
+        rateLimited = meterRegistry.counter("pki.upload.rejected", "reason", "rate-limit");
+        tooManyPending = meterRegistry.counter("pki.upload.rejected", "reason", "pending-limit");
+    }
+
+    @Override
+    public Rejection tryUpload(final String userName, final Upload upload) throws IOException {
+        synchronized(userLocks[Math.floorMod(userName.hashCode(), userLocks.length)]) {
+            int maxPending = appConfig.getUploadMaxPendingCsrs();
+            if(maxPending > 0 && userDataService.findDashboardForUser(userName).getCsrs().size() >= maxPending) {
+                tooManyPending.increment();
+                return Rejection.TOO_MANY_PENDING;
+            }
+
+            boolean limited = appConfig.getUploadBurst() > 0;
+            if(limited && !tryConsume(userName)) {
+                rateLimited.increment();
+                return Rejection.RATE_LIMITED;
+            }
+
+            try {
+                upload.save();
+            } catch (IOException | RuntimeException e) {
+                if(limited) {
+                    refund(userName);
+                }
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    private boolean tryConsume(final String userName) {
+        long now = clock.millis();
+        synchronized(buckets) {
+            dropFullBuckets(now);
+            return buckets.computeIfAbsent(userName, u -> new TokenBucket(appConfig.getUploadBurst(),
+                    appConfig.getUploadRefillInterval().toMillis(), now)).tryConsume(now);
+        }
+    }
+
+    /**
+     * Nothing to give back if the bucket has been dropped in the meantime, as a new bucket starts full.
+     */
+    private void refund(final String userName) {
+        synchronized(buckets) {
+            TokenBucket bucket = buckets.get(userName);
+            if(bucket != null) {
+                bucket.refund();
+            }
+        }
+    }
+
+    /**
+     * Walks the buckets from the least recently used one and stops at the first bucket that is not full.
+     */
+    private void dropFullBuckets(final long now) {
+        Iterator<TokenBucket> it = buckets.values().iterator();
+        while(it.hasNext() && it.next().isFull(now)) {
+            it.remove();
+        }
+    }
+
+    int getTrackedUsers() {
+        synchronized(buckets) {
+            return buckets.size();
+        }
+    }
+
+    public void setAppConfig(final AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    public void setUserDataService(final UserDataService userDataService) {
+        this.userDataService = userDataService;
+    }
+
+    public void setMeterRegistry(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void setClock(final Clock clock) {
+        this.clock = clock;
+    }
+
+    private static class TokenBucket {
+        private final int capacity;
+        private final long refillMillis;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(final int capacity, final long refillMillis, final long now) {
+            this.capacity = capacity;
+            this.refillMillis = refillMillis;
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        boolean tryConsume(final long now) {
+            refill(now);
+            if(tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        boolean isFull(final long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(final long now) {
+            if(now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (double) (now - lastRefill) / refillMillis);
+                lastRefill = now;
+            }
+        }
+    }
+}
@@ -19,7 +19,13 @@
 */
 package wtf.hmg.pki.csc.service.impl;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.ReaderInputStream;
+import org.apache.commons.io.input.TeeInputStream;
 import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,18 +34,32 @@ import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CertDetails;
 import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.UserDashboard;
+import wtf.hmg.pki.csc.service.CertDetailsService;
+import wtf.hmg.pki.csc.service.CsrPolicyService;
 import wtf.hmg.pki.csc.service.FilesService;
+import wtf.hmg.pki.csc.service.InventoryService;
 import wtf.hmg.pki.csc.service.UserDataService;
 import wtf.hmg.pki.csc.util.CscUtils;
 import wtf.hmg.pki.csc.util.SupportUtils;
 
+import javax.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -50,7 +70,6 @@ public class DefaultUserDataService implements UserDataService {
     private static final String ACCEPTED_CSR_SUBDIR = "accepted";
     private static final String REJECTED_CSR_SUBDIR = "rejected";
     private static final String CERTS_SUBDIR = "certs";
-    public static final String CA_CERT_FILE = "intermediate.cert.pem";
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -59,62 +78,115 @@ public class DefaultUserDataService implements UserDataService {
     @Autowired
     private FilesService filesService;
     @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private CertDetailsService certDetailsService;
+    @Autowired
     private SupportUtils supportUtils;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private CsrPolicyService csrPolicyService;
 
-    @Override
-    public List<String> findCertificateRequestsForUser(final String userName) {
-        Path userPath = appConfig.getStoragePath().resolve(USERS_SUBDIR).resolve(userName);
-        return findUserFilesInternal(userPath, userName);
-    }
+    private Map<String, CachedDashboard> dashboards;
+    private Counter dashboardHits;
+    private Counter dashboardMisses;
 
-    @Override
-    public List<String> findAcceptedCertificateRequestsForUser(final String userName) {
-        Path userPath = appConfig.getStoragePath().resolve(USERS_SUBDIR).resolve(userName).resolve(ACCEPTED_CSR_SUBDIR);
-        return findUserFilesInternal(userPath, userName);
+    @PostConstruct
+    public void init() {
+        int maxSize = appConfig.getDashboardCacheSize();
+        dashboards = new LinkedHashMap<String, CachedDashboard>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedDashboard> eldest) {
+                return size() > maxSize;
+            }
+        };
+        dashboardHits = meterRegistry.counter("pki.dashboardcache.hits");
+        dashboardMisses = meterRegistry.counter("pki.dashboardcache.misses");
     }
 
+    /**
+     * An entry is valid as long as the inventory version of the user did not change, which covers the writes of the
+     * admins and changes from outside the app. Writes of the user drop the entry right away.
+     */
     @Override
-    public List<String> findRejectedCertificateRequestsForUser(final String userName) {
-        Path userPath = appConfig.getStoragePath().resolve(USERS_SUBDIR).resolve(userName).resolve(REJECTED_CSR_SUBDIR);
-        return findUserFilesInternal(userPath, userName);
+    public UserDashboard findDashboardForUser(final String userName) {
+        long version = inventoryService.getVersion(userName);
+        synchronized(dashboards) {
+            CachedDashboard cached = dashboards.get(userName);
+            if(cached != null && cached.version == version) {
+                dashboardHits.increment();
+                return cached.dashboard;
+            }
+        }
+
+        dashboardMisses.increment();
+        UserDashboard dashboard = readDashboard(userName);
+        synchronized(dashboards) {
+            dashboards.put(userName, new CachedDashboard(version, dashboard));
+        }
+        return dashboard;
     }
 
-    @Override
-    public List<CertInfo> findCertificatesForUser(final String userName) {
-        Path userPath = appConfig.getStoragePath().resolve(USERS_SUBDIR).resolve(userName).resolve(CERTS_SUBDIR);
-        try(Stream<Path> certs = Files.find(userPath, 1, CscUtils::isValidCSRFile)) {
-            return certs.map(path -> pathToUserCertInfo(path, userName)).collect(Collectors.toList());
+    private UserDashboard readDashboard(final String userName) {
+        Path usersPath = appConfig.getStoragePath().resolve(USERS_SUBDIR);
+        Path userPath = usersPath.resolve(userName);
+        StorageWalker walker = new StorageWalker(usersPath);
+        try {
+            filesService.walkFileTree(userPath, StorageWalker.USER_FOLDER_DEPTH, walker);
         } catch (IOException e) {
-            log.info("Unable to find CertFiles for user: {}", e.getMessage());
-            log.debug("Unable to find CertFiles for user: {}", userName, e);  // http://slf4j.org/faq.html#paramException
+            log.info("Unable to read folder of user: {}", e.getMessage());
+            log.debug("Unable to read folder of user: {}", userName, e);
+            return new UserDashboard.Builder().build();
         }
-        return Collections.emptyList();
+
+        StorageWalker.UserFiles files = walker.getUser(userName);
+        Map<Path, FileTime> lastModified = files.getLastModified();
+        List<CertInfo> certificates = filesIn(lastModified, userPath.resolve(CERTS_SUBDIR)).stream()
+                .map(path -> pathToUserCertInfo(path, userName, lastModified))
+                .collect(Collectors.toList());
+
+        return new UserDashboard.Builder()
+                .csrs(fileNames(files.getPending().stream()))
+                .acceptedCsrs(fileNames(files.getSigned().stream()))
+                .rejectedCsrs(fileNames(filesIn(lastModified, userPath.resolve(REJECTED_CSR_SUBDIR)).stream()))
+                .certificates(certificates)
+                .build();
     }
-    
-    private CertInfo pathToUserCertInfo(final Path certFile, final String userName) {
-        Path renewRequest = certFile.getParent().resolve(certFile.getFileName().toString() + ".reqrenew");
+
+    private List<Path> filesIn(final Map<Path, FileTime> lastModified, final Path folder) {
+        return lastModified.keySet().stream()
+                .filter(path -> folder.equals(path.getParent()) && CscUtils.isValidCSRFileName(path.getFileName().toString()))
+                .collect(Collectors.toList());
+    }
+
+    private List<String> fileNames(final Stream<Path> files) {
+        return files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Flags and their modification times come from the traversal of the user folder, like {@link #isCertRenewed(Path)}
+     * without touching the disk again.
+     */
+    private CertInfo pathToUserCertInfo(final Path certFile, final String userName, final Map<Path, FileTime> lastModified) {
+        String fileName = certFile.getFileName().toString();
+        Path userPath = certFile.getParent().getParent();
+        FileTime requestTime = lastModified.get(certFile.resolveSibling(fileName + ".reqrenew"));
+        FileTime renewTime = lastModified.get(userPath.resolve(ACCEPTED_CSR_SUBDIR)
+                .resolve(StringUtils.substringBefore(fileName, ".crt") + ".csr.pem.renewed"));
+
         CertInfo.Builder b = new CertInfo.Builder();
         b.userName(userName)
                 .certFile(certFile)
-                .renewalRequested(Files.isRegularFile(renewRequest));
-        try {
-            b.renewed(isCertRenewed(certFile));
-        } catch (IOException e) {
-            log.warn("Unable to determine renewed state", e);
+                .lastModified(lastModified.get(certFile).toInstant())
+                .renewalRequested(requestTime != null)
+                .renewed(renewTime != null && (requestTime == null || renewTime.compareTo(requestTime) > 0));
+        CertDetails details = certDetailsService.findDetails(certFile);
+        if(details != null) {
+            b.validTo(details.getNotAfter());
         }
         return b.build();
     }
-    
-    private List<String> findUserFilesInternal(final Path userPath, final String userName) {
-        try(Stream<Path> files = Files.find(userPath, 1, CscUtils::isValidCSRFile)) {
-            return files.map(path -> path.getFileName().toString()).collect(Collectors.toList());
-        } catch (IOException e) {
-            log.info("Unable to find CSRFiles for user: {}", e.getMessage());
-            log.debug("Unable to find CSRFiles for user: {}", userName, e);
-        }
-
-        return Collections.emptyList();
-    }
 
     @Override
     public Resource userCertificateFileAsResource(final String userName, final String filename) throws IOException {
@@ -126,29 +198,46 @@ public class DefaultUserDataService implements UserDataService {
     }
 
     @Override
-    public Resource caCertificateAsResource() throws IOException {
-        Path caPath = appConfig.getStoragePath().resolve(CA_CERT_FILE);
-        return new UrlResource(caPath.toUri());
+    public void saveUploadedCSR(final String userName, final MultipartFile csrFile) throws IOException {
+        saveCSR(userName, csrFile.getOriginalFilename(), csrFile.getInputStream());
     }
 
     @Override
-    public Resource certRevocationListAsResource() throws IOException {
-        return new UrlResource(appConfig.getCertRevocationListPath().toUri());
+    public void saveUploadedCSR(final String userName, final String fileName, final String fileData) throws IOException {
+        saveCSR(userName, fileName, new ReaderInputStream(new StringReader(fileData), StandardCharsets.UTF_8));
     }
 
-    @Override
-    public void saveUploadedCSR(final String userName, final MultipartFile csrFile) throws IOException {
-        if(!CscUtils.validateCSRString(new String(csrFile.getBytes()))) {
-            throw new IOException("Invalid CSR File!");
+    /**
+     * Writes the data to a temporary file in the user folder while parsing it, so it is read only once.
+     * The temporary file is renamed to the request file if it contains a CSR complying with the policy
+     * and deleted otherwise.
+     */
+    private void saveCSR(final String userName, final String fileName, final InputStream data) throws IOException {
+        try(InputStream in = data) {
+            Path csrPath = findAndValidateTargetCSRPath(userName, fileName);
+            // not created with createTempFile, which would restrict the permissions of the request file to the owner
+            Path tempFile = csrPath.resolveSibling(".upload-" + UUID.randomUUID() + ".tmp");
+            try {
+                try(OutputStream out = Files.newOutputStream(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                    InputStream tee = new TeeInputStream(in, out);
+                    PKCS10CertificationRequest csr = CscUtils.readCSR(tee);
+                    if(csr == null) {
+                        throw new IOException("Invalid CSR File!");
+                    }
+                    String violation = csrPolicyService.findViolation(userName, csr);
+                    if(violation != null) {
+                        throw new IOException("CSR rejected: " + violation);
+                    }
+                    IOUtils.consume(tee);
+                }
+                Files.move(tempFile, csrPath, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
         }
-        Path csrPath = findAndValidateTargetCSRPath(userName, csrFile.getOriginalFilename());
-        csrFile.transferTo(csrPath);
-    }
 
-    @Override
-    public void saveUploadedCSR(final String userName, final String fileName, final String fileData) throws IOException {
-        Path csrPath = findAndValidateTargetCSRPath(userName, fileName);
-        Files.write(csrPath, fileData.getBytes());
+        inventoryService.refreshUser(userName);
+        invalidateDashboard(userName);
     }
 
     private Path findAndValidateTargetCSRPath(final String userName, final String fileName) throws IOException {
@@ -199,6 +288,14 @@ public class DefaultUserDataService implements UserDataService {
         } else {
             filesService.createFile(reqFile);
         }
+        inventoryService.refreshUser(userName);
+        invalidateDashboard(userName);
+    }
+
+    private void invalidateDashboard(final String userName) {
+        synchronized(dashboards) {
+            dashboards.remove(userName);
+        }
     }
     
     public void setAppConfig(final AppConfig appConfig) {
@@ -209,7 +306,33 @@ public class DefaultUserDataService implements UserDataService {
         this.filesService = filesService;
     }
     
+    public void setInventoryService(final InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+    
+    public void setCertDetailsService(final CertDetailsService certDetailsService) {
+        this.certDetailsService = certDetailsService;
+    }
+    
     public void setSupportUtils(final SupportUtils supportUtils) {
         this.supportUtils = supportUtils;
     }
+
+    public void setMeterRegistry(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void setCsrPolicyService(final CsrPolicyService csrPolicyService) {
+        this.csrPolicyService = csrPolicyService;
+    }
+
+    private static class CachedDashboard {
+        private final long version;
+        private final UserDashboard dashboard;
+
+        CachedDashboard(final long version, final UserDashboard dashboard) {
+            this.version = version;
+            this.dashboard = dashboard;
+        }
+    }
 }
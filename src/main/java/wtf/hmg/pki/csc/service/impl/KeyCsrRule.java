@@ -0,0 +1,69 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CsrDetails;
+import wtf.hmg.pki.csc.service.CsrRule;
+
+/**
+ * Allowed key algorithms and minimum key sizes.
+ */
+@Component
+@Order(1)
+public class KeyCsrRule implements CsrRule {
+
+    @Autowired
+    private AppConfig appConfig;
+
+    @Override
+    public String check(final String userName, final PKCS10CertificationRequest csr, final CsrDetails details) {
+        String algorithm = details.getKeyAlgorithm();
+        if(appConfig.getCsrKeyAlgorithms().stream().noneMatch(algorithm::equalsIgnoreCase)) {
+            return "Key algorithm " + algorithm + " is not allowed, use one of " + appConfig.getCsrKeyAlgorithms();
+        }
+
+        int minSize = minKeySize(algorithm);
+        if(details.getKeySize() < minSize) {
+            return "Key size of " + details.getKeySize() + " bits is too small, " + algorithm + " keys need at least "
+                    + minSize + " bits";
+        }
+        return null;
+    }
+
+    private int minKeySize(final String algorithm) {
+        switch(algorithm) {
+            case "RSA":
+                return appConfig.getCsrMinRsaKeySize();
+            case "EC":
+                return appConfig.getCsrMinEcKeySize();
+            default:
+                return 0;
+        }
+    }
+
+    public void setAppConfig(final AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.pkcs.PKCSException;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import wtf.hmg.pki.csc.model.CsrDetails;
+import wtf.hmg.pki.csc.service.CsrRule;
+
+import java.security.Provider;
+
+/**
+ * Proof of possession: the request has to be signed with the private key belonging to its public key.
+ * Runs last, as it is the most expensive check.
+ */
+@Component
+@Order(100)
+public class SignatureCsrRule implements CsrRule {
+
+    private static final Provider PROVIDER = new BouncyCastleProvider();
+
+    @Override
+    public String check(final String userName, final PKCS10CertificationRequest csr, final CsrDetails details) {
+        try {
+            if(csr.isSignatureValid(new JcaContentVerifierProviderBuilder().setProvider(PROVIDER).build(csr.getSubjectPublicKeyInfo()))) {
+                return null;
+            }
+        } catch (OperatorCreationException | PKCSException | IllegalArgumentException e) {
+            return "Unable to verify the signature of the request: " + e.getMessage();
+        }
+        return "Invalid signature, the request was not signed with the private key of its public key";
+    }
+}
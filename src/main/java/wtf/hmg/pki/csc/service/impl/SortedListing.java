@@ -0,0 +1,74 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import wtf.hmg.pki.csc.model.ListingPage;
+import wtf.hmg.pki.csc.model.ListingQuery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable listing of inventory entries, which pages through its entries in the requested order.
+ * Every order is sorted once on first use, so an unfiltered page only costs as much as its size.
+ * Filters are applied on the sorted entries in memory.
+ *
+ * @param <T> type of the entries
+ */
+public class SortedListing<T> {
+
+    private final List<T> entries;
+    private final Map<ListingQuery.SortField, Comparator<T>> comparators;
+    private final BiPredicate<T, ListingQuery> filter;
+    private final Map<String, List<T>> sorted = new ConcurrentHashMap<>();
+
+    public SortedListing(final List<T> entries, final Map<ListingQuery.SortField, Comparator<T>> comparators,
+                         final BiPredicate<T, ListingQuery> filter) {
+        this.entries = entries;
+        this.comparators = comparators;
+        this.filter = filter;
+    }
+
+    public ListingPage<T> page(final ListingQuery query) {
+        List<T> ordered = sorted.computeIfAbsent(query.getSort().name() + "/" + query.isDescending(), k -> sort(query));
+        List<T> matching = query.isFiltered()
+                ? ordered.stream().filter(e -> filter.test(e, query)).collect(Collectors.toList())
+                : ordered;
+
+        int total = matching.size();
+        int page = Math.min(query.getPage(), Math.max((total - 1) / query.getSize(), 0));
+        int from = page * query.getSize();
+        List<T> items = new ArrayList<>(matching.subList(from, Math.min(from + query.getSize(), total)));
+
+        return new ListingPage<>(items, page, query.getSize(), total);
+    }
+
+    private List<T> sort(final ListingQuery query) {
+        Comparator<T> comparator = comparators.get(query.getSort());
+        List<T> result = new ArrayList<>(entries);
+        result.sort(query.isDescending() ? comparator.reversed() : comparator);
+        return result;
+    }
+}
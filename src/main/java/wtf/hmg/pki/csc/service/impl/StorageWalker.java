@@ -0,0 +1,137 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wtf.hmg.pki.csc.util.CscUtils;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sorts all files below the users folder into pending requests, signed requests and revoked certificates
+ * in a single traversal. The modification times come with the traversal, so no file needs to be read again.
+ */
+public class StorageWalker extends SimpleFileVisitor<Path> {
+
+    public static final int USERS_FOLDER_DEPTH = 3;
+    public static final int USER_FOLDER_DEPTH = 2;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Path usersFolder;
+    private final Map<String, UserFiles> users = new TreeMap<>();
+
+    public StorageWalker(final Path usersFolder) {
+        this.usersFolder = usersFolder;
+    }
+
+    @Override
+    public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+        Path relative = usersFolder.relativize(dir);
+        if(relative.getNameCount() == 1 && !dir.equals(usersFolder)) {
+            userFiles(relative);
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+        Path relative = usersFolder.relativize(file);
+        if(!attrs.isRegularFile() || relative.getNameCount() < 2) {
+            return FileVisitResult.CONTINUE;
+        }
+
+        UserFiles userFiles = userFiles(relative);
+        userFiles.lastModified.put(file, attrs.lastModifiedTime());
+
+        String fileName = file.getFileName().toString();
+        if(relative.getNameCount() == 2) {
+            if(CscUtils.isValidCSRFileName(fileName)) {
+                userFiles.pending.add(file);
+            }
+        } else if("accepted".equalsIgnoreCase(relative.getName(1).toString())) {
+            if(CscUtils.isValidCSRFileName(fileName)) {
+                userFiles.signed.add(file);
+            }
+        } else if("revoked".equalsIgnoreCase(relative.getName(1).toString())) {
+            if(CscUtils.isValidCertFileName(fileName)) {
+                userFiles.revoked.add(file);
+            }
+        }
+
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+        // files might get moved by the app or the users while walking the tree
+        log.debug("Unable to visit {}", file, exc);
+        return FileVisitResult.CONTINUE;
+    }
+
+    private UserFiles userFiles(final Path relative) {
+        return users.computeIfAbsent(relative.getName(0).toString(), u -> new UserFiles());
+    }
+
+    public Map<String, UserFiles> getUsers() {
+        return users;
+    }
+
+    public UserFiles getUser(final String userName) {
+        return users.getOrDefault(userName, new UserFiles());
+    }
+
+    public static class UserFiles {
+        private final List<Path> pending = new ArrayList<>();
+        private final List<Path> signed = new ArrayList<>();
+        private final List<Path> revoked = new ArrayList<>();
+        private final Map<Path, FileTime> lastModified = new TreeMap<>();
+
+        public List<Path> getPending() {
+            return Collections.unmodifiableList(pending);
+        }
+
+        public List<Path> getSigned() {
+            return Collections.unmodifiableList(signed);
+        }
+
+        public List<Path> getRevoked() {
+            return Collections.unmodifiableList(revoked);
+        }
+
+        /**
+         * @return the modification times of all files of the user, including certificates and flag-files
+         */
+        public Map<Path, FileTime> getLastModified() {
+            return Collections.unmodifiableMap(lastModified);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CsrDetails;
+import wtf.hmg.pki.csc.service.CsrRule;
+
+import javax.annotation.PostConstruct;
+import java.util.regex.Pattern;
+
+/**
+ * Pattern every subject alternative name has to match, written as <code>DNS:host</code>, <code>email:address</code>,
+ * <code>IP:address</code> or <code>URI:uri</code>.
+ */
+@Component
+@Order(3)
+public class SubjectAltNameCsrRule implements CsrRule {
+
+    @Autowired
+    private AppConfig appConfig;
+
+    private Pattern sanPattern;
+
+    @PostConstruct
+    public void init() {
+        sanPattern = appConfig.getCsrSanPattern() != null ? Pattern.compile(appConfig.getCsrSanPattern()) : null;
+    }
+
+    @Override
+    public String check(final String userName, final PKCS10CertificationRequest csr, final CsrDetails details) {
+        if(sanPattern == null) {
+            return null;
+        }
+
+        for(String name : details.getSubjectAlternativeNames()) {
+            if(!sanPattern.matcher(name).matches()) {
+                return "Subject alternative name " + name + " does not match " + sanPattern.pattern();
+            }
+        }
+        return null;
+    }
+
+    public void setAppConfig(final AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.asn1.x500.RDN;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x500.style.IETFUtils;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CsrDetails;
+import wtf.hmg.pki.csc.service.CsrRule;
+import wtf.hmg.pki.csc.util.CscUtils;
+
+import javax.annotation.PostConstruct;
+import java.util.regex.Pattern;
+
+/**
+ * Pattern the whole subject has to match (in the form shown on the admin page) and, if enabled, an email address
+ * in the subject, which belongs to the uploading user.
+ */
+@Component
+@Order(2)
+public class SubjectCsrRule implements CsrRule {
+
+    @Autowired
+    private AppConfig appConfig;
+
+    private Pattern subjectPattern;
+
+    @PostConstruct
+    public void init() {
+        subjectPattern = appConfig.getCsrSubjectPattern() != null ? Pattern.compile(appConfig.getCsrSubjectPattern()) : null;
+    }
+
+    @Override
+    public String check(final String userName, final PKCS10CertificationRequest csr, final CsrDetails details) {
+        if(subjectPattern != null && !subjectPattern.matcher(details.getSubject()).matches()) {
+            return "Subject " + details.getSubject() + " does not match " + subjectPattern.pattern();
+        }
+
+        if(appConfig.isCsrSubjectEmailMatchesUser() && !hasEmailOfUser(csr, userName)) {
+            return "Subject does not contain the email address of user " + userName;
+        }
+        return null;
+    }
+
+    private boolean hasEmailOfUser(final PKCS10CertificationRequest csr, final String userName) {
+        for(RDN rdn : csr.getSubject().getRDNs(BCStyle.EmailAddress)) {
+            String email = IETFUtils.valueToString(rdn.getFirst().getValue());
+            if(userName.equals(CscUtils.normalizeUserName(StringUtils.lowerCase(email)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void setAppConfig(final AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+}
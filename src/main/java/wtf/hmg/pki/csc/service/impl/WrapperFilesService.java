@@ -28,6 +28,7 @@ import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.FileTime;
+import java.util.Collections;
 import java.util.function.BiPredicate;
 import java.util.stream.Stream;
 
@@ -44,6 +45,11 @@ public class WrapperFilesService implements FilesService {
         return Files.find(start, maxDepth, matcher, options);
     }
 
+    @Override
+    public Path walkFileTree(Path start, int maxDepth, FileVisitor<? super Path> visitor) throws IOException {
+        return Files.walkFileTree(start, Collections.emptySet(), maxDepth, visitor);
+    }
+
     @Override
     public Path move(Path source, Path target, CopyOption... options) throws IOException {
         return Files.move(source, target, options);
@@ -98,4 +104,14 @@ public class WrapperFilesService implements FilesService {
     public Stream<Path> list(Path dir) throws IOException {
         return Files.list(dir);
     }
+    
+    @Override
+    public byte[] readAllBytes(Path path) throws IOException {
+        return Files.readAllBytes(path);
+    }
+    
+    @Override
+    public Path write(Path path, byte[] bytes, OpenOption... options) throws IOException {
+        return Files.write(path, bytes, options);
+    }
 }
@@ -37,6 +37,10 @@ public class AuditLog {
 		logger.info("Operator '{}' SIGNED CSR '{}' of user '{}'", operatingUser, certName, certUser);
 	}
 	
+	public void logFailedSignCSR(final String operatingUser, final String certName, final String certUser, final String reason) {
+		logger.warn("Operator '{}' FAILED to sign CSR '{}' of user '{}': {}", operatingUser, certName, certUser, reason);
+	}
+	
 	public void logRejectedCSR(final String operatingUser, final String certName, final String certUser) {
 		logger.info("Operator '{}' REJECTED CSR '{}' of user '{}'", operatingUser, certName, certUser);
 	}
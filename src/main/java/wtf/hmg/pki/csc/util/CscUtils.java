@@ -20,20 +20,45 @@
 package wtf.hmg.pki.csc.util;
 
 import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.pkcs.Attribute;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.RSAPublicKey;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.asn1.x9.ECNamedCurveTable;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.asn1.x9.X9ObjectIdentifiers;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.openssl.PEMParser;
 import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.util.encoders.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import wtf.hmg.pki.csc.model.CertDetails;
+import wtf.hmg.pki.csc.model.CsrDetails;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.List;
 
 public class CscUtils {
 
@@ -85,6 +110,25 @@ public class CscUtils {
         return validateCSRInternal(new StringReader(csrString));
     }
 
+    public static boolean validateCSR(final InputStream csrData) {
+        return readCSR(csrData) != null;
+    }
+
+    /**
+     * Reads the stream only up to the end of the first PEM object and leaves it open, so the caller can consume the rest.
+     *
+     * @return the request or null, if the stream does not start with a certificate request
+     */
+    public static PKCS10CertificationRequest readCSR(final InputStream csrData) {
+        try {
+            Object parsed = new PEMParser(new InputStreamReader(csrData, StandardCharsets.UTF_8)).readObject();
+            return parsed instanceof PKCS10CertificationRequest ? (PKCS10CertificationRequest) parsed : null;
+        } catch (IOException e) {
+            log.error("Unable to parse CSR-Input stream!", e);
+        }
+        return null;
+    }
+
     private static boolean validateCSRInternal(final Reader csrReader) {
         try {
             PEMParser pp = new PEMParser(csrReader);
@@ -103,15 +147,85 @@ public class CscUtils {
     }
 
     public static String extractCSRInfo(final Path csrFile) {
+        CsrDetails details = extractCSRDetails(csrFile);
+        return details != null ? details.getSubject() : null;
+    }
+
+    public static CsrDetails extractCSRDetails(final Path csrFile) {
         try(PEMParser pp = new PEMParser(Files.newBufferedReader(csrFile))) {
-            PKCS10CertificationRequest csr = (PKCS10CertificationRequest) pp.readObject();
-            return csr.getSubject().toString();
-        } catch (IOException|NullPointerException e) {
+            return extractCSRDetails((PKCS10CertificationRequest) pp.readObject());
+        } catch (IOException|NullPointerException|ClassCastException|IllegalArgumentException e) {
             log.error("Unable to parse CSR-Input file!", e);
         }
         return null;
     }
 
+    public static CsrDetails extractCSRDetails(final PKCS10CertificationRequest csr) throws IOException {
+        SubjectPublicKeyInfo keyInfo = csr.getSubjectPublicKeyInfo();
+
+        return new CsrDetails.Builder()
+                .subject(csr.getSubject().toString())
+                .keyAlgorithm(keyAlgorithm(keyInfo))
+                .keySize(keySize(keyInfo))
+                .subjectAlternativeNames(subjectAlternativeNames(csr))
+                .build();
+    }
+
+    private static String keyAlgorithm(final SubjectPublicKeyInfo keyInfo) {
+        ASN1ObjectIdentifier algorithm = keyInfo.getAlgorithm().getAlgorithm();
+        if(PKCSObjectIdentifiers.rsaEncryption.equals(algorithm)) {
+            return "RSA";
+        }
+        if(X9ObjectIdentifiers.id_ecPublicKey.equals(algorithm)) {
+            return "EC";
+        }
+        return algorithm.getId();
+    }
+
+    private static int keySize(final SubjectPublicKeyInfo keyInfo) throws IOException {
+        ASN1ObjectIdentifier algorithm = keyInfo.getAlgorithm().getAlgorithm();
+        if(PKCSObjectIdentifiers.rsaEncryption.equals(algorithm)) {
+            return RSAPublicKey.getInstance(keyInfo.parsePublicKey()).getModulus().bitLength();
+        }
+        if(X9ObjectIdentifiers.id_ecPublicKey.equals(algorithm)
+                && keyInfo.getAlgorithm().getParameters() instanceof ASN1ObjectIdentifier) {
+            X9ECParameters curve = ECNamedCurveTable.getByOID((ASN1ObjectIdentifier) keyInfo.getAlgorithm().getParameters());
+            return curve != null ? curve.getCurve().getFieldSize() : 0;
+        }
+        return 0;
+    }
+
+    private static List<String> subjectAlternativeNames(final PKCS10CertificationRequest csr) throws IOException {
+        List<String> result = new ArrayList<>();
+        for(Attribute attribute : csr.getAttributes(PKCSObjectIdentifiers.pkcs_9_at_extensionRequest)) {
+            Extensions extensions = Extensions.getInstance(attribute.getAttrValues().getObjectAt(0));
+            GeneralNames names = GeneralNames.fromExtensions(extensions, Extension.subjectAlternativeName);
+            if(names == null) {
+                continue;
+            }
+            for(GeneralName name : names.getNames()) {
+                result.add(generalNameToString(name));
+            }
+        }
+        return result;
+    }
+
+    private static String generalNameToString(final GeneralName name) throws IOException {
+        switch(name.getTagNo()) {
+            case GeneralName.rfc822Name:
+                return "email:" + name.getName();
+            case GeneralName.dNSName:
+                return "DNS:" + name.getName();
+            case GeneralName.uniformResourceIdentifier:
+                return "URI:" + name.getName();
+            case GeneralName.iPAddress:
+                byte[] address = ASN1OctetString.getInstance(name.getName()).getOctets();
+                return "IP:" + InetAddress.getByAddress(address).getHostAddress();
+            default:
+                return name.toString();
+        }
+    }
+
     public static void closeQuietly(final Closeable closeable) {
         try {
             closeable.close();
@@ -121,12 +235,36 @@ public class CscUtils {
     }
     
     public static Temporal extractCertValidToDate(final Path cert) {
+        CertDetails details = extractCertDetails(cert);
+        return details != null ? details.getNotAfter() : null;
+    }
+
+    public static CertDetails extractCertDetails(final Path cert) {
         try(PEMParser pp = new PEMParser(Files.newBufferedReader(cert))) {
             X509CertificateHolder certDetails = (X509CertificateHolder) pp.readObject();
-            return certDetails.getNotAfter().toInstant();
-        } catch (IOException|NullPointerException e) {
+            byte[] fingerprint = MessageDigest.getInstance("SHA-256").digest(certDetails.getEncoded());
+
+            return new CertDetails.Builder()
+                    .subject(certDetails.getSubject().toString())
+                    .issuer(certDetails.getIssuer().toString())
+                    .serial(toSerialHex(certDetails.getSerialNumber()))
+                    .notBefore(certDetails.getNotBefore().toInstant())
+                    .notAfter(certDetails.getNotAfter().toInstant())
+                    .fingerprint(Hex.toHexString(fingerprint).toUpperCase())
+                    .build();
+        } catch (IOException|NullPointerException|ClassCastException e) {
             log.error("Unable to parse Cert-Input file!", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
         return null;
     }
+
+    /**
+     * @return the serial number as upper-case hex with an even number of digits, as written by openssl
+     */
+    public static String toSerialHex(final BigInteger serial) {
+        String hex = serial.toString(16).toUpperCase();
+        return hex.length() % 2 == 0 ? hex : "0" + hex;
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * LRU-cache for details parsed from files. An entry is only valid as long as size and modification time
+ * of its file did not change. Hits, misses and size are reported as <code>&lt;name&gt;.hits</code>,
+ * <code>&lt;name&gt;.misses</code> and <code>&lt;name&gt;.size</code>.
+ *
+ * @param <T> type of the parsed details
+ */
+public class FileDetailsCache<T> {
+
+    private final Function<Path, T> parser;
+    private final Map<Path, Entry<T>> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public FileDetailsCache(final String name, final int maxSize, final Function<Path, T> parser,
+                            final MeterRegistry meterRegistry) {
+        this.parser = parser;
+        this.cache = new LinkedHashMap<Path, Entry<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Path, Entry<T>> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = meterRegistry.counter(name + ".hits");
+        this.misses = meterRegistry.counter(name + ".misses");
+        Gauge.builder(name + ".size", this, FileDetailsCache::size).register(meterRegistry);
+    }
+
+    public T get(final Path file) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            synchronized(this) {
+                cache.remove(file);
+            }
+            return parser.apply(file);
+        }
+
+        synchronized(this) {
+            Entry<T> entry = cache.get(file);
+            if(entry != null && entry.matches(attributes)) {
+                hits.increment();
+                return entry.details;
+            }
+        }
+
+        misses.increment();
+        T details = parser.apply(file);
+        synchronized(this) {
+            cache.put(file, new Entry<>(attributes, details));
+        }
+        return details;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    private static class Entry<T> {
+        private final long size;
+        private final FileTime lastModified;
+        private final T details;
+
+        Entry(final BasicFileAttributes attributes, final T details) {
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime();
+            this.details = details;
+        }
+
+        boolean matches(final BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+        }
+    }
+}
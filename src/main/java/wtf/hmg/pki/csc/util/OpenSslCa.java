@@ -0,0 +1,454 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1String;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.x500.AttributeTypeAndValue;
+import org.bouncycastle.asn1.x500.RDN;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.X500NameBuilder;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x500.style.IETFUtils;
+import org.bouncycastle.asn1.x509.CRLNumber;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.CertException;
+import org.bouncycastle.cert.X509CRLEntryHolder;
+import org.bouncycastle.cert.X509CRLHolder;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openssl.PEMEncryptedKeyPair;
+import org.bouncycastle.openssl.PEMKeyPair;
+import org.bouncycastle.openssl.PEMParser;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.openssl.jcajce.JceOpenSSLPKCS8DecryptorProviderBuilder;
+import org.bouncycastle.openssl.jcajce.JcePEMDecryptorProviderBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.pkcs.PKCS8EncryptedPrivateKeyInfo;
+import org.bouncycastle.pkcs.PKCSException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.cert.CertificateException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process equivalent of <code>openssl ca -batch -extensions usr_cert -notext -md sha256</code>, as run by sign-csr.sh.
+ * <p>
+ * Key, certificate, serial, database (index.txt), new_certs_dir and policy are taken from the CA-section of the
+ * openssl.cnf; all paths are relative to the working directory. serial and database are updated the same way
+ * openssl does it, so the repository can still be maintained with openssl afterwards.
+ * The extensions are read from the <code>usr_cert</code> section; signing fails if it contains anything
+ * {@link OpenSslExtensions} can not reproduce.
+ */
+public class OpenSslCa {
+
+    private static final Provider PROVIDER = new BouncyCastleProvider();
+    private static final String EXTENSIONS_SECTION = "usr_cert";
+    private static final DateTimeFormatter UTC_TIME = DateTimeFormatter.ofPattern("yyMMddHHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter GENERALIZED_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final Map<String, ASN1ObjectIdentifier> OPENSSL_NAMES = new HashMap<>();
+    private static final Map<ASN1ObjectIdentifier, String> SHORT_NAMES = new HashMap<>();
+
+    static {
+        OPENSSL_NAMES.put("countryName", BCStyle.C);
+        OPENSSL_NAMES.put("stateOrProvinceName", BCStyle.ST);
+        OPENSSL_NAMES.put("localityName", BCStyle.L);
+        OPENSSL_NAMES.put("organizationName", BCStyle.O);
+        OPENSSL_NAMES.put("organizationalUnitName", BCStyle.OU);
+        OPENSSL_NAMES.put("commonName", BCStyle.CN);
+        OPENSSL_NAMES.put("emailAddress", BCStyle.EmailAddress);
+
+        SHORT_NAMES.put(BCStyle.C, "C");
+        SHORT_NAMES.put(BCStyle.ST, "ST");
+        SHORT_NAMES.put(BCStyle.L, "L");
+        SHORT_NAMES.put(BCStyle.O, "O");
+        SHORT_NAMES.put(BCStyle.OU, "OU");
+        SHORT_NAMES.put(BCStyle.CN, "CN");
+        SHORT_NAMES.put(BCStyle.EmailAddress, "emailAddress");
+    }
+
+    private final Path workDir;
+    private final OpenSslCaConfig config;
+
+    public OpenSslCa(final Path workDir, final OpenSslCaConfig config) {
+        this.workDir = workDir;
+        this.config = config;
+    }
+
+    public static OpenSslCa load(final Path workDir, final String configFile) throws IOException {
+        String content = new String(Files.readAllBytes(workDir.resolve(configFile)), StandardCharsets.UTF_8);
+        return new OpenSslCa(workDir, OpenSslCaConfig.parse(content));
+    }
+
+    public X509CertificateHolder sign(final Path csrFile, final Path certFile, final char[] keyPassword,
+                                      final int days) throws IOException {
+        PKCS10CertificationRequest csr = readCsr(csrFile);
+        X509CertificateHolder caCert = readCertificate(caFile("certificate"));
+        PrivateKey caKey = readPrivateKey(caFile("private_key"), keyPassword);
+
+        X500Name subject = applyPolicy(csr.getSubject(), caCert.getSubject());
+        String subjectLine = oneline(subject);
+        Path database = caFile("database");
+        List<String> index = Files.readAllLines(database, StandardCharsets.UTF_8);
+        if(isUniqueSubject() && index.stream().anyMatch(l -> l.startsWith("V\t") && l.endsWith("\t" + subjectLine))) {
+            throw new IllegalStateException("There is already a valid certificate for " + subjectLine);
+        }
+
+        Path serialFile = caFile("serial");
+        BigInteger serial = readSerial(serialFile);
+        Instant notBefore = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Instant notAfter = notBefore.plus(days, ChronoUnit.DAYS);
+
+        X509CertificateHolder cert = issue(csr, subject, caCert, caKey, serial, notBefore, notAfter);
+        byte[] pem = toPem(cert);
+        Files.write(certFile, pem);
+        Files.write(caFile("new_certs_dir").resolve(CscUtils.toSerialHex(serial) + ".pem"), pem);
+
+        String indexLine = String.join("\t", "V", indexTime(notAfter), "", CscUtils.toSerialHex(serial), "unknown", subjectLine) + "\n";
+        backup(database);
+        Files.write(database, indexLine.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Path attributes = database.resolveSibling(database.getFileName() + ".attr");
+        if(Files.exists(attributes)) {
+            backup(attributes);
+        }
+        Files.write(attributes, ("unique_subject = " + (isUniqueSubject() ? "yes" : "no") + "\n").getBytes(StandardCharsets.UTF_8));
+        backup(serialFile);
+        Files.write(serialFile, (CscUtils.toSerialHex(serial.add(BigInteger.ONE)) + "\n").getBytes(StandardCharsets.UTF_8));
+
+        return cert;
+    }
+
+    /**
+     * Issues a delta CRL (RFC 5280, 5.2.4) against the given complete CRL: it lists all certificates revoked in the
+     * database (index.txt) that are not on the base CRL yet. The CRL number is taken from the <code>crlnumber</code>
+     * file and incremented, so complete and delta CRLs share one sequence, as RFC 5280 demands.
+     * The delta CRL is valid as long as its base.
+     */
+    public X509CRLHolder generateDeltaCrl(final Path baseCrlFile, final Path deltaCrlFile, final char[] keyPassword)
+            throws IOException {
+        X509CertificateHolder caCert = readCertificate(caFile("certificate"));
+        X509CRLHolder base = readCrl(baseCrlFile);
+        verifyIssuedBy(base, caCert);
+        if(base.getExtension(Extension.cRLNumber) == null) {
+            throw new IllegalStateException("Base CRL " + baseCrlFile.getFileName() + " has no CRL number");
+        }
+        BigInteger baseNumber = CRLNumber.getInstance(base.getExtension(Extension.cRLNumber).getParsedValue()).getCRLNumber();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        if(base.getNextUpdate() == null || !base.getNextUpdate().toInstant().isAfter(now)) {
+            throw new IllegalStateException("Base CRL " + baseCrlFile.getFileName() + " is outdated");
+        }
+
+        PrivateKey caKey = readPrivateKey(caFile("private_key"), keyPassword);
+        Path crlNumberFile = caFile("crlnumber");
+        BigInteger crlNumber = readSerial(crlNumberFile).max(baseNumber.add(BigInteger.ONE));
+        Set<BigInteger> onBase = new HashSet<>();
+        for(Object entry : base.getRevokedCertificates()) {
+            onBase.add(((X509CRLEntryHolder) entry).getSerialNumber());
+        }
+
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(caCert.getSubject(), Date.from(now));
+        builder.setNextUpdate(base.getNextUpdate());
+        for(String line : Files.readAllLines(caFile("database"), StandardCharsets.UTF_8)) {
+            OpenSslIndexEntry entry = OpenSslIndexEntry.parse(line);
+            if(entry != null && entry.isRevoked() && !onBase.contains(entry.getSerial())) {
+                builder.addCRLEntry(entry.getSerial(), Date.from(entry.getRevocationDate()), entry.getRevocationReason());
+            }
+        }
+
+        X509CRLHolder delta;
+        try {
+            builder.addExtension(Extension.authorityKeyIdentifier, false, OpenSslExtensions.authorityKeyIdentifier(caCert))
+                    .addExtension(Extension.cRLNumber, false, new CRLNumber(crlNumber))
+                    .addExtension(Extension.deltaCRLIndicator, true, new CRLNumber(baseNumber));
+            delta = builder.build(signer(caKey));
+        } catch (OperatorCreationException e) {
+            throw new IOException("Unable to sign delta CRL!", e);
+        }
+
+        Path temp = deltaCrlFile.resolveSibling(deltaCrlFile.getFileName() + ".tmp");
+        Files.write(temp, toPem(delta));
+        Files.move(temp, deltaCrlFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        backup(crlNumberFile);
+        Files.write(crlNumberFile, (CscUtils.toSerialHex(crlNumber.add(BigInteger.ONE)) + "\n").getBytes(StandardCharsets.UTF_8));
+
+        return delta;
+    }
+
+    private X509CertificateHolder issue(final PKCS10CertificationRequest csr, final X500Name subject,
+                                        final X509CertificateHolder caCert, final PrivateKey caKey, final BigInteger serial,
+                                        final Instant notBefore, final Instant notAfter) throws IOException {
+        List<Extension> extensions = new OpenSslExtensions(EXTENSIONS_SECTION, config.getSection(EXTENSIONS_SECTION))
+                .create(csr.getSubjectPublicKeyInfo(), caCert);
+        try {
+            X509v3CertificateBuilder builder = new X509v3CertificateBuilder(caCert.getSubject(), serial,
+                    Date.from(notBefore), Date.from(notAfter), subject, csr.getSubjectPublicKeyInfo());
+            for(Extension extension : extensions) {
+                builder.addExtension(extension);
+            }
+
+            return builder.build(signer(caKey));
+        } catch (OperatorCreationException e) {
+            throw new IOException("Unable to sign certificate!", e);
+        }
+    }
+
+    private ContentSigner signer(final PrivateKey caKey) throws OperatorCreationException {
+        String keyAlgorithm = "EC".equals(caKey.getAlgorithm()) ? "ECDSA" : caKey.getAlgorithm();
+        return new JcaContentSignerBuilder("SHA256with" + keyAlgorithm).setProvider(PROVIDER).build(caKey);
+    }
+
+    /**
+     * Same as openssl with <code>preserve = no</code>: the subject consists of the fields named in the policy
+     * (in that order), all other fields of the request are dropped.
+     */
+    private X500Name applyPolicy(final X500Name requested, final X500Name caSubject) {
+        String policyName = config.getCaValue("policy");
+        if(StringUtils.isBlank(policyName)) {
+            return requested;
+        }
+
+        X500NameBuilder result = new X500NameBuilder();
+        for(Map.Entry<String, String> rule : config.getSection(policyName).entrySet()) {
+            ASN1ObjectIdentifier type = toOid(rule.getKey());
+            List<AttributeTypeAndValue> values = valuesOf(requested, type);
+            if(values.isEmpty() && !"optional".equals(rule.getValue())) {
+                throw new IllegalStateException("The " + rule.getKey() + " field needed to be supplied and was missing");
+            }
+            if("match".equals(rule.getValue())) {
+                for(AttributeTypeAndValue value : values) {
+                    if(valuesOf(caSubject, type).stream().noneMatch(ca -> valueString(ca).equals(valueString(value)))) {
+                        throw new IllegalStateException("The " + rule.getKey() + " field is different from the CA certificate");
+                    }
+                }
+            }
+            if(BCStyle.EmailAddress.equals(type) && "no".equals(config.getCaValue("email_in_dn"))) {
+                continue;
+            }
+            values.forEach(v -> result.addRDN(v));
+        }
+
+        return result.build();
+    }
+
+    private List<AttributeTypeAndValue> valuesOf(final X500Name name, final ASN1ObjectIdentifier type) {
+        List<AttributeTypeAndValue> result = new ArrayList<>();
+        for(RDN rdn : name.getRDNs()) {
+            for(AttributeTypeAndValue value : rdn.getTypesAndValues()) {
+                if(type.equals(value.getType())) {
+                    result.add(value);
+                }
+            }
+        }
+        return result;
+    }
+
+    private ASN1ObjectIdentifier toOid(final String name) {
+        if(OPENSSL_NAMES.containsKey(name)) {
+            return OPENSSL_NAMES.get(name);
+        }
+        return BCStyle.INSTANCE.attrNameToOID(name);
+    }
+
+    /**
+     * @return the subject in the format of index.txt, e.g. <code>/C=DE/O=Org/CN=name</code>
+     */
+    private String oneline(final X500Name name) {
+        StringBuilder result = new StringBuilder();
+        for(RDN rdn : name.getRDNs()) {
+            result.append('/');
+            AttributeTypeAndValue[] values = rdn.getTypesAndValues();
+            for(int i = 0; i < values.length; i++) {
+                if(i > 0) {
+                    result.append('+');
+                }
+                ASN1ObjectIdentifier type = values[i].getType();
+                String shortName = SHORT_NAMES.getOrDefault(type, BCStyle.INSTANCE.oidToDisplayName(type));
+                result.append(shortName != null ? shortName : type.getId()).append('=').append(escape(valueString(values[i])));
+            }
+        }
+        return result.toString();
+    }
+
+    private String valueString(final AttributeTypeAndValue value) {
+        if(value.getValue() instanceof ASN1String) {
+            return ((ASN1String) value.getValue()).getString();
+        }
+        return IETFUtils.valueToString(value.getValue());
+    }
+
+    /**
+     * Like X509_NAME_oneline: bytes outside of printable ASCII are written as <code>\xHH</code>.
+     */
+    private String escape(final String value) {
+        StringBuilder result = new StringBuilder();
+        for(byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            if(b < ' ' || b > '~') {
+                result.append(String.format("\\x%02X", b & 0xff));
+            } else {
+                result.append((char) b);
+            }
+        }
+        return result.toString();
+    }
+
+    private String indexTime(final Instant time) {
+        return time.atZone(ZoneOffset.UTC).getYear() < 2050 ? UTC_TIME.format(time) : GENERALIZED_TIME.format(time);
+    }
+
+    private boolean isUniqueSubject() {
+        return !"no".equals(config.getCaValue("unique_subject"));
+    }
+
+    private Path caFile(final String key) {
+        String value = config.getCaValue(key);
+        if(StringUtils.isBlank(value)) {
+            throw new IllegalStateException("No " + key + " configured in the CA-section of openssl.cnf!");
+        }
+        return workDir.resolve(value);
+    }
+
+    private void backup(final Path file) throws IOException {
+        Files.copy(file, file.resolveSibling(file.getFileName() + ".old"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private BigInteger readSerial(final Path serialFile) throws IOException {
+        List<String> lines = Files.readAllLines(serialFile, StandardCharsets.US_ASCII);
+        if(lines.isEmpty() || StringUtils.isBlank(lines.get(0))) {
+            throw new IllegalStateException("Empty serial-file: " + serialFile);
+        }
+        return new BigInteger(lines.get(0).trim(), 16);
+    }
+
+    private PKCS10CertificationRequest readCsr(final Path csrFile) throws IOException {
+        Object parsed = readPem(csrFile);
+        if(!(parsed instanceof PKCS10CertificationRequest)) {
+            throw new IllegalStateException("No certificate request in " + csrFile.getFileName());
+        }
+
+        PKCS10CertificationRequest csr = (PKCS10CertificationRequest) parsed;
+        try {
+            if(!csr.isSignatureValid(new JcaContentVerifierProviderBuilder().setProvider(PROVIDER).build(csr.getSubjectPublicKeyInfo()))) {
+                throw new IllegalStateException("Invalid signature of certificate request " + csrFile.getFileName());
+            }
+        } catch (OperatorCreationException | PKCSException e) {
+            throw new IllegalStateException("Unable to verify certificate request " + csrFile.getFileName(), e);
+        }
+        return csr;
+    }
+
+    public static X509CertificateHolder readCertificate(final Path certFile) throws IOException {
+        Object parsed = readPem(certFile);
+        if(!(parsed instanceof X509CertificateHolder)) {
+            throw new IllegalStateException("No certificate in " + certFile.getFileName());
+        }
+        return (X509CertificateHolder) parsed;
+    }
+
+    private X509CRLHolder readCrl(final Path crlFile) throws IOException {
+        byte[] content = Files.readAllBytes(crlFile);
+        if(!new String(content, StandardCharsets.US_ASCII).contains("-----BEGIN")) {
+            return new X509CRLHolder(content);
+        }
+
+        Object parsed = readPem(crlFile);
+        if(!(parsed instanceof X509CRLHolder)) {
+            throw new IllegalStateException("No CRL in " + crlFile.getFileName());
+        }
+        return (X509CRLHolder) parsed;
+    }
+
+    private void verifyIssuedBy(final X509CRLHolder crl, final X509CertificateHolder caCert) {
+        try {
+            if(!crl.isSignatureValid(new JcaContentVerifierProviderBuilder().setProvider(PROVIDER).build(caCert))) {
+                throw new IllegalStateException("CRL is not signed by " + oneline(caCert.getSubject()));
+            }
+        } catch (OperatorCreationException | CertException | CertificateException e) {
+            throw new IllegalStateException("Unable to verify CRL", e);
+        }
+    }
+
+    public static PrivateKey readPrivateKey(final Path keyFile, final char[] password) throws IOException {
+        Object parsed = readPem(keyFile);
+        JcaPEMKeyConverter converter = new JcaPEMKeyConverter().setProvider(PROVIDER);
+        try {
+            if(parsed instanceof PKCS8EncryptedPrivateKeyInfo) {
+                return converter.getPrivateKey(((PKCS8EncryptedPrivateKeyInfo) parsed).decryptPrivateKeyInfo(
+                        new JceOpenSSLPKCS8DecryptorProviderBuilder().setProvider(PROVIDER).build(password)));
+            }
+            if(parsed instanceof PEMEncryptedKeyPair) {
+                return converter.getKeyPair(((PEMEncryptedKeyPair) parsed).decryptKeyPair(
+                        new JcePEMDecryptorProviderBuilder().setProvider(PROVIDER).build(password))).getPrivate();
+            }
+            if(parsed instanceof PEMKeyPair) {
+                return converter.getKeyPair((PEMKeyPair) parsed).getPrivate();
+            }
+            if(parsed instanceof PrivateKeyInfo) {
+                return converter.getPrivateKey((PrivateKeyInfo) parsed);
+            }
+        } catch (OperatorCreationException | PKCSException e) {
+            throw new IllegalStateException("Unable to decrypt CA key!", e);
+        }
+
+        throw new IllegalStateException("Unsupported key format in " + keyFile.getFileName());
+    }
+
+    private static Object readPem(final Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII); PEMParser parser = new PEMParser(reader)) {
+            return parser.readObject();
+        }
+    }
+
+    private byte[] toPem(final Object object) throws IOException {
+        StringWriter result = new StringWriter();
+        try (JcaPEMWriter writer = new JcaPEMWriter(result)) {
+            writer.writeObject(object);
+        }
+        return result.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.util;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal reader for the CA-section of an openssl.cnf (the section named by <code>default_ca</code>
+ * in <code>[ ca ]</code>). Supports <code>$var</code> and <code>${var}</code> references to the same
+ * or the default section - enough for the configs described in the README.
+ */
+public class OpenSslCaConfig {
+
+    private static final String DEFAULT_SECTION = "";
+    private static final Pattern SECTION = Pattern.compile("^\\[\\s*([^\\]\\s]+)\\s*]$");
+    private static final Pattern VARIABLE = Pattern.compile("\\$(?:\\{(\\w+)}|(\\w+))");
+
+    private final Map<String, Map<String, String>> sections;
+    private final String caSection;
+
+    private OpenSslCaConfig(final Map<String, Map<String, String>> sections) {
+        this.sections = sections;
+        this.caSection = rawValue("ca", "default_ca") != null ? rawValue("ca", "default_ca") : "CA_default";
+    }
+
+    public static OpenSslCaConfig parse(final String content) {
+        Map<String, Map<String, String>> sections = new HashMap<>();
+        String current = DEFAULT_SECTION;
+        sections.put(current, new LinkedHashMap<>());
+
+        for(String rawLine : content.split("\\R")) {
+            String line = StringUtils.substringBefore(rawLine, "#").trim();
+            if(line.isEmpty()) {
+                continue;
+            }
+
+            Matcher section = SECTION.matcher(line);
+            if(section.matches()) {
+                current = section.group(1);
+                sections.putIfAbsent(current, new LinkedHashMap<>());
+            } else if(line.contains("=")) {
+                sections.get(current).put(StringUtils.substringBefore(line, "=").trim(),
+                        StringUtils.strip(StringUtils.substringAfter(line, "=").trim(), "\"'"));
+            }
+        }
+
+        return new OpenSslCaConfig(sections);
+    }
+
+    /**
+     * @return the value of the key within the CA-section with all variables expanded; <code>null</code> if absent
+     */
+    public String getCaValue(final String key) {
+        return expand(caSection, rawValue(caSection, key), 0);
+    }
+
+    /**
+     * @return the entries of the given section in the order of the config, with all variables expanded
+     */
+    public Map<String, String> getSection(final String section) {
+        Map<String, String> result = new LinkedHashMap<>();
+        sections.getOrDefault(section, new HashMap<>()).forEach((key, value) -> result.put(key, expand(section, value, 0)));
+        return result;
+    }
+
+    private String rawValue(final String section, final String key) {
+        Map<String, String> values = sections.get(section);
+        if(values != null && values.containsKey(key)) {
+            return values.get(key);
+        }
+        return sections.get(DEFAULT_SECTION).get(key);
+    }
+
+    private String expand(final String section, final String value, final int depth) {
+        if(value == null || depth > 10) {
+            return value;
+        }
+
+        Matcher variable = VARIABLE.matcher(value);
+        StringBuilder result = new StringBuilder();
+        while(variable.find()) {
+            String name = variable.group(1) != null ? variable.group(1) : variable.group(2);
+            String replacement = expand(section, rawValue(section, name), depth + 1);
+            variable.appendReplacement(result, Matcher.quoteReplacement(replacement != null ? replacement : ""));
+        }
+        variable.appendTail(result);
+
+        return result.toString();
+    }
+}
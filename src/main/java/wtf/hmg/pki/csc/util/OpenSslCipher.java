@@ -0,0 +1,166 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.util;
+
+import org.bouncycastle.util.encoders.DecoderException;
+import org.bouncycastle.util.encoders.Hex;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * In-process equivalent of <code>openssl enc -aes256 -a -S SALT -pbkdf2 -iter 20000</code>.
+ * <p>
+ * OpenSSL 3 does not write the <code>Salted__</code> header when the salt is given explicitly, so neither
+ * does {@link #encrypt(byte[], byte[])}. Files with a header (e.g. encrypted without <code>-S</code>)
+ * can still be decrypted - the salt of the header takes precedence then.
+ */
+public class OpenSslCipher {
+
+    public static final int ITERATIONS = 20000;
+    public static final int SALT_LENGTH = 8;
+    public static final int KEY_LENGTH = 32;
+    public static final int IV_LENGTH = 16;
+
+    private static final byte[] SALTED_MAGIC = "Salted__".getBytes(StandardCharsets.US_ASCII);
+    private static final int LINE_LENGTH = 64;
+
+    private OpenSslCipher() {}
+
+    /**
+     * Same as openssl: a salt shorter than 8 bytes is padded with zeros, a longer one is truncated.
+     */
+    public static byte[] parseSalt(final String hexSalt) throws IOException {
+        String hex = hexSalt.length() % 2 == 0 ? hexSalt : hexSalt + "0";
+        try {
+            return Arrays.copyOf(Hex.decode(hex), SALT_LENGTH);
+        } catch (DecoderException e) {
+            throw new IOException("Invalid crypt-salt!", e);
+        }
+    }
+
+    /**
+     * @return key (32 bytes) followed by the iv (16 bytes)
+     */
+    public static byte[] deriveKeyAndIv(final String password, final byte[] salt) throws IOException {
+        return deriveKeyAndIv(password.toCharArray(), salt);
+    }
+
+    /**
+     * @return key (32 bytes) followed by the iv (16 bytes)
+     */
+    public static byte[] deriveKeyAndIv(final char[] password, final byte[] salt) throws IOException {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, ITERATIONS, (KEY_LENGTH + IV_LENGTH) * 8);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Unable to derive key!", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    public static byte[] encrypt(final byte[] plain, final byte[] keyAndIv) throws IOException {
+        byte[] encrypted = crypt(Cipher.ENCRYPT_MODE, plain, keyAndIv);
+        String encoded = Base64.getMimeEncoder(LINE_LENGTH, new byte[]{'\n'}).encodeToString(encrypted);
+        return (encoded + "\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public static byte[] decrypt(final byte[] encoded, final String password, final byte[] salt) throws IOException {
+        byte[] keyAndIv = deriveKeyAndIv(password, salt);
+        try {
+            return decrypt(encoded, password.toCharArray(), salt, keyAndIv);
+        } finally {
+            Arrays.fill(keyAndIv, (byte) 0);
+        }
+    }
+
+    /**
+     * @param keyAndIv already derived from password and salt; only if the data carries a different salt
+     *                 in its header, the key gets derived again
+     */
+    public static byte[] decrypt(final byte[] encoded, final char[] password, final byte[] salt,
+                                 final byte[] keyAndIv) throws IOException {
+        byte[] encrypted = decode(encoded);
+        if(!hasSaltHeader(encrypted)) {
+            return crypt(Cipher.DECRYPT_MODE, encrypted, keyAndIv);
+        }
+
+        byte[] data = stripSaltHeader(encrypted);
+        byte[] headerSalt = headerSalt(encrypted);
+        if(Arrays.equals(salt, headerSalt)) {
+            return crypt(Cipher.DECRYPT_MODE, data, keyAndIv);
+        }
+
+        byte[] fileKeyAndIv = deriveKeyAndIv(password, headerSalt);
+        try {
+            return crypt(Cipher.DECRYPT_MODE, data, fileKeyAndIv);
+        } finally {
+            Arrays.fill(fileKeyAndIv, (byte) 0);
+        }
+    }
+
+    /**
+     * @return whether the base64-encoded data starts with a <code>Salted__</code> header
+     */
+    public static boolean isSalted(final byte[] encoded) throws IOException {
+        return hasSaltHeader(decode(encoded));
+    }
+
+    private static byte[] decode(final byte[] encoded) throws IOException {
+        try {
+            return Base64.getMimeDecoder().decode(encoded);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid base64 data!", e);
+        }
+    }
+
+    private static boolean hasSaltHeader(final byte[] encrypted) {
+        return encrypted.length >= SALTED_MAGIC.length + SALT_LENGTH &&
+                Arrays.equals(SALTED_MAGIC, Arrays.copyOf(encrypted, SALTED_MAGIC.length));
+    }
+
+    private static byte[] headerSalt(final byte[] encrypted) {
+        return Arrays.copyOfRange(encrypted, SALTED_MAGIC.length, SALTED_MAGIC.length + SALT_LENGTH);
+    }
+
+    private static byte[] stripSaltHeader(final byte[] encrypted) {
+        return Arrays.copyOfRange(encrypted, SALTED_MAGIC.length + SALT_LENGTH, encrypted.length);
+    }
+
+    private static byte[] crypt(final int mode, final byte[] input, final byte[] keyAndIv) throws IOException {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(mode, new SecretKeySpec(keyAndIv, 0, KEY_LENGTH, "AES"),
+                    new IvParameterSpec(keyAndIv, KEY_LENGTH, IV_LENGTH));
+            return cipher.doFinal(input);
+        } catch (GeneralSecurityException e) {
+            throw new IOException(mode == Cipher.ENCRYPT_MODE ? "Unable to encrypt data!" : "Unable to decrypt data!", e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.DERIA5String;
+import org.bouncycastle.asn1.misc.MiscObjectIdentifiers;
+import org.bouncycastle.asn1.misc.NetscapeCertType;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
+import org.bouncycastle.asn1.x509.DistributionPoint;
+import org.bouncycastle.asn1.x509.DistributionPointName;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Certificate extensions as configured in an extension section of an openssl.cnf (x509v3_config), limited to
+ * what a section like <code>usr_cert</code> typically holds: basicConstraints, keyUsage, extendedKeyUsage,
+ * subjectKeyIdentifier, authorityKeyIdentifier, crlDistributionPoints and authorityInfoAccess with URIs,
+ * nsCertType and nsComment. Anything else is rejected instead of being left out silently.
+ */
+public class OpenSslExtensions {
+
+    private static final Map<String, Integer> KEY_USAGES = new HashMap<>();
+    private static final Map<String, KeyPurposeId> KEY_PURPOSES = new HashMap<>();
+    private static final Map<String, Integer> NS_CERT_TYPES = new HashMap<>();
+    private static final Map<String, ASN1ObjectIdentifier> ACCESS_METHODS = new HashMap<>();
+
+    static {
+        KEY_USAGES.put("digitalSignature", KeyUsage.digitalSignature);
+        KEY_USAGES.put("nonRepudiation", KeyUsage.nonRepudiation);
+        KEY_USAGES.put("keyEncipherment", KeyUsage.keyEncipherment);
+        KEY_USAGES.put("dataEncipherment", KeyUsage.dataEncipherment);
+        KEY_USAGES.put("keyAgreement", KeyUsage.keyAgreement);
+        KEY_USAGES.put("keyCertSign", KeyUsage.keyCertSign);
+        KEY_USAGES.put("cRLSign", KeyUsage.cRLSign);
+        KEY_USAGES.put("encipherOnly", KeyUsage.encipherOnly);
+        KEY_USAGES.put("decipherOnly", KeyUsage.decipherOnly);
+
+        KEY_PURPOSES.put("serverAuth", KeyPurposeId.id_kp_serverAuth);
+        KEY_PURPOSES.put("clientAuth", KeyPurposeId.id_kp_clientAuth);
+        KEY_PURPOSES.put("codeSigning", KeyPurposeId.id_kp_codeSigning);
+        KEY_PURPOSES.put("emailProtection", KeyPurposeId.id_kp_emailProtection);
+        KEY_PURPOSES.put("timeStamping", KeyPurposeId.id_kp_timeStamping);
+        KEY_PURPOSES.put("OCSPSigning", KeyPurposeId.id_kp_OCSPSigning);
+
+        NS_CERT_TYPES.put("client", NetscapeCertType.sslClient);
+        NS_CERT_TYPES.put("server", NetscapeCertType.sslServer);
+        NS_CERT_TYPES.put("email", NetscapeCertType.smime);
+        NS_CERT_TYPES.put("objsign", NetscapeCertType.objectSigning);
+        NS_CERT_TYPES.put("sslCA", NetscapeCertType.sslCA);
+        NS_CERT_TYPES.put("emailCA", NetscapeCertType.smimeCA);
+        NS_CERT_TYPES.put("objCA", NetscapeCertType.objectSigningCA);
+
+        ACCESS_METHODS.put("OCSP", AccessDescription.id_ad_ocsp);
+        ACCESS_METHODS.put("caIssuers", AccessDescription.id_ad_caIssuers);
+    }
+
+    private final String sectionName;
+    private final Map<String, String> section;
+
+    public OpenSslExtensions(final String sectionName, final Map<String, String> section) {
+        this.sectionName = sectionName;
+        this.section = section;
+    }
+
+    /**
+     * @return the extensions in the order of the section
+     * @throws IllegalStateException if the section is missing or contains something that can not be reproduced
+     */
+    public List<Extension> create(final SubjectPublicKeyInfo subjectKey, final X509CertificateHolder caCert) throws IOException {
+        if(section.isEmpty()) {
+            throw new IllegalStateException("No extensions configured in section " + sectionName);
+        }
+
+        List<Extension> result = new ArrayList<>();
+        for(Map.Entry<String, String> entry : section.entrySet()) {
+            List<String> values = new ArrayList<>(Arrays.asList(StringUtils.stripAll(StringUtils.split(entry.getValue(), ','))));
+            boolean critical = !values.isEmpty() && "critical".equals(values.get(0));
+            if(critical) {
+                values.remove(0);
+            }
+            if(values.stream().anyMatch(v -> v.startsWith("@"))) {
+                throw unsupported(entry);
+            }
+
+            ASN1Encodable value;
+            ASN1ObjectIdentifier oid;
+            switch(entry.getKey()) {
+                case "basicConstraints":
+                    oid = Extension.basicConstraints;
+                    value = basicConstraints(entry, values);
+                    break;
+                case "keyUsage":
+                    oid = Extension.keyUsage;
+                    value = new KeyUsage(flags(entry, values, KEY_USAGES));
+                    break;
+                case "extendedKeyUsage":
+                    oid = Extension.extendedKeyUsage;
+                    value = extendedKeyUsage(entry, values);
+                    break;
+                case "nsCertType":
+                    oid = MiscObjectIdentifiers.netscapeCertType;
+                    value = new NetscapeCertType(flags(entry, values, NS_CERT_TYPES));
+                    break;
+                case "nsComment":
+                    oid = MiscObjectIdentifiers.netscapeCertComment;
+                    value = new DERIA5String(entry.getValue());
+                    break;
+                case "subjectKeyIdentifier":
+                    if(values.equals(Arrays.asList("none"))) {
+                        continue;
+                    }
+                    if(!values.equals(Arrays.asList("hash"))) {
+                        throw unsupported(entry);
+                    }
+                    oid = Extension.subjectKeyIdentifier;
+                    value = extensionUtils().createSubjectKeyIdentifier(subjectKey);
+                    break;
+                case "authorityKeyIdentifier":
+                    if(!values.contains("keyid") && !values.contains("keyid:always") || values.contains("issuer:always")) {
+                        throw unsupported(entry);
+                    }
+                    oid = Extension.authorityKeyIdentifier;
+                    value = authorityKeyIdentifier(caCert);
+                    break;
+                case "crlDistributionPoints":
+                    oid = Extension.cRLDistributionPoints;
+                    value = new CRLDistPoint(new DistributionPoint[]{new DistributionPoint(
+                            new DistributionPointName(new GeneralNames(uris(entry, values))), null, null)});
+                    break;
+                case "authorityInfoAccess":
+                    oid = Extension.authorityInfoAccess;
+                    value = authorityInfoAccess(entry, values);
+                    break;
+                default:
+                    throw unsupported(entry);
+            }
+            result.add(new Extension(oid, critical, value.toASN1Primitive().getEncoded()));
+        }
+        return result;
+    }
+
+    private BasicConstraints basicConstraints(final Map.Entry<String, String> entry, final List<String> values) {
+        boolean ca = false;
+        Integer pathLen = null;
+        for(String value : values) {
+            if("CA:TRUE".equalsIgnoreCase(value)) {
+                ca = true;
+            } else if(StringUtils.startsWith(value, "pathlen:") && StringUtils.isNumeric(value.substring(8))) {
+                pathLen = Integer.valueOf(value.substring(8));
+            } else if(!"CA:FALSE".equalsIgnoreCase(value)) {
+                throw unsupported(entry);
+            }
+        }
+        if(ca && pathLen != null) {
+            return new BasicConstraints(pathLen);
+        }
+        return new BasicConstraints(ca);
+    }
+
+    private int flags(final Map.Entry<String, String> entry, final List<String> values, final Map<String, Integer> names) {
+        int result = 0;
+        for(String value : values) {
+            if(!names.containsKey(value)) {
+                throw unsupported(entry);
+            }
+            result |= names.get(value);
+        }
+        return result;
+    }
+
+    private ExtendedKeyUsage extendedKeyUsage(final Map.Entry<String, String> entry, final List<String> values) {
+        List<KeyPurposeId> purposes = new ArrayList<>();
+        for(String value : values) {
+            if(KEY_PURPOSES.containsKey(value)) {
+                purposes.add(KEY_PURPOSES.get(value));
+            } else if(value.matches("\\d+(\\.\\d+)+")) {
+                purposes.add(KeyPurposeId.getInstance(new ASN1ObjectIdentifier(value)));
+            } else {
+                throw unsupported(entry);
+            }
+        }
+        return new ExtendedKeyUsage(purposes.toArray(new KeyPurposeId[0]));
+    }
+
+    private GeneralName[] uris(final Map.Entry<String, String> entry, final List<String> values) {
+        GeneralName[] result = new GeneralName[values.size()];
+        for(int i = 0; i < values.size(); i++) {
+            if(!values.get(i).startsWith("URI:")) {
+                throw unsupported(entry);
+            }
+            result[i] = new GeneralName(GeneralName.uniformResourceIdentifier, values.get(i).substring(4));
+        }
+        return result;
+    }
+
+    private AuthorityInformationAccess authorityInfoAccess(final Map.Entry<String, String> entry, final List<String> values) {
+        AccessDescription[] result = new AccessDescription[values.size()];
+        for(int i = 0; i < values.size(); i++) {
+            String method = StringUtils.substringBefore(values.get(i), ";");
+            String location = StringUtils.substringAfter(values.get(i), ";");
+            if(!ACCESS_METHODS.containsKey(method) || !location.startsWith("URI:")) {
+                throw unsupported(entry);
+            }
+            result[i] = new AccessDescription(ACCESS_METHODS.get(method),
+                    new GeneralName(GeneralName.uniformResourceIdentifier, location.substring(4)));
+        }
+        return new AuthorityInformationAccess(result);
+    }
+
+    /**
+     * @return the key identifier of the CA, as openssl takes it for <code>keyid</code>
+     */
+    static AuthorityKeyIdentifier authorityKeyIdentifier(final X509CertificateHolder caCert) {
+        SubjectKeyIdentifier caKeyId = SubjectKeyIdentifier.fromExtensions(caCert.getExtensions());
+        return caKeyId != null ? new AuthorityKeyIdentifier(caKeyId.getKeyIdentifier()) :
+                extensionUtils().createAuthorityKeyIdentifier(caCert.getSubjectPublicKeyInfo());
+    }
+
+    private static JcaX509ExtensionUtils extensionUtils() {
+        try {
+            return new JcaX509ExtensionUtils();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    private IllegalStateException unsupported(final Map.Entry<String, String> entry) {
+        return new IllegalStateException("The JAVA signing engine can not reproduce \"" + entry.getKey() + " = "
+                + entry.getValue() + "\" of section " + sectionName + " - sign with data.signing-engine=OPENSSL instead");
+    }
+}
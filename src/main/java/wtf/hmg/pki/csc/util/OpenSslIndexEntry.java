@@ -0,0 +1,120 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.asn1.x509.CRLReason;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A line of the database (index.txt) of <code>openssl ca</code>:
+ * status, expiry, revocation date with optional reason, serial, file name and subject, separated by tabs.
+ */
+public class OpenSslIndexEntry {
+
+    private static final DateTimeFormatter UTC_TIME = DateTimeFormatter.ofPattern("yyMMddHHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter GENERALIZED_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final Map<String, Integer> REVOCATION_REASONS = new HashMap<>();
+
+    static {
+        REVOCATION_REASONS.put("unspecified", CRLReason.unspecified);
+        REVOCATION_REASONS.put("keyCompromise", CRLReason.keyCompromise);
+        REVOCATION_REASONS.put("CACompromise", CRLReason.cACompromise);
+        REVOCATION_REASONS.put("affiliationChanged", CRLReason.affiliationChanged);
+        REVOCATION_REASONS.put("superseded", CRLReason.superseded);
+        REVOCATION_REASONS.put("cessationOfOperation", CRLReason.cessationOfOperation);
+        REVOCATION_REASONS.put("certificateHold", CRLReason.certificateHold);
+        REVOCATION_REASONS.put("removeFromCRL", CRLReason.removeFromCRL);
+    }
+
+    private final char status;
+    private final BigInteger serial;
+    private final Instant revocationDate;
+    private final int revocationReason;
+
+    private OpenSslIndexEntry(final char status, final BigInteger serial, final Instant revocationDate, final int revocationReason) {
+        this.status = status;
+        this.serial = serial;
+        this.revocationDate = revocationDate;
+        this.revocationReason = revocationReason;
+    }
+
+    /**
+     * @return the entry, or null if the line is no valid entry
+     */
+    public static OpenSslIndexEntry parse(final String line) {
+        String[] fields = line.split("\\t", -1);
+        if(fields.length < 4 || fields[0].length() != 1 || StringUtils.isBlank(fields[3])) {
+            return null;
+        }
+
+        try {
+            BigInteger serial = new BigInteger(fields[3], 16);
+            char status = fields[0].charAt(0);
+            if(status != 'R') {
+                return new OpenSslIndexEntry(status, serial, null, CRLReason.unspecified);
+            }
+
+            // revocation date, optionally followed by the reason and further details
+            String[] revocation = fields[2].split(",");
+            Integer reason = revocation.length > 1 ? REVOCATION_REASONS.get(revocation[1]) : null;
+            return new OpenSslIndexEntry(status, serial, parseTime(revocation[0]),
+                    reason != null ? reason : CRLReason.unspecified);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Instant parseTime(final String time) {
+        return Instant.from((time.length() > 13 ? GENERALIZED_TIME : UTC_TIME).parse(time));
+    }
+
+    public boolean isRevoked() {
+        return status == 'R';
+    }
+
+    public boolean isValid() {
+        return status == 'V';
+    }
+
+    public BigInteger getSerial() {
+        return serial;
+    }
+
+    /**
+     * @return the revocation date, null unless revoked
+     */
+    public Instant getRevocationDate() {
+        return revocationDate;
+    }
+
+    /**
+     * @return one of the codes of {@link CRLReason}
+     */
+    public int getRevocationReason() {
+        return revocationReason;
+    }
+}
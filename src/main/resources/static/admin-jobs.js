@@ -0,0 +1,57 @@
+/*
+ Polls the state of the queued job shown in #job-status until it is finished.
+*/
+(function () {
+    const status = document.getElementById('job-status');
+    if (!status) {
+        return;
+    }
+    const text = status.getElementsByTagName('span')[0];
+
+    function showResults(signResults) {
+        const table = document.getElementById('sign-results');
+        if (!table || signResults.length === 0) {
+            return;
+        }
+        for (const result of signResults) {
+            const row = table.tBodies[0].insertRow();
+            row.insertCell().textContent = result.userName;
+            row.insertCell().textContent = result.fileName;
+            row.insertCell().textContent = result.success ? status.dataset.signed : status.dataset.failed + ': ' + result.message;
+        }
+        document.getElementById('job-results').style.display = '';
+    }
+
+    function render(job) {
+        if (!job.done) {
+            text.textContent = status.dataset[job.status.toLowerCase()];
+            return false;
+        }
+
+        status.className = job.result.success ? 'message' : 'error-message';
+        text.textContent = (job.result.errorMessage || job.result.message) + ' ';
+        const reload = document.createElement('a');
+        reload.href = location.pathname;
+        reload.textContent = status.dataset.reload;
+        text.appendChild(reload);
+        showResults(job.result.signResults);
+        return true;
+    }
+
+    function poll() {
+        fetch(status.dataset.url, {credentials: 'same-origin'})
+            .then(response => response.ok ? response.json() : Promise.reject(response.status))
+            .then(job => {
+                if (!render(job)) {
+                    setTimeout(poll, 2000);
+                }
+            })
+            .catch(code => {
+                if (code !== 404) {
+                    setTimeout(poll, 5000);
+                }
+            });
+    }
+
+    poll();
+})();
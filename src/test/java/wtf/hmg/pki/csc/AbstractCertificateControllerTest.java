@@ -20,14 +20,27 @@
 package wtf.hmg.pki.csc;
 
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.springframework.security.oauth2.core.user.OAuth2User;
+import wtf.hmg.pki.csc.model.AdminJob;
+import wtf.hmg.pki.csc.model.CryptSession;
+import wtf.hmg.pki.csc.model.JobResult;
+import wtf.hmg.pki.csc.model.WorkspaceOperation;
+import wtf.hmg.pki.csc.service.AdminJobService;
 import wtf.hmg.pki.csc.service.CertificateService;
+import wtf.hmg.pki.csc.service.CryptService;
 import wtf.hmg.pki.csc.util.AuditLog;
 
 import java.io.IOException;
 import java.nio.file.Path;
 
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -37,6 +50,10 @@ public class AbstractCertificateControllerTest {
 	@Mock
 	protected CertificateService certificateService;
 	@Mock
+	protected CryptService cryptService;
+	@Mock
+	protected AdminJobService adminJobService;
+	@Mock
 	protected OAuth2User user;
 	@Mock
 	protected Path csrRepoFile;
@@ -45,10 +62,48 @@ public class AbstractCertificateControllerTest {
 	
 	protected String cryptPassword = "NARF";
 	protected String adminName = "Pinky";
+	protected CryptSession cryptSession = new CryptSession(cryptPassword.toCharArray(), new byte[8], new byte[48]);
+	protected String jobId = "4711";
+	
+	protected void givenCryptSession() throws IOException {
+		given(cryptService.openSession(anyString())).willReturn(cryptSession);
+	}
+	
+	/**
+	 * Stubs the job-queue for a job submitted by {@link #adminName}.
+	 */
+	protected void givenQueuedJob() {
+		given(user.getName()).willReturn(adminName);
+		given(adminJobService.submit(anyString(), anyString(), any())).willReturn(new AdminJob.Builder().id(jobId).build());
+	}
+	
+	/**
+	 * Runs the task submitted by the controller the way the job-queue would.
+	 */
+	protected JobResult runQueuedJob() throws IOException, GitAPIException {
+		ArgumentCaptor<AdminJobService.AdminTask> task = ArgumentCaptor.forClass(AdminJobService.AdminTask.class);
+		verify(adminJobService, times(1)).submit(anyString(), eq(adminName), task.capture());
+		return task.getValue().execute();
+	}
+	
+	protected Exception runFailingQueuedJob() {
+		try {
+			runQueuedJob();
+		} catch (IOException | GitAPIException | RuntimeException e) {
+			return e;
+		}
+		fail("Queued job should have failed");
+		return null;
+	}
+	
+	protected void verifyPrepareWorkspace(final WorkspaceOperation operation) throws IOException, GitAPIException {
+		verify(certificateService, times(1)).prepareCertificateRepository();
+		verify(cryptService, times(1)).openSession(cryptPassword);
+		verify(certificateService, times(1)).decryptWorkingFiles(cryptSession, operation);
+	}
 	
-	protected void verifyPrepareWorkspace() throws IOException, GitAPIException {
-		verify(certificateService, times(1)).cleanupWorkingFiles();
-		verify(certificateService, times(1)).cloneCertificateRepository();
-		verify(certificateService, times(1)).decryptWorkingFiles(cryptPassword);
+	protected void verifyFinishWorkspace() throws IOException {
+		verify(certificateService, times(1)).encryptWorkingFiles(cryptSession);
+		assertTrue(cryptSession.isClosed());
 	}
 }
@@ -0,0 +1,67 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import wtf.hmg.pki.csc.model.AdminJob;
+import wtf.hmg.pki.csc.service.AdminJobService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.BDDMockito.given;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AdminJobControllerTest {
+
+    private AdminJobController sut;
+
+    @Mock
+    private AdminJobService adminJobService;
+
+    @Before
+    public void setUp() {
+        sut = new AdminJobController();
+        sut.setAdminJobService(adminJobService);
+    }
+
+    @Test
+    public void testJobStatus() {
+        AdminJob job = new AdminJob.Builder().id("4711").build();
+        given(adminJobService.findJob("4711")).willReturn(job);
+
+        ResponseEntity<AdminJob> result = sut.jobStatus("4711");
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertSame(job, result.getBody());
+    }
+
+    @Test
+    public void testJobStatusForUnknownJob() {
+        ResponseEntity<AdminJob> result = sut.jobStatus("4711");
+
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+    }
+}
@@ -24,6 +24,7 @@ import org.eclipse.jgit.api.errors.TransportException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
@@ -31,17 +32,21 @@ import org.springframework.ui.Model;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import wtf.hmg.pki.csc.model.CSR;
 import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.JobResult;
+import wtf.hmg.pki.csc.model.ListingPage;
+import wtf.hmg.pki.csc.model.ListingQuery;
+import wtf.hmg.pki.csc.model.WorkspaceOperation;
 import wtf.hmg.pki.csc.service.AdminDataService;
-import wtf.hmg.pki.csc.service.CryptService;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
@@ -54,15 +59,11 @@ public class AdminUIControllerTest extends AbstractCertificateControllerTest {
     @Mock
     private AdminDataService adminDataService;
     @Mock
-    private CryptService cryptService;
-    @Mock
     private RedirectAttributes redirectAttributes;
     @Mock
     private OAuth2AuthenticationToken auth;
     @Mock
     private Model model;
-    @Mock
-    private ReentrantLock lock;
     
     private String userName = "user@Name";
     private String expectedUsername = "user_Name";
@@ -76,34 +77,64 @@ public class AdminUIControllerTest extends AbstractCertificateControllerTest {
         sut.setAuditLog(auditLog);
         sut.setCertificateService(certificateService);
         sut.setCryptService(cryptService);
-        AdminUIController.setLock(lock);
+        sut.setAdminJobService(adminJobService);
 
         given(auth.getPrincipal()).willReturn(user);
     }
 
     @Test
     public void testAdminPage() {
-        List<CSR> dummyPendingRequests = Collections.emptyList();
-        List<CSR> dummySignedRequests = Collections.emptyList();
-        List<CertInfo> dummyRevokedCerts = Collections.emptyList();
+        ListingPage<CSR> dummyPendingRequests = new ListingPage<>(Collections.emptyList(), 0, 50, 0);
+        ListingPage<CSR> dummySignedRequests = new ListingPage<>(Collections.emptyList(), 0, 50, 0);
+        ListingPage<CertInfo> dummyRevokedCerts = new ListingPage<>(Collections.emptyList(), 0, 50, 0);
 
-        given(adminDataService.findPendingCertificateRequests()).willReturn(dummyPendingRequests);
-        given(adminDataService.findSignedCertificateRequests()).willReturn(dummySignedRequests);
-        given(adminDataService.findRevokedCertificates()).willReturn(dummyRevokedCerts);
+        given(adminDataService.findPendingCertificateRequests(any(ListingQuery.class))).willReturn(dummyPendingRequests);
+        given(adminDataService.findSignedCertificateRequests(any(ListingQuery.class))).willReturn(dummySignedRequests);
+        given(adminDataService.findRevokedCertificates(any(ListingQuery.class))).willReturn(dummyRevokedCerts);
 
-        String result = sut.adminPage(model, auth);
+        String result = sut.adminPage(0, 0, 0, 50, "lastModified", "desc", null, null, model, auth);
 
         assertNotNull(result);
         assertEquals("adminPage", result);
 
         verify(auth, atLeastOnce()).getPrincipal();
         verify(model, times(1)).addAttribute("user", user);
-        verify(model, times(1)).addAttribute("pendingRequests", dummyPendingRequests);
-        verify(model, times(1)).addAttribute("signedRequests", dummySignedRequests);
-        verify(model, times(1)).addAttribute("revokedCerts", dummyRevokedCerts);
-        verify(adminDataService, times(1)).findPendingCertificateRequests();
-        verify(adminDataService, times(1)).findSignedCertificateRequests();
-        verify(adminDataService, times(1)).findRevokedCertificates();
+        verify(model, times(1)).addAttribute("pendingRequests", dummyPendingRequests.getItems());
+        verify(model, times(1)).addAttribute("signedRequests", dummySignedRequests.getItems());
+        verify(model, times(1)).addAttribute("revokedCerts", dummyRevokedCerts.getItems());
+        verify(model, times(1)).addAttribute("pendingPage", dummyPendingRequests);
+        verify(model, times(1)).addAttribute("signedPage", dummySignedRequests);
+        verify(model, times(1)).addAttribute("revokedPage", dummyRevokedCerts);
+        verify(model, times(1)).addAttribute(eq("query"), any(ListingQuery.class));
+        verify(adminDataService, times(1)).findPendingCertificateRequests(any(ListingQuery.class));
+        verify(adminDataService, times(1)).findSignedCertificateRequests(any(ListingQuery.class));
+        verify(adminDataService, times(1)).findRevokedCertificates(any(ListingQuery.class));
+    }
+
+    @Test
+    public void testAdminPage_withQuery() {
+        ListingPage<CSR> dummyRequests = new ListingPage<>(Collections.emptyList(), 0, 25, 0);
+        ListingPage<CertInfo> dummyRevokedCerts = new ListingPage<>(Collections.emptyList(), 0, 25, 0);
+        ArgumentCaptor<ListingQuery> pendingCaptor = ArgumentCaptor.forClass(ListingQuery.class);
+        ArgumentCaptor<ListingQuery> signedCaptor = ArgumentCaptor.forClass(ListingQuery.class);
+        ArgumentCaptor<ListingQuery> revokedCaptor = ArgumentCaptor.forClass(ListingQuery.class);
+
+        given(adminDataService.findPendingCertificateRequests(pendingCaptor.capture())).willReturn(dummyRequests);
+        given(adminDataService.findSignedCertificateRequests(signedCaptor.capture())).willReturn(dummyRequests);
+        given(adminDataService.findRevokedCertificates(revokedCaptor.capture())).willReturn(dummyRevokedCerts);
+
+        sut.adminPage(1, 2, 3, 25, "user", "asc", " dude ", "Example", model, auth);
+
+        ListingQuery pendingQuery = pendingCaptor.getValue();
+        assertEquals(1, pendingQuery.getPage());
+        assertEquals(25, pendingQuery.getSize());
+        assertEquals(ListingQuery.SortField.USER, pendingQuery.getSort());
+        assertFalse(pendingQuery.isDescending());
+        assertEquals("dude", pendingQuery.getUser());
+        assertEquals("Example", pendingQuery.getSubject());
+        assertEquals(2, signedCaptor.getValue().getPage());
+        assertEquals(3, revokedCaptor.getValue().getPage());
+        assertEquals(ListingQuery.SortField.USER, revokedCaptor.getValue().getSort());
     }
 
     @Test
@@ -143,133 +174,213 @@ public class AdminUIControllerTest extends AbstractCertificateControllerTest {
     }
 
     @Test
-    public void testSignCSRForError() throws GitAPIException, IOException {
-        String userName = "userName";
-        given(lock.tryLock()).willReturn(true);
-        doThrow(new TransportException("TEST")).when(certificateService).cloneCertificateRepository();
+    public void testSignCSRIsQueued() {
+        givenQueuedJob();
 
         String result = sut.signCSR(userName, fileName, cryptPassword, keyPassword, redirectAttributes, auth);
-        assertNotNull(result);
         assertEquals("redirect:/admin", result);
 
-        verify(certificateService, times(1)).cleanupWorkingFiles();
-        verify(certificateService, times(1)).cloneCertificateRepository();
-        verify(redirectAttributes, times(1)).addFlashAttribute(eq("errorMessage"), anyString());
-        verifyNoInteractions(auditLog);
+        verify(adminJobService, times(1)).submit(eq("sign-operation"), eq(adminName), any());
+        verify(redirectAttributes, times(1)).addFlashAttribute("jobId", jobId);
+        verifyNoInteractions(certificateService, adminDataService, cryptService, auditLog);
     }
 
     @Test
-    public void testSignCSRForRuntimeError() throws GitAPIException, IOException {
-        String userName = "userName";
-        given(lock.tryLock()).willReturn(true);
-        doThrow(new IllegalStateException("TEST")).when(certificateService).decryptWorkingFiles(anyString());
+    public void testSignCSRForError() throws GitAPIException, IOException {
+        givenQueuedJob();
+        doThrow(new TransportException("TEST")).when(certificateService).prepareCertificateRepository();
 
         String result = sut.signCSR(userName, fileName, cryptPassword, keyPassword, redirectAttributes, auth);
-        assertNotNull(result);
         assertEquals("redirect:/admin", result);
 
-        verify(certificateService, times(1)).cleanupWorkingFiles();
-        verify(certificateService, times(1)).cloneCertificateRepository();
-        verify(redirectAttributes, times(1)).addFlashAttribute(eq("errorMessage"), anyString());
+        assertTrue(runFailingQueuedJob() instanceof TransportException);
+        verify(certificateService, times(1)).prepareCertificateRepository();
         verifyNoInteractions(auditLog);
     }
 
     @Test
-    public void testSignCSRForAlreadyLocked() {
-        given(lock.tryLock()).willReturn(false);
-
-        String result = sut.signCSR("userName", "fileName", "cryptPassword",
-                "keyPassword", redirectAttributes, auth);
-        assertNotNull(result);
-        assertEquals("redirect:/admin", result);
+    public void testSignCSRForRuntimeError() throws GitAPIException, IOException {
+        givenQueuedJob();
+        givenCryptSession();
+        doThrow(new IllegalStateException("TEST")).when(certificateService).decryptWorkingFiles(eq(cryptSession), any());
 
-        verifyNoInteractions(certificateService, adminDataService, cryptService);
-        verify(lock, times(1)).tryLock();
-        verify(lock, never()).unlock();
+        sut.signCSR(userName, fileName, cryptPassword, keyPassword, redirectAttributes, auth);
 
-        verify(redirectAttributes, times(1)).addFlashAttribute(eq("errorMessage"), anyString());
-        verify(redirectAttributes, never()).addFlashAttribute(eq("message"), anyString());
+        assertTrue(runFailingQueuedJob() instanceof IllegalStateException);
+        verify(certificateService, times(1)).prepareCertificateRepository();
+        verify(certificateService, never()).encryptWorkingFiles(any());
+        assertTrue(cryptSession.isClosed());
         verifyNoInteractions(auditLog);
     }
 
     @Test
     public void testSignCSR() throws GitAPIException, IOException {
-        given(lock.tryLock()).willReturn(true);
+        givenQueuedJob();
+        givenCryptSession();
         given(certificateService.copyUserCSRToRepository(expectedUsername, fileName)).willReturn(csrRepoFile);
         given(cryptService.signCertificateRequest(csrRepoFile, keyPassword)).willReturn(certFile);
-        given(user.getName()).willReturn(adminName);
 
         String result = sut.signCSR(userName, fileName, cryptPassword, keyPassword, redirectAttributes, auth);
-        assertNotNull(result);
         assertEquals("redirect:/admin", result);
 
-        verify(lock, times(1)).tryLock();
-        verifyPrepareWorkspace();
+        JobResult jobResult = runQueuedJob();
+        assertTrue(jobResult.isSuccess());
+        assertNotNull(jobResult.getMessage());
+        verifyPrepareWorkspace(WorkspaceOperation.SIGN);
         verify(certificateService, times(1)).copyUserCSRToRepository(expectedUsername, fileName);
         verify(cryptService, times(1)).signCertificateRequest(csrRepoFile, keyPassword);
         verify(certificateService, times(1)).copyCertificateToUserDirectory(expectedUsername, certFile);
-        verify(certificateService, times(1)).encryptWorkingFiles(cryptPassword);
+        verifyFinishWorkspace();
         verify(adminDataService, times(1)).acceptUserCSR(expectedUsername, fileName);
         verify(auditLog, times(1)).logSignedCSR(adminName, fileName, userName);
         verify(auth, atLeastOnce()).getPrincipal();
         verify(user, times(1)).getName();
         verify(certificateService, times(1)).commitAndPushChanges(adminName, "Signed User-Certificate");
-        verify(lock, times(1)).unlock();
-
-        verify(redirectAttributes, never()).addFlashAttribute(eq("errorMessage"), anyString());
-        verify(redirectAttributes, times(1)).addFlashAttribute(eq("message"), anyString());
     }
 
     @Test
-    public void testRenewCert_IOError() throws IOException, GitAPIException {
-        given(lock.tryLock()).willReturn(true);
-        doThrow(new IOException("TEST")).when(certificateService).decryptWorkingFiles(anyString());
-        
-        String result = sut.renewCert("username", "filename", "cryptPassword", "keyPassword", redirectAttributes, auth);
-        assertNotNull(result);
+    public void testSignCSRs() throws GitAPIException, IOException {
+        Path otherCsrRepoFile = mock(Path.class);
+        Path otherCertFile = mock(Path.class);
+        givenQueuedJob();
+        givenCryptSession();
+        given(certificateService.copyUserCSRToRepository(expectedUsername, fileName)).willReturn(csrRepoFile);
+        given(certificateService.copyUserCSRToRepository("other", "other.csr.pem")).willReturn(otherCsrRepoFile);
+        given(cryptService.signCertificateRequest(csrRepoFile, keyPassword)).willReturn(certFile);
+        given(cryptService.signCertificateRequest(otherCsrRepoFile, keyPassword)).willReturn(otherCertFile);
+
+        String result = sut.signCSRs(Arrays.asList(userName + "/" + fileName, "other/other.csr.pem"),
+                cryptPassword, keyPassword, redirectAttributes, auth);
         assertEquals("redirect:/admin", result);
-    
+
+        JobResult jobResult = runQueuedJob();
+        assertTrue(jobResult.isSuccess());
+        assertEquals(2, jobResult.getSignResults().size());
+        verifyPrepareWorkspace(WorkspaceOperation.SIGN);
+        verify(certificateService, times(1)).copyCertificateToUserDirectory(expectedUsername, certFile);
+        verify(certificateService, times(1)).copyCertificateToUserDirectory("other", otherCertFile);
+        verifyFinishWorkspace();
+        verify(certificateService, times(1)).commitAndPushChanges(adminName, "Signed User-Certificates");
+        verify(adminDataService, times(1)).acceptUserCSR(expectedUsername, fileName);
+        verify(adminDataService, times(1)).acceptUserCSR("other", "other.csr.pem");
+        verify(auditLog, times(1)).logSignedCSR(adminName, fileName, expectedUsername);
+        verify(auditLog, times(1)).logSignedCSR(adminName, "other.csr.pem", "other");
+    }
+
+    @Test
+    public void testSignCSRsWithFailingCSR() throws GitAPIException, IOException {
+        givenQueuedJob();
+        givenCryptSession();
+        given(certificateService.copyUserCSRToRepository(expectedUsername, fileName)).willReturn(csrRepoFile);
+        given(certificateService.copyUserCSRToRepository("other", "other.csr.pem")).willThrow(new IOException("TEST"));
+        given(cryptService.signCertificateRequest(csrRepoFile, keyPassword)).willReturn(certFile);
+
+        sut.signCSRs(Arrays.asList("other/other.csr.pem", userName + "/" + fileName),
+                cryptPassword, keyPassword, redirectAttributes, auth);
+
+        JobResult jobResult = runQueuedJob();
+        assertFalse(jobResult.isSuccess());
+        assertFalse(jobResult.getSignResults().get(0).isSuccess());
+        assertEquals("TEST", jobResult.getSignResults().get(0).getMessage());
+        assertTrue(jobResult.getSignResults().get(1).isSuccess());
+        verify(certificateService, times(1)).copyCertificateToUserDirectory(expectedUsername, certFile);
+        verifyFinishWorkspace();
+        verify(certificateService, times(1)).commitAndPushChanges(adminName, "Signed User-Certificates");
+        verify(adminDataService, times(1)).acceptUserCSR(expectedUsername, fileName);
+        verify(adminDataService, never()).acceptUserCSR("other", "other.csr.pem");
+        verify(auditLog, times(1)).logSignedCSR(adminName, fileName, expectedUsername);
+        verify(auditLog, times(1)).logFailedSignCSR(adminName, "other.csr.pem", "other", "TEST");
+        verify(certificateService, times(1)).removeCSRFromRepository("other.csr.pem");
+        verify(certificateService, never()).removeCSRFromRepository(fileName);
+    }
+
+    @Test
+    public void testSignCSRsWithFailingCopyAfterSigning() throws GitAPIException, IOException {
+        Path otherCsrRepoFile = mock(Path.class);
+        Path otherCertFile = mock(Path.class);
+        givenQueuedJob();
+        givenCryptSession();
+        given(certificateService.copyUserCSRToRepository(expectedUsername, fileName)).willReturn(csrRepoFile);
+        given(certificateService.copyUserCSRToRepository("other", "other.csr.pem")).willReturn(otherCsrRepoFile);
+        given(cryptService.signCertificateRequest(csrRepoFile, keyPassword)).willReturn(certFile);
+        given(cryptService.signCertificateRequest(otherCsrRepoFile, keyPassword)).willReturn(otherCertFile);
+        doThrow(new IOException("TEST")).when(certificateService).copyCertificateToUserDirectory("other", otherCertFile);
+
+        sut.signCSRs(Arrays.asList(userName + "/" + fileName, "other/other.csr.pem"),
+                cryptPassword, keyPassword, redirectAttributes, auth);
+
+        assertTrue(runFailingQueuedJob() instanceof IOException);
+        verify(certificateService, times(1)).removeCertificateFromUserDirectory(expectedUsername, certFile);
+        verify(certificateService, times(1)).removeCertificateFromUserDirectory("other", otherCertFile);
         verify(certificateService, times(1)).cleanupWorkingFiles();
-        verify(certificateService, times(1)).cloneCertificateRepository();
+        verify(certificateService, never()).encryptWorkingFiles(any());
+        verify(certificateService, never()).commitAndPushChanges(anyString(), anyString());
+        verify(adminDataService, never()).acceptUserCSR(anyString(), anyString());
+        verify(auditLog, never()).logSignedCSR(anyString(), anyString(), anyString());
+        assertTrue(cryptSession.isClosed());
+    }
+
+    @Test
+    public void testSignCSRsWithAllFailing() throws GitAPIException, IOException {
+        givenQueuedJob();
+        givenCryptSession();
+        given(certificateService.copyUserCSRToRepository(expectedUsername, fileName)).willReturn(csrRepoFile);
+        given(cryptService.signCertificateRequest(csrRepoFile, keyPassword)).willThrow(new IllegalStateException("TEST"));
+
+        sut.signCSRs(Collections.singletonList(userName + "/" + fileName), cryptPassword, keyPassword, redirectAttributes, auth);
+
+        JobResult jobResult = runQueuedJob();
+        assertFalse(jobResult.isSuccess());
+        verify(certificateService, times(1)).cleanupWorkingFiles();
+        verify(certificateService, never()).encryptWorkingFiles(any());
+        verify(certificateService, never()).commitAndPushChanges(anyString(), anyString());
+        verify(adminDataService, never()).acceptUserCSR(anyString(), anyString());
+        verify(auditLog, times(1)).logFailedSignCSR(adminName, fileName, expectedUsername, "TEST");
+        verify(auditLog, never()).logSignedCSR(anyString(), anyString(), anyString());
+        verify(certificateService, times(1)).removeCSRFromRepository(fileName);
+        assertTrue(cryptSession.isClosed());
+    }
+
+    @Test
+    public void testSignCSRsForNoSelection() {
+        String result = sut.signCSRs(null, cryptPassword, keyPassword, redirectAttributes, auth);
+        assertEquals("redirect:/admin", result);
+
+        verifyNoInteractions(certificateService, adminDataService, cryptService, adminJobService, auditLog);
         verify(redirectAttributes, times(1)).addFlashAttribute(eq("errorMessage"), anyString());
-        verify(lock, times(1)).unlock();
-        verifyNoInteractions(auditLog);
     }
-    
+
     @Test
-    public void testRenewCert_WorkspaceLocked() {
-        given(lock.tryLock()).willReturn(false);
+    public void testRenewCert_IOError() throws IOException, GitAPIException {
+        givenQueuedJob();
+        givenCryptSession();
+        doThrow(new IOException("TEST")).when(certificateService).decryptWorkingFiles(eq(cryptSession), any());
         
         String result = sut.renewCert("username", "filename", "cryptPassword", "keyPassword", redirectAttributes, auth);
-        assertNotNull(result);
         assertEquals("redirect:/admin", result);
     
-        verifyNoInteractions(certificateService, adminDataService, cryptService);
-        verify(lock, times(1)).tryLock();
-        verify(lock, never()).unlock();
-    
-        verify(redirectAttributes, times(1)).addFlashAttribute(eq("errorMessage"), anyString());
-        verify(redirectAttributes, never()).addFlashAttribute(eq("message"), anyString());
+        assertTrue(runFailingQueuedJob() instanceof IOException);
+        verify(certificateService, times(1)).prepareCertificateRepository();
         verifyNoInteractions(auditLog);
     }
     
     @Test
     public void testRenewCert() throws IOException, GitAPIException {
         Path newCertFile = mock(Path.class);
-        given(lock.tryLock()).willReturn(true);
-        given(user.getName()).willReturn(adminName);
+        givenQueuedJob();
+        givenCryptSession();
         given(adminDataService.findUserCertForRequest(expectedUsername, fileName)).willReturn(certFile);
         given(adminDataService.findAcceptedCSR(expectedUsername, fileName)).willReturn(csrRepoFile);
         given(cryptService.signCertificateRequest(any(Path.class), anyString())).willReturn(newCertFile);
     
         String result = sut.renewCert(userName, fileName, cryptPassword, keyPassword, redirectAttributes, auth);
-        assertNotNull(result);
         assertEquals("redirect:/admin", result);
     
-        verify(lock, times(1)).tryLock();
-        verify(lock, times(1)).unlock();
+        JobResult jobResult = runQueuedJob();
+        assertTrue(jobResult.isSuccess());
+        assertNotNull(jobResult.getMessage());
         verify(user, times(1)).getName();
-        verifyPrepareWorkspace();
+        verifyPrepareWorkspace(WorkspaceOperation.RENEW);
         verify(adminDataService, times(1)).findUserCertForRequest(expectedUsername, fileName);
         verify(auditLog, times(1)).logRenewedCert(adminName, fileName, userName);
         verify(cryptService, times(1)).revokeCertificate(certFile, keyPassword);
@@ -278,86 +389,59 @@ public class AdminUIControllerTest extends AbstractCertificateControllerTest {
         verify(cryptService, times(1)).signCertificateRequest(csrRepoFile, keyPassword);
         verify(adminDataService, times(1)).flagCSRasRenewed(csrRepoFile);
         verify(certificateService, times(1)).copyCertificateToUserDirectory(expectedUsername, newCertFile);
-        verify(certificateService, times(1)).encryptWorkingFiles(cryptPassword);
+        verifyFinishWorkspace();
         verify(certificateService, times(1)).commitAndPushChanges(adminName, "Renew User-Certificate");
-        verify(redirectAttributes, times(1)).addFlashAttribute(eq("message"), anyString());
     }
     
     @Test
     public void testRevokeCertForIOError() throws IOException, GitAPIException {
-        given(lock.tryLock()).willReturn(true);
-        doThrow(new IOException("TEST")).when(certificateService).decryptWorkingFiles(anyString());
-
-        String result = sut.revokeCert("username", "filename", "cryptPassword", "keyPassword", redirectAttributes, auth);
-        assertNotNull(result);
-        assertEquals("redirect:/admin", result);
-
-        verify(certificateService, times(1)).cleanupWorkingFiles();
-        verify(certificateService, times(1)).cloneCertificateRepository();
-        verify(redirectAttributes, times(1)).addFlashAttribute(eq("errorMessage"), anyString());
-        verifyNoInteractions(auditLog);
-    }
-
-    @Test
-    public void testRevokeCertWhenWorkspaceLocked() {
-        given(lock.tryLock()).willReturn(false);
+        givenQueuedJob();
+        givenCryptSession();
+        doThrow(new IOException("TEST")).when(certificateService).decryptWorkingFiles(eq(cryptSession), any());
 
         String result = sut.revokeCert("username", "filename", "cryptPassword", "keyPassword", redirectAttributes, auth);
-        assertNotNull(result);
         assertEquals("redirect:/admin", result);
 
-        verifyNoInteractions(certificateService, adminDataService, cryptService);
-        verify(lock, times(1)).tryLock();
-        verify(lock, never()).unlock();
-
-        verify(redirectAttributes, times(1)).addFlashAttribute(eq("errorMessage"), anyString());
-        verify(redirectAttributes, never()).addFlashAttribute(eq("message"), anyString());
+        assertTrue(runFailingQueuedJob() instanceof IOException);
+        verify(certificateService, times(1)).prepareCertificateRepository();
         verifyNoInteractions(auditLog);
     }
 
     @Test
     public void testRevokeCertWhithoutCorrespondingCertificate() throws IOException, GitAPIException {
-        given(lock.tryLock()).willReturn(true);
+        givenQueuedJob();
         given(adminDataService.findUserCertForRequest(anyString(), anyString())).willReturn(null);
 
         String result = sut.revokeCert("userName", "fileName", "cryptPassword", "keyPassword", redirectAttributes, auth);
-        assertNotNull(result);
         assertEquals("redirect:/admin", result);
 
-        verify(lock, times(1)).unlock();
-        verify(certificateService, times(1)).cleanupWorkingFiles();
-        verify(certificateService, times(1)).cloneCertificateRepository();
-        verify(certificateService, times(1)).decryptWorkingFiles(anyString());
+        assertTrue(runFailingQueuedJob() instanceof IllegalStateException);
+        verify(certificateService, times(1)).prepareCertificateRepository();
+        verify(certificateService, times(1)).decryptWorkingFiles(any(), any());
         verify(adminDataService, times(1)).findUserCertForRequest(anyString(), anyString());
         verify(cryptService, never()).revokeCertificate(any(Path.class), anyString());
-
-        verify(redirectAttributes, times(1)).addFlashAttribute(eq("errorMessage"), anyString());
-        verify(redirectAttributes, never()).addFlashAttribute(eq("message"), anyString());
         verifyNoInteractions(auditLog);
     }
 
     @Test
     public void testRevokeCert() throws IOException, GitAPIException {
-        given(lock.tryLock()).willReturn(true);
-        given(user.getName()).willReturn(adminName);
+        givenQueuedJob();
+        givenCryptSession();
         given(adminDataService.findUserCertForRequest(expectedUsername, fileName)).willReturn(certFile);
 
         String result = sut.revokeCert(userName, fileName, cryptPassword, keyPassword, redirectAttributes, auth);
-        assertNotNull(result);
         assertEquals("redirect:/admin", result);
 
-        verify(lock, times(1)).tryLock();
-        verify(lock, times(1)).unlock();
-        verifyPrepareWorkspace();
+        JobResult jobResult = runQueuedJob();
+        assertTrue(jobResult.isSuccess());
+        assertNotNull(jobResult.getMessage());
+        verifyPrepareWorkspace(WorkspaceOperation.REVOKE);
         verify(adminDataService, times(1)).findUserCertForRequest(expectedUsername, fileName);
         verify(auditLog, times(1)).logRevokedCert(adminName, fileName, userName);
         verify(cryptService, times(1)).revokeCertificate(certFile, keyPassword);
         verify(adminDataService, times(1)).flagRevokedUserCertAndCSR(expectedUsername, fileName);
-        verify(certificateService, times(1)).encryptWorkingFiles(cryptPassword);
+        verifyFinishWorkspace();
         verify(certificateService, times(1)).commitAndPushChanges(adminName, "Revoked User-Certificate");
-
-        verify(redirectAttributes, never()).addFlashAttribute(eq("errorMessage"), anyString());
-        verify(redirectAttributes, times(1)).addFlashAttribute(eq("message"), anyString());
     }
     
 }
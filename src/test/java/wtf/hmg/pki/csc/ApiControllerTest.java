@@ -0,0 +1,202 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.context.request.ServletWebRequest;
+import wtf.hmg.pki.csc.model.CSR;
+import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.ListingPage;
+import wtf.hmg.pki.csc.model.ListingQuery;
+import wtf.hmg.pki.csc.model.SharedApp;
+import wtf.hmg.pki.csc.model.UserDashboard;
+import wtf.hmg.pki.csc.service.AdminDataService;
+import wtf.hmg.pki.csc.service.InventoryService;
+import wtf.hmg.pki.csc.service.SharedAppService;
+import wtf.hmg.pki.csc.service.UserDataService;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ApiControllerTest {
+
+    private ApiController sut;
+
+    @Mock
+    private AdminDataService adminDataService;
+    @Mock
+    private SharedAppService sharedAppService;
+    @Mock
+    private UserDataService userDataService;
+    @Mock
+    private InventoryService inventoryService;
+    @Mock
+    private OAuth2AuthenticationToken auth;
+    @Mock
+    private OAuth2User user;
+
+    @Before
+    public void setUp() {
+        sut = new ApiController();
+        sut.setAdminDataService(adminDataService);
+        sut.setSharedAppService(sharedAppService);
+        sut.setUserDataService(userDataService);
+        sut.setInventoryService(inventoryService);
+    }
+
+    @Test
+    public void testPendingRequests() {
+        ListingPage<CSR> expected = new ListingPage<>(Collections.emptyList(), 1, 20, 21);
+        ArgumentCaptor<ListingQuery> captor = ArgumentCaptor.forClass(ListingQuery.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        given(inventoryService.getVersion()).willReturn(7L);
+        given(adminDataService.findPendingCertificateRequests(captor.capture())).willReturn(expected);
+
+        ResponseEntity<ListingPage<CSR>> result = sut.pendingRequests(1, 20, "user", "asc", "dude", null,
+                request(null, response));
+
+        assertNotNull(result);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertSame(expected, result.getBody());
+        assertEquals("no-cache, private", result.getHeaders().getCacheControl());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertTrue(response.getHeader(HttpHeaders.ETAG).endsWith("-7\""));
+
+        ListingQuery query = captor.getValue();
+        assertEquals(1, query.getPage());
+        assertEquals(20, query.getSize());
+        assertEquals(ListingQuery.SortField.USER, query.getSort());
+        assertFalse(query.isDescending());
+        assertEquals("dude", query.getUser());
+        assertNull(query.getSubject());
+    }
+
+    @Test
+    public void testPendingRequests_notModified() {
+        given(inventoryService.getVersion()).willReturn(7L);
+        given(adminDataService.findPendingCertificateRequests(any(ListingQuery.class)))
+                .willReturn(new ListingPage<>(Collections.emptyList(), 0, 50, 0));
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        sut.pendingRequests(0, 50, "lastModified", "desc", null, null, request(null, first));
+        String etag = first.getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        ResponseEntity<ListingPage<CSR>> result = sut.pendingRequests(0, 50, "lastModified", "desc", null, null,
+                request(etag, second));
+
+        assertNull(result);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), second.getStatus());
+        assertEquals(etag, second.getHeader(HttpHeaders.ETAG));
+        verify(adminDataService, times(1)).findPendingCertificateRequests(any(ListingQuery.class));
+    }
+
+    @Test
+    public void testSignedRequests() {
+        ListingPage<CSR> expected = new ListingPage<>(Collections.emptyList(), 0, 50, 0);
+        given(adminDataService.findSignedCertificateRequests(any(ListingQuery.class))).willReturn(expected);
+
+        ResponseEntity<ListingPage<CSR>> result = sut.signedRequests(0, 50, "lastModified", "desc", null, null,
+                request(null, new MockHttpServletResponse()));
+
+        assertNotNull(result);
+        assertSame(expected, result.getBody());
+    }
+
+    @Test
+    public void testRevokedCerts() {
+        ListingPage<CertInfo> expected = new ListingPage<>(Collections.emptyList(), 0, 50, 0);
+        given(adminDataService.findRevokedCertificates(any(ListingQuery.class))).willReturn(expected);
+
+        ResponseEntity<ListingPage<CertInfo>> result = sut.revokedCerts(0, 50, "lastModified", "desc", null, "crt",
+                request(null, new MockHttpServletResponse()));
+
+        assertNotNull(result);
+        assertSame(expected, result.getBody());
+    }
+
+    @Test
+    public void testSharedApps_forChangedVersion() {
+        List<SharedApp> expected = Collections.singletonList(new SharedApp.Builder().setName("app").build());
+        given(inventoryService.getVersion()).willReturn(7L, 8L);
+        given(sharedAppService.findSharedApps()).willReturn(expected);
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        sut.sharedApps(request(null, first));
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        ResponseEntity<List<SharedApp>> result = sut.sharedApps(request(first.getHeader(HttpHeaders.ETAG), second));
+
+        assertNotNull(result);
+        assertSame(expected, result.getBody());
+        assertNotEquals(first.getHeader(HttpHeaders.ETAG), second.getHeader(HttpHeaders.ETAG));
+        verify(sharedAppService, times(2)).findSharedApps();
+    }
+
+    @Test
+    public void testUserCertificates() {
+        List<CertInfo> expected = Collections.emptyList();
+        given(auth.getPrincipal()).willReturn(user);
+        given(user.getAttribute("email")).willReturn("Some.User@Example.com", "other.user@example.com");
+        given(userDataService.findDashboardForUser(anyString())).willReturn(new UserDashboard.Builder().certificates(expected).build());
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        ResponseEntity<List<CertInfo>> result = sut.userCertificates(auth, request(null, first));
+
+        assertNotNull(result);
+        assertEquals(expected, result.getBody());
+        verify(userDataService, times(1)).findDashboardForUser("some.user_example.com");
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        result = sut.userCertificates(auth, request(first.getHeader(HttpHeaders.ETAG), second));
+
+        assertNotNull(result);
+        assertNotEquals(first.getHeader(HttpHeaders.ETAG), second.getHeader(HttpHeaders.ETAG));
+        verify(userDataService, times(1)).findDashboardForUser("other.user_example.com");
+    }
+
+    private ServletWebRequest request(final String ifNoneMatch, final MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api");
+        if(ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import wtf.hmg.pki.csc.model.OcspResult;
+import wtf.hmg.pki.csc.service.OcspService;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OcspControllerTest {
+
+    private OcspController sut;
+
+    @Mock
+    private OcspService ocspService;
+
+    private byte[] dummyRequest = new byte[]{0x30, (byte) 0xfb, (byte) 0xff, 0x3e};
+    private OcspResult dummyResult = new OcspResult.Builder()
+            .encoded("RESPONSE".getBytes())
+            .thisUpdate(Instant.now().truncatedTo(ChronoUnit.SECONDS))
+            .nextUpdate(Instant.now().plus(1, ChronoUnit.HOURS))
+            .build();
+
+    @Before
+    public void setUp() {
+        sut = new OcspController();
+        sut.setOcspService(ocspService);
+    }
+
+    @Test
+    public void testOcspPost() {
+        given(ocspService.respond(dummyRequest)).willReturn(dummyResult);
+
+        ResponseEntity<byte[]> result = sut.ocspPost(dummyRequest);
+        assertNotNull(result);
+        assertEquals(200, result.getStatusCodeValue());
+        assertEquals("application/ocsp-response", result.getHeaders().getContentType().toString());
+        assertArrayEquals("RESPONSE".getBytes(), result.getBody());
+        assertNull(result.getHeaders().getCacheControl());
+    }
+
+    @Test
+    public void testOcspGet() {
+        // base64 of the request is "MPv/Pg==", with a slash and padding
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ocsp/MPv/Pg%3D%3D");
+        given(ocspService.respond(dummyRequest)).willReturn(dummyResult);
+
+        ResponseEntity<byte[]> result = sut.ocspGet(request);
+        assertNotNull(result);
+        assertEquals(200, result.getStatusCodeValue());
+        assertEquals("application/ocsp-response", result.getHeaders().getContentType().toString());
+        assertArrayEquals("RESPONSE".getBytes(), result.getBody());
+        assertTrue(result.getHeaders().getCacheControl().startsWith("max-age="));
+        assertTrue(result.getHeaders().getCacheControl().contains("public"));
+        assertEquals(dummyResult.getThisUpdate().toEpochMilli(), result.getHeaders().getLastModified());
+        assertEquals(dummyResult.getNextUpdate().toEpochMilli() / 1000 * 1000, result.getHeaders().getExpires());
+    }
+
+    @Test
+    public void testOcspGet_forInvalidEncoding() {
+        OcspResult unsuccessful = new OcspResult.Builder().encoded("MALFORMED".getBytes()).build();
+        given(ocspService.respond(any())).willReturn(unsuccessful);
+
+        ResponseEntity<byte[]> result = sut.ocspGet(new MockHttpServletRequest("GET", "/ocsp/NARF!"));
+        assertNotNull(result);
+        assertEquals(200, result.getStatusCodeValue());
+        assertArrayEquals("MALFORMED".getBytes(), result.getBody());
+        assertNull(result.getHeaders().getCacheControl());
+        verify(ocspService).respond(new byte[0]);
+    }
+}
@@ -32,17 +32,17 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.ui.Model;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
-import wtf.hmg.pki.csc.service.CryptService;
+import wtf.hmg.pki.csc.model.WorkspaceOperation;
 import wtf.hmg.pki.csc.service.SharedAppService;
 import wtf.hmg.pki.csc.util.SupportUtils;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Locale;
-import java.util.concurrent.locks.ReentrantLock;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 
@@ -65,10 +65,6 @@ public class SharedCertsControllerTest extends AbstractCertificateControllerTest
 	private MessageSource messageSource;
 	@Mock
 	private SharedAppService sharedAppService;
-	@Mock
-	private ReentrantLock lock;
-	@Mock
-	private CryptService cryptService;
 	
 	private String dummyAppName = "user@Name";
 	private String dummyCSRFileName = "csrFileName.csr.pem";
@@ -84,7 +80,7 @@ public class SharedCertsControllerTest extends AbstractCertificateControllerTest
 		sut.setSharedAppService(sharedAppService);
 		sut.setCertificateService(certificateService);
 		sut.setCryptService(cryptService);
-		SharedCertsController.setLock(lock);
+		sut.setAdminJobService(adminJobService);
 		
 		given(auth.getPrincipal()).willReturn(user);
 	}
@@ -191,54 +187,51 @@ public class SharedCertsControllerTest extends AbstractCertificateControllerTest
 	}
 	
 	@Test
-	public void testSignAppCSR_forAlreadyLocked() {
-		given(lock.tryLock()).willReturn(false);
+	public void testSignAppCSR_isQueued() {
+		givenQueuedJob();
 		
 		String result = sut.signAppCSR(dummyAppName, dummyCSRFileName, cryptPassword, dummyServerKeyPassword, redirectAttributes, auth);
 		assertEquals("redirect:/shared-certs", result);
 		
-		verifyLockedBehaviour();
+		verifyQueuedBehaviour();
 		verifyNoInteractions(auditLog);
 	}
 	
 	@Test
 	public void testSignAppCSR_forError() throws IOException, GitAPIException {
-		given(lock.tryLock()).willReturn(true);
-		doThrow(new TransportException("TEST")).when(certificateService).cloneCertificateRepository();
+		givenQueuedJob();
+		doThrow(new TransportException("TEST")).when(certificateService).prepareCertificateRepository();
 		
 		String result = sut.signAppCSR(dummyAppName, dummyCSRFileName, cryptPassword, dummyServerKeyPassword, redirectAttributes, auth);
 		assertEquals("redirect:/shared-certs", result);
 		
-		verifyErrorBehaviour();
-		verify(certificateService, times(1)).cleanupWorkingFiles();
-		verify(certificateService, times(1)).cloneCertificateRepository();
+		assertTrue(runFailingQueuedJob() instanceof TransportException);
+		verify(certificateService, times(1)).prepareCertificateRepository();
 		verifyNoInteractions(auditLog);
 	}
 	
 	@Test
 	public void testSignAppCSR() throws IOException, GitAPIException {
-		given(lock.tryLock()).willReturn(true);
-		given(user.getName()).willReturn(adminName);
+		givenQueuedJob();
+		givenCryptSession();
 		given(certificateService.copyAppCSRToRepository(dummyAppName, dummyCSRFileName)).willReturn(csrRepoFile);
 		given(cryptService.signCertificateRequest(csrRepoFile, dummyServerKeyPassword)).willReturn(certFile);
 		
 		String result = sut.signAppCSR(dummyAppName, dummyCSRFileName, cryptPassword, dummyServerKeyPassword, redirectAttributes, auth);
 		assertEquals("redirect:/shared-certs", result);
 		
+		assertTrue(runQueuedJob().isSuccess());
+		
 		verify(auth, atLeastOnce()).getPrincipal();
 		verify(user, times(1)).getName();
-		verify(lock, times(1)).tryLock();
-		verify(lock, times(1)).unlock();
-		verifyPrepareWorkspace();
+		verifyPrepareWorkspace(WorkspaceOperation.SIGN);
 		verify(auditLog, times(1)).logSignedSharedAppCSR(adminName, dummyAppName);
 		verify(certificateService, times(1)).copyAppCSRToRepository(dummyAppName, dummyCSRFileName);
 		verify(cryptService, times(1)).signCertificateRequest(csrRepoFile, dummyServerKeyPassword);
 		verify(certificateService, times(1)).copyCertificateToAppDirectory(dummyAppName, certFile);
-		verify(certificateService, times(1)).encryptWorkingFiles(cryptPassword);
+		verifyFinishWorkspace();
 		verify(certificateService, times(1)).commitAndPushChanges(adminName, "Signed App-Certificate");
 		
-		verify(redirectAttributes, never()).addFlashAttribute(eq("errorMessage"), anyString());
-		verify(redirectAttributes, times(1)).addFlashAttribute(eq("message"), anyString());
 	}
 	
 	@Test
@@ -335,34 +328,34 @@ public class SharedCertsControllerTest extends AbstractCertificateControllerTest
 	}
 	
 	@Test
-	public void testRenewAppCert_forAlreadyLocked() {
-		given(lock.tryLock()).willReturn(false);
+	public void testRenewAppCert_isQueued() {
+		givenQueuedJob();
 		
 		String result = sut.renewAppCert(dummyAppName, dummyCRTFileName, cryptPassword, dummyServerKeyPassword, redirectAttributes, auth);
 		assertEquals("redirect:/shared-certs", result);
 		
-		verifyLockedBehaviour();
+		verifyQueuedBehaviour();
 		verifyNoInteractions(auditLog);
 	}
 	
 	@Test
-	public void testRenewAppCert_forError() throws GitAPIException {
-		given(lock.tryLock()).willReturn(true);
-		doThrow(new TransportException("TEST")).when(certificateService).cloneCertificateRepository();
+	public void testRenewAppCert_forError() throws GitAPIException, IOException {
+		givenQueuedJob();
+		doThrow(new TransportException("TEST")).when(certificateService).prepareCertificateRepository();
 		
 		String result = sut.renewAppCert(dummyAppName, dummyCRTFileName, cryptPassword, dummyServerKeyPassword, redirectAttributes, auth);
 		assertEquals("redirect:/shared-certs", result);
 		
-		verifyErrorBehaviour();
-		verify(certificateService, times(1)).cloneCertificateRepository();
+		assertTrue(runFailingQueuedJob() instanceof TransportException);
+		verify(certificateService, times(1)).prepareCertificateRepository();
 		verifyNoInteractions(auditLog);
 	}
 	
 	@Test
 	public void testRenewAppCert() throws IOException, GitAPIException {
 		Path renewedCertFile = mock(Path.class);
-		given(lock.tryLock()).willReturn(true);
-		given(user.getName()).willReturn(adminName);
+		givenQueuedJob();
+		givenCryptSession();
 		given(sharedAppService.findAppFileForFilename(dummyAppName, dummyCRTFileName)).willReturn(certFile);
 		given(sharedAppService.findAppFileForFilename(dummyAppName, dummyCSRFileName)).willReturn(csrRepoFile);
 		given(cryptService.signCertificateRequest(csrRepoFile, dummyServerKeyPassword)).willReturn(renewedCertFile);
@@ -370,11 +363,11 @@ public class SharedCertsControllerTest extends AbstractCertificateControllerTest
 		String result = sut.renewAppCert(dummyAppName, dummyCRTFileName, cryptPassword, dummyServerKeyPassword, redirectAttributes, auth);
 		assertEquals("redirect:/shared-certs", result);
 		
+		assertTrue(runQueuedJob().isSuccess());
+		
 		verify(auth, atLeastOnce()).getPrincipal();
 		verify(user, times(1)).getName();
-		verify(lock, times(1)).tryLock();
-		verify(lock, times(1)).unlock();
-		verifyPrepareWorkspace();
+		verifyPrepareWorkspace(WorkspaceOperation.RENEW);
 		verify(sharedAppService, times(1)).findAppFileForFilename(dummyAppName, dummyCRTFileName);
 		verify(cryptService, times(1)).revokeCertificate(certFile, dummyServerKeyPassword);
 		verify(sharedAppService, times(1)).deleteAppFile(dummyAppName, dummyCRTFileName);
@@ -384,70 +377,60 @@ public class SharedCertsControllerTest extends AbstractCertificateControllerTest
 		verify(certificateService, times(1)).copyCertificateToAppDirectory(dummyAppName, renewedCertFile);
 		verify(sharedAppService, times(1)).deleteAppFile(dummyAppName, dummyCRTFileName + ".reqrenew");
 		
-		verify(certificateService, times(1)).encryptWorkingFiles(cryptPassword);
+		verifyFinishWorkspace();
 		verify(certificateService, times(1)).commitAndPushChanges(adminName, "Renewed App-Certificate");
-		verify(redirectAttributes, times(1)).addFlashAttribute(eq("message"), anyString());
 		verify(auditLog, times(1)).logRenewedSharedAppCert(adminName, dummyAppName);
 	}
 	
 	@Test
-	public void testRevokeAppCert_forAlreadyLocked() {
-		given(lock.tryLock()).willReturn(false);
+	public void testRevokeAppCert_isQueued() {
+		givenQueuedJob();
 		
 		String result = sut.revokeAppCert(dummyAppName, dummyCRTFileName, cryptPassword, dummyServerKeyPassword, redirectAttributes, auth);
 		assertEquals("redirect:/shared-certs", result);
 		
-		verifyLockedBehaviour();
+		verifyQueuedBehaviour();
 		verifyNoInteractions(auditLog);
 	}
 	
 	@Test
-	public void testRevokeAppCert_forError() throws GitAPIException {
-		given(lock.tryLock()).willReturn(true);
-		doThrow(new TransportException("TEST")).when(certificateService).cloneCertificateRepository();
+	public void testRevokeAppCert_forError() throws GitAPIException, IOException {
+		givenQueuedJob();
+		doThrow(new TransportException("TEST")).when(certificateService).prepareCertificateRepository();
 		
 		String result = sut.revokeAppCert(dummyAppName, dummyCRTFileName, cryptPassword, dummyServerKeyPassword, redirectAttributes, auth);
 		assertEquals("redirect:/shared-certs", result);
 		
-		verifyErrorBehaviour();
-		verify(certificateService, times(1)).cloneCertificateRepository();
+		assertTrue(runFailingQueuedJob() instanceof TransportException);
+		verify(certificateService, times(1)).prepareCertificateRepository();
 		verifyNoInteractions(auditLog);
 	}
 	
 	@Test
 	public void testRevokeAppCert() throws IOException, GitAPIException {
-		given(lock.tryLock()).willReturn(true);
-		given(user.getName()).willReturn(adminName);
+		givenQueuedJob();
+		givenCryptSession();
 		given(sharedAppService.findAppFileForFilename(dummyAppName, dummyCRTFileName)).willReturn(certFile);
 		
 		String result = sut.revokeAppCert(dummyAppName, dummyCRTFileName, cryptPassword, dummyServerKeyPassword, redirectAttributes, auth);
 		assertEquals("redirect:/shared-certs", result);
 		
+		assertTrue(runQueuedJob().isSuccess());
+		
 		verify(auth, atLeastOnce()).getPrincipal();
 		verify(user, times(1)).getName();
-		verify(lock, times(1)).tryLock();
-		verify(lock, times(1)).unlock();
-		verifyPrepareWorkspace();
+		verifyPrepareWorkspace(WorkspaceOperation.REVOKE);
 		verify(sharedAppService, times(1)).findAppFileForFilename(dummyAppName, dummyCRTFileName);
 		verify(cryptService, times(1)).revokeCertificate(certFile, dummyServerKeyPassword);
 		verify(sharedAppService, times(1)).deleteAppFile(dummyAppName, dummyCRTFileName);
-		verify(certificateService, times(1)).encryptWorkingFiles(cryptPassword);
+		verifyFinishWorkspace();
 		verify(certificateService, times(1)).commitAndPushChanges(adminName, "Revoked App-Certificate");
-		verify(redirectAttributes, times(1)).addFlashAttribute(eq("message"), anyString());
 		verify(auditLog, times(1)).logRevokedSharedAppCert(adminName, dummyAppName);
 	}
 	
-	private void verifyLockedBehaviour() {
-		verifyNoInteractions(certificateService);
-		verify(lock, times(1)).tryLock();
-		verify(lock, never()).unlock();
-		verify(redirectAttributes, times(1)).addFlashAttribute(eq("errorMessage"), anyString());
-		verify(redirectAttributes, never()).addFlashAttribute(eq("message"), anyString());
-	}
-	
-	private void verifyErrorBehaviour() {
-		verify(lock, times(1)).tryLock();
-		verify(lock, times(1)).unlock();
-		verify(redirectAttributes, times(1)).addFlashAttribute(eq("errorMessage"), anyString());
+	private void verifyQueuedBehaviour() {
+		verify(adminJobService, times(1)).submit(anyString(), eq(adminName), any());
+		verify(redirectAttributes, times(1)).addFlashAttribute("jobId", jobId);
+		verifyNoInteractions(certificateService, cryptService);
 	}
 }
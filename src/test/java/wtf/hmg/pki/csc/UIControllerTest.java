@@ -19,6 +19,7 @@
 */
 package wtf.hmg.pki.csc;
 
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -26,13 +27,22 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.context.MessageSource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.ui.Model;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.PublishedFile;
+import wtf.hmg.pki.csc.model.UserDashboard;
+import wtf.hmg.pki.csc.service.CaFilesService;
 import wtf.hmg.pki.csc.service.NotificationService;
+import wtf.hmg.pki.csc.service.UploadLimitService;
 import wtf.hmg.pki.csc.service.UserDataService;
 import wtf.hmg.pki.csc.util.SupportUtils;
 
@@ -41,10 +51,16 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Locale;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 
@@ -73,6 +89,20 @@ public class UIControllerTest {
     private Locale dummyLocale;
     @Mock
     private SupportUtils supportUtils;
+    @Mock
+    private CaFilesService caFilesService;
+    @Mock
+    private UploadLimitService uploadLimitService;
+
+    private MockHttpServletResponse response;
+    private PublishedFile caCert = new PublishedFile.Builder()
+            .pem("CA-PEM".getBytes())
+            .der("CA-DER".getBytes())
+            .gzippedPem("CA-PEM-GZ".getBytes())
+            .gzippedDer("CA-DER-GZ".getBytes())
+            .fingerprint("CAFE")
+            .lastModified(1600000000000L)
+            .build();
 
     private String dummyUID = "T.User@company.domain";
     private String expectedUID = "t.user_company.domain";
@@ -80,21 +110,30 @@ public class UIControllerTest {
     private String mailText = "Dummy notification text";
 
     @Before
-    public void setUp() {
+    public void setUp() throws IOException {
         sut = new UIController();
         sut.setUserDataService(userDataService);
         sut.setMessageSource(messageSource);
         sut.setSupportUtils(supportUtils);
         sut.setNotificationService(notificationService);
+        sut.setCaFilesService(caFilesService);
+        sut.setAppConfig(new AppConfig());
+        sut.setUploadLimitService(uploadLimitService);
+        response = new MockHttpServletResponse();
 
         given(auth.getPrincipal()).willReturn(user);
         given(user.getAttribute("email")).willReturn(dummyUID);
+        given(uploadLimitService.tryUpload(anyString(), any())).willAnswer(invocation -> {
+            invocation.<UploadLimitService.Upload>getArgument(1).save();
+            return null;
+        });
     }
 
     @Test
     public void testIndexPage() {
         given(supportUtils.isAdmin(user)).willReturn(true);
         given(supportUtils.isSharedAppAdmin(user)).willReturn(true);
+        given(userDataService.findDashboardForUser(expectedUID)).willReturn(new UserDashboard.Builder().build());
 
         String result = sut.indexPage(model, auth);
 
@@ -107,10 +146,8 @@ public class UIControllerTest {
         verify(supportUtils, atLeastOnce()).isAdmin(user);
         verify(supportUtils, atLeastOnce()).isSharedAppAdmin(user);
 
-        verify(userDataService, times(1)).findCertificateRequestsForUser(expectedUID);
-        verify(userDataService, times(1)).findAcceptedCertificateRequestsForUser(expectedUID);
-        verify(userDataService, times(1)).findRejectedCertificateRequestsForUser(expectedUID);
-        verify(userDataService, times(1)).findCertificateRequestsForUser(expectedUID);
+        verify(userDataService, times(1)).findDashboardForUser(expectedUID);
+        verifyNoMoreInteractions(userDataService);
         verify(model, times(1)).addAttribute(eq("userCSRList"), anyList());
         verify(model, times(1)).addAttribute(eq("userAcceptedCSRList"), anyList());
         verify(model, times(1)).addAttribute(eq("userRejectedCSRList"), anyList());
@@ -173,65 +210,213 @@ public class UIControllerTest {
     }
 
     @Test
-    public void testDownloadCaCertificateForIOError() throws IOException {
-        doThrow(new IOException("TEST")).when(userDataService).caCertificateAsResource();
-
-        ResponseEntity<Resource> result = sut.downloadCaCert();
+    public void testDownloadCaCertificateForMissingFile() {
+        ResponseEntity<byte[]> result = sut.downloadCaCert(request(null, null));
         assertNotNull(result);
         assertEquals(500, result.getStatusCodeValue());
 
-        verify(userDataService, times(1)).caCertificateAsResource();
+        verify(caFilesService, times(1)).findCaCertificate();
     }
 
     @Test
-    public void testDownloadCaCertificate() throws IOException {
+    public void testDownloadCaCertificate() {
         String expectedFileName = "intermediate-ca.cert.pem";
-        Resource dummyResource = mock(Resource.class);
-
-        given(userDataService.caCertificateAsResource()).willReturn(dummyResource);
+        given(caFilesService.findCaCertificate()).willReturn(caCert);
 
-        ResponseEntity<Resource> result = sut.downloadCaCert();
+        ResponseEntity<byte[]> result = sut.downloadCaCert(request(null, null));
         assertNotNull(result);
         assertEquals(200, result.getStatusCodeValue());
         assertNotNull(result.getHeaders());
         assertNotNull(result.getHeaders().getContentType());
         assertEquals("application/x-pem-file", result.getHeaders().getContentType().toString());
-        assertEquals(dummyResource, result.getBody());
+        assertArrayEquals(caCert.getContent(PublishedFile.Format.PEM, false), result.getBody());
         assertNotNull(result.getHeaders().getContentDisposition());
         assertEquals(expectedFileName, result.getHeaders().getContentDisposition().getFilename());
+        assertEquals("max-age=86400, public", result.getHeaders().getCacheControl());
+        assertNull(result.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"CAFE-pem\"", response.getHeader(HttpHeaders.ETAG));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    public void testDownloadCaCertificateDer_gzipped() {
+        given(caFilesService.findCaCertificate()).willReturn(caCert);
 
-        verify(userDataService, times(1)).caCertificateAsResource();
+        ResponseEntity<byte[]> result = sut.downloadCaCertDer(request(null, "gzip, deflate"));
+        assertNotNull(result);
+        assertEquals(200, result.getStatusCodeValue());
+        assertEquals("application/pkix-cert", result.getHeaders().getContentType().toString());
+        assertEquals("gzip", result.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(Collections.singletonList(HttpHeaders.ACCEPT_ENCODING), result.getHeaders().getVary());
+        assertArrayEquals(caCert.getContent(PublishedFile.Format.DER, true), result.getBody());
+        assertEquals("\"CAFE-der-gz\"", response.getHeader(HttpHeaders.ETAG));
     }
 
     @Test
-    public void testDownloadRevocationListForIOError() throws IOException {
-        doThrow(new IOException("TEST")).when(userDataService).certRevocationListAsResource();
+    public void testDownloadCaCertificate_notModified() {
+        given(caFilesService.findCaCertificate()).willReturn(caCert);
 
-        ResponseEntity<Resource> result = sut.downloadRevocationList();
+        ResponseEntity<byte[]> result = sut.downloadCaCert(request("\"CAFE-pem\"", null));
+        assertNotNull(result);
+        assertEquals(304, result.getStatusCodeValue());
+        assertNull(result.getBody());
+        assertEquals("max-age=86400, public", result.getHeaders().getCacheControl());
+    }
+
+    @Test
+    public void testDownloadRevocationListForMissingFile() {
+        ResponseEntity<byte[]> result = sut.downloadRevocationList(request(null, null));
         assertNotNull(result);
         assertEquals(500, result.getStatusCodeValue());
 
-        verify(userDataService, times(1)).certRevocationListAsResource();
+        verify(caFilesService, times(1)).findCertRevocationList();
     }
 
     @Test
-    public void testDownloadRevocationList() throws IOException {
+    public void testDownloadRevocationList() {
         String expectedFileName = "list.crl";
-        Resource dummyResource = mock(Resource.class);
-
-        given(userDataService.certRevocationListAsResource()).willReturn(dummyResource);
+        given(caFilesService.findCertRevocationList()).willReturn(crl(null));
 
-        ResponseEntity<Resource> result = sut.downloadRevocationList();
+        ResponseEntity<byte[]> result = sut.downloadRevocationList(request(null, null));
         assertNotNull(result);
         assertEquals(200, result.getStatusCodeValue());
         assertNotNull(result.getHeaders());
         assertNotNull(result.getHeaders().getContentType());
         assertEquals("application/x-pem-file", result.getHeaders().getContentType().toString());
-        assertEquals(dummyResource, result.getBody());
+        assertArrayEquals("PEM".getBytes(), result.getBody());
         assertNotNull(result.getHeaders().getContentDisposition());
         assertEquals(expectedFileName, result.getHeaders().getContentDisposition().getFilename());
+        assertEquals("max-age=3600, public", result.getHeaders().getCacheControl());
+        assertEquals(Arrays.asList(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING), result.getHeaders().getVary());
+    }
+
+    @Test
+    public void testDownloadRevocationList_forDerAccepted() {
+        given(caFilesService.findCertRevocationList()).willReturn(crl(null));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/list.crl");
+        request.addHeader(HttpHeaders.ACCEPT, "application/pkix-crl, */*;q=0.8");
+
+        ResponseEntity<byte[]> result = sut.downloadRevocationList(new ServletWebRequest(request, response));
+        assertNotNull(result);
+        assertEquals("application/pkix-crl", result.getHeaders().getContentType().toString());
+        assertArrayEquals("DER".getBytes(), result.getBody());
+    }
+
+    @Test
+    public void testDownloadRevocationList_forDerNotAccepted() {
+        given(caFilesService.findCertRevocationList()).willReturn(crl(null));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/list.crl");
+        request.addHeader(HttpHeaders.ACCEPT, "application/pkix-crl;q=0, */*");
+
+        ResponseEntity<byte[]> result = sut.downloadRevocationList(new ServletWebRequest(request, response));
+        assertNotNull(result);
+        assertEquals("application/x-pem-file", result.getHeaders().getContentType().toString());
+        assertArrayEquals("PEM".getBytes(), result.getBody());
+    }
+
+    @Test
+    public void testDownloadRevocationList_forMalformedAccept() {
+        given(caFilesService.findCertRevocationList()).willReturn(crl(null));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/list.crl");
+        request.addHeader(HttpHeaders.ACCEPT, "NARF");
+
+        ResponseEntity<byte[]> result = sut.downloadRevocationList(new ServletWebRequest(request, response));
+        assertNotNull(result);
+        assertEquals(200, result.getStatusCodeValue());
+        assertEquals("application/x-pem-file", result.getHeaders().getContentType().toString());
+        assertArrayEquals("PEM".getBytes(), result.getBody());
+    }
+
+    @Test
+    public void testDownloadRevocationList_forAcceptEncoding() {
+        given(caFilesService.findCertRevocationList()).willReturn(crl(null));
+
+        assertArrayEquals("PEM".getBytes(), sut.downloadRevocationList(request(null, "gzip;q=0, deflate")).getBody());
+        assertArrayEquals("PEM".getBytes(), sut.downloadRevocationList(request(null, "gzip;q=0, *")).getBody());
+        assertArrayEquals("PEM".getBytes(), sut.downloadRevocationList(request(null, "gzip;q=NARF")).getBody());
+        assertArrayEquals("PEM-GZ".getBytes(), sut.downloadRevocationList(request(null, "deflate, GZIP; q=0.5")).getBody());
+        assertArrayEquals("PEM-GZ".getBytes(), sut.downloadRevocationList(request(null, "*")).getBody());
+    }
+
+    @Test
+    public void testDownloadRevocationListPemAndDer() {
+        given(caFilesService.findCertRevocationList()).willReturn(crl(null));
+
+        ResponseEntity<byte[]> pem = sut.downloadRevocationListPem(request(null, null));
+        ResponseEntity<byte[]> der = sut.downloadRevocationListDer(request(null, null));
 
-        verify(userDataService, times(1)).certRevocationListAsResource();
+        assertArrayEquals("PEM".getBytes(), pem.getBody());
+        assertEquals("list.crl.pem", pem.getHeaders().getContentDisposition().getFilename());
+        assertArrayEquals("DER".getBytes(), der.getBody());
+        assertEquals("list.crl.der", der.getHeaders().getContentDisposition().getFilename());
+    }
+
+    @Test
+    public void testDownloadRevocationList_maxAgeLimitedByNextUpdate() {
+        given(caFilesService.findCertRevocationList()).willReturn(crl(Instant.now().plusSeconds(600)));
+
+        ResponseEntity<byte[]> result = sut.downloadRevocationList(request(null, null));
+        assertNotNull(result);
+        long maxAge = Long.parseLong(StringUtils.substringBetween(result.getHeaders().getCacheControl(), "max-age=", ","));
+        assertTrue(maxAge > 590 && maxAge <= 600);
+    }
+
+    @Test
+    public void testDownloadRevocationList_forOverdueNextUpdate() {
+        given(caFilesService.findCertRevocationList()).willReturn(crl(Instant.now().minusSeconds(600)));
+
+        ResponseEntity<byte[]> result = sut.downloadRevocationList(request(null, null));
+        assertNotNull(result);
+        assertEquals("max-age=0, public", result.getHeaders().getCacheControl());
+    }
+
+    @Test
+    public void testDownloadDeltaRevocationList_forNoDeltaCrlConfigured() {
+        ResponseEntity<byte[]> result = sut.downloadDeltaRevocationList(request(null, null));
+        assertNotNull(result);
+        assertEquals(404, result.getStatusCodeValue());
+
+        verifyNoInteractions(caFilesService);
+    }
+
+    @Test
+    public void testDownloadDeltaRevocationList() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.setDeltaCrlPath(Paths.get("/tmp/delta.crl"));
+        sut.setAppConfig(appConfig);
+        given(caFilesService.findDeltaCertRevocationList()).willReturn(crl(null));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/delta.crl");
+        request.addHeader(HttpHeaders.ACCEPT, "application/pkix-crl");
+
+        ResponseEntity<byte[]> result = sut.downloadDeltaRevocationList(new ServletWebRequest(request, response));
+        assertNotNull(result);
+        assertEquals(200, result.getStatusCodeValue());
+        assertEquals("application/pkix-crl", result.getHeaders().getContentType().toString());
+        assertEquals("delta.crl", result.getHeaders().getContentDisposition().getFilename());
+        assertArrayEquals("DER".getBytes(), result.getBody());
+    }
+
+    private PublishedFile crl(final Instant nextUpdate) {
+        return new PublishedFile.Builder()
+                .pem("PEM".getBytes())
+                .der("DER".getBytes())
+                .gzippedPem("PEM-GZ".getBytes())
+                .gzippedDer("DER-GZ".getBytes())
+                .fingerprint("BEEF")
+                .lastModified(1600000000000L)
+                .nextUpdate(nextUpdate)
+                .build();
+    }
+
+    private ServletWebRequest request(final String ifNoneMatch, final String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        if(ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        if(acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return new ServletWebRequest(request, response);
     }
 
     @Test
@@ -302,6 +487,35 @@ public class UIControllerTest {
         verify(notificationService, times(1)).sendNotificationAsync(mailSubject, mailText);
     }
 
+    @Test
+    public void testCsrFileForRateLimit() throws IOException {
+        String errorMessage = "Slow down!";
+        given(messageSource.getMessage(eq("user.request.rate.limit"), any(), eq(dummyLocale))).willReturn(errorMessage);
+        given(dummyFile.getOriginalFilename()).willReturn("user.csr.pem");
+        given(uploadLimitService.tryUpload(eq(expectedUID), any())).willReturn(UploadLimitService.Rejection.RATE_LIMITED);
+
+        String result = sut.csrFile(dummyFile, dummyLocale, redirectAttributes, auth);
+        assertEquals("redirect:/", result);
+
+        verify(userDataService, never()).saveUploadedCSR(any(), any(MultipartFile.class));
+        verify(redirectAttributes, times(1)).addFlashAttribute("errorMessage", errorMessage);
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    public void testCsrTextForTooManyPendingRequests() throws IOException, URISyntaxException {
+        String errorMessage = "Wait for the admins!";
+        given(messageSource.getMessage(eq("user.request.pending.limit"), eq(new Object[]{5}), eq(dummyLocale))).willReturn(errorMessage);
+        given(uploadLimitService.tryUpload(eq(expectedUID), any())).willReturn(UploadLimitService.Rejection.TOO_MANY_PENDING);
+
+        String result = sut.csrText(readValidDummyCSR(), dummyLocale, redirectAttributes, auth);
+        assertEquals("redirect:/", result);
+
+        verify(userDataService, never()).saveUploadedCSR(anyString(), anyString(), anyString());
+        verify(redirectAttributes, times(1)).addFlashAttribute("errorMessage", errorMessage);
+        verifyNoInteractions(notificationService);
+    }
+
     @Test
     public void testCsrTextForInvalidCSR() throws IOException {
         String dummyCsr = "NARF";
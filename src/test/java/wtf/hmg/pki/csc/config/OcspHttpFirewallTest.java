@@ -0,0 +1,98 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.config;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.security.web.DefaultSecurityFilterChain;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.firewall.RequestRejectedException;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import wtf.hmg.pki.csc.OcspController;
+import wtf.hmg.pki.csc.model.OcspResult;
+import wtf.hmg.pki.csc.service.OcspService;
+
+import java.net.URI;
+import java.util.Base64;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OcspHttpFirewallTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private OcspService ocspService;
+
+    private OcspResult dummyResult = new OcspResult.Builder().encoded("RESPONSE".getBytes()).build();
+
+    @Before
+    public void setUp() {
+        OcspController controller = new OcspController();
+        controller.setOcspService(ocspService);
+
+        FilterChainProxy filterChain = new FilterChainProxy(new DefaultSecurityFilterChain(AnyRequestMatcher.INSTANCE));
+        filterChain.setFirewall(new OcspHttpFirewall());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).addFilters(filterChain).build();
+    }
+
+    @Test
+    public void testOcspGet_withEncodedSlash() throws Exception {
+        // base64 of the request is "MPv/Pg=="
+        byte[] request = new byte[]{0x30, (byte) 0xfb, (byte) 0xff, 0x3e};
+        given(ocspService.respond(request)).willReturn(dummyResult);
+
+        mockMvc.perform(get(URI.create("/ocsp/MPv%2FPg%3D%3D")))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("RESPONSE".getBytes()));
+    }
+
+    @Test
+    public void testOcspGet_withDoubleSlash() throws Exception {
+        byte[] request = new byte[]{0x30, 0x03, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff};
+        String encoded = Base64.getEncoder().encodeToString(request);
+        assertTrue(encoded.contains("//"));
+        given(ocspService.respond(request)).willReturn(dummyResult);
+
+        mockMvc.perform(get(URI.create("/ocsp/" + encoded.replace("=", "%3D"))))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("RESPONSE".getBytes()));
+    }
+
+    @Test(expected = RequestRejectedException.class)
+    public void testEncodedSlashOutsideOfOcsp() throws Exception {
+        mockMvc.perform(get(URI.create("/admin%2Fsign")));
+    }
+
+    @Test(expected = RequestRejectedException.class)
+    public void testDoubleSlashOutsideOfOcsp() throws Exception {
+        mockMvc.perform(get(URI.create("/admin//sign")));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.FileSystemUtils;
+import wtf.hmg.pki.csc.config.AppConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares clone time and disk usage of a full clone against a shallow, single-branch clone.
+ * Not part of the regular test-run - execute with: <code>mvn test -Dtest=CertRepoCloneBenchmark</code>
+ */
+public class CertRepoCloneBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(CertRepoCloneBenchmark.class);
+
+    private static final int COMMITS = 500;
+    private static final int FILES = 200;
+    private static final int ROUNDS = 5;
+
+    private static Path tempPath;
+    private static Path originRepo;
+
+    @BeforeClass
+    public static void init() throws IOException, GitAPIException {
+        tempPath = Files.createTempDirectory("csc-bench");
+        originRepo = tempPath.resolve("origin.git");
+        Path seedRepo = tempPath.resolve("seed");
+        Random random = new Random(42);
+
+        Git.init().setBare(true).setInitialBranch("master").setDirectory(originRepo.toFile()).call().close();
+        try(Git seed = Git.init().setInitialBranch("master").setDirectory(seedRepo.toFile()).call()) {
+            seed.remoteAdd().setName("origin").setUri(new URIish(originRepo.toUri().toURL())).call();
+            for(int i = 0; i < COMMITS; i++) {
+                // encrypted files are not compressible - so random content is a fair approximation
+                byte[] content = new byte[4096];
+                random.nextBytes(content);
+                Files.write(seedRepo.resolve("cert-" + (i % FILES) + ".crt.pem"), content);
+                seed.add().addFilepattern(".").call();
+                seed.commit().setMessage("commit " + i).call();
+            }
+            seed.push().setRemote("origin").add("master").call();
+
+            seed.checkout().setCreateBranch(true).setName("archive").call();
+            for(int i = 0; i < COMMITS / 5; i++) {
+                byte[] content = new byte[4096];
+                random.nextBytes(content);
+                Files.write(seedRepo.resolve("archive-" + i + ".crt.pem"), content);
+                seed.add().addFilepattern(".").call();
+                seed.commit().setMessage("archive " + i).call();
+            }
+            seed.push().setRemote("origin").add("archive").call();
+        }
+    }
+
+    @Test
+    public void compareFullAndShallowClone() throws IOException, GitAPIException {
+        Result full = benchmark(false);
+        Result shallow = benchmark(true);
+
+        log.info("full clone:    avg {} ms, {} KiB", full.avgMillis, full.diskUsage / 1024);
+        log.info("shallow clone: avg {} ms, {} KiB", shallow.avgMillis, shallow.diskUsage / 1024);
+
+        assertTrue(shallow.diskUsage < full.diskUsage);
+    }
+
+    private Result benchmark(final boolean shallow) throws IOException, GitAPIException {
+        Path storage = tempPath.resolve(shallow ? "storage-shallow" : "storage-full");
+        Files.createDirectories(storage);
+
+        AppConfig appConfig = new AppConfig();
+        appConfig.setStoragePath(storage);
+        appConfig.setCertRepo(originRepo.toUri().toString());
+        if(shallow) {
+            appConfig.setCertRepoBranch("master");
+            appConfig.setCertRepoShallow(true);
+        }
+
+        DefaultCertificateService sut = new DefaultCertificateService();
+        sut.setAppConfig(appConfig);
+        sut.setFilesService(new WrapperFilesService());
+        sut.setTransportConfigCallback(transport -> {});
+        sut.setMeterRegistry(new SimpleMeterRegistry());
+
+        long total = 0;
+        long diskUsage = 0;
+        for(int i = 0; i < ROUNDS; i++) {
+            sut.cleanupWorkingFiles();
+            long start = System.nanoTime();
+            Path repo = sut.cloneCertificateRepository();
+            total += System.nanoTime() - start;
+            diskUsage = FileUtils.sizeOfDirectory(repo.toFile());
+        }
+
+        return new Result(total / ROUNDS / 1_000_000, diskUsage);
+    }
+
+    private static class Result {
+        private final long avgMillis;
+        private final long diskUsage;
+
+        private Result(final long avgMillis, final long diskUsage) {
+            this.avgMillis = avgMillis;
+            this.diskUsage = diskUsage;
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(tempPath);
+    }
+}
@@ -24,28 +24,25 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.util.FileSystemUtils;
 import wtf.hmg.pki.csc.config.AppConfig;
 import wtf.hmg.pki.csc.model.CSR;
 import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.ListingPage;
+import wtf.hmg.pki.csc.model.ListingQuery;
 import wtf.hmg.pki.csc.service.FilesService;
-import wtf.hmg.pki.csc.util.CscUtilsTest;
-import wtf.hmg.pki.csc.util.SupportUtils;
+import wtf.hmg.pki.csc.service.InventoryService;
 
 import java.io.IOException;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
+import java.util.Collections;
 import java.util.List;
-import java.util.function.BiPredicate;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 
@@ -62,12 +59,7 @@ public class DefaultAdminDataServiceTest {
     private FilesService realFilesService;
     
     @Mock
-    private BasicFileAttributes attributes;
-    @Mock
-    private BasicFileAttributes invalidAttributes;
-    
-    @Captor
-    private ArgumentCaptor<BiPredicate<Path, BasicFileAttributes>> matcherCaptor;
+    private InventoryService inventoryService;
 
     @BeforeClass
     public static void init() throws IOException {
@@ -83,164 +75,52 @@ public class DefaultAdminDataServiceTest {
 
         sut = new DefaultAdminDataService();
         sut.setAppConfig(appConfig);
-        sut.setSupportUtils(new SupportUtils());
-    
-        given(attributes.isRegularFile()).willReturn(true);
-        given(invalidAttributes.isRegularFile()).willReturn(false);
+        sut.setInventoryService(inventoryService);
     }
 
     @Test
-    public void testFindSignedCertificateRequestsForIOError() throws IOException {
-        doThrow(new IOException("TEST")).when(filesService).find(any(Path.class), anyInt(), any());
-
-        sut.setFilesService(filesService);
-        List<CSR> result = sut.findSignedCertificateRequests();
-
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-
-        verify(filesService, times(1)).find(any(Path.class), eq(3), matcherCaptor.capture());
+    public void testFindPendingCertificateRequests() {
+        List<CSR> expected = Collections.singletonList(new CSR.Builder().userName("user1").build());
+        given(inventoryService.findPendingCertificateRequests()).willReturn(expected);
 
-        BiPredicate<Path, BasicFileAttributes> fileMatcher = matcherCaptor.getValue();
-        assertNotNull(fileMatcher);
-        testIsSignedCSRFile(fileMatcher);
-    }
+        List<CSR> result = sut.findPendingCertificateRequests();
 
-    /**
-     * Copy of {@link CscUtilsTest#testIsSignedCSRFile()}
-     * Because we can't check the type of a lambda-parameter - only its behaviour!
-     *
-     * @param fileMatcher
-     */
-    private void testIsSignedCSRFile(final BiPredicate<Path, BasicFileAttributes> fileMatcher) {
-        assertFalse(fileMatcher.test(Paths.get("/tmp/request.csr"), attributes));
-        assertTrue(fileMatcher.test(Paths.get("/tmp/accepted/request.csr"), attributes));
-        assertFalse(fileMatcher.test(Paths.get("/tmp/request.pem"), attributes));
-        assertTrue(fileMatcher.test(Paths.get("/tmp/accepted/request.pem"), attributes));
-        assertFalse(fileMatcher.test(Paths.get("/tmp/request.csr"), invalidAttributes));
-        assertFalse(fileMatcher.test(Paths.get("/tmp/request.invalid"), attributes));
+        assertSame(expected, result);
     }
 
     @Test
     public void testFindSignedCertificateRequests() {
-        int expectedCSRamount = 1;
+        List<CSR> expected = Collections.singletonList(new CSR.Builder().userName("user1").build());
+        given(inventoryService.findSignedCertificateRequests()).willReturn(expected);
 
-        sut.setFilesService(realFilesService);
         List<CSR> result = sut.findSignedCertificateRequests();
-        assertNotNull(result);
-        assertEquals(expectedCSRamount, result.size());
-
-        for(int i=0; i<expectedCSRamount; i++) {
-            assertNotNull(result.get(i));
-            assertNotNull(result.get(i).getUserName());
-            assertNotEquals("accepted", result.get(i).getUserName());
-            assertNotNull(result.get(i).getCsrFile());
-            assertNotNull(result.get(i).getLastModified());
-            assertNotNull(result.get(i).getLastRenewed());
-            assertTrue(Files.exists(result.get(i).getCsrFile()));
-            assertTrue(result.get(i).isRenewalRequested());
-        }
-    }
-    
-    
-    @Test
-    public void testFindRevokedCertificatesForIOError() throws IOException {
-        doThrow(new IOException("TEST")).when(filesService).find(any(Path.class), anyInt(), any());
-        
-        sut.setFilesService(filesService);
-        List<CertInfo> result = sut.findRevokedCertificates();
-        
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-        
-        verify(filesService, times(1)).find(any(Path.class), eq(3), matcherCaptor.capture());
-        
-        BiPredicate<Path, BasicFileAttributes> fileMatcher = matcherCaptor.getValue();
-        assertNotNull(fileMatcher);
-        testIsRevokedCertFile(fileMatcher);
-    }
-    
-    private void testIsRevokedCertFile(final BiPredicate<Path, BasicFileAttributes> fileMatcher) {
-        assertTrue(fileMatcher.test(Paths.get("/tmp/revoked/cert.crt.pem"), attributes));
-        assertTrue(fileMatcher.test(Paths.get("/tmp/revoked/cert.crt"), attributes));
-        
-        assertFalse(fileMatcher.test(Paths.get("/tmp/request.csr"), attributes));
-        assertFalse(fileMatcher.test(Paths.get("/tmp/revoked/cert.crt.pem"), invalidAttributes));
-        assertFalse(fileMatcher.test(Paths.get("/tmp/revoked/request.csr"), attributes));
+
+        assertSame(expected, result);
     }
-    
+
     @Test
     public void testFindRevokedCertificates() {
-        int expectedCertAmount = 1;
-        
-        sut.setFilesService(realFilesService);
-        List<CertInfo> result = sut.findRevokedCertificates();
-        assertNotNull(result);
-        assertEquals(expectedCertAmount, result.size());
-        
-        for(int i=0; i<expectedCertAmount; i++) {
-            assertNotNull(result.get(i));
-            assertNotNull(result.get(i).getUserName());
-            assertNotEquals("revoked", result.get(i).getUserName());
-            assertNotNull(result.get(i).getCertFile());
-            assertNotNull(result.get(i).getLastModified());
-            assertTrue(Files.exists(result.get(i).getCertFile()));
-        }
-    }
-    
-    @Test
-    public void testFindPendingCertificateRequestsForIOError() throws IOException {
-        doThrow(new IOException("TEST")).when(filesService).find(any(Path.class), anyInt(), any());
+        List<CertInfo> expected = Collections.singletonList(new CertInfo.Builder().userName("user1").build());
+        given(inventoryService.findRevokedCertificates()).willReturn(expected);
 
-        sut.setFilesService(filesService);
-        List<CSR> result = sut.findPendingCertificateRequests();
-
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-
-        verify(filesService, times(1)).find(any(Path.class), eq(2), matcherCaptor.capture());
-
-        BiPredicate<Path, BasicFileAttributes> fileMatcher = matcherCaptor.getValue();
-        assertNotNull(fileMatcher);
-        testIsValidCSRFile(fileMatcher);
-    }
+        List<CertInfo> result = sut.findRevokedCertificates();
 
-    /**
-     * Copy of {@link CscUtilsTest#testIsValidCSRFile()}
-     * Because we can't check the type of a lambda-parameter - only its behaviour!
-     *
-     * @param fileMatcher
-     */
-    private void testIsValidCSRFile(final BiPredicate<Path, BasicFileAttributes> fileMatcher) {
-        BasicFileAttributes attributes = mock(BasicFileAttributes.class);
-        BasicFileAttributes invalidAttributes = mock(BasicFileAttributes.class);
-
-        given(attributes.isRegularFile()).willReturn(true);
-        given(invalidAttributes.isRegularFile()).willReturn(false);
-
-        assertTrue(fileMatcher.test(Paths.get("/tmp/request.csr"), attributes));
-        assertTrue(fileMatcher.test(Paths.get("/tmp/request.csr.pem"), attributes));
-        assertTrue(fileMatcher.test(Paths.get("/tmp/request.pem"), attributes));
-        assertFalse(fileMatcher.test(Paths.get("/tmp/request.csr"), invalidAttributes));
-        assertFalse(fileMatcher.test(Paths.get("/tmp/request.invalid"), attributes));
+        assertSame(expected, result);
     }
 
     @Test
-    public void testFindPendingCertificateRequests() {
-        int expectedCSRamount = 3;
-
-        sut.setFilesService(realFilesService);
-        List<CSR> result = sut.findPendingCertificateRequests();
-        assertNotNull(result);
-        assertEquals(expectedCSRamount, result.size());
-
-        for(int i=0; i<expectedCSRamount; i++) {
-            assertNotNull(result.get(i));
-            assertNotNull(result.get(i).getUserName());
-            assertNotNull(result.get(i).getCsrFile());
-            assertNotNull(result.get(i).getLastModified());
-            assertTrue(Files.exists(result.get(i).getCsrFile()));
-        }
+    public void testFindPagedCertificateRequests() {
+        ListingQuery query = new ListingQuery.Builder().page(1).size(10).build();
+        ListingPage<CSR> expectedPending = new ListingPage<>(Collections.emptyList(), 1, 10, 12);
+        ListingPage<CSR> expectedSigned = new ListingPage<>(Collections.emptyList(), 0, 10, 3);
+        ListingPage<CertInfo> expectedRevoked = new ListingPage<>(Collections.emptyList(), 0, 10, 0);
+        given(inventoryService.findPendingCertificateRequests(query)).willReturn(expectedPending);
+        given(inventoryService.findSignedCertificateRequests(query)).willReturn(expectedSigned);
+        given(inventoryService.findRevokedCertificates(query)).willReturn(expectedRevoked);
+
+        assertSame(expectedPending, sut.findPendingCertificateRequests(query));
+        assertSame(expectedSigned, sut.findSignedCertificateRequests(query));
+        assertSame(expectedRevoked, sut.findRevokedCertificates(query));
     }
 
     @Test(expected = IOException.class)
@@ -265,6 +145,7 @@ public class DefaultAdminDataServiceTest {
 
         verify(filesService, times(1)).createDirectories(expectedTarget.getParent());
         verify(filesService, times(1)).move(expectedSource, expectedTarget, expectedOptions);
+        verify(inventoryService, times(1)).refreshUser(userName);
     }
 
     @Test(expected = IOException.class)
@@ -289,6 +170,7 @@ public class DefaultAdminDataServiceTest {
 
         verify(filesService, times(1)).createDirectories(expectedTarget.getParent());
         verify(filesService, times(1)).move(expectedSource, expectedTarget, expectedOptions);
+        verify(inventoryService, times(1)).refreshUser(userName);
     }
 
     @Test
@@ -353,6 +235,7 @@ public class DefaultAdminDataServiceTest {
         verify(filesService, times(1)).createDirectories(revokedUserPath);
         verify(filesService, times(1)).move(certFile, expectedCertTarget, expectedOptions);
         verify(filesService, times(1)).setLastModifiedTime(eq(expectedCertTarget), any(FileTime.class));
+        verify(inventoryService, times(1)).refreshUser(userName);
     }
     
     @Test(expected = IOException.class)
@@ -396,6 +279,7 @@ public class DefaultAdminDataServiceTest {
         verify(filesService, times(1)).createDirectories(revokedUserPath);
         verify(filesService, times(1)).move(certFile, expectedCertTarget, expectedOptions);
         verify(filesService, times(1)).setLastModifiedTime(eq(expectedCertTarget), any(FileTime.class));
+        verify(inventoryService, times(1)).refreshUser(userName);
     }
 
     @Test
@@ -410,6 +294,7 @@ public class DefaultAdminDataServiceTest {
         
         verify(filesService, times(1)).setLastModifiedTime(eq(expectedRenewFile), any(FileTime.class));
         verify(filesService, times(1)).deleteRecursively(expectedRequestFile);
+        verify(inventoryService, times(1)).refreshUser(userName);
     }
     
     @Test
@@ -423,6 +308,7 @@ public class DefaultAdminDataServiceTest {
         
         verify(filesService, times(1)).createFile(expectedRenewFile);
         verify(filesService, never()).deleteRecursively(any(Path.class));
+        verify(inventoryService, times(1)).refreshUser(userName);
     }
     
     @AfterClass
@@ -0,0 +1,164 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import wtf.hmg.pki.csc.model.AdminJob;
+import wtf.hmg.pki.csc.model.JobResult;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DefaultAdminJobServiceTest {
+
+    private DefaultAdminJobService sut;
+    private SimpleMeterRegistry meterRegistry;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sut = new DefaultAdminJobService();
+        sut.setMeterRegistry(meterRegistry);
+        sut.init();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        sut.shutdown();
+    }
+
+    @Test
+    public void testSubmit() throws InterruptedException {
+        AdminJob result = sut.submit("sign-operation", "Pinky",
+                () -> new JobResult.Builder().message("done").build());
+
+        assertNotNull(result.getId());
+        assertEquals(AdminJob.Status.QUEUED, result.getStatus());
+        assertEquals("Pinky", result.getOperatingUser());
+        assertNotNull(result.getSubmitted());
+
+        AdminJob finished = awaitJob(result.getId());
+        assertEquals(AdminJob.Status.SUCCEEDED, finished.getStatus());
+        assertEquals("done", finished.getResult().getMessage());
+        assertNotNull(finished.getStarted());
+        assertNotNull(finished.getFinished());
+        assertEquals(1, meterRegistry.timer("pki.adminjobs.wait").count());
+    }
+
+    @Test
+    public void testSubmitForFailingTask() throws InterruptedException {
+        AdminJob result = sut.submit("REVOKE-operation", "Pinky", () -> {
+            throw new IOException("TEST");
+        });
+
+        AdminJob finished = awaitJob(result.getId());
+        assertEquals(AdminJob.Status.FAILED, finished.getStatus());
+        assertTrue(finished.getResult().getErrorMessage().contains("REVOKE-operation"));
+        assertTrue(finished.getResult().getErrorMessage().contains("TEST"));
+    }
+
+    @Test
+    public void testSubmitForRuntimeError() throws InterruptedException {
+        AdminJob result = sut.submit("sign-operation", "Pinky", () -> {
+            throw new IllegalStateException("TEST");
+        });
+
+        assertEquals(AdminJob.Status.FAILED, awaitJob(result.getId()).getStatus());
+    }
+
+    @Test
+    public void testSubmitForPartialResult() throws InterruptedException {
+        AdminJob result = sut.submit("sign-operation", "Pinky",
+                () -> new JobResult.Builder().errorMessage("Only 1 of 2").build());
+
+        assertEquals(AdminJob.Status.FAILED, awaitJob(result.getId()).getStatus());
+    }
+
+    @Test
+    public void testJobsRunOneAfterAnother() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        List<Integer> concurrency = Collections.synchronizedList(new ArrayList<>());
+
+        AdminJob blocking = sut.submit("first", "Pinky", () -> {
+            concurrency.add(running.incrementAndGet());
+            started.countDown();
+            await(release);
+            running.decrementAndGet();
+            return new JobResult.Builder().build();
+        });
+        await(started);
+        List<AdminJob> queued = new ArrayList<>();
+        for(int i = 0; i < 3; i++) {
+            queued.add(sut.submit("next", "Brain", () -> {
+                concurrency.add(running.incrementAndGet());
+                running.decrementAndGet();
+                return new JobResult.Builder().build();
+            }));
+        }
+
+        assertEquals(3, sut.getQueueDepth());
+        assertEquals(3.0, meterRegistry.get("pki.adminjobs.queue").gauge().value(), 0.0);
+        assertEquals(AdminJob.Status.QUEUED, sut.findJob(queued.get(0).getId()).getStatus());
+
+        release.countDown();
+        for(AdminJob job : queued) {
+            assertEquals(AdminJob.Status.SUCCEEDED, awaitJob(job.getId()).getStatus());
+        }
+        assertEquals(AdminJob.Status.SUCCEEDED, sut.findJob(blocking.getId()).getStatus());
+        assertEquals(0, sut.getQueueDepth());
+        assertEquals(Collections.nCopies(4, 1), concurrency);
+    }
+
+    @Test
+    public void testFindJobForUnknownId() {
+        assertNull(sut.findJob("unknown"));
+    }
+
+    private void await(final CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private AdminJob awaitJob(final String jobId) throws InterruptedException {
+        for(int i = 0; i < 500; i++) {
+            AdminJob job = sut.findJob(jobId);
+            if(job.isDone()) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job " + jobId + " did not finish");
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileSystemUtils;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.PublishedFile;
+import wtf.hmg.pki.csc.service.CaFilesService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class DefaultCaFilesServiceTest {
+
+    private DefaultCaFilesService sut;
+
+    private Path tempPath;
+    private Path caCertFile;
+    private Path crlFile;
+
+    @Before
+    public void setUp() throws IOException, URISyntaxException {
+        tempPath = Files.createTempDirectory("csc");
+        caCertFile = Files.copy(resource("dummy.crt.pem"), tempPath.resolve(CaFilesService.CA_CERT_FILE));
+        crlFile = Files.copy(resource("dummy.crl.pem"), tempPath.resolve("list.crl"));
+
+        AppConfig appConfig = new AppConfig();
+        appConfig.setStoragePath(tempPath);
+        appConfig.setCertRevocationListPath(crlFile);
+
+        sut = new DefaultCaFilesService();
+        sut.setAppConfig(appConfig);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        sut.shutdown();
+        FileSystemUtils.deleteRecursively(tempPath);
+    }
+
+    @Test
+    public void testFindCaCertificate() throws Exception {
+        sut.reload();
+
+        PublishedFile result = sut.findCaCertificate();
+        assertNotNull(result);
+        assertEquals(Files.getLastModifiedTime(caCertFile).toMillis(), result.getLastModified());
+        assertNull(result.getNextUpdate());
+
+        X509Certificate fromPem = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(result.getContent(PublishedFile.Format.PEM, false)));
+        assertArrayEquals(fromPem.getEncoded(), result.getContent(PublishedFile.Format.DER, false));
+        assertTrue(new String(result.getContent(PublishedFile.Format.PEM, false), StandardCharsets.US_ASCII)
+                .startsWith("-----BEGIN CERTIFICATE-----"));
+    }
+
+    @Test
+    public void testFindCertRevocationList() throws Exception {
+        sut.reload();
+
+        PublishedFile result = sut.findCertRevocationList();
+        assertNotNull(result);
+        assertEquals(Instant.parse("2126-09-24T01:38:31Z"), result.getNextUpdate());
+        assertTrue(new String(result.getContent(PublishedFile.Format.PEM, false), StandardCharsets.US_ASCII)
+                .startsWith("-----BEGIN X509 CRL-----"));
+        assertArrayEquals(result.getContent(PublishedFile.Format.PEM, false), gunzip(result.getContent(PublishedFile.Format.PEM, true)));
+        assertArrayEquals(result.getContent(PublishedFile.Format.DER, false), gunzip(result.getContent(PublishedFile.Format.DER, true)));
+        assertEquals("\"" + result.getFingerprint() + "-der-gz\"", result.getETag(PublishedFile.Format.DER, true));
+    }
+
+    @Test
+    public void testFindDeltaCertRevocationList() throws IOException, URISyntaxException {
+        sut.reload();
+        assertNull(sut.findDeltaCertRevocationList());
+
+        AppConfig appConfig = new AppConfig();
+        appConfig.setStoragePath(tempPath);
+        appConfig.setCertRevocationListPath(crlFile);
+        appConfig.setDeltaCrlPath(Files.copy(resource("dummy.crl.pem"), tempPath.resolve("delta.crl")));
+        sut.setAppConfig(appConfig);
+        sut.reload();
+
+        PublishedFile result = sut.findDeltaCertRevocationList();
+        assertNotNull(result);
+        assertEquals(sut.findCertRevocationList().getFingerprint(), result.getFingerprint());
+    }
+
+    @Test
+    public void testReload_forUnchangedFile() {
+        sut.reload();
+        PublishedFile first = sut.findCertRevocationList();
+        sut.reload();
+
+        assertSame(first, sut.findCertRevocationList());
+    }
+
+    @Test
+    public void testReload_forChangedFile() throws IOException, URISyntaxException {
+        sut.reload();
+        PublishedFile first = sut.findCaCertificate();
+
+        Files.copy(resource("dummy.csr.pem"), caCertFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(caCertFile, FileTime.from(Instant.now().plusSeconds(60)));
+        sut.reload();
+
+        assertSame(first, sut.findCaCertificate());
+
+        Files.copy(resource("dummy.crt.pem"), caCertFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(caCertFile, FileTime.from(Instant.now().plusSeconds(120)));
+        sut.reload();
+
+        PublishedFile second = sut.findCaCertificate();
+        assertNotSame(first, second);
+        assertEquals(first.getFingerprint(), second.getFingerprint());
+        assertEquals(Files.getLastModifiedTime(caCertFile).toMillis(), second.getLastModified());
+    }
+
+    @Test
+    public void testReload_forInvalidFile() throws IOException {
+        Files.write(crlFile, "broken".getBytes());
+        sut.reload();
+
+        assertNull(sut.findCertRevocationList());
+        assertNotNull(sut.findCaCertificate());
+    }
+
+    @Test
+    public void testReload_forMissingFile() throws IOException {
+        Files.delete(caCertFile);
+        sut.reload();
+
+        assertNull(sut.findCaCertificate());
+        assertNotNull(sut.findCertRevocationList());
+    }
+
+    private static Path resource(final String name) throws URISyntaxException {
+        return Paths.get(ClassLoader.getSystemResource(name).toURI());
+    }
+
+    private static byte[] gunzip(final byte[] content) throws IOException {
+        try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileSystemUtils;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CertDetails;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.Assert.*;
+
+public class DefaultCertDetailsServiceTest {
+
+    private DefaultCertDetailsService sut;
+
+    private SimpleMeterRegistry meterRegistry;
+    private Path tempPath;
+    private Path certFile;
+
+    @Before
+    public void setUp() throws IOException, URISyntaxException {
+        tempPath = Files.createTempDirectory("csc");
+        certFile = Files.copy(Paths.get(ClassLoader.getSystemResource("dummy.crt.pem").toURI()), tempPath.resolve("user1.crt.pem"));
+
+        meterRegistry = new SimpleMeterRegistry();
+
+        sut = new DefaultCertDetailsService();
+        sut.setAppConfig(new AppConfig());
+        sut.setMeterRegistry(meterRegistry);
+        sut.init();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(tempPath);
+    }
+
+    @Test
+    public void testFindDetails() {
+        CertDetails result = sut.findDetails(certFile);
+
+        assertNotNull(result);
+        assertEquals("1003", result.getSerial());
+        assertEquals(Instant.parse("2022-03-05T09:09:53.00Z"), result.getNotAfter());
+        assertEquals(0, meterRegistry.get("pki.certcache.hits").counter().count(), 0);
+        assertEquals(1, meterRegistry.get("pki.certcache.misses").counter().count(), 0);
+    }
+
+    @Test
+    public void testFindDetailsForCachedFile() {
+        CertDetails first = sut.findDetails(certFile);
+        CertDetails second = sut.findDetails(certFile);
+
+        assertSame(first, second);
+        assertEquals(1, meterRegistry.get("pki.certcache.hits").counter().count(), 0);
+        assertEquals(1, meterRegistry.get("pki.certcache.misses").counter().count(), 0);
+    }
+
+    @Test
+    public void testFindDetailsForChangedFile() throws IOException {
+        CertDetails first = sut.findDetails(certFile);
+        Files.write(certFile, "DUMMY-CERT".getBytes());
+        Files.setLastModifiedTime(certFile, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+        CertDetails second = sut.findDetails(certFile);
+
+        assertNotNull(first);
+        assertNull(second);
+        assertEquals(2, meterRegistry.get("pki.certcache.misses").counter().count(), 0);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileSystemUtils;
+import wtf.hmg.pki.csc.config.AppConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.*;
+
+public class DefaultCertificateServiceIntegrationTest {
+
+    private DefaultCertificateService sut;
+
+    private AppConfig appConfig;
+    private Path tempPath;
+    private Path originRepo;
+    private Path seedRepo;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        tempPath = Files.createTempDirectory("csc-git");
+        originRepo = tempPath.resolve("origin.git");
+        seedRepo = tempPath.resolve("seed");
+        Files.createDirectories(tempPath.resolve("storage"));
+
+        initOriginRepository();
+
+        appConfig = new AppConfig();
+        appConfig.setStoragePath(tempPath.resolve("storage"));
+        appConfig.setCertRepo(originRepo.toUri().toString());
+
+        sut = new DefaultCertificateService();
+        sut.setAppConfig(appConfig);
+        sut.setFilesService(new WrapperFilesService());
+        sut.setTransportConfigCallback(transport -> {});
+        sut.setMeterRegistry(new SimpleMeterRegistry());
+    }
+
+    private void initOriginRepository() throws IOException, GitAPIException {
+        Git.init().setBare(true).setInitialBranch("master").setDirectory(originRepo.toFile()).call().close();
+
+        try(Git seed = Git.init().setInitialBranch("master").setDirectory(seedRepo.toFile()).call()) {
+            seed.remoteAdd().setName("origin").setUri(new URIish(originRepo.toUri().toURL())).call();
+            for(int i = 0; i < 5; i++) {
+                Files.write(seedRepo.resolve("index.txt"), ("V\t" + i + "\n").getBytes());
+                seed.add().addFilepattern(".").call();
+                seed.commit().setMessage("commit " + i).call();
+            }
+            seed.push().setRemote("origin").add("master").call();
+
+            seed.checkout().setCreateBranch(true).setName("other").call();
+            Files.write(seedRepo.resolve("other.txt"), "other".getBytes());
+            seed.add().addFilepattern(".").call();
+            seed.commit().setMessage("other branch").call();
+            seed.push().setRemote("origin").add("other").call();
+            seed.checkout().setName("master").call();
+        }
+    }
+
+    @Test
+    public void testShallowSingleBranchCloneAndPush() throws IOException, GitAPIException {
+        appConfig.setCertRepoBranch("master");
+        appConfig.setCertRepoShallow(true);
+
+        Path repo = sut.cloneCertificateRepository();
+
+        assertTrue(Files.isRegularFile(repo.resolve(".git/shallow")));
+        try(Git git = Git.open(repo.toFile())) {
+            assertEquals(1, StreamSupport.stream(git.log().call().spliterator(), false).count());
+            assertNull(git.getRepository().findRef(Constants.R_REMOTES + "origin/other"));
+        }
+
+        Files.write(repo.resolve("intermediate.crt.pem"), "DUMMY-CERT".getBytes());
+        sut.commitAndPushChanges("Pinky", "Signed User-Certificate");
+
+        try(Git origin = Git.open(originRepo.toFile()); RevWalk walk = new RevWalk(origin.getRepository())) {
+            ObjectId head = origin.getRepository().resolve(Constants.R_HEADS + "master");
+            RevCommit commit = walk.parseCommit(head);
+            assertEquals("Signed User-Certificate - done by: Pinky", commit.getFullMessage());
+            assertEquals(1, commit.getParentCount());
+            assertEquals("commit 4", walk.parseCommit(commit.getParent(0)).getFullMessage());
+        }
+    }
+
+    @Test
+    public void testPrepareCertificateRepositoryForPersistentWorkingCopy() throws IOException, GitAPIException {
+        appConfig.setCertRepoPersistent(true);
+        Path repo = sut.prepareCertificateRepository();
+
+        try(Git seed = Git.open(seedRepo.toFile())) {
+            Files.write(seedRepo.resolve("index.txt"), "V\tremote\n".getBytes());
+            seed.add().addFilepattern(".").call();
+            seed.commit().setMessage("remote change").call();
+            seed.push().setRemote("origin").add("master").call();
+        }
+        Files.write(repo.resolve("index.txt"), "V\tleftover\n".getBytes());
+        Files.write(repo.resolve("leftover.crt.pem.tmp"), "leftover".getBytes());
+        Path marker = repo.resolve(".git").resolve("marker");
+        Files.write(marker, "unchanged git-dir".getBytes());
+
+        assertEquals(repo, sut.prepareCertificateRepository());
+
+        assertTrue("working copy has been re-cloned", Files.exists(marker));
+        assertEquals("V\tremote\n", new String(Files.readAllBytes(repo.resolve("index.txt"))));
+        assertFalse(Files.exists(repo.resolve("leftover.crt.pem.tmp")));
+    }
+
+    @Test
+    public void testPrepareCertificateRepositoryForCorruptWorkingCopy() throws IOException, GitAPIException {
+        appConfig.setCertRepoPersistent(true);
+        Path repo = sut.prepareCertificateRepository();
+        FileSystemUtils.deleteRecursively(repo.resolve(".git"));
+
+        assertEquals(repo, sut.prepareCertificateRepository());
+
+        assertTrue(Files.isDirectory(repo.resolve(".git")));
+        assertEquals("V\t4\n", new String(Files.readAllBytes(repo.resolve("index.txt"))));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(tempPath);
+    }
+}
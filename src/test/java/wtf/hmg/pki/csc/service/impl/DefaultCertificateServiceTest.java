@@ -19,14 +19,18 @@
 */
 package wtf.hmg.pki.csc.service.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.eclipse.jgit.api.*;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Repository;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CryptSession;
+import wtf.hmg.pki.csc.model.WorkspaceOperation;
 import wtf.hmg.pki.csc.service.CryptService;
 import wtf.hmg.pki.csc.service.FilesService;
 import wtf.hmg.pki.csc.service.SharedAppService;
@@ -37,12 +41,21 @@ import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
@@ -63,6 +76,10 @@ public class DefaultCertificateServiceTest {
     private CryptService cryptService;
     @Mock
     private Git gitRepo;
+    @Mock
+    private Repository repository;
+
+    private SimpleMeterRegistry meterRegistry;
 
     private Path dummyStoragePath = Paths.get("/data/projects/csc");
     private String repoUrl = "ssh://git@git.company.repo:6666/prj/client-side-certs.git";
@@ -85,6 +102,9 @@ public class DefaultCertificateServiceTest {
         sut.setTransportConfigCallback(transportConfigCallback);
         sut.setFilesService(filesService);
         sut.setCryptService(cryptService);
+
+        meterRegistry = new SimpleMeterRegistry();
+        sut.setMeterRegistry(meterRegistry);
     }
 
     @Test
@@ -103,6 +123,145 @@ public class DefaultCertificateServiceTest {
         verify(cloneCommand, times(1)).setDirectory(expectedPath.toFile());
         verify(cloneCommand, times(1)).setTransportConfigCallback(transportConfigCallback);
         verify(cloneCommand, times(1)).call();
+        verify(cloneCommand, never()).setDepth(anyInt());
+        verify(cloneCommand, never()).setBranchesToClone(any());
+        assertEquals(1, meterRegistry.timer("pki.certrepo.clone", "shallow", "false").count());
+    }
+
+    @Test
+    public void testCloneCertificateRepositoryForShallowSingleBranch() throws GitAPIException {
+        appConfig.setCertRepoBranch("main");
+        appConfig.setCertRepoShallow(true);
+        givenCloneCommand();
+        given(cloneCommand.setBranch(anyString())).willReturn(cloneCommand);
+        given(cloneCommand.setCloneAllBranches(anyBoolean())).willReturn(cloneCommand);
+        given(cloneCommand.setBranchesToClone(any())).willReturn(cloneCommand);
+
+        sut.cloneCertificateRepository();
+
+        verify(cloneCommand, times(1)).setBranch("refs/heads/main");
+        verify(cloneCommand, times(1)).setCloneAllBranches(false);
+        verify(cloneCommand, times(1)).setBranchesToClone(Collections.singletonList("refs/heads/main"));
+        verify(cloneCommand, times(1)).setDepth(1);
+        verify(cloneCommand, times(1)).call();
+        assertEquals(1, meterRegistry.timer("pki.certrepo.clone", "shallow", "true").count());
+    }
+
+    @Test
+    public void testPrepareCertificateRepositoryForNonPersistentMode() throws IOException, GitAPIException {
+        Path expectedPath = dummyStoragePath.resolve("cert-repo");
+        given(filesService.exists(expectedPath)).willReturn(true);
+        givenCloneCommand();
+
+        Path repoPath = sut.prepareCertificateRepository();
+        assertEquals(expectedPath, repoPath);
+
+        verify(filesService, times(1)).deleteRecursively(expectedPath);
+        verify(cloneCommand, times(1)).call();
+        verify(gitRepo, never()).fetch();
+    }
+
+    @Test
+    public void testPrepareCertificateRepositoryForPersistentModeWithoutWorkingCopy() throws IOException, GitAPIException {
+        Path expectedPath = dummyStoragePath.resolve("cert-repo");
+        appConfig.setCertRepoPersistent(true);
+        given(filesService.exists(expectedPath)).willReturn(false);
+        givenCloneCommand();
+
+        Path repoPath = sut.prepareCertificateRepository();
+        assertEquals(expectedPath, repoPath);
+
+        verify(filesService, never()).deleteRecursively(any(Path.class));
+        verify(cloneCommand, times(1)).call();
+        verify(gitRepo, never()).fetch();
+    }
+
+    @Test
+    public void testPrepareCertificateRepositoryForPersistentMode() throws IOException, GitAPIException {
+        Path expectedPath = dummyStoragePath.resolve("cert-repo");
+        appConfig.setCertRepoPersistent(true);
+        given(filesService.exists(expectedPath)).willReturn(true);
+        FetchCommand fetchCommand = givenFetchCommand();
+        ResetCommand resetCommand = givenResetCommand();
+        CleanCommand cleanCommand = givenCleanCommand();
+
+        Path repoPath = sut.prepareCertificateRepository();
+        assertEquals(expectedPath, repoPath);
+
+        verify(fetchCommand, times(1)).setRemote("origin");
+        verify(fetchCommand, times(1)).setTransportConfigCallback(transportConfigCallback);
+        verify(fetchCommand, times(1)).call();
+        verify(resetCommand, times(1)).setMode(ResetCommand.ResetType.HARD);
+        verify(resetCommand, times(1)).setRef("refs/remotes/origin/master");
+        verify(resetCommand, times(1)).call();
+        verify(cleanCommand, times(1)).call();
+        verify(fetchCommand, never()).setDepth(anyInt());
+        verify(filesService, never()).deleteRecursively(any(Path.class));
+        verifyNoInteractions(cloneCommand);
+        assertEquals(1, meterRegistry.timer("pki.certrepo.fetch").count());
+    }
+
+    @Test
+    public void testUpdateCertificateRepositoryForShallowMode() throws IOException, GitAPIException {
+        appConfig.setCertRepoShallow(true);
+        FetchCommand fetchCommand = givenFetchCommand();
+        givenResetCommand();
+        givenCleanCommand();
+
+        sut.updateCertificateRepository();
+
+        verify(fetchCommand, times(1)).setDepth(1);
+        verify(fetchCommand, times(1)).call();
+    }
+
+    @Test
+    public void testPrepareCertificateRepositoryForCorruptWorkingCopy() throws IOException, GitAPIException {
+        Path expectedPath = dummyStoragePath.resolve("cert-repo");
+        appConfig.setCertRepoPersistent(true);
+        given(filesService.exists(expectedPath)).willReturn(true);
+        given(gitRepo.getRepository()).willReturn(repository);
+        given(repository.getBranch()).willThrow(new IOException("TEST"));
+        givenCloneCommand();
+
+        Path repoPath = sut.prepareCertificateRepository();
+        assertEquals(expectedPath, repoPath);
+
+        verify(gitRepo, never()).fetch();
+        verify(filesService, times(1)).deleteRecursively(expectedPath);
+        verify(cloneCommand, times(1)).call();
+    }
+
+    private void givenCloneCommand() {
+        given(cloneCommand.setURI(anyString())).willReturn(cloneCommand);
+        given(cloneCommand.setDirectory(any(File.class))).willReturn(cloneCommand);
+        given(cloneCommand.setTransportConfigCallback(any(TransportConfigCallback.class))).willReturn(cloneCommand);
+    }
+
+    private FetchCommand givenFetchCommand() throws IOException {
+        FetchCommand fetchCommand = mock(FetchCommand.class);
+        given(gitRepo.getRepository()).willReturn(repository);
+        given(repository.getBranch()).willReturn("master");
+        given(gitRepo.fetch()).willReturn(fetchCommand);
+        given(fetchCommand.setRemote(anyString())).willReturn(fetchCommand);
+        given(fetchCommand.setRemoveDeletedRefs(anyBoolean())).willReturn(fetchCommand);
+        given(fetchCommand.setTransportConfigCallback(any(TransportConfigCallback.class))).willReturn(fetchCommand);
+        return fetchCommand;
+    }
+
+    private ResetCommand givenResetCommand() {
+        ResetCommand resetCommand = mock(ResetCommand.class);
+        given(gitRepo.reset()).willReturn(resetCommand);
+        given(resetCommand.setMode(any(ResetCommand.ResetType.class))).willReturn(resetCommand);
+        given(resetCommand.setRef(anyString())).willReturn(resetCommand);
+        return resetCommand;
+    }
+
+    private CleanCommand givenCleanCommand() {
+        CleanCommand cleanCommand = mock(CleanCommand.class);
+        given(gitRepo.clean()).willReturn(cleanCommand);
+        given(cleanCommand.setCleanDirectories(anyBoolean())).willReturn(cleanCommand);
+        given(cleanCommand.setForce(anyBoolean())).willReturn(cleanCommand);
+        return cleanCommand;
     }
 
     @Test
@@ -129,7 +288,7 @@ public class DefaultCertificateServiceTest {
 
     @Test
     public void testDecryptWorkingFiles() throws IOException {
-        String dummyPassword = "NARF";
+        CryptSession dummySession = new CryptSession("NARF".toCharArray(), new byte[8], new byte[48]);
         Path expectedPath = dummyStoragePath.resolve("cert-repo");
         int expectedDepth = 4;
         List<Path> dummyFiles = Arrays.asList(expectedPath.resolve("ca.cert.pem"),
@@ -137,15 +296,15 @@ public class DefaultCertificateServiceTest {
 
         given(filesService.find(eq(expectedPath), eq(expectedDepth), any())).willReturn(dummyFiles.stream());
 
-        sut.decryptWorkingFiles(dummyPassword);
+        sut.decryptWorkingFiles(dummySession, WorkspaceOperation.SIGN);
 
         verify(filesService, times(1)).find(eq(expectedPath), eq(expectedDepth), any());
-        verify(cryptService, times(dummyFiles.size())).decryptFile(any(Path.class), eq(dummyPassword));
+        verify(cryptService, times(dummyFiles.size())).decryptFile(any(Path.class), eq(dummySession));
     }
 
     @Test
     public void testEncryptWorkingFiles() throws IOException {
-        String dummyPassword = "NARF";
+        CryptSession dummySession = new CryptSession("NARF".toCharArray(), new byte[8], new byte[48]);
         Path expectedPath = dummyStoragePath.resolve("cert-repo");
         int expectedDepth = 4;
         List<Path> dummyFiles = Arrays.asList(expectedPath.resolve("ca.cert.pem"),
@@ -153,10 +312,143 @@ public class DefaultCertificateServiceTest {
 
         given(filesService.find(eq(expectedPath), eq(expectedDepth), any())).willReturn(dummyFiles.stream());
 
-        sut.encryptWorkingFiles(dummyPassword);
+        sut.encryptWorkingFiles(dummySession);
 
         verify(filesService, times(1)).find(eq(expectedPath), eq(expectedDepth), any());
-        verify(cryptService, times(dummyFiles.size())).encryptFile(any(Path.class), eq(dummyPassword));
+        verify(cryptService, times(dummyFiles.size())).encryptFile(any(Path.class), eq(dummySession));
+    }
+
+    @Test
+    public void testDecryptWorkingFilesLazy() throws IOException {
+        CryptSession dummySession = new CryptSession("NARF".toCharArray(), new byte[8], new byte[48]);
+        Path expectedPath = dummyStoragePath.resolve("cert-repo");
+        Path opensslConfig = expectedPath.resolve("intermediate/openssl.cnf");
+        Path caKey = expectedPath.resolve("intermediate/private/intermediate.key.pem");
+        Path caCert = expectedPath.resolve("intermediate/certs/intermediate.cert.pem");
+        List<Path> otherFiles = Arrays.asList(expectedPath.resolve("certs/ca.cert.pem"),
+                expectedPath.resolve("private/ca.key.pem"), expectedPath.resolve("intermediate/certs/user1.crt.pem"));
+        List<Path> dummyFiles = new ArrayList<>(otherFiles);
+        dummyFiles.add(caKey);
+        dummyFiles.add(caCert);
+        appConfig.setCryptLazy(true);
+
+        given(filesService.exists(opensslConfig)).willReturn(true);
+        given(filesService.readAllBytes(opensslConfig)).willReturn(("[ ca ]\ndefault_ca = CA_default\n\n" +
+                "[ CA_default ]\ndir = intermediate\nprivate_key = $dir/private/intermediate.key.pem\n" +
+                "certificate = $dir/certs/intermediate.cert.pem\n").getBytes());
+        given(filesService.find(eq(expectedPath), eq(4), any())).willReturn(dummyFiles.stream());
+
+        sut.decryptWorkingFiles(dummySession, WorkspaceOperation.REVOKE);
+
+        verify(cryptService, times(1)).decryptFile(caKey, dummySession);
+        verify(cryptService, times(1)).decryptFile(caCert, dummySession);
+        verify(cryptService, times(2)).decryptFile(any(Path.class), eq(dummySession));
+        for(Path p : otherFiles) {
+            verify(cryptService, times(1)).keepEncrypted(p, dummySession);
+        }
+    }
+
+    @Test
+    public void testDecryptWorkingFilesLazyWithoutCaConfig() throws IOException {
+        CryptSession dummySession = new CryptSession("NARF".toCharArray(), new byte[8], new byte[48]);
+        Path expectedPath = dummyStoragePath.resolve("cert-repo");
+        Path opensslConfig = expectedPath.resolve("intermediate/openssl.cnf");
+        List<Path> dummyFiles = Arrays.asList(expectedPath.resolve("ca.cert.pem"),
+                expectedPath.resolve("intermediate/cert/intermediate.crt.pem"));
+        appConfig.setCryptLazy(true);
+
+        given(filesService.exists(opensslConfig)).willReturn(true);
+        given(filesService.readAllBytes(opensslConfig)).willReturn("[ CA_default ]\ndir = intermediate\n".getBytes());
+        given(filesService.find(eq(expectedPath), eq(4), any())).willReturn(dummyFiles.stream());
+
+        sut.decryptWorkingFiles(dummySession, WorkspaceOperation.SIGN);
+
+        verify(cryptService, times(dummyFiles.size())).decryptFile(any(Path.class), eq(dummySession));
+        verify(cryptService, never()).keepEncrypted(any(Path.class), any(CryptSession.class));
+    }
+
+    @Test
+    public void testDecryptWorkingFilesForError() throws IOException {
+        CryptSession dummySession = new CryptSession("NARF".toCharArray(), new byte[8], new byte[48]);
+        Path expectedPath = dummyStoragePath.resolve("cert-repo");
+        List<Path> dummyFiles = Arrays.asList(expectedPath.resolve("ca.cert.pem"),
+                expectedPath.resolve("intermediate/cert/intermediate.crt.pem"));
+
+        given(filesService.find(eq(expectedPath), eq(4), any())).willReturn(dummyFiles.stream());
+        given(filesService.exists(expectedPath)).willReturn(true);
+        doThrow(new IOException("TEST")).when(cryptService).decryptFile(dummyFiles.get(0), dummySession);
+
+        try {
+            sut.decryptWorkingFiles(dummySession, WorkspaceOperation.SIGN);
+            fail();
+        } catch (IOException e) {
+            assertEquals("TEST", e.getMessage());
+        }
+
+        verify(cryptService, never()).decryptFile(dummyFiles.get(1), dummySession);
+        verify(filesService, times(1)).deleteRecursively(expectedPath);
+    }
+
+    @Test
+    public void testEncryptWorkingFilesInParallel() throws IOException {
+        CryptSession dummySession = new CryptSession("NARF".toCharArray(), new byte[8], new byte[48]);
+        Path expectedPath = dummyStoragePath.resolve("cert-repo");
+        List<Path> dummyFiles = IntStream.range(0, 20).mapToObj(i -> expectedPath.resolve("certs/" + i + ".crt.pem"))
+                .collect(Collectors.toList());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        appConfig.setCryptParallelism(3);
+
+        given(filesService.find(eq(expectedPath), eq(4), any())).willReturn(dummyFiles.stream());
+        doAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            running.decrementAndGet();
+            return null;
+        }).when(cryptService).encryptFile(any(Path.class), eq(dummySession));
+
+        sut.encryptWorkingFiles(dummySession);
+
+        for(Path p : dummyFiles) {
+            verify(cryptService, times(1)).encryptFile(p, dummySession);
+        }
+        assertTrue(maxRunning.get() > 1);
+        assertTrue(maxRunning.get() <= 3);
+        verify(filesService, never()).deleteRecursively(any(Path.class));
+    }
+
+    @Test
+    public void testEncryptWorkingFilesInParallelForError() throws IOException {
+        CryptSession dummySession = new CryptSession("NARF".toCharArray(), new byte[8], new byte[48]);
+        Path expectedPath = dummyStoragePath.resolve("cert-repo");
+        List<Path> dummyFiles = IntStream.range(0, 20).mapToObj(i -> expectedPath.resolve("certs/" + i + ".crt.pem"))
+                .collect(Collectors.toList());
+        AtomicInteger running = new AtomicInteger();
+        appConfig.setCryptParallelism(4);
+
+        given(filesService.find(eq(expectedPath), eq(4), any())).willReturn(dummyFiles.stream());
+        given(filesService.exists(expectedPath)).willReturn(true);
+        doAnswer(invocation -> {
+            running.incrementAndGet();
+            Thread.sleep(10);
+            running.decrementAndGet();
+            return null;
+        }).when(cryptService).encryptFile(any(Path.class), eq(dummySession));
+        doThrow(new IllegalStateException("TEST")).when(cryptService).encryptFile(dummyFiles.get(2), dummySession);
+        given(filesService.deleteRecursively(expectedPath)).will(invocation -> {
+            assertEquals(0, running.get());
+            return true;
+        });
+
+        try {
+            sut.encryptWorkingFiles(dummySession);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("TEST", e.getMessage());
+        }
+
+        verify(filesService, times(1)).deleteRecursively(expectedPath);
+        verify(cryptService, atMost(dummyFiles.size() - 1)).encryptFile(any(Path.class), eq(dummySession));
     }
 
     @Test(expected = FileAlreadyExistsException.class)
@@ -210,6 +502,25 @@ public class DefaultCertificateServiceTest {
         verify(filesService, times(1)).copy(certFile, expectedTarget, StandardCopyOption.REPLACE_EXISTING);
     }
     
+    @Test
+    public void testRemoveCSRFromRepository() throws IOException {
+        String csrFileName = "user1.csr.pem";
+
+        sut.removeCSRFromRepository(csrFileName);
+
+        verify(filesService, times(1)).deleteIfExists(dummyStoragePath.resolve("cert-repo/intermediate/csr").resolve(csrFileName));
+    }
+
+    @Test
+    public void testRemoveCertificateFromUserDirectory() throws IOException {
+        String userName = "user1";
+        Path certFile = dummyStoragePath.resolve("cert-repo/intermediate/certs/user1.crt.pem");
+
+        sut.removeCertificateFromUserDirectory(userName, certFile);
+
+        verify(filesService, times(1)).deleteIfExists(dummyStoragePath.resolve("users").resolve(userName).resolve("certs").resolve("user1.crt.pem"));
+    }
+
     @Test
     public void testCopyCertificateToAppDirectory() throws IOException {
         String appName = "test-app";
@@ -19,22 +19,31 @@
 */
 package wtf.hmg.pki.csc.service.impl;
 
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.springframework.util.FileSystemUtils;
 import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CryptSession;
 import wtf.hmg.pki.csc.service.FilesService;
 import wtf.hmg.pki.csc.util.SupportUtils;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class DefaultCryptServiceIntegrationTest {
@@ -44,6 +53,7 @@ public class DefaultCryptServiceIntegrationTest {
     private String dummySalt = "CEED";
     private AppConfig appConfig;
     private FilesService filesService;
+    private List<CryptSession> openSessions = new ArrayList<>();
 
     private static Path tempStoragePath;
 
@@ -75,7 +85,7 @@ public class DefaultCryptServiceIntegrationTest {
         Files.copy(dummyEncFile, tempTarget);
         assertTrue(Files.exists(tempTarget));
 
-        sut.decryptFile(tempTarget, "NARF");
+        sut.decryptFile(tempTarget, session("NARF"));
 
         assertTrue(Files.exists(tempTarget));
         assertEquals(new String(Files.readAllBytes(tempTarget)), new String(Files.readAllBytes(dummyReferenceFile)));
@@ -90,12 +100,177 @@ public class DefaultCryptServiceIntegrationTest {
         Files.copy(dummyEncFile, tempTarget);
         assertTrue(Files.exists(tempTarget));
 
-        sut.encryptFile(tempTarget, "NARF");
+        sut.encryptFile(tempTarget, session("NARF"));
 
         assertTrue(Files.exists(tempTarget));
         assertEquals(new String(Files.readAllBytes(tempTarget)), new String(Files.readAllBytes(dummyReferenceFile)));
     }
 
+    @Test
+    public void testDecryptRealFileWithJavaEngine() throws URISyntaxException, IOException {
+        appConfig.setCryptEngine(AppConfig.CryptEngine.JAVA);
+        Path dummyReferenceFile = Paths.get(ClassLoader.getSystemResource("dummy.crt.pem").toURI());
+        Path tempTarget = copyToTemp("dummy.crt.encrypted.txt");
+
+        sut.decryptFile(tempTarget, session("NARF"));
+
+        assertArrayEquals(Files.readAllBytes(dummyReferenceFile), Files.readAllBytes(tempTarget));
+        assertFalse(Files.exists(tempStoragePath.resolve("dummy.crt.encrypted.txt.tmp")));
+    }
+
+    @Test
+    public void testDecryptRealFileWithSaltHeaderWithJavaEngine() throws URISyntaxException, IOException {
+        appConfig.setCryptEngine(AppConfig.CryptEngine.JAVA);
+        Path dummyReferenceFile = Paths.get(ClassLoader.getSystemResource("dummy.decrypted.txt").toURI());
+        Path tempTarget = copyToTemp("dummy.encrypted.salted.txt");
+
+        sut.decryptFile(tempTarget, session("NARF"));
+
+        assertArrayEquals(Files.readAllBytes(dummyReferenceFile), Files.readAllBytes(tempTarget));
+    }
+
+    @Test
+    public void testEncryptRealFileWithJavaEngine() throws URISyntaxException, IOException {
+        appConfig.setCryptEngine(AppConfig.CryptEngine.JAVA);
+        Path dummyReferenceFile = Paths.get(ClassLoader.getSystemResource("dummy.crt.encrypted.txt").toURI());
+        Path tempTarget = copyToTemp("dummy.crt.pem");
+
+        sut.encryptFile(tempTarget, session("NARF"));
+
+        assertArrayEquals(Files.readAllBytes(dummyReferenceFile), Files.readAllBytes(tempTarget));
+    }
+
+    @Test
+    public void testEncryptWithJavaEngineDecryptWithOpenssl() throws URISyntaxException, IOException {
+        Path dummyReferenceFile = Paths.get(ClassLoader.getSystemResource("dummy.crt.pem").toURI());
+        Path tempTarget = copyToTemp("dummy.crt.pem");
+
+        appConfig.setCryptEngine(AppConfig.CryptEngine.JAVA);
+        sut.encryptFile(tempTarget, session("NARF"));
+        appConfig.setCryptEngine(AppConfig.CryptEngine.OPENSSL);
+        sut.decryptFile(tempTarget, session("NARF"));
+
+        assertArrayEquals(Files.readAllBytes(dummyReferenceFile), Files.readAllBytes(tempTarget));
+    }
+
+    @Test
+    public void testEncryptWithOpensslDecryptWithJavaEngine() throws URISyntaxException, IOException {
+        Path dummyReferenceFile = Paths.get(ClassLoader.getSystemResource("dummy.crt.pem").toURI());
+        Path tempTarget = copyToTemp("dummy.crt.pem");
+
+        appConfig.setCryptEngine(AppConfig.CryptEngine.OPENSSL);
+        sut.encryptFile(tempTarget, session("NARF"));
+        appConfig.setCryptEngine(AppConfig.CryptEngine.JAVA);
+        sut.decryptFile(tempTarget, session("NARF"));
+
+        assertArrayEquals(Files.readAllBytes(dummyReferenceFile), Files.readAllBytes(tempTarget));
+    }
+
+    @Test
+    public void testUnchangedFileKeepsOriginalCiphertext() throws URISyntaxException, IOException {
+        Path dummyReferenceFile = Paths.get(ClassLoader.getSystemResource("dummy.encrypted.salted.txt").toURI());
+        Path tempTarget = copyToTemp("dummy.encrypted.salted.txt");
+
+        try (CryptSession session = sut.openSession("NARF")) {
+            sut.decryptFile(tempTarget, session);
+            sut.encryptFile(tempTarget, session);
+        }
+
+        // re-encrypting would have dropped the Salted__ header
+        assertArrayEquals(Files.readAllBytes(dummyReferenceFile), Files.readAllBytes(tempTarget));
+    }
+
+    @Test
+    public void testSignWithJavaEngineIsCompatibleWithOpenssl() throws URISyntaxException, IOException {
+        appConfig.setSigningEngine(AppConfig.SigningEngine.JAVA);
+        Path repo = createCertRepo();
+        Path csr = repo.resolve("intermediate/csr/dummy.csr.pem");
+        Files.copy(Paths.get(ClassLoader.getSystemResource("dummy.csr.pem").toURI()), csr);
+
+        Path result = sut.signCertificateRequest(csr, "ZORT");
+
+        assertEquals(repo.resolve("intermediate/certs/dummy.crt.pem"), result);
+        SupportUtils supportUtils = new SupportUtils();
+        supportUtils.runCommandLine("Verify certificate", "openssl", "verify",
+                "-CAfile", repo.resolve("intermediate/certs/intermediate.cert.pem").toString(), result.toString());
+
+        // the database written in-process must be usable by openssl itself
+        Files.copy(Paths.get("src/main/bash/revoke-cert.sh"), repo.resolve("revoke-cert.sh"));
+        assertTrue(repo.resolve("revoke-cert.sh").toFile().setExecutable(true));
+        sut.revokeCertificate(result, "ZORT");
+
+        List<String> index = Files.readAllLines(repo.resolve("intermediate/index.txt"));
+        assertEquals(1, index.size());
+        assertTrue(index.get(0).startsWith("R\t"));
+    }
+
+    @Test
+    public void testRevokeIssuesDeltaCrlReadableByOpenssl() throws URISyntaxException, IOException {
+        appConfig.setSigningEngine(AppConfig.SigningEngine.JAVA);
+        Path repo = createCertRepo();
+        Files.write(repo.resolve("intermediate/crlnumber"), "1000\n".getBytes());
+        Path csr = repo.resolve("intermediate/csr/dummy.csr.pem");
+        Files.copy(Paths.get(ClassLoader.getSystemResource("dummy.csr.pem").toURI()), csr);
+        Path cert = sut.signCertificateRequest(csr, "ZORT");
+
+        Path baseCrl = tempStoragePath.resolve("list.crl");
+        Path deltaCrl = tempStoragePath.resolve("delta.crl");
+        SupportUtils supportUtils = new SupportUtils();
+        supportUtils.runCommandLine("Create CRL", "bash", "-c", "cd " + repo + " && openssl ca -config intermediate/openssl.cnf " +
+                "-gencrl -crldays 7 -passin pass:ZORT -out " + baseCrl);
+        appConfig.setCertRevocationListPath(baseCrl);
+        appConfig.setDeltaCrlPath(deltaCrl);
+
+        Files.copy(Paths.get("src/main/bash/revoke-cert.sh"), repo.resolve("revoke-cert.sh"));
+        assertTrue(repo.resolve("revoke-cert.sh").toFile().setExecutable(true));
+        sut.revokeCertificate(cert, "ZORT");
+
+        Process p = supportUtils.runCommandLine("Verify delta CRL", "openssl", "crl", "-in", deltaCrl.toString(),
+                "-CAfile", repo.resolve("intermediate/certs/intermediate.cert.pem").toString(), "-noout", "-text");
+        String output = IOUtils.toString(p.getInputStream(), StandardCharsets.UTF_8);
+        assertTrue(output.contains("Delta CRL Indicator"));
+        assertTrue(output.contains("Serial Number: 1000"));
+        assertEquals("1002\n", new String(Files.readAllBytes(repo.resolve("intermediate/crlnumber"))));
+    }
+
+    private Path createCertRepo() throws URISyntaxException, IOException {
+        Path repo = tempStoragePath.resolve("cert-repo");
+        FileSystemUtils.deleteRecursively(repo);
+        Path intermediate = repo.resolve("intermediate");
+        for(String dir : new String[]{"private", "certs", "csr", "newcerts"}) {
+            Files.createDirectories(intermediate.resolve(dir));
+        }
+        Files.write(intermediate.resolve("index.txt"), new byte[0]);
+        Files.write(intermediate.resolve("serial"), "1000\n".getBytes());
+        Files.copy(Paths.get(ClassLoader.getSystemResource("dummy.openssl.cnf").toURI()), intermediate.resolve("openssl.cnf"));
+
+        new SupportUtils().runCommandLine("Create CA", "openssl", "req", "-x509", "-newkey", "rsa:2048",
+                "-keyout", intermediate.resolve("private/intermediate.key.pem").toString(), "-passout", "pass:ZORT",
+                "-subj", "/C=DE/O=HMG/CN=Test Intermediate", "-days", "30",
+                "-out", intermediate.resolve("certs/intermediate.cert.pem").toString());
+        return repo;
+    }
+
+    private CryptSession session(final String password) throws IOException {
+        CryptSession session = sut.openSession(password);
+        openSessions.add(session);
+        return session;
+    }
+
+    private Path copyToTemp(final String resource) throws URISyntaxException, IOException {
+        Path source = Paths.get(ClassLoader.getSystemResource(resource).toURI());
+        Path tempTarget = tempStoragePath.resolve(source.getFileName());
+
+        Files.copy(source, tempTarget, StandardCopyOption.REPLACE_EXISTING);
+        assertTrue(Files.exists(tempTarget));
+        return tempTarget;
+    }
+
+    @After
+    public void closeSessions() {
+        openSessions.forEach(CryptSession::close);
+    }
+
     @AfterClass
     public static void tearDown() throws IOException {
         FileSystemUtils.deleteRecursively(tempStoragePath);
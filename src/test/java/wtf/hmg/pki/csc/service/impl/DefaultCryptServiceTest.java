@@ -20,20 +20,25 @@
 package wtf.hmg.pki.csc.service.impl;
 
 import org.apache.commons.io.IOUtils;
+import org.bouncycastle.util.encoders.Hex;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CryptSession;
 import wtf.hmg.pki.csc.service.FilesService;
+import wtf.hmg.pki.csc.util.OpenSslCipher;
 import wtf.hmg.pki.csc.util.SupportUtils;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.Base64;
 
 import static org.junit.Assert.*;
 import static org.mockito.BDDMockito.given;
@@ -48,6 +53,8 @@ public class DefaultCryptServiceTest {
     private AppConfig appConfig;
     private Path dummyStoragePath = Paths.get("/data/projects/csc");
     private String dummySalt = "CEED";
+    private String dummyKey = "F3F404D5ABC2D888ADD1133ED9B3CCA77E4317369462D16FE70539643184E21D";
+    private String dummyIv = "D00113672386E8CE59518BECD6835719";
 
     @Mock
     private FilesService filesService;
@@ -68,16 +75,38 @@ public class DefaultCryptServiceTest {
         sut.setSupportUtils(supportUtils);
     }
 
+    @Test
+    public void testOpenSession() throws IOException {
+        CryptSession result = sut.openSession("NARF");
+
+        assertNotNull(result);
+        assertArrayEquals("NARF".toCharArray(), result.getPassword());
+        assertArrayEquals(OpenSslCipher.parseSalt(dummySalt), result.getSalt());
+        assertEquals(dummyKey + dummyIv, Hex.toHexString(result.getKeyAndIv()).toUpperCase());
+
+        byte[] keyAndIv = result.getKeyAndIv();
+        result.close();
+
+        assertTrue(result.isClosed());
+        assertArrayEquals(new byte[keyAndIv.length], keyAndIv);
+        try {
+            result.getKeyAndIv();
+            fail();
+        } catch (IllegalStateException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
     @Test
     public void testDecryptFileForExecutionError() throws IOException {
         Path input = dummyStoragePath.resolve("cert-repo/enc.pem");
         String expectedFilePath = input.toString();
-        String dummyPassword = "NARF";
 
+        given(filesService.readAllBytes(input)).willReturn("ZW5jcnlwdGVk\n".getBytes());
         doThrow(new IllegalStateException("TEST")).when(supportUtils).runCommandLine(anyString(), any());
 
-        try {
-            sut.decryptFile(input, dummyPassword);
+        try (CryptSession session = sut.openSession("NARF")) {
+            sut.decryptFile(input, session);
             fail();
         } catch (IllegalStateException e) {
             assertNotNull(e);
@@ -85,22 +114,46 @@ public class DefaultCryptServiceTest {
         }
         
         verify(supportUtils, times(1)).runCommandLine("Decrypting file",
-                "openssl", "enc", "-d", "-aes256", "-a", "-S", appConfig.getCryptSalt(), "-pbkdf2",
-                "-iter", "20000", "-pass", "pass:"+dummyPassword, "-in", expectedFilePath, "-out", expectedFilePath+".tmp");
-        verifyNoInteractions(filesService);
+                "openssl", "enc", "-d", "-aes256", "-a", "-K", dummyKey.toLowerCase(), "-iv", dummyIv.toLowerCase(),
+                "-in", expectedFilePath, "-out", expectedFilePath+".tmp");
+        verify(filesService, never()).move(any(Path.class), any(Path.class), any());
     }
 
     @Test
     public void testDecryptFile() throws IOException {
         Path input = dummyStoragePath.resolve("cert-repo/enc.pem");
         Path expectedOutput = dummyStoragePath.resolve("cert-repo/enc.pem.tmp");
-        String dummyPassword = "NARF";
 
-        sut.decryptFile(input, dummyPassword);
+        given(filesService.readAllBytes(input)).willReturn("ZW5jcnlwdGVk\n".getBytes());
+        given(filesService.readAllBytes(expectedOutput)).willReturn("plain".getBytes());
+
+        try (CryptSession session = sut.openSession("NARF")) {
+            sut.decryptFile(input, session);
+        }
+
+        verify(supportUtils, times(1))
+                .runCommandLine("Decrypting file","openssl", "enc", "-d", "-aes256", "-a",
+                        "-K", dummyKey.toLowerCase(), "-iv", dummyIv.toLowerCase(),
+                        "-in", input.toString(), "-out", input.toString() + ".tmp");
+        verify(filesService, times(1)).move(expectedOutput, input, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    public void testDecryptFileWithSaltHeader() throws IOException {
+        Path input = dummyStoragePath.resolve("cert-repo/enc.pem");
+        Path expectedOutput = dummyStoragePath.resolve("cert-repo/enc.pem.tmp");
+        byte[] salted = Base64.getMimeEncoder().encode("Salted__12345678data".getBytes());
+
+        given(filesService.readAllBytes(input)).willReturn(salted);
+        given(filesService.readAllBytes(expectedOutput)).willReturn("plain".getBytes());
+
+        try (CryptSession session = sut.openSession("NARF")) {
+            sut.decryptFile(input, session);
+        }
 
         verify(supportUtils, times(1))
-                .runCommandLine("Decrypting file","openssl", "enc", "-d", "-aes256", "-a", "-S", dummySalt, "-pbkdf2",
-                        "-iter", "20000", "-pass", "pass:"+dummyPassword, "-in", input.toString(), "-out", input.toString() + ".tmp");
+                .runCommandLine("Decrypting file","openssl", "enc", "-d", "-aes256", "-a", "-pbkdf2", "-iter", "20000",
+                        "-pass", "pass:NARF", "-in", input.toString(), "-out", input.toString() + ".tmp");
         verify(filesService, times(1)).move(expectedOutput, input, StandardCopyOption.REPLACE_EXISTING);
     }
 
@@ -108,16 +161,161 @@ public class DefaultCryptServiceTest {
     public void testEncryptFile() throws IOException {
         Path input = dummyStoragePath.resolve("cert-repo/enc.pem");
         Path expectedOutput = dummyStoragePath.resolve("cert-repo/enc.pem.tmp");
-        String dummyPassword = "NARF";
 
-        sut.encryptFile(input, dummyPassword);
+        given(filesService.readAllBytes(input)).willReturn("plain".getBytes());
+
+        try (CryptSession session = sut.openSession("NARF")) {
+            sut.encryptFile(input, session);
+        }
 
         verify(supportUtils, times(1))
-                .runCommandLine("Encrypting file","openssl", "enc", "-aes256", "-a", "-S", dummySalt, "-pbkdf2",
-                        "-iter", "20000", "-pass", "pass:"+dummyPassword, "-in", input.toString(), "-out", input.toString() + ".tmp");
+                .runCommandLine("Encrypting file","openssl", "enc", "-aes256", "-a",
+                        "-K", dummyKey.toLowerCase(), "-iv", dummyIv.toLowerCase(),
+                        "-in", input.toString(), "-out", input.toString() + ".tmp");
         verify(filesService, times(1)).move(expectedOutput, input, StandardCopyOption.REPLACE_EXISTING);
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void testEncryptFileForClosedSession() throws IOException {
+        CryptSession session = sut.openSession("NARF");
+        session.close();
+        given(filesService.readAllBytes(any(Path.class))).willReturn("plain".getBytes());
+
+        sut.encryptFile(dummyStoragePath.resolve("cert-repo/enc.pem"), session);
+    }
+
+    @Test
+    public void testEncryptFileForUnchangedFile() throws IOException {
+        Path input = dummyStoragePath.resolve("cert-repo/enc.pem");
+        Path expectedOutput = dummyStoragePath.resolve("cert-repo/enc.pem.tmp");
+        byte[] encrypted = "ZW5jcnlwdGVk\n".getBytes();
+        byte[] plain = "plain".getBytes();
+
+        given(filesService.readAllBytes(input)).willReturn(encrypted, plain);
+        given(filesService.readAllBytes(expectedOutput)).willReturn(plain);
+
+        try (CryptSession session = sut.openSession("NARF")) {
+            sut.decryptFile(input, session);
+            sut.encryptFile(input, session);
+        }
+
+        verify(supportUtils, times(1)).runCommandLine(eq("Decrypting file"), any());
+        verify(supportUtils, never()).runCommandLine(eq("Encrypting file"), any());
+        verify(filesService, times(1)).write(expectedOutput, encrypted);
+        verify(filesService, times(2)).move(expectedOutput, input, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    public void testEncryptFileForUntouchedEncryptedFile() throws IOException {
+        Path input = dummyStoragePath.resolve("cert-repo/private/ca.key.pem");
+        byte[] encrypted = "ZW5jcnlwdGVk\n".getBytes();
+
+        given(filesService.readAllBytes(input)).willReturn(encrypted);
+
+        try (CryptSession session = sut.openSession("NARF")) {
+            sut.keepEncrypted(input, session);
+            sut.encryptFile(input, session);
+        }
+
+        verify(filesService, never()).write(any(Path.class), any(byte[].class));
+        verify(filesService, never()).move(any(Path.class), any(Path.class), any());
+        verifyNoInteractions(supportUtils);
+    }
+
+    @Test
+    public void testEncryptFileForReplacedEncryptedFile() throws IOException {
+        Path input = dummyStoragePath.resolve("cert-repo/intermediate/csr/user1.csr.pem");
+        Path expectedOutput = dummyStoragePath.resolve("cert-repo/intermediate/csr/user1.csr.pem.tmp");
+
+        given(filesService.readAllBytes(input)).willReturn("ZW5jcnlwdGVk\n".getBytes(), "new plain csr".getBytes());
+
+        try (CryptSession session = sut.openSession("NARF")) {
+            sut.keepEncrypted(input, session);
+            sut.encryptFile(input, session);
+        }
+
+        verify(supportUtils, times(1)).runCommandLine(eq("Encrypting file"), any());
+        verify(filesService, times(1)).move(expectedOutput, input, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    public void testEncryptFileForChangedFile() throws IOException {
+        Path input = dummyStoragePath.resolve("cert-repo/index.txt");
+        Path expectedOutput = dummyStoragePath.resolve("cert-repo/index.txt.tmp");
+        byte[] keyAndIv = OpenSslCipher.deriveKeyAndIv("NARF", OpenSslCipher.parseSalt(dummySalt));
+        byte[] plain = "V\t1000\n".getBytes();
+        byte[] changed = "V\t1000\nV\t1001\n".getBytes();
+        appConfig.setCryptEngine(AppConfig.CryptEngine.JAVA);
+
+        given(filesService.readAllBytes(input)).willReturn(OpenSslCipher.encrypt(plain, keyAndIv), changed);
+
+        try (CryptSession session = sut.openSession("NARF")) {
+            sut.decryptFile(input, session);
+            sut.encryptFile(input, session);
+        }
+
+        verify(filesService, times(1)).write(expectedOutput, plain);
+        verify(filesService, times(1)).write(expectedOutput, OpenSslCipher.encrypt(changed, keyAndIv));
+    }
+
+    @Test
+    public void testDecryptFileWithJavaEngine() throws IOException {
+        Path input = dummyStoragePath.resolve("cert-repo/enc.pem");
+        Path expectedOutput = dummyStoragePath.resolve("cert-repo/enc.pem.tmp");
+        byte[] keyAndIv = OpenSslCipher.deriveKeyAndIv("NARF", OpenSslCipher.parseSalt(dummySalt));
+        byte[] plain = "dummy content".getBytes(StandardCharsets.UTF_8);
+        appConfig.setCryptEngine(AppConfig.CryptEngine.JAVA);
+
+        given(filesService.readAllBytes(input)).willReturn(OpenSslCipher.encrypt(plain, keyAndIv));
+
+        try (CryptSession session = sut.openSession("NARF")) {
+            sut.decryptFile(input, session);
+        }
+
+        verify(filesService, times(1)).write(expectedOutput, plain);
+        verify(filesService, times(1)).move(expectedOutput, input, StandardCopyOption.REPLACE_EXISTING);
+        verifyNoInteractions(supportUtils);
+    }
+
+    @Test
+    public void testDecryptFileWithJavaEngineForWrongPassword() throws IOException {
+        Path input = dummyStoragePath.resolve("cert-repo/enc.pem");
+        byte[] keyAndIv = OpenSslCipher.deriveKeyAndIv("NARF", OpenSslCipher.parseSalt(dummySalt));
+        appConfig.setCryptEngine(AppConfig.CryptEngine.JAVA);
+
+        given(filesService.readAllBytes(input)).willReturn(OpenSslCipher.encrypt("dummy".getBytes(), keyAndIv));
+
+        try (CryptSession session = sut.openSession("ZORT")) {
+            sut.decryptFile(input, session);
+            fail();
+        } catch (IOException e) {
+            assertNotNull(e.getMessage());
+        }
+
+        verify(filesService, never()).write(any(Path.class), any(byte[].class));
+        verify(filesService, never()).move(any(Path.class), any(Path.class), any());
+        verifyNoInteractions(supportUtils);
+    }
+
+    @Test
+    public void testEncryptFileWithJavaEngine() throws IOException {
+        Path input = dummyStoragePath.resolve("cert-repo/enc.pem");
+        Path expectedOutput = dummyStoragePath.resolve("cert-repo/enc.pem.tmp");
+        byte[] keyAndIv = OpenSslCipher.deriveKeyAndIv("NARF", OpenSslCipher.parseSalt(dummySalt));
+        byte[] plain = "dummy content".getBytes(StandardCharsets.UTF_8);
+        appConfig.setCryptEngine(AppConfig.CryptEngine.JAVA);
+
+        given(filesService.readAllBytes(input)).willReturn(plain);
+
+        try (CryptSession session = sut.openSession("NARF")) {
+            sut.encryptFile(input, session);
+        }
+
+        verify(filesService, times(1)).write(expectedOutput, OpenSslCipher.encrypt(plain, keyAndIv));
+        verify(filesService, times(1)).move(expectedOutput, input, StandardCopyOption.REPLACE_EXISTING);
+        verifyNoInteractions(supportUtils);
+    }
+
     @Test
     public void testSignCertificateRequest() throws IOException {
         Path script = dummyStoragePath.resolve("cert-repo/sign-csr.sh");
@@ -157,6 +355,22 @@ public class DefaultCryptServiceTest {
 
         verify(supportUtils, times(1)).runCommandLine("Revoke Certificate", script.toString(),
                 script.getParent().toString(), input.toString(), keyPassword);
+        verifyNoInteractions(filesService);
+    }
+
+    @Test
+    public void testRevokeCertificate_withDeltaCrlButNoBaseCrl() throws IOException {
+        Path script = dummyStoragePath.resolve("cert-repo/revoke-cert.sh");
+        Path input = dummyStoragePath.resolve("users/user1/certs/user1.crt.pem");
+        Path crl = dummyStoragePath.resolve("list.crl");
+        appConfig.setCertRevocationListPath(crl);
+        appConfig.setDeltaCrlPath(dummyStoragePath.resolve("delta.crl"));
+
+        sut.revokeCertificate(input, "NARF");
+
+        verify(supportUtils, times(1)).runCommandLine("Revoke Certificate", script.toString(),
+                script.getParent().toString(), input.toString(), "NARF");
+        verify(filesService, times(1)).exists(crl);
     }
 
 }
@@ -0,0 +1,166 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileSystemUtils;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CsrDetails;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.*;
+
+public class DefaultCsrDetailsServiceTest {
+
+    private DefaultCsrDetailsService sut;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AppConfig appConfig;
+    private Path tempPath;
+    private Path dummyCSR;
+    private Path dummySanCSR;
+
+    @Before
+    public void setUp() throws IOException, URISyntaxException {
+        tempPath = Files.createTempDirectory("csc");
+        dummyCSR = Paths.get(ClassLoader.getSystemResource("dummy.csr.pem").toURI());
+        dummySanCSR = Paths.get(ClassLoader.getSystemResource("dummy.san.csr.pem").toURI());
+
+        meterRegistry = new SimpleMeterRegistry();
+        appConfig = new AppConfig();
+
+        sut = new DefaultCsrDetailsService();
+        sut.setAppConfig(appConfig);
+        sut.setMeterRegistry(meterRegistry);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(tempPath);
+    }
+
+    @Test
+    public void testFindDetails() throws IOException {
+        Path csrFile = copy(dummyCSR, "user1.csr.pem");
+        sut.init();
+
+        CsrDetails result = sut.findDetails(csrFile);
+
+        assertNotNull(result);
+        assertEquals("C=DE,ST=NRW,L=Paradise City,O=Überflieger Company,OU=Test,CN=Postal Dude,E=postal.dude@invalid.email", result.getSubject());
+        assertEquals("RSA", result.getKeyAlgorithm());
+        assertEquals(4096, result.getKeySize());
+        assertEquals(0, hits(), 0);
+        assertEquals(1, misses(), 0);
+    }
+
+    @Test
+    public void testFindDetailsForCachedFile() throws IOException {
+        Path csrFile = copy(dummyCSR, "user1.csr.pem");
+        sut.init();
+
+        CsrDetails first = sut.findDetails(csrFile);
+        CsrDetails second = sut.findDetails(csrFile);
+
+        assertSame(first, second);
+        assertEquals(1, hits(), 0);
+        assertEquals(1, misses(), 0);
+        assertEquals(1, meterRegistry.get("pki.csrcache.size").gauge().value(), 0);
+    }
+
+    @Test
+    public void testFindDetailsForChangedFile() throws IOException {
+        Path csrFile = copy(dummyCSR, "user1.csr.pem");
+        FileTime lastModified = Files.getLastModifiedTime(csrFile);
+        sut.init();
+
+        CsrDetails first = sut.findDetails(csrFile);
+        Files.copy(dummySanCSR, csrFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(csrFile, FileTime.fromMillis(lastModified.toMillis() + 1000));
+        CsrDetails second = sut.findDetails(csrFile);
+
+        assertEquals("RSA", first.getKeyAlgorithm());
+        assertEquals("EC", second.getKeyAlgorithm());
+        assertEquals(0, hits(), 0);
+        assertEquals(2, misses(), 0);
+    }
+
+    @Test
+    public void testFindDetailsEvictsLeastRecentlyUsed() throws IOException {
+        Path csr1 = copy(dummyCSR, "user1.csr.pem");
+        Path csr2 = copy(dummyCSR, "user2.csr.pem");
+        Path csr3 = copy(dummySanCSR, "user3.csr.pem");
+        appConfig.setCsrCacheSize(2);
+        sut.init();
+
+        sut.findDetails(csr1);
+        sut.findDetails(csr2);
+        sut.findDetails(csr1);
+        sut.findDetails(csr3);
+        assertEquals(1, hits(), 0);
+        assertEquals(3, misses(), 0);
+
+        sut.findDetails(csr1);
+        assertEquals(2, hits(), 0);
+        sut.findDetails(csr2);
+        assertEquals(4, misses(), 0);
+    }
+
+    @Test
+    public void testFindDetailsForMissingFile() {
+        sut.init();
+
+        assertNull(sut.findDetails(tempPath.resolve("missing.csr.pem")));
+        assertEquals(0, meterRegistry.get("pki.csrcache.size").gauge().value(), 0);
+    }
+
+    @Test
+    public void testFindDetailsForInvalidFile() throws IOException {
+        Path csrFile = Files.write(tempPath.resolve("invalid.csr.pem"), "DUMMY-CSR".getBytes());
+        sut.init();
+
+        assertNull(sut.findDetails(csrFile));
+        assertNull(sut.findDetails(csrFile));
+        assertEquals(1, hits(), 0);
+        assertEquals(1, misses(), 0);
+    }
+
+    private Path copy(final Path source, final String fileName) throws IOException {
+        return Files.copy(source, tempPath.resolve(fileName));
+    }
+
+    private double hits() {
+        return meterRegistry.get("pki.csrcache.hits").counter().count();
+    }
+
+    private double misses() {
+        return meterRegistry.get("pki.csrcache.misses").counter().count();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.service.CsrRule;
+import wtf.hmg.pki.csc.util.CscUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultCsrPolicyServiceTest {
+
+    private DefaultCsrPolicyService sut;
+    private PKCS10CertificationRequest csr;
+
+    @Mock
+    private CsrRule firstRule;
+    @Mock
+    private CsrRule secondRule;
+
+    @Before
+    public void setUp() throws IOException {
+        sut = new DefaultCsrPolicyService();
+        sut.setRules(List.of(firstRule, secondRule));
+
+        try(InputStream in = ClassLoader.getSystemResourceAsStream("dummy.san.csr.pem")) {
+            csr = CscUtils.readCSR(in);
+        }
+    }
+
+    @Test
+    public void testFindViolationForCompliantRequest() {
+        assertNull(sut.findViolation("user1", csr));
+    }
+
+    @Test
+    public void testFindViolationStopsAtFirstViolation() {
+        given(firstRule.check(eq("user1"), eq(csr), any())).willReturn("NARF");
+
+        assertEquals("NARF", sut.findViolation("user1", csr));
+        verifyNoInteractions(secondRule);
+    }
+
+    @Test
+    public void testFindViolationWithDefaultRules() {
+        KeyCsrRule keyRule = new KeyCsrRule();
+        keyRule.setAppConfig(new AppConfig());
+        sut.setRules(List.of(keyRule, new SignatureCsrRule()));
+
+        assertNull(sut.findViolation("user1", csr));
+    }
+}
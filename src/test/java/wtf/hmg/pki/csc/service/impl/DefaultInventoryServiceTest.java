@@ -0,0 +1,307 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.util.FileSystemUtils;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CSR;
+import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.CsrDetails;
+import wtf.hmg.pki.csc.model.ListingPage;
+import wtf.hmg.pki.csc.model.ListingQuery;
+import wtf.hmg.pki.csc.service.CsrDetailsService;
+import wtf.hmg.pki.csc.service.FilesService;
+import wtf.hmg.pki.csc.service.SharedAppService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doThrow;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultInventoryServiceTest {
+
+    private DefaultInventoryService sut;
+
+    private Path dummyStoragePath;
+    private Path usersPath;
+
+    @Mock
+    private FilesService filesService;
+    @Mock
+    private CsrDetailsService csrDetailsService;
+
+    @Before
+    public void setUp() throws IOException {
+        dummyStoragePath = Files.createTempDirectory("csc");
+        usersPath = dummyStoragePath.resolve("users");
+        TestPathHelper.initDummyFileStructure(dummyStoragePath);
+
+        AppConfig appConfig = new AppConfig();
+        appConfig.setStoragePath(dummyStoragePath);
+        appConfig.setInventoryRescanInterval(Duration.ofHours(1));
+
+        sut = new DefaultInventoryService();
+        sut.setAppConfig(appConfig);
+        sut.setFilesService(new WrapperFilesService());
+        sut.setCsrDetailsService(csrDetailsService);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        sut.shutdown();
+        FileSystemUtils.deleteRecursively(dummyStoragePath);
+    }
+
+    @Test
+    public void testFindPendingCertificateRequests() {
+        int expectedCSRamount = 3;
+
+        sut.rescan();
+        List<CSR> result = sut.findPendingCertificateRequests();
+        assertNotNull(result);
+        assertEquals(expectedCSRamount, result.size());
+
+        for(int i=0; i<expectedCSRamount; i++) {
+            assertNotNull(result.get(i));
+            assertNotNull(result.get(i).getUserName());
+            assertNotNull(result.get(i).getCsrFile());
+            assertNotNull(result.get(i).getLastModified());
+            assertTrue(Files.exists(result.get(i).getCsrFile()));
+        }
+    }
+
+    @Test
+    public void testFindSignedCertificateRequests() {
+        Path csrFile = usersPath.resolve("user1/accepted/user1-ac.csr.pem");
+        given(csrDetailsService.findDetails(csrFile)).willReturn(new CsrDetails.Builder().subject("CN=Accepted").build());
+
+        sut.rescan();
+        List<CSR> result = sut.findSignedCertificateRequests();
+        assertNotNull(result);
+        assertEquals(1, result.size());
+
+        CSR csr = result.get(0);
+        assertEquals("user1", csr.getUserName());
+        assertEquals(csrFile, csr.getCsrFile());
+        assertEquals("CN=Accepted", csr.getCsrInfo());
+        assertNotNull(csr.getLastModified());
+        assertNotNull(csr.getLastRenewed());
+        assertTrue(csr.isRenewalRequested());
+    }
+
+    @Test
+    public void testFindRevokedCertificates() {
+        sut.rescan();
+        List<CertInfo> result = sut.findRevokedCertificates();
+        assertNotNull(result);
+        assertEquals(1, result.size());
+
+        CertInfo certInfo = result.get(0);
+        assertEquals("user1", certInfo.getUserName());
+        assertEquals(usersPath.resolve("user1/revoked/user1.crt.pem"), certInfo.getCertFile());
+        assertNotNull(certInfo.getLastModified());
+    }
+
+    @Test
+    public void testFindPendingCertificateRequestsPaged() {
+        ListingQuery query = new ListingQuery.Builder()
+                .size(2)
+                .sort(ListingQuery.SortField.USER)
+                .descending(false)
+                .build();
+
+        sut.rescan();
+        ListingPage<CSR> first = sut.findPendingCertificateRequests(query);
+        assertEquals(3, first.getTotalItems());
+        assertEquals(2, first.getTotalPages());
+        assertEquals(2, first.getItems().size());
+        assertEquals("user1", first.getItems().get(0).getUserName());
+        assertEquals("user2", first.getItems().get(1).getUserName());
+        assertFalse(first.hasPrevious());
+        assertTrue(first.hasNext());
+
+        ListingPage<CSR> second = sut.findPendingCertificateRequests(query.withPage(1));
+        assertEquals(1, second.getItems().size());
+        assertEquals("user3", second.getItems().get(0).getUserName());
+        assertTrue(second.hasPrevious());
+        assertFalse(second.hasNext());
+
+        ListingPage<CSR> beyond = sut.findPendingCertificateRequests(query.withPage(5));
+        assertEquals(1, beyond.getPage());
+        assertEquals("user3", beyond.getItems().get(0).getUserName());
+    }
+
+    @Test
+    public void testFindPendingCertificateRequestsFiltered() {
+        ListingQuery query = new ListingQuery.Builder().user("USER3").build();
+
+        sut.rescan();
+        ListingPage<CSR> result = sut.findPendingCertificateRequests(query);
+
+        assertEquals(1, result.getTotalItems());
+        assertEquals("user3", result.getItems().get(0).getUserName());
+    }
+
+    @Test
+    public void testFindRevokedCertificatesFilteredBySubject() {
+        sut.rescan();
+
+        assertEquals(1, sut.findRevokedCertificates(new ListingQuery.Builder().subject("user1.crt").build()).getTotalItems());
+        assertEquals(0, sut.findRevokedCertificates(new ListingQuery.Builder().subject("nobody").build()).getTotalItems());
+    }
+
+    @Test
+    public void testPagedListingFollowsInventoryChanges() throws IOException {
+        ListingQuery query = new ListingQuery.Builder().build();
+
+        sut.rescan();
+        assertEquals(3, sut.findPendingCertificateRequests(query).getTotalItems());
+
+        Files.write(usersPath.resolve("user0/user0.csr.pem"), "DUMMY-CSR".getBytes());
+        sut.refreshUser("user0");
+
+        assertEquals(4, sut.findPendingCertificateRequests(query).getTotalItems());
+    }
+
+    @Test
+    public void testRescanForIOError() throws IOException {
+        doThrow(new IOException("TEST")).when(filesService).walkFileTree(any(Path.class), anyInt(), any());
+
+        sut.setFilesService(filesService);
+        sut.rescan();
+
+        assertTrue(sut.findPendingCertificateRequests().isEmpty());
+        assertTrue(sut.findSignedCertificateRequests().isEmpty());
+        assertTrue(sut.findRevokedCertificates().isEmpty());
+        assertEquals(0, sut.getVersion());
+    }
+
+    @Test
+    public void testRescanForRemovedUser() throws IOException {
+        sut.rescan();
+        long version = sut.getVersion();
+
+        FileSystemUtils.deleteRecursively(usersPath.resolve("user3"));
+        sut.rescan();
+
+        assertEquals(2, sut.findPendingCertificateRequests().size());
+        assertTrue(sut.getVersion() > version);
+    }
+
+    @Test
+    public void testRefreshUser() throws IOException {
+        sut.rescan();
+        long version = sut.getVersion();
+
+        sut.refreshUser("user0");
+        assertEquals(version, sut.getVersion());
+
+        Files.write(usersPath.resolve("user0/user0.csr.pem"), "DUMMY-CSR".getBytes());
+        assertEquals(3, sut.findPendingCertificateRequests().size());
+
+        long user1Version = sut.getVersion("user1");
+        sut.refreshUser("user0");
+        assertEquals(4, sut.findPendingCertificateRequests().size());
+        assertEquals(version + 1, sut.getVersion());
+        assertEquals(version + 1, sut.getVersion("user0"));
+        assertEquals(user1Version, sut.getVersion("user1"));
+        assertEquals(0, sut.getVersion("userINVALID"));
+    }
+
+    @Test
+    public void testRefreshUserForAcceptedRequest() throws IOException {
+        sut.rescan();
+
+        Files.move(usersPath.resolve("user1/user1.csr.pem"), usersPath.resolve("user1/accepted/user1.csr.pem"));
+        sut.refreshUser("user1");
+
+        assertEquals(2, sut.findPendingCertificateRequests().size());
+        assertEquals(2, sut.findSignedCertificateRequests().size());
+    }
+
+    @Test
+    public void testRefreshSharedApps() throws IOException {
+        sut.rescan();
+        long version = sut.getVersion();
+
+        Path appFolder = dummyStoragePath.resolve(SharedAppService.SHARED_APPS_FOLDER).resolve("app");
+        Files.createDirectories(appFolder);
+        sut.refreshSharedApps();
+        long created = sut.getVersion();
+        assertTrue(created > version);
+
+        sut.refreshSharedApps();
+        assertEquals(created, sut.getVersion());
+
+        Files.write(appFolder.resolve("app.crt.pem"), "DUMMY-CERT".getBytes());
+        sut.rescan();
+        assertTrue(sut.getVersion() > created);
+    }
+
+    @Test
+    public void testWatcherUpdatesInventory() throws Exception {
+        sut.init();
+        assertEquals(3, sut.findPendingCertificateRequests().size());
+
+        Files.write(usersPath.resolve("user0/user0.csr.pem"), "DUMMY-CSR".getBytes());
+        assertTrue(waitFor(() -> sut.findPendingCertificateRequests().size() == 4));
+
+        Files.createDirectories(usersPath.resolve("user4/revoked"));
+        Files.write(usersPath.resolve("user4/revoked/user4.crt.pem"), "DUMMY-CERT".getBytes());
+        assertTrue(waitFor(() -> sut.findRevokedCertificates().size() == 2));
+    }
+
+    @Test
+    public void testWatcherUpdatesSharedAppsVersion() throws Exception {
+        Path appsFolder = dummyStoragePath.resolve(SharedAppService.SHARED_APPS_FOLDER);
+        Files.createDirectories(appsFolder.resolve("app"));
+        sut.init();
+        long version = sut.getVersion();
+
+        Files.write(appsFolder.resolve("app/app.crt.pem"), "DUMMY-CERT".getBytes());
+        assertTrue(waitFor(() -> sut.getVersion() > version));
+    }
+
+    private boolean waitFor(final BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30000;
+        while(System.currentTimeMillis() < deadline) {
+            if(condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+}
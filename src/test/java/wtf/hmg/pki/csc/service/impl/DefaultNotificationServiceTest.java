@@ -19,6 +19,7 @@
 */
 package wtf.hmg.pki.csc.service.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -26,12 +27,15 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.MessageSource;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import wtf.hmg.pki.csc.config.AppConfig;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 
 import static org.junit.Assert.*;
@@ -51,6 +55,8 @@ public class DefaultNotificationServiceTest {
 	private JavaMailSender javaMailSender;
 	@Mock
 	private ExecutorService executorService;
+	@Mock
+	private MessageSource messageSource;
 	@Captor
 	private ArgumentCaptor<SimpleMailMessage> mailMsgCaptor;
 	@Captor
@@ -58,13 +64,17 @@ public class DefaultNotificationServiceTest {
 	
 	private String dummySubject = "NARF";
 	private String dummyText = "ZORT";
+	private SimpleMeterRegistry meterRegistry;
 	
 	@Before
 	public void init() {
+		meterRegistry = new SimpleMeterRegistry();
 		sut = new DefaultNotificationService();
 		sut.setAppConfig(appConfig);
 		sut.setJavaMailSender(javaMailSender);
 		sut.setExecutorService(executorService);
+		sut.setMessageSource(messageSource);
+		sut.setMeterRegistry(meterRegistry);
 	}
 	
 	@Test
@@ -104,6 +114,7 @@ public class DefaultNotificationServiceTest {
 	
 	@Test
 	public void testSendAdminNotificationAsync() {
+		sut.init();
 		sut.sendNotificationAsync(dummySubject, dummyText);
 		
 		verify(executorService, times(1)).execute(executorCaptor.capture());
@@ -112,4 +123,51 @@ public class DefaultNotificationServiceTest {
 		assertNotNull(job);
 	}
 	
+	@Test
+	public void testSendNotificationAsync_digestFlushedOnShutdown() {
+		givenMailsEnabled();
+		given(appConfig.getNotificationDigestWindow()).willReturn(Duration.ofHours(1));
+		given(messageSource.getMessage("notification.digest.subject", new Object[]{3}, Locale.GERMAN)).willReturn("DIGEST");
+		sut.init();
+		
+		sut.sendNotificationAsync("S1", "T1");
+		sut.sendNotificationAsync("S2", "T2");
+		sut.sendNotificationAsync("S3", "T3");
+		verifyNoInteractions(javaMailSender, executorService);
+		
+		sut.shutdown();
+		
+		verify(javaMailSender, times(1)).send(mailMsgCaptor.capture());
+		SimpleMailMessage result = mailMsgCaptor.getValue();
+		assertEquals("DIGEST", result.getSubject());
+		assertEquals("S1\n\nT1\n\n----------\n\nS2\n\nT2\n\n----------\n\nS3\n\nT3", result.getText());
+		assertEquals(3, meterRegistry.counter("pki.notification.events").count(), 0);
+		assertEquals(2, meterRegistry.counter("pki.notification.coalesced").count(), 0);
+	}
+	
+	@Test
+	public void testSendNotificationAsync_singleNotificationAfterWindow() {
+		givenMailsEnabled();
+		given(appConfig.getNotificationDigestWindow()).willReturn(Duration.ofMillis(50));
+		sut.init();
+		
+		try {
+			sut.sendNotificationAsync(dummySubject, dummyText);
+			
+			verify(javaMailSender, timeout(5000).times(1)).send(mailMsgCaptor.capture());
+			assertEquals(dummySubject, mailMsgCaptor.getValue().getSubject());
+			assertEquals(dummyText, mailMsgCaptor.getValue().getText());
+			assertEquals(0, meterRegistry.counter("pki.notification.coalesced").count(), 0);
+		} finally {
+			sut.shutdown();
+		}
+		verifyNoMoreInteractions(javaMailSender);
+		verifyNoInteractions(messageSource);
+	}
+	
+	private void givenMailsEnabled() {
+		given(appConfig.isNotificationsEnabled()).willReturn(true);
+		given(appConfig.getNotificationSender()).willReturn("pinky@brain.narf");
+		given(appConfig.getNotificationRecipients()).willReturn(Collections.singletonList("brain@acme.zort"));
+	}
 }
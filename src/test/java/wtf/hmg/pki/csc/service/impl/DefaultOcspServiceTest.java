@@ -0,0 +1,285 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.CRLNumber;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.cert.ocsp.UnknownStatus;
+import org.bouncycastle.openssl.jcajce.JcaPKCS8Generator;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.util.FileSystemUtils;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CertDetails;
+import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.OcspResult;
+import wtf.hmg.pki.csc.model.PublishedFile;
+import wtf.hmg.pki.csc.service.CaFilesService;
+import wtf.hmg.pki.csc.service.CertDetailsService;
+import wtf.hmg.pki.csc.service.InventoryService;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.given;
+import static wtf.hmg.pki.csc.util.TestCertHelper.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultOcspServiceTest {
+
+    private static final X500Name CA_NAME = new X500Name("CN=Test Intermediate,O=HMG,C=DE");
+
+    private DefaultOcspService sut;
+
+    @Mock
+    private CaFilesService caFilesService;
+    @Mock
+    private InventoryService inventoryService;
+    @Mock
+    private CertDetailsService certDetailsService;
+
+    private AppConfig appConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private Path tempPath;
+    private KeyPair caKeyPair;
+    private X509CertificateHolder caCert;
+
+    @Before
+    public void setUp() throws Exception {
+        tempPath = Files.createTempDirectory("csc-ocsp");
+        caKeyPair = generateKeyPair();
+        caCert = createCaCertificate(CA_NAME, caKeyPair);
+        Files.write(tempPath.resolve("ocsp.cert.pem"), toPem(caCert));
+        Files.write(tempPath.resolve("ocsp.key.pem"), toPem(new JcaPKCS8Generator(caKeyPair.getPrivate(), null)));
+
+        appConfig = new AppConfig();
+        appConfig.setStoragePath(tempPath);
+        appConfig.setOcspSignerCertPath(tempPath.resolve("ocsp.cert.pem"));
+        appConfig.setOcspSignerKeyPath(tempPath.resolve("ocsp.key.pem"));
+        appConfig.setOcspRefreshInterval(Duration.ofHours(1));
+        meterRegistry = new SimpleMeterRegistry();
+
+        sut = new DefaultOcspService();
+        sut.setAppConfig(appConfig);
+        sut.setCaFilesService(caFilesService);
+        sut.setInventoryService(inventoryService);
+        sut.setCertDetailsService(certDetailsService);
+        sut.setMeterRegistry(meterRegistry);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        sut.shutdown();
+        FileSystemUtils.deleteRecursively(tempPath);
+    }
+
+    @Test
+    public void testRespond_withoutSigner() throws Exception {
+        appConfig.setOcspSignerKeyPath(null);
+        sut.init();
+
+        assertEquals(OCSPRespBuilder.UNAUTHORIZED, new OCSPResp(sut.respond(request(caCert, 0x1000)).getEncoded()).getStatus());
+    }
+
+    @Test
+    public void testRespond_forMalformedRequest() throws Exception {
+        givenCaCertificate();
+        sut.init();
+
+        assertEquals(OCSPRespBuilder.MALFORMED_REQUEST, new OCSPResp(sut.respond("NARF".getBytes()).getEncoded()).getStatus());
+    }
+
+    @Test
+    public void testRespond_forOtherIssuer() throws Exception {
+        givenCaCertificate();
+        sut.init();
+        X509CertificateHolder otherCa = new JcaX509v3CertificateBuilder(new X500Name("CN=Other"), BigInteger.ONE, new Date(),
+                Date.from(Instant.now().plus(1, ChronoUnit.DAYS)), new X500Name("CN=Other"), generateKeyPair().getPublic())
+                .build(new JcaContentSignerBuilder("SHA256withRSA").build(caKeyPair.getPrivate()));
+
+        assertEquals(OCSPRespBuilder.UNAUTHORIZED, new OCSPResp(sut.respond(request(otherCa, 0x1000)).getEncoded()).getStatus());
+    }
+
+    @Test
+    public void testRespond_fromDatabase() throws Exception {
+        givenCaCertificate();
+        givenDatabase("V\t300101000000Z\t\t1000\tunknown\t/CN=user1",
+                "R\t300101000000Z\t240102120000Z,keyCompromise\t1001\tunknown\t/CN=user2");
+        sut.init();
+
+        OcspResult good = sut.respond(request(caCert, 0x1000));
+        SingleResp goodResponse = singleResponse(good);
+        assertEquals(CertificateStatus.GOOD, goodResponse.getCertStatus());
+        assertEquals(BigInteger.valueOf(0x1000), goodResponse.getCertID().getSerialNumber());
+        assertEquals(good.getThisUpdate(), goodResponse.getThisUpdate().toInstant());
+        assertEquals(good.getNextUpdate(), goodResponse.getNextUpdate().toInstant());
+        assertEquals(Duration.ofHours(1), Duration.between(good.getThisUpdate(), good.getNextUpdate()));
+
+        RevokedStatus revoked = (RevokedStatus) singleResponse(sut.respond(request(caCert, 0x1001))).getCertStatus();
+        assertEquals(Instant.parse("2024-01-02T12:00:00Z"), revoked.getRevocationTime().toInstant());
+        assertEquals(CRLReason.keyCompromise, revoked.getRevocationReason());
+
+        assertTrue(singleResponse(sut.respond(request(caCert, 0x1002))).getCertStatus() instanceof UnknownStatus);
+    }
+
+    @Test
+    public void testRespond_withoutDatabase() throws Exception {
+        Path revokedCert = tempPath.resolve("user1.crt.pem");
+        Instant movedAt = Instant.parse("2024-02-01T08:00:00Z");
+        givenCaCertificate();
+        given(inventoryService.findRevokedCertificates()).willReturn(Collections.singletonList(
+                new CertInfo.Builder().certFile(revokedCert).userName("user1").lastModified(movedAt).build()));
+        given(certDetailsService.findDetails(revokedCert)).willReturn(new CertDetails.Builder().serial("1001").build());
+        given(caFilesService.findCertRevocationList()).willReturn(crl(BigInteger.valueOf(0x1003)));
+        sut.init();
+
+        assertEquals(OCSPRespBuilder.TRY_LATER, new OCSPResp(sut.respond(request(caCert, 0x1002)).getEncoded()).getStatus());
+        RevokedStatus fromFolder = (RevokedStatus) singleResponse(sut.respond(request(caCert, 0x1001))).getCertStatus();
+        assertEquals(movedAt, fromFolder.getRevocationTime().toInstant());
+        assertTrue(singleResponse(sut.respond(request(caCert, 0x1003))).getCertStatus() instanceof RevokedStatus);
+    }
+
+    @Test
+    public void testRespond_afterWorkingCopyIsGone() throws Exception {
+        givenCaCertificate();
+        givenDatabase("V\t300101000000Z\t\t1000\tunknown\t/CN=user1");
+        sut.init();
+
+        FileSystemUtils.deleteRecursively(tempPath.resolve("cert-repo"));
+        sut.refresh();
+
+        assertEquals(CertificateStatus.GOOD, singleResponse(sut.respond(request(caCert, 0x1000))).getCertStatus());
+        assertTrue(singleResponse(sut.respond(request(caCert, 0x1002))).getCertStatus() instanceof UnknownStatus);
+    }
+
+    @Test
+    public void testRespond_fromPreSignedResponse() throws Exception {
+        givenCaCertificate();
+        givenDatabase("V\t300101000000Z\t\t1000\tunknown\t/CN=user1");
+        sut.init();
+
+        OcspResult first = sut.respond(request(caCert, 0x1000));
+        OcspResult second = sut.respond(request(caCert, 0x1000));
+
+        assertSame(first, second);
+        assertEquals(2, meterRegistry.get("pki.ocspcache.hits").counter().count(), 0);
+        assertEquals(0, meterRegistry.get("pki.ocspcache.misses").counter().count(), 0);
+    }
+
+    @Test
+    public void testRespond_afterRevocation() throws Exception {
+        givenCaCertificate();
+        givenDatabase("V\t300101000000Z\t\t1000\tunknown\t/CN=user1");
+        sut.init();
+        OcspResult before = sut.respond(request(caCert, 0x1000));
+
+        givenDatabase("R\t300101000000Z\t240102120000Z\t1000\tunknown\t/CN=user1");
+        sut.refresh();
+        OcspResult after = sut.respond(request(caCert, 0x1000));
+
+        assertNotSame(before, after);
+        assertTrue(singleResponse(after).getCertStatus() instanceof RevokedStatus);
+    }
+
+    @Test
+    public void testRespond_forMultipleRequests() throws Exception {
+        givenCaCertificate();
+        sut.init();
+        byte[] request = new OCSPReqBuilder()
+                .addRequest(certificateId(caCert, 0x1000))
+                .addRequest(certificateId(caCert, 0x1001))
+                .build().getEncoded();
+
+        assertEquals(OCSPRespBuilder.MALFORMED_REQUEST, new OCSPResp(sut.respond(request).getEncoded()).getStatus());
+    }
+
+    private SingleResp singleResponse(final OcspResult result) throws Exception {
+        OCSPResp response = new OCSPResp(result.getEncoded());
+        assertEquals(OCSPRespBuilder.SUCCESSFUL, response.getStatus());
+        BasicOCSPResp basic = (BasicOCSPResp) response.getResponseObject();
+        assertTrue(basic.isSignatureValid(new JcaContentVerifierProviderBuilder().build(caKeyPair.getPublic())));
+        assertEquals(1, basic.getResponses().length);
+        return basic.getResponses()[0];
+    }
+
+    private void givenCaCertificate() throws IOException {
+        given(caFilesService.findCaCertificate()).willReturn(new PublishedFile.Builder().der(caCert.getEncoded()).build());
+    }
+
+    private void givenDatabase(final String... lines) throws IOException, URISyntaxException {
+        Path intermediate = tempPath.resolve("cert-repo/intermediate");
+        Files.createDirectories(intermediate);
+        if(!Files.exists(intermediate.resolve("openssl.cnf"))) {
+            Files.copy(Paths.get(ClassLoader.getSystemResource("dummy.openssl.cnf").toURI()), intermediate.resolve("openssl.cnf"));
+        }
+        Files.write(intermediate.resolve("index.txt"), (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PublishedFile crl(final BigInteger revoked) throws Exception {
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(CA_NAME, new Date());
+        builder.setNextUpdate(Date.from(Instant.now().plus(1, ChronoUnit.DAYS)));
+        builder.addExtension(Extension.cRLNumber, false, new CRLNumber(BigInteger.ONE));
+        builder.addCRLEntry(revoked, new Date(), CRLReason.superseded);
+        byte[] der = builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(caKeyPair.getPrivate())).getEncoded();
+        return new PublishedFile.Builder().der(der).build();
+    }
+
+    private byte[] request(final X509CertificateHolder issuer, final long serial) throws Exception {
+        return new OCSPReqBuilder().addRequest(certificateId(issuer, serial)).build().getEncoded();
+    }
+
+    private CertificateID certificateId(final X509CertificateHolder issuer, final long serial) throws Exception {
+        return new CertificateID(new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1),
+                issuer, BigInteger.valueOf(serial));
+    }
+}
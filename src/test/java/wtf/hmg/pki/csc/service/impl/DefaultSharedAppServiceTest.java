@@ -19,6 +19,7 @@
 */
 package wtf.hmg.pki.csc.service.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -30,7 +31,10 @@ import org.springframework.core.io.Resource;
 import org.springframework.util.FileSystemUtils;
 import wtf.hmg.pki.csc.config.AppConfig;
 import wtf.hmg.pki.csc.model.SharedApp;
+import wtf.hmg.pki.csc.service.CertDetailsService;
+import wtf.hmg.pki.csc.service.CsrDetailsService;
 import wtf.hmg.pki.csc.service.FilesService;
+import wtf.hmg.pki.csc.service.InventoryService;
 import wtf.hmg.pki.csc.service.SharedAppService;
 import wtf.hmg.pki.csc.util.SupportUtils;
 
@@ -72,6 +76,10 @@ public class DefaultSharedAppServiceTest {
 	private AppConfig appConfig;
 	@Mock
 	private FilesService filesService;
+	@Mock
+	private CsrDetailsService csrDetailsService;
+	@Mock
+	private InventoryService inventoryService;
 	private FilesService realFilesService;
 	
 	@BeforeClass
@@ -96,12 +104,23 @@ public class DefaultSharedAppServiceTest {
 		sut.setSupportUtils(supportUtils);
 		sut.setAppConfig(appConfig);
 		sut.setFilesService(filesService);
+		sut.setCsrDetailsService(csrDetailsService);
+		sut.setCertDetailsService(certDetailsService());
+		sut.setInventoryService(inventoryService);
 		
 		given(appConfig.getStoragePath()).willReturn(dummyStoragePath);
 		given(appConfig.getScriptsPath()).willReturn(dummyScriptsPath);
 		given(dummyStoragePath.resolve(SharedAppService.SHARED_APPS_FOLDER)).willReturn(dummyAppsPath);
 	}
 	
+	private CertDetailsService certDetailsService() {
+		DefaultCertDetailsService certDetailsService = new DefaultCertDetailsService();
+		certDetailsService.setAppConfig(new AppConfig());
+		certDetailsService.setMeterRegistry(new SimpleMeterRegistry());
+		certDetailsService.init();
+		return certDetailsService;
+	}
+	
 	@Test
 	public void testIsValidEMail() {
 		given(appConfig.getAllowedMailSuffixes()).willReturn(Arrays.asList("@company.localdomain", "@extern.company.localdomain"));
@@ -139,6 +158,7 @@ public class DefaultSharedAppServiceTest {
 		verify(dummyScriptsPath, times(1)).resolve("gen-app-key.sh");
 		verify(dummyStoragePath, times(1)).resolve(SharedAppService.SHARED_APPS_FOLDER);
 		verify(supportUtils, times(1)).runCommandLine(expectedDescription, expectedScript, expectedWorkDir, dummyName, dummyPassword);
+		verify(inventoryService, times(1)).refreshSharedApps();
 	}
 	
 	@Test
@@ -159,6 +179,7 @@ public class DefaultSharedAppServiceTest {
 		verify(dummyScriptsPath, times(1)).resolve("gen-app-csr.sh");
 		verify(dummyStoragePath, times(1)).resolve(SharedAppService.SHARED_APPS_FOLDER);
 		verify(supportUtils, times(1)).runCommandLine(expectedDescription, expectedScript, expectedWorkDir, dummyName, dummyPassword);
+		verify(inventoryService, times(1)).refreshSharedApps();
 	}
 	
 	@Test
@@ -310,6 +331,7 @@ public class DefaultSharedAppServiceTest {
 		verify(filesService, times(1)).deleteIfExists(expectedPath);
 		verify(supportUtils, times(1)).normalizeFileName(fileName);
 		verify(supportUtils, times(1)).normalizeFileName(appName);
+		verify(inventoryService, times(1)).refreshSharedApps();
 	}
 	
 	@Test
@@ -370,6 +392,7 @@ public class DefaultSharedAppServiceTest {
 		verify(filesService, never()).createFile(expectedPath);
 		verify(appConfig, times(1)).getStoragePath();
 		verify(supportUtils, times(2)).normalizeFileName(anyString());
+		verify(inventoryService, times(1)).refreshSharedApps();
 	}
 	
 	@Test
@@ -391,6 +414,7 @@ public class DefaultSharedAppServiceTest {
 		verify(filesService, times(1)).createFile(expectedPath);
 		verify(appConfig, times(1)).getStoragePath();
 		verify(supportUtils, times(2)).normalizeFileName(anyString());
+		verify(inventoryService, times(1)).refreshSharedApps();
 	}
 	
 	@Test
@@ -0,0 +1,231 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.UserDashboard;
+import wtf.hmg.pki.csc.service.UploadLimitService.Rejection;
+import wtf.hmg.pki.csc.service.UserDataService;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultUploadLimitServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T10:00:00Z");
+
+    private DefaultUploadLimitService sut;
+    private AppConfig appConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private final AtomicInteger saved = new AtomicInteger();
+
+    @Mock
+    private UserDataService userDataService;
+
+    @Before
+    public void setUp() {
+        appConfig = new AppConfig();
+        appConfig.setUploadBurst(2);
+        appConfig.setUploadRefillInterval(Duration.ofMinutes(5));
+        appConfig.setUploadMaxPendingCsrs(3);
+        meterRegistry = new SimpleMeterRegistry();
+
+        sut = new DefaultUploadLimitService();
+        sut.setAppConfig(appConfig);
+        sut.setUserDataService(userDataService);
+        sut.setMeterRegistry(meterRegistry);
+        sut.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        sut.init();
+    }
+
+    @Test
+    public void testTryUploadForBurst() throws IOException {
+        givenNoPendingRequests();
+        assertNull(upload("user1"));
+        assertNull(upload("user1"));
+        assertEquals(Rejection.RATE_LIMITED, upload("user1"));
+
+        // buckets are per user
+        assertNull(upload("user2"));
+        assertEquals(1, meterRegistry.counter("pki.upload.rejected", "reason", "rate-limit").count(), 0);
+    }
+
+    @Test
+    public void testTryUploadAfterRefill() throws IOException {
+        givenNoPendingRequests();
+        assertNull(upload("user1"));
+        assertNull(upload("user1"));
+
+        sut.setClock(Clock.fixed(NOW.plus(Duration.ofMinutes(4)), ZoneOffset.UTC));
+        assertEquals(Rejection.RATE_LIMITED, upload("user1"));
+
+        sut.setClock(Clock.fixed(NOW.plus(Duration.ofMinutes(5)), ZoneOffset.UTC));
+        assertNull(upload("user1"));
+        assertEquals(Rejection.RATE_LIMITED, upload("user1"));
+    }
+
+    @Test
+    public void testFullBucketsAreDropped() throws IOException {
+        givenNoPendingRequests();
+        assertNull(upload("user1"));
+        assertNull(upload("user2"));
+        assertNull(upload("user2"));
+
+        // user1 has refilled completely, user2 not yet
+        sut.setClock(Clock.fixed(NOW.plus(Duration.ofMinutes(5)), ZoneOffset.UTC));
+        assertNull(upload("user3"));
+
+        assertEquals(2, sut.getTrackedUsers());
+        assertNull(upload("user2"));
+        assertEquals(Rejection.RATE_LIMITED, upload("user2"));
+    }
+
+    @Test
+    public void testDrainedBucketIsKeptBelowTheCap() throws IOException {
+        givenNoPendingRequests();
+        assertNull(upload("user1"));
+        assertNull(upload("user1"));
+
+        for(int i = 0; i < 100; i++) {
+            assertNull(upload("other" + i));
+        }
+
+        assertEquals(Rejection.RATE_LIMITED, upload("user1"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedBucketIsDroppedAboveTheCap() throws IOException {
+        givenNoPendingRequests();
+        appConfig.setUploadMaxTrackedUsers(2);
+        sut.init();
+        assertNull(upload("user1"));
+        assertNull(upload("user1"));
+        assertNull(upload("user2"));
+        assertNull(upload("user3"));
+
+        assertEquals(2, sut.getTrackedUsers());
+        assertNull(upload("user1"));
+    }
+
+    @Test
+    public void testTryUploadForTooManyPendingRequests() throws IOException {
+        given(userDataService.findDashboardForUser("user1")).willReturn(new UserDashboard.Builder()
+                .csrs(List.of("a.csr.pem", "b.csr.pem", "c.csr.pem")).build());
+
+        assertEquals(Rejection.TOO_MANY_PENDING, upload("user1"));
+        assertEquals(1, meterRegistry.counter("pki.upload.rejected", "reason", "pending-limit").count(), 0);
+
+        // rejected uploads do not take tokens
+        appConfig.setUploadMaxPendingCsrs(0);
+        assertNull(upload("user1"));
+        assertNull(upload("user1"));
+    }
+
+    @Test
+    public void testTryUploadWithoutLimits() throws IOException {
+        appConfig.setUploadBurst(0);
+        appConfig.setUploadMaxPendingCsrs(0);
+
+        for(int i = 0; i < 10; i++) {
+            assertNull(upload("user1"));
+        }
+        verify(userDataService, never()).findDashboardForUser(anyString());
+    }
+
+    @Test
+    public void testFailedUploadGivesTokenBack() throws IOException {
+        givenNoPendingRequests();
+        try {
+            sut.tryUpload("user1", () -> {
+                throw new IOException("Invalid CSR File!");
+            });
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("Invalid CSR File!", e.getMessage());
+        }
+
+        assertNull(upload("user1"));
+        assertNull(upload("user1"));
+        assertEquals(Rejection.RATE_LIMITED, upload("user1"));
+        assertEquals(2, saved.get());
+    }
+
+    @Test
+    public void testPendingLimitHoldsForConcurrentUploads() throws Exception {
+        appConfig.setUploadBurst(100);
+        given(userDataService.findDashboardForUser("user1")).willAnswer(invocation -> new UserDashboard.Builder()
+                .csrs(Collections.nCopies(saved.get(), "x.csr.pem")).build());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Rejection>> results = new ArrayList<>();
+            for(int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> sut.tryUpload("user1", () -> {
+                    // widens the window between the check and the save
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+                    saved.incrementAndGet();
+                })));
+            }
+            int accepted = 0;
+            for(Future<Rejection> result : results) {
+                if(result.get(10, TimeUnit.SECONDS) == null) {
+                    accepted++;
+                }
+            }
+            assertEquals(3, accepted);
+            assertEquals(3, saved.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Rejection upload(final String userName) throws IOException {
+        return sut.tryUpload(userName, saved::incrementAndGet);
+    }
+
+    private void givenNoPendingRequests() {
+        given(userDataService.findDashboardForUser(anyString())).willReturn(new UserDashboard.Builder().build());
+    }
+}
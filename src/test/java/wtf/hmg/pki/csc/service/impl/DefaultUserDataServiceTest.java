@@ -19,6 +19,7 @@
 */
 package wtf.hmg.pki.csc.service.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -30,17 +31,25 @@ import org.springframework.core.io.Resource;
 import org.springframework.util.FileSystemUtils;
 import org.springframework.web.multipart.MultipartFile;
 import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CertDetails;
 import wtf.hmg.pki.csc.model.CertInfo;
+import wtf.hmg.pki.csc.model.UserDashboard;
+import wtf.hmg.pki.csc.service.CertDetailsService;
+import wtf.hmg.pki.csc.service.CsrPolicyService;
 import wtf.hmg.pki.csc.service.FilesService;
+import wtf.hmg.pki.csc.service.InventoryService;
 import wtf.hmg.pki.csc.util.SupportUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.FileTime;
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 import static org.mockito.BDDMockito.given;
@@ -54,11 +63,19 @@ public class DefaultUserDataServiceTest {
     private static Path dummyStoragePath;
     private Path dummyCRLPath;
     private AppConfig appConfig;
+    private SimpleMeterRegistry meterRegistry;
     
+    private FilesService realFilesService;
     @Mock
     private FilesService filesService;
     @Mock
     private SupportUtils supportUtils;
+    @Mock
+    private InventoryService inventoryService;
+    @Mock
+    private CertDetailsService certDetailsService;
+    @Mock
+    private CsrPolicyService csrPolicyService;
 
     @BeforeClass
     public static void init() throws IOException {
@@ -78,106 +95,82 @@ public class DefaultUserDataServiceTest {
         sut.setAppConfig(appConfig);
         sut.setFilesService(filesService);
         sut.setSupportUtils(supportUtils);
+        sut.setInventoryService(inventoryService);
+        sut.setCertDetailsService(certDetailsService);
+        sut.setCsrPolicyService(csrPolicyService);
+        meterRegistry = new SimpleMeterRegistry();
+        sut.setMeterRegistry(meterRegistry);
+        sut.init();
+        realFilesService = new WrapperFilesService();
     }
 
     @Test
-    public void testFindCertificateRequestsForUserWithoutAnyFiles() {
-        List<String> requests = sut.findCertificateRequestsForUser("user0");
-        assertNotNull(requests);
-        assertTrue(requests.isEmpty());
-    }
-
-    @Test
-    public void testFindCertificateRequestsForInvalidUser() {
-        List<String> requests = sut.findCertificateRequestsForUser("userInvalid");
-        assertNotNull(requests);
-        assertTrue(requests.isEmpty());
-    }
-
-    @Test
-    public void testFindCertificateRequestsForUserWithExistingRequest() {
-        List<String> requests = sut.findCertificateRequestsForUser("user1");
-        assertNotNull(requests);
-        assertFalse(requests.isEmpty());
-        assertEquals(1, requests.size());
-        assertNotNull(requests.get(0));
-        assertEquals("user1.csr.pem", requests.get(0));
+    public void testFindDashboardForInvalidUser() {
+        sut.setFilesService(realFilesService);
+        UserDashboard dashboard = sut.findDashboardForUser("userINVALID");
+        assertTrue(dashboard.getCsrs().isEmpty());
+        assertTrue(dashboard.getAcceptedCsrs().isEmpty());
+        assertTrue(dashboard.getRejectedCsrs().isEmpty());
+        assertTrue(dashboard.getCertificates().isEmpty());
     }
 
     @Test
-    public void testFindAcceptedCertificateRequestsForUserWithoutAnyFiles() {
-        List<String> requests = sut.findAcceptedCertificateRequestsForUser("user0");
-        assertNotNull(requests);
-        assertTrue(requests.isEmpty());
+    public void testFindDashboardForUserWithExistingFiles() {
+        sut.setFilesService(realFilesService);
+        Instant validTo = Instant.parse("2022-03-05T09:09:53.00Z");
+        given(certDetailsService.findDetails(dummyStoragePath.resolve("users/user1/certs/user1.crt.pem")))
+                .willReturn(new CertDetails.Builder().notAfter(validTo).build());
+
+        UserDashboard dashboard = sut.findDashboardForUser("user1");
+        assertEquals(List.of("user1.csr.pem"), dashboard.getCsrs());
+        assertEquals(List.of("user1-ac.csr.pem"), dashboard.getAcceptedCsrs());
+        assertEquals(List.of("user1-rc.csr.pem"), dashboard.getRejectedCsrs());
+        assertEquals(1, dashboard.getCertificates().size());
+
+        CertInfo cert = dashboard.getCertificates().get(0);
+        assertEquals("user1.crt.pem", cert.getCertFileName());
+        assertEquals("user1", cert.getUserName());
+        assertNotNull(cert.getLastModified());
+        assertTrue(cert.isRenewalRequested());
+        assertFalse(cert.isRenewed());
+        assertEquals(validTo, cert.getValidTo());
     }
 
     @Test
-    public void testFindAcceptedCertificateRequestsForInvalidUser() {
-        List<String> requests = sut.findAcceptedCertificateRequestsForUser("userINvalid");
-        assertNotNull(requests);
-        assertTrue(requests.isEmpty());
-    }
+    public void testFindDashboardForUnreadableUserFolder() throws IOException {
+        given(filesService.walkFileTree(any(Path.class), anyInt(), any())).willThrow(new IOException("TEST"));
 
-    @Test
-    public void testFindAcceptedCertificateRequestsForUserWithExistingRequest() {
-        List<String> requests = sut.findAcceptedCertificateRequestsForUser("user1");
-        assertNotNull(requests);
-        assertFalse(requests.isEmpty());
-        assertEquals(1, requests.size());
-        assertNotNull(requests.get(0));
-        assertEquals("user1-ac.csr.pem", requests.get(0));
+        UserDashboard dashboard = sut.findDashboardForUser("user1");
+        assertTrue(dashboard.getCsrs().isEmpty());
+        assertTrue(dashboard.getCertificates().isEmpty());
+        verify(filesService, times(1)).walkFileTree(eq(dummyStoragePath.resolve("users/user1")), eq(StorageWalker.USER_FOLDER_DEPTH), any());
     }
 
     @Test
-    public void testFindRejectedCertificateRequestsForUserWithoutAnyFiles() {
-        List<String> requests = sut.findRejectedCertificateRequestsForUser("user0");
-        assertNotNull(requests);
-        assertTrue(requests.isEmpty());
-    }
+    public void testFindDashboardForUserIsCachedUntilInventoryChanged() {
+        sut.setFilesService(realFilesService);
+        given(inventoryService.getVersion("user1")).willReturn(1L, 1L, 2L);
 
-    @Test
-    public void testFindRejectedCertificateRequestsForInvalidUser() {
-        List<String> requests = sut.findRejectedCertificateRequestsForUser("userINvalid");
-        assertNotNull(requests);
-        assertTrue(requests.isEmpty());
-    }
+        UserDashboard first = sut.findDashboardForUser("user1");
+        assertSame(first, sut.findDashboardForUser("user1"));
+        assertNotSame(first, sut.findDashboardForUser("user1"));
 
-    @Test
-    public void testFindRejectedCertificateRequestsForUserWithExistingRequest() {
-        List<String> requests = sut.findRejectedCertificateRequestsForUser("user1");
-        assertNotNull(requests);
-        assertFalse(requests.isEmpty());
-        assertEquals(1, requests.size());
-        assertNotNull(requests.get(0));
-        assertEquals("user1-rc.csr.pem", requests.get(0));
+        assertEquals(1, meterRegistry.counter("pki.dashboardcache.hits").count(), 0);
+        assertEquals(2, meterRegistry.counter("pki.dashboardcache.misses").count(), 0);
+        verify(certDetailsService, times(2)).findDetails(any(Path.class));
     }
 
     @Test
-    public void testFindCertificatesForUserWithoutAnyFiles() {
-        List<CertInfo> requests = sut.findCertificatesForUser("user0");
-        assertNotNull(requests);
-        assertTrue(requests.isEmpty());
-    }
+    public void testSaveUploadedCSRInvalidatesDashboard() throws IOException {
+        sut.setFilesService(realFilesService);
+        String userID = "user37";
+        String dummyCSRFileName = userID + ".csr.pem";
+        given(supportUtils.normalizeFileName(dummyCSRFileName)).willReturn(dummyCSRFileName);
 
-    @Test
-    public void testFindCertificatesForInvalidUser() {
-        List<CertInfo> requests = sut.findCertificatesForUser("userINVALID");
-        assertNotNull(requests);
-        assertTrue(requests.isEmpty());
-    }
+        assertTrue(sut.findDashboardForUser(userID).getCsrs().isEmpty());
+        sut.saveUploadedCSR(userID, dummyCSRFileName, readDummyCSR());
 
-    @Test
-    public void testFindCertificatesForUserWithExistingFiles() {
-        List<CertInfo> requests = sut.findCertificatesForUser("user1");
-        assertNotNull(requests);
-        assertFalse(requests.isEmpty());
-        assertEquals(1, requests.size());
-        assertNotNull(requests.get(0));
-        assertNotNull(requests.get(0).getCertFile());
-        assertEquals("user1.crt.pem", requests.get(0).getCertFile().getFileName().toString());
-        assertEquals("user1", requests.get(0).getUserName());
-        assertTrue(requests.get(0).isRenewalRequested());
-        assertFalse(requests.get(0).isRenewed());
+        assertEquals(List.of(dummyCSRFileName), sut.findDashboardForUser(userID).getCsrs());
     }
 
     @Test
@@ -224,30 +217,6 @@ public class DefaultUserDataServiceTest {
         verify(supportUtils, times(1)).normalizeFileName(dummyFilename);
     }
 
-    @Test
-    public void testCaCertificateAsResource() throws IOException {
-        String expectedFilename = "intermediate.cert.pem";
-
-        Resource resource = sut.caCertificateAsResource();
-        assertNotNull(resource);
-        assertEquals(expectedFilename, resource.getFilename());
-        assertTrue(resource.isFile());
-        assertTrue(resource.exists());
-        assertNotNull(resource.getFile());
-        assertEquals("DUMMY CA-CERT", new String(Files.readAllBytes(resource.getFile().toPath())));
-    }
-
-    @Test
-    public void testCertRevocationListAsResource() throws IOException {
-        Resource resource = sut.certRevocationListAsResource();
-        assertNotNull(resource);
-        assertEquals("dummy.revocation.list", resource.getFilename());
-        assertTrue(resource.isFile());
-        assertTrue(resource.exists());
-        assertNotNull(resource.getFile());
-        assertEquals("Dummy Certificate Revocation List", new String(Files.readAllBytes(resource.getFile().toPath())));
-    }
-
     @Test(expected = IOException.class)
     public void testSaveUplaodedCSRForExistingRequest() throws IOException, URISyntaxException {
         MultipartFile file = mock(MultipartFile.class);
@@ -255,20 +224,34 @@ public class DefaultUserDataServiceTest {
         String dummyFileName = "user1.csr.pem";
 
         given(file.getOriginalFilename()).willReturn(dummyFileName);
-        given(file.getBytes()).willReturn(Files.readAllBytes(dummyCSR));
+        given(file.getInputStream()).willReturn(Files.newInputStream(dummyCSR));
         given(supportUtils.normalizeFileName(dummyFileName)).willReturn(dummyFileName);
 
         sut.saveUploadedCSR("user1", file);
         fail("Expected Exception for existing request!");
     }
 
-    @Test(expected = IOException.class)
+    @Test
     public void testSaveUplaodedCSRForInvalidRequest() throws IOException {
         MultipartFile file = mock(MultipartFile.class);
-        given(file.getBytes()).willReturn("INVALID CSR".getBytes());
+        String fileName = "user38.csr.pem";
+        Path userDir = dummyStoragePath.resolve("users").resolve("user38");
 
-        sut.saveUploadedCSR("user1", file);
-        fail("Expected Exception for existing request!");
+        given(file.getOriginalFilename()).willReturn(fileName);
+        given(file.getInputStream()).willReturn(new ByteArrayInputStream("INVALID CSR".getBytes()));
+        given(supportUtils.normalizeFileName(fileName)).willReturn(fileName);
+
+        try {
+            sut.saveUploadedCSR("user38", file);
+            fail("Expected Exception for invalid request!");
+        } catch (IOException e) {
+            assertEquals("Invalid CSR File!", e.getMessage());
+        }
+
+        try(Stream<Path> files = Files.list(userDir)) {
+            assertEquals(0, files.count());
+        }
+        verify(inventoryService, never()).refreshUser(anyString());
     }
 
     @Test
@@ -281,16 +264,22 @@ public class DefaultUserDataServiceTest {
         Path userDir = dummyStoragePath.resolve("users").resolve(userID);
         Path csrPath = userDir.resolve(fileName);
 
-        given(file.getBytes()).willReturn(Files.readAllBytes(dummyCSR));
+        given(file.getInputStream()).willReturn(Files.newInputStream(dummyCSR));
         given(file.getOriginalFilename()).willReturn(fileName);
         given(supportUtils.normalizeFileName(anyString())).willReturn(fileName);
 
         sut.saveUploadedCSR(userID, file);
 
         assertTrue(Files.isDirectory(userDir));
+        assertArrayEquals(Files.readAllBytes(dummyCSR), Files.readAllBytes(csrPath));
+        try(Stream<Path> files = Files.list(userDir)) {
+            assertEquals(1, files.count());
+        }
         verify(file, atLeastOnce()).getOriginalFilename();
-        verify(file, times(1)).transferTo(csrPath);
+        verify(file, times(1)).getInputStream();
+        verify(file, never()).getBytes();
         verify(supportUtils, times(1)).normalizeFileName(fileName);
+        verify(inventoryService, times(1)).refreshUser(userID);
     }
 
     @Test(expected = IOException.class)
@@ -308,7 +297,7 @@ public class DefaultUserDataServiceTest {
     @Test
     public void testSaveUploadedCSRForTextDataNoExploit() throws IOException {
         String userID = "user36";
-        String dummyCSRData = "NARF";
+        String dummyCSRData = readDummyCSR();
         String dummyCSRFileName = userID + "-nox.csr.pem";
         String exploitFilename = "../" + dummyCSRFileName;
 
@@ -330,7 +319,7 @@ public class DefaultUserDataServiceTest {
     @Test
     public void testSaveUploadedCSRForTextData() throws IOException {
         String userID = "user36";
-        String dummyCSRData = "NARF";
+        String dummyCSRData = readDummyCSR();
         String dummyCSRFileName = userID + ".csr.pem";
 
         Path userDir = dummyStoragePath.resolve("users").resolve(userID);
@@ -343,14 +332,62 @@ public class DefaultUserDataServiceTest {
         assertTrue(Files.isDirectory(userDir));
         assertTrue(Files.isRegularFile(csrPath));
 
-        List<String> csrFile = Files.readAllLines(csrPath);
-        assertNotNull(csrFile);
-        assertEquals(1, csrFile.size());
-        assertEquals(dummyCSRData, csrFile.get(0));
+        assertEquals(dummyCSRData, Files.readString(csrPath));
+        verify(inventoryService, times(1)).refreshUser(userID);
         
         verify(supportUtils, times(1)).normalizeFileName(dummyCSRFileName);
     }
 
+    @Test
+    public void testSaveUploadedCSRForInvalidTextData() throws IOException {
+        String userID = "user39";
+        String dummyCSRFileName = userID + ".csr.pem";
+        Path userDir = dummyStoragePath.resolve("users").resolve(userID);
+
+        given(supportUtils.normalizeFileName(dummyCSRFileName)).willReturn(dummyCSRFileName);
+
+        try {
+            sut.saveUploadedCSR(userID, dummyCSRFileName, "NARF");
+            fail("Expected Exception for invalid request!");
+        } catch (IOException e) {
+            assertEquals("Invalid CSR File!", e.getMessage());
+        }
+
+        try(Stream<Path> files = Files.list(userDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testSaveUploadedCSRForPolicyViolation() throws IOException {
+        String userID = "user40";
+        String dummyCSRFileName = userID + ".csr.pem";
+        Path userDir = dummyStoragePath.resolve("users").resolve(userID);
+
+        given(supportUtils.normalizeFileName(dummyCSRFileName)).willReturn(dummyCSRFileName);
+        given(csrPolicyService.findViolation(eq(userID), any())).willReturn("Key too small");
+
+        try {
+            sut.saveUploadedCSR(userID, dummyCSRFileName, readDummyCSR());
+            fail("Expected Exception for policy violation!");
+        } catch (IOException e) {
+            assertEquals("CSR rejected: Key too small", e.getMessage());
+        }
+
+        try(Stream<Path> files = Files.list(userDir)) {
+            assertEquals(0, files.count());
+        }
+        verify(inventoryService, never()).refreshUser(userID);
+    }
+
+    private String readDummyCSR() throws IOException {
+        try {
+            return Files.readString(Paths.get(ClassLoader.getSystemResource("dummy.csr.pem").toURI()));
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
     @Test
     public void testIsCertRenewed_notRenewed() throws IOException {
         Path userDir = mock(Path.class);
@@ -482,6 +519,7 @@ public class DefaultUserDataServiceTest {
         verify(filesService, times(1)).isRegularFile(expectedPath);
         verify(filesService, never()).setLastModifiedTime(eq(expectedPath), any(FileTime.class));
         verify(filesService, times(1)).createFile(expectedPath);
+        verify(inventoryService, times(1)).refreshUser("user1");
     }
     
     @AfterClass
@@ -0,0 +1,71 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CsrDetails;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class KeyCsrRuleTest {
+
+    private KeyCsrRule sut;
+    private AppConfig appConfig;
+
+    @Before
+    public void setUp() {
+        appConfig = new AppConfig();
+        sut = new KeyCsrRule();
+        sut.setAppConfig(appConfig);
+    }
+
+    @Test
+    public void testCheckForAllowedKeys() {
+        assertNull(sut.check("user1", null, details("RSA", 2048)));
+        assertNull(sut.check("user1", null, details("RSA", 4096)));
+        assertNull(sut.check("user1", null, details("EC", 256)));
+    }
+
+    @Test
+    public void testCheckForSmallKeys() {
+        assertEquals("Key size of 1024 bits is too small, RSA keys need at least 2048 bits",
+                sut.check("user1", null, details("RSA", 1024)));
+        assertNotNull(sut.check("user1", null, details("EC", 192)));
+
+        appConfig.setCsrMinRsaKeySize(4096);
+        assertNotNull(sut.check("user1", null, details("RSA", 2048)));
+    }
+
+    @Test
+    public void testCheckForDisallowedAlgorithm() {
+        assertNotNull(sut.check("user1", null, details("1.3.101.112", 256)));
+
+        appConfig.setCsrKeyAlgorithms(List.of("EC"));
+        assertEquals("Key algorithm RSA is not allowed, use one of [EC]", sut.check("user1", null, details("RSA", 4096)));
+    }
+
+    private CsrDetails details(final String keyAlgorithm, final int keySize) {
+        return new CsrDetails.Builder().keyAlgorithm(keyAlgorithm).keySize(keySize).build();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.junit.Test;
+
+import java.security.KeyPair;
+
+import static org.junit.Assert.*;
+import static wtf.hmg.pki.csc.util.TestCertHelper.createCsr;
+import static wtf.hmg.pki.csc.util.TestCertHelper.generateKeyPair;
+
+public class SignatureCsrRuleTest {
+
+    private final SignatureCsrRule sut = new SignatureCsrRule();
+
+    @Test
+    public void testCheckForValidSignature() throws Exception {
+        KeyPair keyPair = generateKeyPair();
+        assertNull(sut.check("user1", csr(keyPair, keyPair), null));
+    }
+
+    @Test
+    public void testCheckForSignatureOfOtherKey() throws Exception {
+        assertNotNull(sut.check("user1", csr(generateKeyPair(), generateKeyPair()), null));
+    }
+
+    private PKCS10CertificationRequest csr(final KeyPair subjectKeys, final KeyPair signingKeys) throws Exception {
+        return createCsr(new X500Name("CN=Test"), subjectKeys, signingKeys);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import wtf.hmg.pki.csc.model.ListingPage;
+import wtf.hmg.pki.csc.model.ListingQuery;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SortedListingTest {
+
+    private SortedListing<String> sut;
+
+    @Before
+    public void setUp() {
+        List<String> entries = Arrays.asList("charlie", "alpha", "echo", "bravo", "delta");
+        Map<ListingQuery.SortField, Comparator<String>> comparators = Map.of(
+                ListingQuery.SortField.LAST_MODIFIED, Comparator.comparing(String::length),
+                ListingQuery.SortField.USER, Comparator.naturalOrder());
+
+        sut = new SortedListing<>(entries, comparators, (e, q) -> e.contains(q.getUser()));
+    }
+
+    @Test
+    public void testPageAscending() {
+        ListingQuery query = new ListingQuery.Builder()
+                .sort(ListingQuery.SortField.USER)
+                .descending(false)
+                .size(2)
+                .build();
+
+        ListingPage<String> result = sut.page(query);
+
+        assertEquals(Arrays.asList("alpha", "bravo"), result.getItems());
+        assertEquals(0, result.getPage());
+        assertEquals(5, result.getTotalItems());
+        assertEquals(3, result.getTotalPages());
+        assertEquals(Arrays.asList("echo"), sut.page(query.withPage(2)).getItems());
+    }
+
+    @Test
+    public void testPageDescending() {
+        ListingQuery query = new ListingQuery.Builder()
+                .sort(ListingQuery.SortField.USER)
+                .size(3)
+                .build();
+
+        assertEquals(Arrays.asList("echo", "delta", "charlie"), sut.page(query).getItems());
+    }
+
+    @Test
+    public void testPageForPageBeyondEnd() {
+        ListingQuery query = new ListingQuery.Builder().page(10).size(2).build();
+
+        ListingPage<String> result = sut.page(query);
+
+        assertEquals(2, result.getPage());
+        assertEquals(1, result.getItems().size());
+    }
+
+    @Test
+    public void testPageFiltered() {
+        ListingQuery query = new ListingQuery.Builder()
+                .sort(ListingQuery.SortField.USER)
+                .descending(false)
+                .user("ha")
+                .build();
+
+        ListingPage<String> result = sut.page(query);
+
+        assertEquals(Arrays.asList("alpha", "charlie"), result.getItems());
+        assertEquals(2, result.getTotalItems());
+    }
+
+    @Test
+    public void testPageForNoEntries() {
+        sut = new SortedListing<>(List.of(), Map.of(ListingQuery.SortField.LAST_MODIFIED, Comparator.<String>naturalOrder()),
+                (e, q) -> true);
+
+        ListingPage<String> result = sut.page(new ListingQuery.Builder().page(3).build());
+
+        assertTrue(result.getItems().isEmpty());
+        assertEquals(0, result.getPage());
+        assertEquals(1, result.getTotalPages());
+        assertFalse(result.hasNext());
+    }
+}
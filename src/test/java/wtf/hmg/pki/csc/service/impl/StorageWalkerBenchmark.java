@@ -0,0 +1,128 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.FileSystemUtils;
+import wtf.hmg.pki.csc.util.CscUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the three separate walks of the users folder (pending, signed, revoked) with a single
+ * {@link StorageWalker} traversal on a synthetic tree of 10k users.
+ * Not part of the regular test-run - execute with: <code>mvn test -Dtest=StorageWalkerBenchmark</code>
+ */
+public class StorageWalkerBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageWalkerBenchmark.class);
+
+    private static final int USERS = 10_000;
+    private static final int ROUNDS = 5;
+
+    private static Path tempPath;
+    private static Path usersPath;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        tempPath = Files.createTempDirectory("csc-bench");
+        usersPath = tempPath.resolve("users");
+
+        for(int i = 0; i < USERS; i++) {
+            String user = "user" + i;
+            Path userPath = usersPath.resolve(user);
+            Files.createDirectories(userPath.resolve("accepted"));
+            Files.createDirectories(userPath.resolve("rejected"));
+            Files.createDirectories(userPath.resolve("certs"));
+            Files.write(userPath.resolve("accepted").resolve(user + ".csr.pem"), "DUMMY-CSR".getBytes());
+            Files.write(userPath.resolve("certs").resolve(user + ".crt.pem"), "DUMMY-CERT".getBytes());
+            if(i % 10 == 0) {
+                Files.write(userPath.resolve(user + "-new.csr.pem"), "DUMMY-CSR".getBytes());
+            }
+            if(i % 20 == 0) {
+                Files.write(userPath.resolve("rejected").resolve(user + "-old.csr.pem"), "DUMMY-CSR".getBytes());
+                Files.createDirectories(userPath.resolve("revoked"));
+                Files.write(userPath.resolve("revoked").resolve(user + "-old.crt.pem"), "DUMMY-CERT".getBytes());
+            }
+        }
+    }
+
+    @Test
+    public void compareSeparateWalksAndSinglePass() throws IOException {
+        long separate = 0;
+        long singlePass = 0;
+        int[] separateCounts = null;
+        int[] singlePassCounts = null;
+
+        for(int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            separateCounts = separateWalks();
+            separate += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            singlePassCounts = singlePass();
+            singlePass += System.nanoTime() - start;
+        }
+
+        log.info("three walks: avg {} ms", separate / ROUNDS / 1_000_000);
+        log.info("single pass: avg {} ms", singlePass / ROUNDS / 1_000_000);
+
+        assertEquals(USERS / 10, separateCounts[0]);
+        assertEquals(separateCounts[0], singlePassCounts[0]);
+        assertEquals(separateCounts[1], singlePassCounts[1]);
+        assertEquals(separateCounts[2], singlePassCounts[2]);
+    }
+
+    private int[] separateWalks() throws IOException {
+        try(Stream<Path> pending = Files.find(usersPath, 2, CscUtils::isValidCSRFile);
+            Stream<Path> signed = Files.find(usersPath, 3, CscUtils::isSignedCSRFile);
+            Stream<Path> revoked = Files.find(usersPath, 3, CscUtils::isRevokedCertFile)) {
+            return new int[] { (int) pending.count(), (int) signed.count(), (int) revoked.count() };
+        }
+    }
+
+    private int[] singlePass() throws IOException {
+        StorageWalker walker = new StorageWalker(usersPath);
+        Files.walkFileTree(usersPath, Collections.emptySet(), StorageWalker.USERS_FOLDER_DEPTH, walker);
+
+        int[] counts = new int[3];
+        for(StorageWalker.UserFiles files : walker.getUsers().values()) {
+            counts[0] += files.getPending().size();
+            counts[1] += files.getSigned().size();
+            counts[2] += files.getRevoked().size();
+        }
+        return counts;
+    }
+
+    @AfterClass
+    public static void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(tempPath);
+    }
+}
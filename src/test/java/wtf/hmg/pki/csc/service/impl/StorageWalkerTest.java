@@ -0,0 +1,96 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class StorageWalkerTest {
+
+    private static Path dummyStoragePath;
+    private static Path usersPath;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        dummyStoragePath = Files.createTempDirectory("csc");
+        usersPath = dummyStoragePath.resolve("users");
+        TestPathHelper.initDummyFileStructure(dummyStoragePath);
+    }
+
+    @Test
+    public void testWalkUsersFolder() throws IOException {
+        StorageWalker sut = new StorageWalker(usersPath);
+        Files.walkFileTree(usersPath, Collections.emptySet(), StorageWalker.USERS_FOLDER_DEPTH, sut);
+
+        assertEquals(new HashSet<>(Arrays.asList("user0", "user1", "user2", "user3")), sut.getUsers().keySet());
+        assertTrue(sut.getUser("user0").getPending().isEmpty());
+        assertTrue(sut.getUser("user0").getLastModified().isEmpty());
+
+        StorageWalker.UserFiles user1 = sut.getUser("user1");
+        assertEquals(Collections.singletonList(usersPath.resolve("user1/user1.csr.pem")), user1.getPending());
+        assertEquals(Collections.singletonList(usersPath.resolve("user1/accepted/user1-ac.csr.pem")), user1.getSigned());
+        assertEquals(Collections.singletonList(usersPath.resolve("user1/revoked/user1.crt.pem")), user1.getRevoked());
+        assertEquals(8, user1.getLastModified().size());
+        assertEquals(Files.getLastModifiedTime(usersPath.resolve("user1/certs/user1.crt.pem")),
+                user1.getLastModified().get(usersPath.resolve("user1/certs/user1.crt.pem")));
+
+        assertEquals(1, sut.getUser("user2").getPending().size());
+        assertEquals(1, sut.getUser("user3").getPending().size());
+    }
+
+    @Test
+    public void testWalkUserFolder() throws IOException {
+        StorageWalker sut = new StorageWalker(usersPath);
+        Files.walkFileTree(usersPath.resolve("user1"), Collections.emptySet(), StorageWalker.USER_FOLDER_DEPTH, sut);
+
+        assertEquals(Collections.singleton("user1"), sut.getUsers().keySet());
+        assertEquals(1, sut.getUser("user1").getPending().size());
+        assertEquals(1, sut.getUser("user1").getSigned().size());
+        assertEquals(1, sut.getUser("user1").getRevoked().size());
+    }
+
+    @Test
+    public void testGetUserForUnknownUser() {
+        StorageWalker sut = new StorageWalker(usersPath);
+
+        StorageWalker.UserFiles result = sut.getUser("unknown");
+        assertNotNull(result);
+        assertTrue(result.getPending().isEmpty());
+        assertTrue(result.getSigned().isEmpty());
+        assertTrue(result.getRevoked().isEmpty());
+        assertTrue(sut.getUsers().isEmpty());
+    }
+
+    @AfterClass
+    public static void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(dummyStoragePath);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.model.CsrDetails;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SubjectAltNameCsrRuleTest {
+
+    private SubjectAltNameCsrRule sut;
+    private AppConfig appConfig;
+    private CsrDetails details;
+
+    @Before
+    public void setUp() {
+        appConfig = new AppConfig();
+        sut = new SubjectAltNameCsrRule();
+        sut.setAppConfig(appConfig);
+        details = new CsrDetails.Builder()
+                .subjectAlternativeNames(List.of("email:san.dude@invalid.email", "DNS:san.invalid"))
+                .build();
+    }
+
+    @Test
+    public void testCheckWithoutPolicy() {
+        sut.init();
+        assertNull(sut.check("user1", null, details));
+    }
+
+    @Test
+    public void testCheckForPattern() {
+        appConfig.setCsrSanPattern("(email:[^@]+@invalid\\.email|DNS:.+\\.invalid)");
+        sut.init();
+        assertNull(sut.check("user1", null, details));
+
+        appConfig.setCsrSanPattern("email:.*");
+        sut.init();
+        assertEquals("Subject alternative name DNS:san.invalid does not match email:.*", sut.check("user1", null, details));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.service.impl;
+
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.junit.Before;
+import org.junit.Test;
+import wtf.hmg.pki.csc.config.AppConfig;
+import wtf.hmg.pki.csc.util.CscUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+public class SubjectCsrRuleTest {
+
+    private SubjectCsrRule sut;
+    private AppConfig appConfig;
+    private PKCS10CertificationRequest csr;
+
+    @Before
+    public void setUp() throws IOException {
+        appConfig = new AppConfig();
+        sut = new SubjectCsrRule();
+        sut.setAppConfig(appConfig);
+
+        try(InputStream in = ClassLoader.getSystemResourceAsStream("dummy.csr.pem")) {
+            csr = CscUtils.readCSR(in);
+        }
+    }
+
+    @Test
+    public void testCheckWithoutPolicy() throws IOException {
+        sut.init();
+        assertNull(sut.check("someone_else.invalid", csr, CscUtils.extractCSRDetails(csr)));
+    }
+
+    @Test
+    public void testCheckForSubjectPattern() throws IOException {
+        appConfig.setCsrSubjectPattern(".*,O=Überflieger Company,.*");
+        sut.init();
+        assertNull(sut.check("postal.dude_invalid.email", csr, CscUtils.extractCSRDetails(csr)));
+
+        appConfig.setCsrSubjectPattern("CN=.*");
+        sut.init();
+        assertNotNull(sut.check("postal.dude_invalid.email", csr, CscUtils.extractCSRDetails(csr)));
+    }
+
+    @Test
+    public void testCheckForEmailOfUser() throws IOException {
+        appConfig.setCsrSubjectEmailMatchesUser(true);
+        sut.init();
+
+        assertNull(sut.check("postal.dude_invalid.email", csr, CscUtils.extractCSRDetails(csr)));
+        assertEquals("Subject does not contain the email address of user someone_else.invalid",
+                sut.check("someone_else.invalid", csr, CscUtils.extractCSRDetails(csr)));
+    }
+}
@@ -54,6 +54,12 @@ public class AuditLogTest {
 		verify(auditLogger, times(1)).info("Operator '{}' SIGNED CSR '{}' of user '{}'", dummyOperatingUser, dummyCertName, dummyCertUser);
 	}
 	
+	@Test
+	public void testLogFailedSignCSR() {
+		sut.logFailedSignCSR(dummyOperatingUser, dummyCertName, dummyCertUser, "narf");
+		verify(auditLogger, times(1)).warn("Operator '{}' FAILED to sign CSR '{}' of user '{}': {}", dummyOperatingUser, dummyCertName, dummyCertUser, "narf");
+	}
+	
 	@Test
 	public void testLogRejectedCSR() {
 		sut.logRejectedCSR(dummyOperatingUser, dummyCertName, dummyCertUser);
@@ -24,8 +24,13 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import wtf.hmg.pki.csc.model.CertDetails;
+import wtf.hmg.pki.csc.model.CsrDetails;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -33,6 +38,7 @@ import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
 import java.time.temporal.Temporal;
+import java.util.Arrays;
 
 import static org.junit.Assert.*;
 import static org.mockito.BDDMockito.given;
@@ -116,6 +122,22 @@ public class CscUtilsTest {
         assertFalse(CscUtils.validateCSR(dummyInvalidCSR));
     }
     
+    @Test
+    public void testValidateCSRStream() throws URISyntaxException, IOException {
+        Path dummyCSR = Paths.get(ClassLoader.getSystemResource("dummy.csr.pem").toURI());
+        Path dummyCert = Paths.get(ClassLoader.getSystemResource("dummy.crt.pem").toURI());
+
+        try(InputStream in = Files.newInputStream(dummyCSR)) {
+            assertTrue(CscUtils.validateCSR(in));
+            // throws, if the stream got closed
+            in.read();
+        }
+        try(InputStream in = Files.newInputStream(dummyCert)) {
+            assertFalse(CscUtils.validateCSR(in));
+        }
+        assertFalse(CscUtils.validateCSR(new ByteArrayInputStream("NARF".getBytes())));
+    }
+    
     @Test
     public void testValidateCSRForInvalidFile() {
         Path dummyInvalidCSR = Paths.get("/invalid");
@@ -143,6 +165,33 @@ public class CscUtilsTest {
         assertEquals(expectedResult, info);
     }
 
+    @Test
+    public void testExtractCSRDetails() throws URISyntaxException {
+        Path dummyCSR = Paths.get(ClassLoader.getSystemResource("dummy.csr.pem").toURI());
+
+        CsrDetails details = CscUtils.extractCSRDetails(dummyCSR);
+
+        assertNotNull(details);
+        assertEquals("C=DE,ST=NRW,L=Paradise City,O=Überflieger Company,OU=Test,CN=Postal Dude,E=postal.dude@invalid.email", details.getSubject());
+        assertEquals("RSA", details.getKeyAlgorithm());
+        assertEquals(4096, details.getKeySize());
+        assertTrue(details.getSubjectAlternativeNames().isEmpty());
+    }
+
+    @Test
+    public void testExtractCSRDetailsWithSubjectAlternativeNames() throws URISyntaxException {
+        Path dummyCSR = Paths.get(ClassLoader.getSystemResource("dummy.san.csr.pem").toURI());
+
+        CsrDetails details = CscUtils.extractCSRDetails(dummyCSR);
+
+        assertNotNull(details);
+        assertEquals("C=DE,O=Test,CN=San Dude,E=san.dude@invalid.email", details.getSubject());
+        assertEquals("EC", details.getKeyAlgorithm());
+        assertEquals(256, details.getKeySize());
+        assertEquals(Arrays.asList("email:san.dude@invalid.email", "DNS:san.invalid", "IP:10.0.0.1"),
+                details.getSubjectAlternativeNames());
+    }
+
     @Test
     public void testNormalizeUserName() {
         assertEquals("testuser", CscUtils.normalizeUserName("testuser"));
@@ -166,4 +215,25 @@ public class CscUtilsTest {
         assertNotNull(result);
         assertEquals(expectedResult, result);
     }
+
+    @Test
+    public void testExtractCertDetails() throws URISyntaxException {
+        Path dummyCert = Paths.get(ClassLoader.getSystemResource("dummy.crt.pem").toURI());
+
+        CertDetails result = CscUtils.extractCertDetails(dummyCert);
+
+        assertNotNull(result);
+        assertEquals("C=DE,ST=NRW,O=Handelsblatt Media Group GmbH & Co. KG,OU=DevOps,CN=Demouser", result.getSubject());
+        assertEquals("C=DE,ST=NRW,O=Handelsblatt Media Group GmbH & Co. KG,CN=intermediate", result.getIssuer());
+        assertEquals("1003", result.getSerial());
+        assertEquals(Instant.parse("2020-03-05T09:09:53.00Z"), result.getNotBefore());
+        assertEquals(Instant.parse("2022-03-05T09:09:53.00Z"), result.getNotAfter());
+        assertEquals("2A7A835FE6FC433AFBFD240E7D23A6506CDE05E790F0B30FBCB9D323AC08A848", result.getFingerprint());
+    }
+
+    @Test
+    public void testToSerialHex() {
+        assertEquals("1003", CscUtils.toSerialHex(BigInteger.valueOf(0x1003)));
+        assertEquals("0ABC", CscUtils.toSerialHex(BigInteger.valueOf(0xabc)));
+    }
 }
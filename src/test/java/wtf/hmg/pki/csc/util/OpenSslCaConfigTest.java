@@ -0,0 +1,88 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class OpenSslCaConfigTest {
+
+    private static final String DUMMY_CONFIG = "# OpenSSL intermediate CA configuration file.\n" +
+            "HOME = .\n" +
+            "\n" +
+            "[ ca ]\n" +
+            "# `man ca`\n" +
+            "default_ca = CA_default\n" +
+            "\n" +
+            "[ CA_default ]\n" +
+            "# Directory and file locations.\n" +
+            "dir               = intermediate\n" +
+            "certs             = $dir/certs\n" +
+            "database          = $dir/index.txt\n" +
+            "serial            = ${dir}/serial\n" +
+            "private_key       = $dir/private/intermediate.key.pem   # the CA key\n" +
+            "certificate       = $certs/intermediate.cert.pem\n" +
+            "default_md        = sha256\n" +
+            "\n" +
+            "[ usr_cert ]\n" +
+            "basicConstraints = CA:FALSE\n" +
+            "certificate = nope\n";
+
+    @Test
+    public void testGetCaValue() {
+        OpenSslCaConfig sut = OpenSslCaConfig.parse(DUMMY_CONFIG);
+
+        assertEquals("intermediate", sut.getCaValue("dir"));
+        assertEquals("intermediate/private/intermediate.key.pem", sut.getCaValue("private_key"));
+        assertEquals("intermediate/certs/intermediate.cert.pem", sut.getCaValue("certificate"));
+        assertEquals("intermediate/serial", sut.getCaValue("serial"));
+        assertEquals("sha256", sut.getCaValue("default_md"));
+        assertEquals(".", sut.getCaValue("HOME"));
+        assertNull(sut.getCaValue("basicConstraints"));
+    }
+
+    @Test
+    public void testGetSection() {
+        OpenSslCaConfig sut = OpenSslCaConfig.parse(DUMMY_CONFIG + "[ policy ]\ncommonName = supplied\ncountryName = optional\n");
+
+        assertEquals(Arrays.asList("commonName", "countryName"), new ArrayList<>(sut.getSection("policy").keySet()));
+        assertEquals("supplied", sut.getSection("policy").get("commonName"));
+        assertEquals("intermediate/certs", sut.getSection("CA_default").get("certs"));
+        assertTrue(sut.getSection("nope").isEmpty());
+    }
+
+    @Test
+    public void testGetCaValueForCustomSection() {
+        OpenSslCaConfig sut = OpenSslCaConfig.parse("[ca]\ndefault_ca=my_ca\n[my_ca]\nprivate_key=\"/abs/key.pem\"\n");
+
+        assertEquals("/abs/key.pem", sut.getCaValue("private_key"));
+    }
+
+    @Test
+    public void testGetCaValueForEmptyConfig() {
+        OpenSslCaConfig sut = OpenSslCaConfig.parse("");
+
+        assertNull(sut.getCaValue("private_key"));
+    }
+}
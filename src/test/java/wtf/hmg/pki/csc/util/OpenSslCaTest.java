@@ -0,0 +1,326 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.util;
+
+import org.bouncycastle.asn1.DERIA5String;
+import org.bouncycastle.asn1.misc.MiscObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.X500NameBuilder;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
+import org.bouncycastle.asn1.x509.CRLNumber;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.cert.X509CRLEntryHolder;
+import org.bouncycastle.cert.X509CRLHolder;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openssl.PEMParser;
+import org.bouncycastle.openssl.jcajce.JcaPKCS8Generator;
+import org.bouncycastle.openssl.jcajce.JceOpenSSLPKCS8EncryptorBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyPair;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static wtf.hmg.pki.csc.util.TestCertHelper.*;
+
+public class OpenSslCaTest {
+
+    private static final char[] CA_PASSWORD = "ZORT".toCharArray();
+    private static final X500Name CA_NAME = new X500Name("CN=Test Intermediate,O=HMG,C=DE");
+
+    private Path workDir;
+    private KeyPair caKeyPair;
+    private OpenSslCa sut;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("csc-ca");
+        Path intermediate = workDir.resolve("intermediate");
+        Files.createDirectories(intermediate.resolve("private"));
+        Files.createDirectories(intermediate.resolve("certs"));
+        Files.createDirectories(intermediate.resolve("newcerts"));
+        Files.write(intermediate.resolve("index.txt"), new byte[0]);
+        Files.write(intermediate.resolve("serial"), "1000\n".getBytes(StandardCharsets.US_ASCII));
+        Files.copy(Paths.get(ClassLoader.getSystemResource("dummy.openssl.cnf").toURI()), intermediate.resolve("openssl.cnf"));
+
+        caKeyPair = generateKeyPair();
+        X509CertificateHolder caCert = createCaCertificate(CA_NAME, caKeyPair);
+        Files.write(intermediate.resolve("certs/intermediate.cert.pem"), toPem(caCert));
+        Files.write(intermediate.resolve("private/intermediate.key.pem"), toPem(new JcaPKCS8Generator(caKeyPair.getPrivate(),
+                new JceOpenSSLPKCS8EncryptorBuilder(JcaPKCS8Generator.AES_256_CBC).setProvider(new BouncyCastleProvider()).setPassword(CA_PASSWORD).build())));
+
+        sut = OpenSslCa.load(workDir, "intermediate/openssl.cnf");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(workDir);
+    }
+
+    @Test
+    public void testSign() throws Exception {
+        Path csr = writeCsr("user1", new X500NameBuilder()
+                .addRDN(BCStyle.CN, "user1")
+                .addRDN(BCStyle.STREET, "Somewhere 1")
+                .addRDN(BCStyle.EmailAddress, "user1@example.com")
+                .addRDN(BCStyle.O, "HMG")
+                .addRDN(BCStyle.C, "DE").build());
+        Path certFile = workDir.resolve("intermediate/certs/user1.crt.pem");
+
+        X509CertificateHolder result = sut.sign(csr, certFile, CA_PASSWORD, 730);
+
+        assertTrue(result.isSignatureValid(new JcaContentVerifierProviderBuilder().build(caKeyPair.getPublic())));
+        assertEquals(CA_NAME, result.getIssuer());
+        assertEquals("C=DE,O=HMG,CN=user1,E=user1@example.com", result.getSubject().toString());
+        assertEquals(BigInteger.valueOf(0x1000), result.getSerialNumber());
+        assertEquals(730, ChronoUnit.DAYS.between(result.getNotBefore().toInstant(), result.getNotAfter().toInstant()));
+        assertEquals("1.2.840.113549.1.1.11", result.getSignatureAlgorithm().getAlgorithm().getId());
+
+        assertFalse(BasicConstraints.fromExtensions(result.getExtensions()).isCA());
+        assertTrue(result.getExtension(Extension.keyUsage).isCritical());
+        assertEquals(new KeyUsage(KeyUsage.nonRepudiation | KeyUsage.digitalSignature | KeyUsage.keyEncipherment),
+                KeyUsage.fromExtensions(result.getExtensions()));
+        ExtendedKeyUsage extendedKeyUsage = ExtendedKeyUsage.fromExtensions(result.getExtensions());
+        assertTrue(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_clientAuth));
+        assertTrue(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_emailProtection));
+        assertNotNull(result.getExtension(MiscObjectIdentifiers.netscapeCertType));
+        assertEquals("OpenSSL Generated Client Certificate",
+                DERIA5String.getInstance(result.getExtension(MiscObjectIdentifiers.netscapeCertComment).getParsedValue()).getString());
+        assertNull(result.getExtension(Extension.authorityInfoAccess));
+        assertNotNull(SubjectKeyIdentifier.fromExtensions(result.getExtensions()));
+        assertArrayEquals(new JcaX509ExtensionUtils().createSubjectKeyIdentifier(caKeyPair.getPublic()).getKeyIdentifier(),
+                AuthorityKeyIdentifier.fromExtensions(result.getExtensions()).getKeyIdentifier());
+
+        assertArrayEquals(Files.readAllBytes(certFile), Files.readAllBytes(workDir.resolve("intermediate/newcerts/1000.pem")));
+        assertEquals("1001\n", new String(Files.readAllBytes(workDir.resolve("intermediate/serial"))));
+        assertEquals("1000\n", new String(Files.readAllBytes(workDir.resolve("intermediate/serial.old"))));
+        assertEquals("unique_subject = yes\n", new String(Files.readAllBytes(workDir.resolve("intermediate/index.txt.attr"))));
+        List<String> index = Files.readAllLines(workDir.resolve("intermediate/index.txt"));
+        assertEquals(1, index.size());
+        assertTrue(index.get(0).matches("V\t\\d{12}Z\t\t1000\tunknown\t/C=DE/O=HMG/CN=user1/emailAddress=user1@example.com"));
+    }
+
+    @Test
+    public void testSignWithExtensionsOfUsrCert() throws Exception {
+        givenUsrCert("basicConstraints = CA:FALSE",
+                "keyUsage = critical, digitalSignature",
+                "extendedKeyUsage = serverAuth, 1.3.6.1.4.1.311.20.2.2",
+                "crlDistributionPoints = URI:https://pki.example.com/list.crl",
+                "authorityInfoAccess = OCSP;URI:https://pki.example.com/ocsp");
+
+        X509CertificateHolder result = sut.sign(writeCsr("user1", new X500Name("CN=user1")),
+                workDir.resolve("intermediate/certs/user1.crt.pem"), CA_PASSWORD, 730);
+
+        assertEquals(new KeyUsage(KeyUsage.digitalSignature), KeyUsage.fromExtensions(result.getExtensions()));
+        ExtendedKeyUsage extendedKeyUsage = ExtendedKeyUsage.fromExtensions(result.getExtensions());
+        assertTrue(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_serverAuth));
+        assertFalse(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_clientAuth));
+        assertEquals(2, extendedKeyUsage.size());
+        assertEquals("https://pki.example.com/list.crl", ((GeneralNames) CRLDistPoint.fromExtensions(result.getExtensions())
+                .getDistributionPoints()[0].getDistributionPoint().getName()).getNames()[0].getName().toString());
+        AccessDescription ocsp = AuthorityInformationAccess.fromExtensions(result.getExtensions()).getAccessDescriptions()[0];
+        assertEquals(AccessDescription.id_ad_ocsp, ocsp.getAccessMethod());
+        assertEquals("https://pki.example.com/ocsp", ocsp.getAccessLocation().getName().toString());
+        assertNull(result.getExtension(MiscObjectIdentifiers.netscapeCertType));
+        assertNull(result.getExtension(Extension.subjectKeyIdentifier));
+    }
+
+    @Test
+    public void testSignRejectsUnsupportedExtension() throws Exception {
+        givenUsrCert("basicConstraints = CA:FALSE", "subjectAltName = email:copy");
+
+        try {
+            sut.sign(writeCsr("user1", new X500Name("CN=user1")), workDir.resolve("intermediate/certs/user1.crt.pem"), CA_PASSWORD, 730);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("subjectAltName"));
+        }
+        assertEquals("1000\n", new String(Files.readAllBytes(workDir.resolve("intermediate/serial"))));
+        assertFalse(Files.exists(workDir.resolve("intermediate/certs/user1.crt.pem")));
+    }
+
+    @Test
+    public void testSignEscapesNonAsciiSubjectInIndex() throws Exception {
+        Path certFile = workDir.resolve("intermediate/certs/dummy.crt.pem");
+
+        sut.sign(Paths.get(ClassLoader.getSystemResource("dummy.csr.pem").toURI()), certFile, CA_PASSWORD, 730);
+
+        List<String> index = Files.readAllLines(workDir.resolve("intermediate/index.txt"));
+        assertTrue(index.get(0).endsWith("\tunknown\t/C=DE/ST=NRW/L=Paradise City/O=\\xC3\\x9Cberflieger Company/OU=Test/CN=Postal Dude/emailAddress=postal.dude@invalid.email"));
+    }
+
+    @Test
+    public void testSignTwiceIncrementsSerial() throws Exception {
+        sut.sign(writeCsr("user1", new X500Name("CN=user1")), workDir.resolve("intermediate/certs/user1.crt.pem"), CA_PASSWORD, 730);
+        X509CertificateHolder result = sut.sign(writeCsr("user2", new X500Name("CN=user2")),
+                workDir.resolve("intermediate/certs/user2.crt.pem"), CA_PASSWORD, 730);
+
+        assertEquals(BigInteger.valueOf(0x1001), result.getSerialNumber());
+        assertEquals("1002\n", new String(Files.readAllBytes(workDir.resolve("intermediate/serial"))));
+        assertTrue(Files.exists(workDir.resolve("intermediate/newcerts/1001.pem")));
+        assertEquals(2, Files.readAllLines(workDir.resolve("intermediate/index.txt")).size());
+        assertEquals(1, Files.readAllLines(workDir.resolve("intermediate/index.txt.old")).size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSignRejectsDuplicateSubject() throws Exception {
+        sut.sign(writeCsr("user1", new X500Name("CN=user1")), workDir.resolve("intermediate/certs/user1.crt.pem"), CA_PASSWORD, 730);
+        sut.sign(writeCsr("user1-again", new X500Name("CN=user1")), workDir.resolve("intermediate/certs/user1-again.crt.pem"), CA_PASSWORD, 730);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSignRejectsMissingSuppliedField() throws Exception {
+        sut.sign(writeCsr("nocn", new X500Name("O=HMG")), workDir.resolve("intermediate/certs/nocn.crt.pem"), CA_PASSWORD, 730);
+    }
+
+    @Test
+    public void testSignWithWrongPassword() throws Exception {
+        Path csr = writeCsr("user1", new X500Name("CN=user1"));
+
+        try {
+            sut.sign(csr, workDir.resolve("intermediate/certs/user1.crt.pem"), "NARF".toCharArray(), 730);
+            fail("Signing with a wrong CA-password must fail");
+        } catch (IllegalStateException | IOException e) {
+            assertEquals("1000\n", new String(Files.readAllBytes(workDir.resolve("intermediate/serial"))));
+            assertTrue(Files.readAllLines(workDir.resolve("intermediate/index.txt")).isEmpty());
+        }
+    }
+
+    @Test
+    public void testGenerateDeltaCrl() throws Exception {
+        Files.write(workDir.resolve("intermediate/index.txt"), String.join("\n",
+                "R\t300101000000Z\t240101120000Z\t1000\tunknown\t/CN=user1",
+                "R\t300101000000Z\t240102120000Z,keyCompromise\t1001\tunknown\t/CN=user2",
+                "V\t300101000000Z\t\t1002\tunknown\t/CN=user3",
+                "R\t300101000000Z\t240103120000Z\t1003\tunknown\t/CN=user4", "").getBytes(StandardCharsets.UTF_8));
+        Files.write(workDir.resolve("intermediate/crlnumber"), "1001\n".getBytes(StandardCharsets.US_ASCII));
+        Instant baseNextUpdate = Instant.now().plus(7, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        Path baseCrl = writeCrl(caKeyPair, BigInteger.valueOf(0x1000), baseNextUpdate, BigInteger.valueOf(0x1000));
+        Path deltaCrl = workDir.resolve("delta.crl");
+
+        X509CRLHolder result = sut.generateDeltaCrl(baseCrl, deltaCrl, CA_PASSWORD);
+
+        assertTrue(result.isSignatureValid(new JcaContentVerifierProviderBuilder().build(caKeyPair.getPublic())));
+        assertEquals(CA_NAME, result.getIssuer());
+        assertEquals(baseNextUpdate, result.getNextUpdate().toInstant());
+        assertEquals(BigInteger.valueOf(0x1001), CRLNumber.getInstance(result.getExtension(Extension.cRLNumber).getParsedValue()).getCRLNumber());
+        assertTrue(result.getExtension(Extension.deltaCRLIndicator).isCritical());
+        assertEquals(BigInteger.valueOf(0x1000), CRLNumber.getInstance(result.getExtension(Extension.deltaCRLIndicator).getParsedValue()).getCRLNumber());
+
+        assertEquals(2, result.getRevokedCertificates().size());
+        assertNull(result.getRevokedCertificate(BigInteger.valueOf(0x1000)));
+        X509CRLEntryHolder compromised = result.getRevokedCertificate(BigInteger.valueOf(0x1001));
+        assertEquals(Instant.parse("2024-01-02T12:00:00Z"), compromised.getRevocationDate().toInstant());
+        assertEquals(CRLReason.lookup(CRLReason.keyCompromise), CRLReason.getInstance(compromised.getExtensions().getExtensionParsedValue(Extension.reasonCode)));
+        assertNotNull(result.getRevokedCertificate(BigInteger.valueOf(0x1003)));
+
+        assertEquals(readPemCrl(deltaCrl), result);
+        assertEquals("1002\n", new String(Files.readAllBytes(workDir.resolve("intermediate/crlnumber"))));
+        assertEquals("1001\n", new String(Files.readAllBytes(workDir.resolve("intermediate/crlnumber.old"))));
+    }
+
+    @Test
+    public void testGenerateDeltaCrlForOutdatedBase() throws Exception {
+        Files.write(workDir.resolve("intermediate/crlnumber"), "1001\n".getBytes(StandardCharsets.US_ASCII));
+        Path baseCrl = writeCrl(caKeyPair, BigInteger.valueOf(0x1000), Instant.now().minus(1, ChronoUnit.DAYS));
+        Path deltaCrl = workDir.resolve("delta.crl");
+
+        try {
+            sut.generateDeltaCrl(baseCrl, deltaCrl, CA_PASSWORD);
+            fail("A delta CRL must not be issued against an outdated CRL");
+        } catch (IllegalStateException e) {
+            assertFalse(Files.exists(deltaCrl));
+            assertEquals("1001\n", new String(Files.readAllBytes(workDir.resolve("intermediate/crlnumber"))));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGenerateDeltaCrlForBaseOfOtherCa() throws Exception {
+        Files.write(workDir.resolve("intermediate/crlnumber"), "1001\n".getBytes(StandardCharsets.US_ASCII));
+        Path baseCrl = writeCrl(generateKeyPair(), BigInteger.valueOf(0x1000), Instant.now().plus(1, ChronoUnit.DAYS));
+
+        sut.generateDeltaCrl(baseCrl, workDir.resolve("delta.crl"), CA_PASSWORD);
+    }
+
+    private Path writeCrl(final KeyPair signer, final BigInteger number, final Instant nextUpdate,
+                          final BigInteger... revoked) throws Exception {
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(CA_NAME, new Date());
+        builder.setNextUpdate(Date.from(nextUpdate));
+        builder.addExtension(Extension.cRLNumber, false, new CRLNumber(number));
+        for(BigInteger serial : revoked) {
+            builder.addCRLEntry(serial, new Date(), CRLReason.unspecified);
+        }
+        Path crl = workDir.resolve("base.crl");
+        Files.write(crl, toPem(builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(signer.getPrivate()))));
+        return crl;
+    }
+
+    private void givenUsrCert(final String... lines) throws IOException {
+        Path config = workDir.resolve("intermediate/openssl.cnf");
+        String content = new String(Files.readAllBytes(config), StandardCharsets.UTF_8);
+        String usrCert = content.substring(content.indexOf("[ usr_cert ]"));
+        int end = usrCert.indexOf("\n[", 1);
+        content = content.replace(end > 0 ? usrCert.substring(0, end) : usrCert,
+                "[ usr_cert ]\n" + String.join("\n", lines) + "\n");
+        Files.write(config, content.getBytes(StandardCharsets.UTF_8));
+        sut = OpenSslCa.load(workDir, "intermediate/openssl.cnf");
+    }
+
+    private Path writeCsr(final String name, final X500Name subject) throws Exception {
+        KeyPair keyPair = generateKeyPair();
+        Path csr = workDir.resolve(name + ".csr.pem");
+        Files.write(csr, toPem(createCsr(subject, keyPair, keyPair)));
+        return csr;
+    }
+
+    private X509CRLHolder readPemCrl(final Path crl) throws IOException {
+        try (PEMParser parser = new PEMParser(Files.newBufferedReader(crl, StandardCharsets.US_ASCII))) {
+            return (X509CRLHolder) parser.readObject();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.util;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+public class OpenSslCipherTest {
+
+    private static final String DUMMY_SALT = "CEED";
+    private static final String DUMMY_PASSWORD = "NARF";
+
+    @Test
+    public void testParseSalt() throws IOException {
+        assertArrayEquals(Hex.decode("CEED000000000000"), OpenSslCipher.parseSalt("CEED"));
+        assertArrayEquals(Hex.decode("0123456789ABCDEF"), OpenSslCipher.parseSalt("0123456789ABCDEF0011"));
+        assertArrayEquals(Hex.decode("ABC0000000000000"), OpenSslCipher.parseSalt("ABC"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testParseSaltForInvalidHex() throws IOException {
+        OpenSslCipher.parseSalt("NOPE");
+    }
+
+    @Test
+    public void testDeriveKeyAndIv() throws IOException {
+        byte[] result = OpenSslCipher.deriveKeyAndIv(DUMMY_PASSWORD, OpenSslCipher.parseSalt(DUMMY_SALT));
+
+        // reference values from: openssl enc -aes256 -S CEED -pbkdf2 -iter 20000 -pass pass:NARF -P
+        assertEquals("F3F404D5ABC2D888ADD1133ED9B3CCA77E4317369462D16FE70539643184E21D" +
+                        "D00113672386E8CE59518BECD6835719",
+                Hex.toHexString(result).toUpperCase());
+    }
+
+    @Test
+    public void testEncryptMatchesOpenssl() throws IOException, URISyntaxException {
+        byte[] keyAndIv = OpenSslCipher.deriveKeyAndIv(DUMMY_PASSWORD, OpenSslCipher.parseSalt(DUMMY_SALT));
+
+        assertArrayEquals(resource("dummy.encrypted.txt"),
+                OpenSslCipher.encrypt(resource("dummy.decrypted.txt"), keyAndIv));
+        assertArrayEquals(resource("dummy.crt.encrypted.txt"),
+                OpenSslCipher.encrypt(resource("dummy.crt.pem"), keyAndIv));
+    }
+
+    @Test
+    public void testDecryptOpensslFiles() throws IOException, URISyntaxException {
+        byte[] salt = OpenSslCipher.parseSalt(DUMMY_SALT);
+
+        assertArrayEquals(resource("dummy.decrypted.txt"),
+                OpenSslCipher.decrypt(resource("dummy.encrypted.txt"), DUMMY_PASSWORD, salt));
+        assertArrayEquals(resource("dummy.crt.pem"),
+                OpenSslCipher.decrypt(resource("dummy.crt.encrypted.txt"), DUMMY_PASSWORD, salt));
+    }
+
+    @Test
+    public void testDecryptWithSaltHeader() throws IOException, URISyntaxException {
+        byte[] otherSalt = OpenSslCipher.parseSalt("0000");
+
+        assertArrayEquals(resource("dummy.decrypted.txt"),
+                OpenSslCipher.decrypt(resource("dummy.encrypted.salted.txt"), DUMMY_PASSWORD, otherSalt));
+    }
+
+    @Test
+    public void testIsSalted() throws IOException, URISyntaxException {
+        assertTrue(OpenSslCipher.isSalted(resource("dummy.encrypted.salted.txt")));
+        assertFalse(OpenSslCipher.isSalted(resource("dummy.encrypted.txt")));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] salt = OpenSslCipher.parseSalt(DUMMY_SALT);
+        byte[] plain = "some\nmulti-line\ncontent".getBytes(StandardCharsets.UTF_8);
+
+        byte[] encrypted = OpenSslCipher.encrypt(plain, OpenSslCipher.deriveKeyAndIv(DUMMY_PASSWORD, salt));
+
+        assertArrayEquals(plain, OpenSslCipher.decrypt(encrypted, DUMMY_PASSWORD, salt));
+    }
+
+    @Test
+    public void testDecryptForWrongPassword() throws IOException, URISyntaxException {
+        try {
+            OpenSslCipher.decrypt(resource("dummy.crt.encrypted.txt"), "ZORT", OpenSslCipher.parseSalt(DUMMY_SALT));
+            fail();
+        } catch (IOException e) {
+            assertEquals("Unable to decrypt data!", e.getMessage());
+        }
+    }
+
+    private byte[] resource(final String name) throws IOException, URISyntaxException {
+        return Files.readAllBytes(Paths.get(ClassLoader.getSystemResource(name).toURI()));
+    }
+}
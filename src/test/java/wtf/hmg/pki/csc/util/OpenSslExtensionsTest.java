@@ -0,0 +1,92 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.util;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static wtf.hmg.pki.csc.util.TestCertHelper.createCaCertificate;
+import static wtf.hmg.pki.csc.util.TestCertHelper.generateKeyPair;
+
+public class OpenSslExtensionsTest {
+
+    private static KeyPair keyPair;
+    private static X509CertificateHolder caCert;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        keyPair = generateKeyPair();
+        caCert = createCaCertificate(new X500Name("CN=Test CA"), keyPair);
+    }
+
+    @Test
+    public void testCreateInOrderOfSection() throws Exception {
+        Map<String, String> section = new LinkedHashMap<>();
+        section.put("keyUsage", "critical, digitalSignature, keyEncipherment");
+        section.put("basicConstraints", "critical, CA:TRUE, pathlen:0");
+        section.put("authorityKeyIdentifier", "keyid:always");
+
+        List<Extension> result = create(section);
+
+        assertEquals(3, result.size());
+        assertEquals(Extension.keyUsage, result.get(0).getExtnId());
+        assertTrue(result.get(0).isCritical());
+        BasicConstraints basicConstraints = BasicConstraints.getInstance(result.get(1).getParsedValue());
+        assertTrue(basicConstraints.isCA());
+        assertEquals(0, basicConstraints.getPathLenConstraint().intValue());
+        assertEquals(Extension.authorityKeyIdentifier, result.get(2).getExtnId());
+        assertFalse(result.get(2).isCritical());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCreateForMissingSection() throws Exception {
+        create(Collections.emptyMap());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCreateForSectionReference() throws Exception {
+        create(Collections.singletonMap("crlDistributionPoints", "@crl_section"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCreateForUnknownKeyUsage() throws Exception {
+        create(Collections.singletonMap("keyUsage", "digitalSignature, narf"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCreateForIssuerAndSerial() throws Exception {
+        create(Collections.singletonMap("authorityKeyIdentifier", "issuer:always"));
+    }
+
+    private List<Extension> create(final Map<String, String> section) throws Exception {
+        return new OpenSslExtensions("usr_cert", section).create(caCert.getSubjectPublicKeyInfo(), caCert);
+    }
+}
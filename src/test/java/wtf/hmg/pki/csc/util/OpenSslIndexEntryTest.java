@@ -0,0 +1,69 @@
+/*
+ Copyright (C) 2026, Martin Drößler <m.droessler@handelsblattgroup.com>
+ Copyright (C) 2026, Handelsblatt GmbH
+
+ This file is part of pki-web / client-certificate-webapp
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package wtf.hmg.pki.csc.util;
+
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.time.Instant;
+
+import static org.junit.Assert.*;
+
+public class OpenSslIndexEntryTest {
+
+    @Test
+    public void testParseValid() {
+        OpenSslIndexEntry result = OpenSslIndexEntry.parse("V\t240218141316Z\t\t1001\tunknown\t/C=DE/CN=PINKY");
+
+        assertNotNull(result);
+        assertTrue(result.isValid());
+        assertFalse(result.isRevoked());
+        assertEquals(BigInteger.valueOf(0x1001), result.getSerial());
+        assertNull(result.getRevocationDate());
+    }
+
+    @Test
+    public void testParseRevoked() {
+        OpenSslIndexEntry result = OpenSslIndexEntry.parse("R\t240218141316Z\t220301120000Z\t10AB\tunknown\t/C=DE/CN=PINKY");
+
+        assertNotNull(result);
+        assertTrue(result.isRevoked());
+        assertEquals(BigInteger.valueOf(0x10AB), result.getSerial());
+        assertEquals(Instant.parse("2022-03-01T12:00:00Z"), result.getRevocationDate());
+        assertEquals(CRLReason.unspecified, result.getRevocationReason());
+    }
+
+    @Test
+    public void testParseRevokedWithReasonAndGeneralizedTime() {
+        OpenSslIndexEntry result = OpenSslIndexEntry.parse("R\t20600218141316Z\t20500301120000Z,superseded\t1001\tunknown\t/CN=BRAIN");
+
+        assertNotNull(result);
+        assertEquals(Instant.parse("2050-03-01T12:00:00Z"), result.getRevocationDate());
+        assertEquals(CRLReason.superseded, result.getRevocationReason());
+    }
+
+    @Test
+    public void testParseInvalid() {
+        assertNull(OpenSslIndexEntry.parse(""));
+        assertNull(OpenSslIndexEntry.parse("V\t240218141316Z\t\tZORT\tunknown\t/CN=PINKY"));
+        assertNull(OpenSslIndexEntry.parse("R\t240218141316Z\tNARF\t1001\tunknown\t/CN=PINKY"));
+    }
+}